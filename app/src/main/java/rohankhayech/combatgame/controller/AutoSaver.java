@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.io.*;
+import java.util.*;
+
+import rohankhayech.combatgame.view.View;
+
+/**
+ * Saves game sessions to a journal on a background thread, so the game never waits for the disk.
+ *
+ * Snapshots and committed actions are submitted by the game and written later by the saver's thread. While waiting to
+ * be written, the submissions of each session are coalesced: a snapshot replaces the pending snapshot and actions of
+ * its session, since it already includes them, and the actions after it are joined into a single record. So however
+ * far the disk falls behind, each session has at most one snapshot and one record of actions waiting.
+ *
+ * The pending submissions are double-buffered. The game adds to one set while the thread writes the other, and the
+ * two are swapped whenever the thread is ready to write more, so the game only holds the lock while it copies in a
+ * submission. Every record of a swapped set is submitted to the journal before waiting for any of them, so they are
+ * written together with a single {@code fsync}.
+ *
+ * @author Rohan Khayech
+ * @see SessionJournal
+ */
+class AutoSaver implements Closeable
+{
+    /** The journal to save in. */
+    private final Journal journal;
+
+    /** The submissions waiting to be written, by session. */
+    private Map<Integer, Pending> pending;
+    /** The submissions being written by the thread, by session. */
+    private Map<Integer, Pending> writing;
+    /** The ids of the sessions that have ended, for which nothing more is saved. */
+    private final Set<Integer> ended;
+
+    /** The thread writing the submissions, or {@code null} if not started. */
+    private Thread thread;
+    /** Whether the saver has been closed, so the thread stops once it has written every submission. */
+    private boolean closed;
+    /** Whether a submission could not be written, after which nothing more is saved. */
+    private boolean failed;
+
+    /**
+     * Constructs a saver for the specified journal, which does not write until it is started.
+     * @param journal The journal to save in.
+     */
+    AutoSaver(Journal journal)
+    {
+        this.journal = journal;
+        this.pending = new LinkedHashMap<Integer, Pending>();
+        this.writing = new LinkedHashMap<Integer, Pending>();
+        this.ended = new HashSet<Integer>();
+        this.thread = null;
+        this.closed = false;
+        this.failed = false;
+    }
+
+    /**
+     * Starts writing submissions on a background thread.
+     * @throws IllegalStateException If the saver has already been started.
+     */
+    synchronized void start() throws IllegalStateException
+    {
+        if (thread != null)
+        {
+            throw new IllegalStateException("Saver already started.");
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "autosave");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Submits a snapshot of a session, replacing any snapshot and actions of the session that are still waiting.
+     * @param session The id of the session.
+     * @param snapshot The snapshot.
+     */
+    synchronized void submitSnapshot(int session, GameSnapshot snapshot)
+    {
+        Pending p = getPending(session);
+        if (p != null)
+        {
+            p.snapshot = snapshot;
+            p.actions.reset();
+            notifyAll();
+        }
+    }
+
+    /**
+     * Submits the changes of committed actions of a session, to be written after any snapshot of the session
+     * that is still waiting. The changes are copied, so the buffer can be reused.
+     * @param session The id of the session.
+     * @param body The encoded changes.
+     * @param length The length of the changes.
+     */
+    synchronized void submitActions(int session, byte[] body, int length)
+    {
+        Pending p = getPending(session);
+        if (p != null)
+        {
+            p.actions.writeBytes(body, 0, length);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Submits the end of a session, discarding any of its submissions that are still waiting.
+     * Nothing more is saved for the session.
+     * @param session The id of the session.
+     */
+    synchronized void submitEnd(int session)
+    {
+        Pending p = getPending(session);
+        if (p != null)
+        {
+            p.snapshot = null;
+            p.actions.reset();
+            p.ended = true;
+            ended.add(session);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Closes the saver, waiting until every submission has been written.
+     * @throws IOException If the thread is interrupted while waiting.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        Thread t;
+        synchronized (this)
+        {
+            closed = true;
+            notifyAll();
+            t = thread;
+        }
+        if (t != null)
+        {
+            try
+            {
+                t.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while saving.");
+            }
+        }
+    }
+
+    /**
+     * Returns the waiting submissions of a session, adding them if it has none.
+     * Must be called while holding the lock of the saver.
+     * @param session The id of the session.
+     * @return The submissions, or {@code null} if nothing more is saved for the session.
+     */
+    private Pending getPending(int session)
+    {
+        if (closed || failed || ended.contains(session))
+        {
+            return null;
+        }
+        Pending p = pending.get(session);
+        if (p == null)
+        {
+            p = new Pending();
+            pending.put(session, p);
+        }
+        return p;
+    }
+
+    /**
+     * Writes the submissions as they arrive, until the saver is closed and every submission has been written.
+     */
+    private void write()
+    {
+        while (true)
+        {
+            synchronized (this)
+            {
+                while (pending.isEmpty() && !closed)
+                {
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                }
+                if (pending.isEmpty())
+                {
+                    return;
+                }
+
+                // Swap the buffers, so the game can keep submitting while these are written.
+                Map<Integer, Pending> full = pending;
+                pending = writing;
+                writing = full;
+            }
+
+            try
+            {
+                long last = 0;
+                for (Map.Entry<Integer, Pending> e : writing.entrySet())
+                {
+                    last = Math.max(last, write(e.getKey(), e.getValue()));
+                }
+                if (last > 0)
+                {
+                    journal.await(last);
+                }
+            }
+            catch (IOException e)
+            {
+                View.getInstance().report("Could not save progress: " + e.getMessage());
+                synchronized (this)
+                {
+                    failed = true;
+                    pending.clear();
+                }
+            }
+            writing.clear();
+        }
+    }
+
+    /**
+     * Submits the records of a session to the journal, without waiting for them to be written.
+     * @param session The id of the session.
+     * @param p The submissions.
+     * @return The sequence number of the last record submitted, or 0 if there were none.
+     * @throws IOException If the journal is unusable.
+     */
+    private long write(int session, Pending p) throws IOException
+    {
+        long last = 0;
+        if (p.snapshot != null)
+        {
+            byte[] data = p.snapshot.getData();
+            last = journal.submit(session, Journal.SNAPSHOT, data, data.length);
+        }
+        if (p.actions.size() > 0)
+        {
+            last = journal.submit(session, Journal.ACTIONS, p.actions.getBuffer(), p.actions.size());
+        }
+        if (p.ended)
+        {
+            last = journal.submit(session, Journal.END, new byte[0], 0);
+        }
+        return last;
+    }
+
+    /**
+     * The submissions of a session waiting to be written.
+     */
+    private static class Pending
+    {
+        /** The latest snapshot, or {@code null} if none is waiting. */
+        private GameSnapshot snapshot = null;
+        /** The changes of the actions committed since the snapshot, or since the last write if none is waiting. */
+        private final VarIntWriter actions = new VarIntWriter(64);
+        /** Whether the session has ended. */
+        private boolean ended = false;
+    }
+}
\ No newline at end of file
@@ -10,23 +10,24 @@ import rohankhayech.combatgame.view.View.HUD;
 
 /**
  * Controller class handling the events of a battle between two game characters.
+ * Battles are resolved by a {@code BattleEngine}, with each event displayed in the view.
  * 
  * @author Rohan Khayech
+ * @see BattleEngine
  */
-public class Battle {
+public class Battle implements BattleListener {
 
     /** The player in the battle. */
     private Player plr;
     /** The enemy in the battle. */
     private Enemy en;
-    /** The losing character of the battle. */
-    private GameCharacter loser;
+    /** The result of the battle. */
+    private BattleResult result;
+    /** Log recording the events of the battle until they are displayed. */
+    private BattleLog log;
 
     /** Factory used to spawn a random enemy. */
     private EnemyFactory spawner;
-
-    /** Boolean describing whether the battle should end. */
-    private boolean end;
     
     /**
      * Constructs a new battle between the specified character and a random enemy.
@@ -37,9 +38,9 @@ public class Battle {
     {
         this.plr = plr;
         this.en = null;
-        this.loser = null;
+        this.result = null;
+        this.log = new BattleLog();
         this.spawner = spawner;
-        this.end = false;
         
     }
 
@@ -66,30 +67,18 @@ public class Battle {
             view.println(e.toString());
         }
         
-        // Construct a new Character observer that ends the battle and sets the loser when triggered. 
-        CharacterObserver deathObserver = new CharacterObserver(){
-            @Override
-            public void onDeath(GameCharacter gChar) {
-                loser = gChar;
-                end = true;
-            }
-
-            @Override
-            public void onAttack(GameCharacter gChar) { /*Do nothing*/ }
-        };
-        
-        // Add the observer to both characters.
-        plr.addObserver(deathObserver);
-        en.addObserver(deathObserver);
-        
-        // Alternate each character taking a turn until the battle ends.
-        while (!end)
+        // Resolve the battle, recording the events of each attack and defence and displaying them as they happen.
+        plr.setBattleLog(log);
+        en.setBattleLog(log);
+        try
         {
-            turn(plr, en);
-            if (!end)
-            {
-                turn(en, plr);
-            }
+            BattleEngine engine = new BattleEngine(this);
+            result = engine.run(plr, en);
+        }
+        finally
+        {
+            plr.setBattleLog(null);
+            en.setBattleLog(null);
         }
 
         // Call the end method when the battle ends and return the result.
@@ -97,30 +86,27 @@ public class Battle {
     }
 
     /**
-     * Calls the attacking character to perform an attack against the defending character.
-     * @param a The attacking character.
-     * @param d The defending character.
+     * Prints the events of the attack to the view.
+     * @param att The attack performed.
      */
-    private void turn(GameCharacter a, GameCharacter d)
+    @Override
+    public void onAttack(Attack att)
     {
-        //Retrieve a reference to the view.
-        View view = View.getInstance();
-        
-        //Get an attack from the attacking character and print this to the view.
-        Attack att = a.attack();
-        view.printAttack(att);
+        View.getInstance().printEvents(log);
+    }
 
-        //If the attack deals any damage, 
-        //allow the defending player to defend and print the information to the view.
-        if (att.getDamage()>0)
-        {
-            Defence def = d.defend(att.getDamage());
-            view.printDefence(def);
-        }
+    /**
+     * Prints the events of the defence to the view.
+     * @param def The defence performed.
+     */
+    @Override
+    public void onDefence(Defence def)
+    {
+        View.getInstance().printEvents(log);
     }
 
     /**
-     * Ends the battle. If an enemy died, the player is awarded its gold and heals.
+     * Ends the battle. If an enemy died, the player has been awarded its gold and healed by the engine.
      * If the player dies, the game over screen is displayed and function returns
      * {@code true} to signify that the game should end.
      * 
@@ -132,33 +118,27 @@ public class Battle {
         /**
          * Boolean describing whether to end the game.
          */
-        boolean playerLost = false;
+        boolean playerLost = !result.isPlayerWon();
+
+        // Commit the changes made to the player during the battle.
+        plr.recordBattle(spawner.getBattle());
         
         // Retrieve a reference to the view.
         View view = View.getInstance();
 
         //print the death message for the losing character.
-        view.printDeathMessage(loser);
+        view.printDeathMessage(playerLost ? plr : en);
 
         
-        if (loser == plr) // If the player lost the battle
+        if (playerLost) // If the player lost the battle
         {
             //print the gameover screen
             view.printGameOver();
-            playerLost = true;
         }
-        else //If the player won the battle
+        else if (en.isBoss()) //If the player won the battle against a boss such as the dragon
         {
-            //award the player the enemy's gold and heal them by 1.5x
-            plr.modifyGold(loser.getGold());
-            int incHealth = (int)Math.ceil((double)(plr.getHealth())*0.5);
-            plr.modifyHealth(incHealth);
-
-            //print the victory screen if the enemy was a dragon
-            if (loser instanceof Dragon)
-            {
-                view.printGameWon();
-            }
+            //print the victory screen
+            view.printGameWon();
         }
         
         //Reset the HUD to the main HUD
@@ -183,4 +163,9 @@ public class Battle {
     public Enemy getEnemy() {
         return en;
     }
+
+    /** @return The result of the battle, or {@code null} if the battle has not finished. */
+    public BattleResult getResult() {
+        return result;
+    }
 }
\ No newline at end of file
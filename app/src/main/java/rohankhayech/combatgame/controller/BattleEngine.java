@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import rohankhayech.combatgame.model.character.*;
+
+/**
+ * Controller class that resolves a battle between a player and an enemy to completion.
+ * The engine does not use the view or wait for user input, so battles can be resolved
+ * headlessly, such as for simulations. A {@code BattleListener} can be attached to
+ * display each event of the battle.
+ *
+ * An engine can be reused for any number of battles, but is not thread-safe.
+ *
+ * @author Rohan Khayech
+ * @see Battle
+ */
+public class BattleEngine {
+
+    /** Percentage of the player's health that is recovered after winning a battle. */
+    public static final double HEAL_RATE = 0.5;
+
+    /** Listener notified of each event of the battle, or {@code null} if none is attached. */
+    private BattleListener listener;
+    /** Observer that sets the loser when either character dies. */
+    private final CharacterObserver deathObserver;
+
+    /** The losing character of the current battle. */
+    private GameCharacter loser;
+    /** The number of turns taken in the current battle. */
+    private int turns;
+    /** The total health lost by the enemy in the current battle. */
+    private int damageDealt;
+    /** The total health lost by the player in the current battle. */
+    private int damageTaken;
+
+    /**
+     * Constructs a new headless battle engine.
+     */
+    public BattleEngine()
+    {
+        this(null);
+    }
+
+    /**
+     * Constructs a new battle engine that notifies the specified listener of each event of the battle.
+     *
+     * @param listener The listener to notify, or {@code null} for a headless battle.
+     */
+    public BattleEngine(BattleListener listener)
+    {
+        this.listener = listener;
+
+        // Construct a new Character observer that ends the battle and sets the loser when triggered.
+        this.deathObserver = new CharacterObserver() {
+            @Override
+            public void onDeath(GameCharacter gChar) {
+                loser = gChar;
+            }
+
+            @Override
+            public void onAttack(GameCharacter gChar) { /*Do nothing*/ }
+
+            @Override
+            public void onChange(GameCharacter gChar) { /*Do nothing*/ }
+        };
+    }
+
+    /**
+     * Resolves a battle between the player and enemy until either dies.
+     * The characters take turns attacking, starting with the player.
+     * On each turn one character will perform {@code attack()} and the other will perform {@code defend()}.
+     * If the player wins, they are awarded the enemy's gold and heal.
+     *
+     * @param plr The player character.
+     * @param en The enemy character.
+     * @return The result of the battle.
+     */
+    public BattleResult run(Player plr, Enemy en)
+    {
+        loser = null;
+        turns = 0;
+        damageDealt = 0;
+        damageTaken = 0;
+
+        // Subscribe the observer to both characters for the duration of the battle.
+        Subscription plrSub = plr.subscribe(deathObserver);
+        Subscription enSub = en.subscribe(deathObserver);
+        try (plrSub; enSub)
+        {
+            // Alternate each character taking a turn until the battle ends.
+            while (loser == null)
+            {
+                damageDealt += turn(plr, en);
+                if (loser == null)
+                {
+                    damageTaken += turn(en, plr);
+                }
+            }
+        }
+
+        return end(plr, en);
+    }
+
+    /**
+     * Calls the attacking character to perform an attack against the defending character.
+     *
+     * @param a The attacking character.
+     * @param d The defending character.
+     * @return The health lost by the defending character.
+     */
+    private int turn(GameCharacter a, GameCharacter d)
+    {
+        int healthLost = 0;
+        turns++;
+
+        //Get an attack from the attacking character.
+        Attack att = a.attack();
+        if (listener != null)
+        {
+            listener.onAttack(att);
+        }
+
+        //If the attack deals any damage, allow the defending character to defend.
+        if (att.getDamage() > 0)
+        {
+            int health = d.getHealth();
+            Defence def = d.defend(att.getDamage());
+            healthLost = health - d.getHealth();
+            if (listener != null)
+            {
+                listener.onDefence(def);
+            }
+        }
+        return healthLost;
+    }
+
+    /**
+     * Ends the battle. If the enemy died, the player is awarded its gold and heals by {@code HEAL_RATE}.
+     *
+     * @param plr The player character.
+     * @param en The enemy character.
+     * @return The result of the battle.
+     */
+    private BattleResult end(Player plr, Enemy en)
+    {
+        boolean playerWon = loser == en;
+        int gold = 0;
+
+        if (playerWon)
+        {
+            //award the player the enemy's gold and heal them by 1.5x
+            gold = en.getGold();
+            plr.modifyGold(gold);
+            int incHealth = (int)Math.ceil((double)(plr.getHealth())*HEAL_RATE);
+            plr.modifyHealth(incHealth);
+        }
+
+        return new BattleResult(playerWon, turns, damageDealt, damageTaken, gold, plr.getHealth());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import rohankhayech.combatgame.model.character.Attack;
+import rohankhayech.combatgame.model.character.Defence;
+
+/**
+ * A {@code BattleListener} can be attached to a {@code BattleEngine} to be notified
+ * of each event in the battle, such as to display it to the user.
+ *
+ * @author Rohan Khayech
+ * @see BattleEngine
+ */
+public interface BattleListener {
+    /**
+     * Called after a character attacks.
+     *
+     * @param att The attack performed.
+     */
+    public void onAttack(Attack att);
+
+    /**
+     * Called after a character defends against an attack.
+     *
+     * @param def The defence performed.
+     */
+    public void onDefence(Defence def);
+}
\ No newline at end of file
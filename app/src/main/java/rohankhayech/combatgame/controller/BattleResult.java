@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+/**
+ * Informative class containing the outcome of a battle resolved by a {@code BattleEngine}.
+ *
+ * @author Rohan Khayech
+ * @see BattleEngine
+ */
+public class BattleResult
+{
+    /** Whether the player won the battle. */
+    private final boolean playerWon;
+    /** The number of turns taken, counting each attack by either character as one turn. */
+    private final int turns;
+    /** The total health lost by the enemy. */
+    private final int damageDealt;
+    /** The total health lost by the player. */
+    private final int damageTaken;
+    /** The gold awarded to the player. */
+    private final int gold;
+    /** The player's health at the end of the battle, after any reward is applied. */
+    private final int playerHealth;
+
+    /**
+     * Constructs a new BattleResult object.
+     *
+     * @param playerWon    Whether the player won the battle.
+     * @param turns        The number of turns taken.
+     * @param damageDealt  The total health lost by the enemy.
+     * @param damageTaken  The total health lost by the player.
+     * @param gold         The gold awarded to the player.
+     * @param playerHealth The player's health at the end of the battle.
+     */
+    public BattleResult(boolean playerWon, int turns, int damageDealt, int damageTaken, int gold, int playerHealth)
+    {
+        this.playerWon = playerWon;
+        this.turns = turns;
+        this.damageDealt = damageDealt;
+        this.damageTaken = damageTaken;
+        this.gold = gold;
+        this.playerHealth = playerHealth;
+    }
+
+    /** @return Whether the player won the battle. */
+    public boolean isPlayerWon() { return playerWon; }
+
+    /** @return The number of turns taken, counting each attack by either character as one turn. */
+    public int getTurns() { return turns; }
+
+    /** @return The total health lost by the enemy. */
+    public int getDamageDealt() { return damageDealt; }
+
+    /** @return The total health lost by the player. */
+    public int getDamageTaken() { return damageTaken; }
+
+    /** @return The gold awarded to the player. */
+    public int getGold() { return gold; }
+
+    /** @return The player's health at the end of the battle, after any reward is applied. */
+    public int getPlayerHealth() { return playerHealth; }
+
+    /** @return A String representation of the result. */
+    @Override
+    public String toString()
+    {
+        return (playerWon ? "WON" : "LOST") + " | TURNS: " + turns + " | DEALT: " + damageDealt + "HP | TAKEN: "
+                + damageTaken + "HP | GOLD: " + gold + "G | HEALTH: " + playerHealth + "HP";
+    }
+}
\ No newline at end of file
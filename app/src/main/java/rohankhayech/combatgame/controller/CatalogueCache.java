@@ -0,0 +1,638 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import rohankhayech.combatgame.model.item.*;
+
+/**
+ * Cache of compiled item files, so that a catalogue only needs to be parsed again when its source changes.
+ *
+ * Each item file is compiled to a binary catalogue with the following layout, all in big-endian order:
+ * <ul>
+ * <li>A header of {@value #HEADER_SIZE} bytes containing a magic number, the format version, the hash of the
+ * source file, and the number of items, invalid lines and strings, and the size of the string table.</li>
+ * <li>A record of {@value #RECORD_SIZE} bytes for each item, in file order, containing its kind, the potion
+ * type, the string indexes of its name and other text attributes, and its cost, min and max effect.</li>
+ * <li>The line numbers of the lines of the source that do not contain a valid item.</li>
+ * <li>The offset of each distinct string within the string table.</li>
+ * <li>A string table of the UTF-8 bytes of each distinct string.</li>
+ * </ul>
+ * A catalogue is read with a single mapped read, and is ignored and rebuilt if its hash does not match the source.
+ * Since the records and string offsets have a fixed width, any item can be read directly from the mapped file,
+ * so large catalogues can be opened as a {@link PagedCatalogue} instead of being loaded into memory.
+ *
+ * @author Rohan Khayech
+ * @see ItemLoader
+ */
+public class CatalogueCache
+{
+    /** Name of the default cache directory, within the system temporary directory. */
+    public static final String DEF_DIRECTORY = "combatgame-cache";
+    /** Extension of compiled catalogue files. */
+    public static final String EXTENSION = ".cat";
+    /** Size of the header, in bytes. */
+    public static final int HEADER_SIZE = 32;
+    /** Size of each item record, in bytes. */
+    public static final int RECORD_SIZE = 28;
+
+    /** Magic number at the start of every compiled catalogue. */
+    private static final int MAGIC = 0x43474354;
+    /** Version of the catalogue format, changed whenever the layout changes. */
+    private static final int VERSION = 2;
+    /** String index stored for a text attribute an item does not have. */
+    private static final int NO_STRING = -1;
+
+    /** Kind of a weapon record. */
+    private static final byte WEAPON = 'W';
+    /** Kind of an armour record. */
+    private static final byte ARMOUR = 'A';
+    /** Kind of a potion record. */
+    private static final byte POTION = 'P';
+
+    /** Directory the compiled catalogues are stored in. */
+    private final Path directory;
+
+    /**
+     * Constructs a cache in the default directory within the system temporary directory.
+     */
+    public CatalogueCache()
+    {
+        this(Paths.get(System.getProperty("java.io.tmpdir"), DEF_DIRECTORY));
+    }
+
+    /**
+     * Constructs a cache in the specified directory, which is created when a catalogue is first compiled.
+     * @param directory The directory to store compiled catalogues in.
+     */
+    public CatalogueCache(Path directory)
+    {
+        this.directory = directory;
+    }
+
+    /** @return The directory the compiled catalogues are stored in. */
+    public Path getDirectory() { return directory; }
+
+    /**
+     * Returns the path of the compiled catalogue of an item file.
+     * @param filename The name of the item file.
+     * @return The path of the compiled catalogue.
+     */
+    public Path getPath(String filename)
+    {
+        return directory.resolve(filename.replaceAll("[^A-Za-z0-9._-]", "_") + EXTENSION);
+    }
+
+    /**
+     * Computes the hash of the contents of an item file, combining its CRC-32C checksum and its length.
+     * @param source The contents of the file, from index 0 to its limit.
+     * @return The hash.
+     */
+    public static long hash(ByteBuffer source)
+    {
+        CRC32C crc = new CRC32C();
+        crc.update(source.duplicate().position(0));
+        return ((long)source.limit() << 32) | crc.getValue();
+    }
+
+    /**
+     * Reads the items of an item file from its compiled catalogue, if there is one compiled from the same source,
+     * reporting the invalid lines of the source and passing each interned item to the specified consumer in order.
+     *
+     * @param filename The name of the item file.
+     * @param sourceHash The hash of the contents of the item file.
+     * @param consumer The consumer to pass each item to.
+     * @param listener The listener to pass the item on each line of the source to, or {@code null}.
+     * @return The number of items read, or -1 if there is no valid catalogue compiled from the same source.
+     * @throws IOException If the catalogue could not be read.
+     */
+    public int streamItems(String filename, long sourceHash, Consumer<? super Item> consumer, ItemLoader.LineListener listener) throws IOException
+    {
+        int count = -1;
+        MappedCatalogue catalogue = open(filename, sourceHash);
+        if (catalogue != null)
+        {
+            catalogue.reportInvalidLines();
+            ItemRegistry registry = ItemRegistry.getInstance();
+            count = catalogue.size();
+            int line = 1;
+            int b = 0;
+            for (int r = 0; r < count; r++)
+            {
+                Item item = registry.intern(catalogue.load(r));
+                if (listener != null)
+                {
+                    // The invalid lines are stored in order, so they fall between the items at their line numbers.
+                    while (b < catalogue.bad && catalogue.invalidLine(b) == line)
+                    {
+                        listener.line(line++, null);
+                        b++;
+                    }
+                    listener.line(line++, item);
+                }
+                consumer.accept(item);
+            }
+            while (listener != null && b < catalogue.bad)
+            {
+                listener.line(catalogue.invalidLine(b++), null);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Opens the compiled catalogue of an item file as a paged catalogue that reads each item from the mapped file
+     * when it is needed, if there is one compiled from the same source.
+     *
+     * @param filename The name of the item file.
+     * @param sourceHash The hash of the contents of the item file.
+     * @param report Whether to report the invalid lines of the source.
+     * @return The paged catalogue, or {@code null} if there is no valid catalogue compiled from the same source.
+     * @throws IOException If the catalogue could not be read.
+     */
+    public PagedCatalogue openCatalogue(String filename, long sourceHash, boolean report) throws IOException
+    {
+        MappedCatalogue catalogue = open(filename, sourceHash);
+        if (catalogue != null && report)
+        {
+            catalogue.reportInvalidLines();
+        }
+        return catalogue;
+    }
+
+    /**
+     * Maps the compiled catalogue of an item file if it is valid and compiled from the same source.
+     * @param filename The name of the item file.
+     * @param sourceHash The hash of the contents of the item file.
+     * @return The mapped catalogue, or {@code null} if there is no valid catalogue compiled from the same source.
+     * @throws IOException If the catalogue could not be read.
+     */
+    private MappedCatalogue open(String filename, long sourceHash) throws IOException
+    {
+        MappedCatalogue catalogue = null;
+        Path path = getPath(filename);
+        if (Files.isRegularFile(path))
+        {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+            {
+                if (channel.size() >= HEADER_SIZE && channel.size() <= Integer.MAX_VALUE)
+                {
+                    // The mapping stays valid after the channel is closed.
+                    ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    if (isValid(data, sourceHash))
+                    {
+                        catalogue = new MappedCatalogue(data);
+                    }
+                }
+            }
+        }
+        return catalogue;
+    }
+
+    /**
+     * Writes the compiled catalogue of an item file, replacing any existing catalogue.
+     * The catalogue is written to a temporary file first, so readers never see a partly written catalogue.
+     *
+     * @param filename The name of the item file.
+     * @param builder The builder the items of the file were added to.
+     * @throws IOException If the catalogue could not be written.
+     */
+    void write(String filename, Builder builder) throws IOException
+    {
+        Files.createDirectories(directory);
+        Path path = getPath(filename);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(builder.sourceHash);
+                out.writeInt(builder.count);
+                out.writeInt(builder.bad);
+                out.writeInt(builder.strings.size());
+                out.writeInt(builder.stringTable.size());
+                builder.records.writeTo(out);
+                for (int b = 0; b < builder.bad; b++)
+                {
+                    out.writeInt(builder.badLines[b]);
+                }
+                for (int st = 0; st < builder.strings.size(); st++)
+                {
+                    out.writeInt(builder.stringOffsets[st]);
+                }
+                builder.stringTable.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Checks the header, layout, string offsets and records of a compiled catalogue,
+     * so that a corrupt catalogue is rejected before any of its items are used.
+     * @param data The catalogue.
+     * @param sourceHash The hash of the item file the catalogue must be compiled from.
+     * @return {@code true} if it is a valid catalogue compiled from the source.
+     */
+    private static boolean isValid(ByteBuffer data, long sourceHash)
+    {
+        boolean valid = data.getInt(0) == MAGIC && data.getInt(4) == VERSION && data.getLong(8) == sourceHash;
+        if (valid)
+        {
+            long count = data.getInt(16);
+            long bad = data.getInt(20);
+            long stringCount = data.getInt(24);
+            long tableSize = data.getInt(28);
+            long size = HEADER_SIZE + count * RECORD_SIZE + (bad + stringCount) * Integer.BYTES + tableSize;
+            valid = count >= 0 && bad >= 0 && stringCount >= 0 && tableSize >= 0 && size == data.limit();
+        }
+        if (valid)
+        {
+            MappedCatalogue catalogue = new MappedCatalogue(data);
+            int prev = 0;
+            for (int s = 0; valid && s < catalogue.stringCount; s++)
+            {
+                int offset = catalogue.offset(s);
+                valid = offset >= prev && offset <= catalogue.tableSize;
+                prev = offset;
+            }
+            for (int r = 0; valid && r < catalogue.count; r++)
+            {
+                valid = catalogue.isValid(r);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Compiled catalogue read from a mapped file.
+     */
+    private static class MappedCatalogue extends PagedCatalogue
+    {
+        /** The mapped file. */
+        private final ByteBuffer data;
+        /** The number of items. */
+        private final int count;
+        /** The number of invalid lines. */
+        private final int bad;
+        /** The number of strings. */
+        private final int stringCount;
+        /** The size of the string table, in bytes. */
+        private final int tableSize;
+        /** The index of the first invalid line number. */
+        private final int badStart;
+        /** The index of the first string offset. */
+        private final int offsetStart;
+        /** The index of the start of the string table. */
+        private final int tableStart;
+        /** Scratch space for decoding strings. */
+        private byte[] scratch;
+
+        /**
+         * Constructs a catalogue reading from a mapped file.
+         * @param data The mapped file, which must have a valid layout.
+         */
+        private MappedCatalogue(ByteBuffer data)
+        {
+            this.data = data;
+            this.count = data.getInt(16);
+            this.bad = data.getInt(20);
+            this.stringCount = data.getInt(24);
+            this.tableSize = data.getInt(28);
+            this.badStart = HEADER_SIZE + count * RECORD_SIZE;
+            this.offsetStart = badStart + bad * Integer.BYTES;
+            this.tableStart = offsetStart + stringCount * Integer.BYTES;
+            this.scratch = new byte[64];
+        }
+
+        @Override
+        public int size() { return count; }
+
+        /**
+         * Reports each line of the source that does not contain a valid item.
+         */
+        private void reportInvalidLines()
+        {
+            for (int b = 0; b < bad; b++)
+            {
+                ItemLoader.reportInvalidLine(invalidLine(b));
+            }
+        }
+
+        /**
+         * @param b The index of the invalid line, in line order.
+         * @return The line number of the invalid line, starting at 1.
+         */
+        private int invalidLine(int b)
+        {
+            return data.getInt(badStart + b * Integer.BYTES);
+        }
+
+        /**
+         * @param s The string index.
+         * @return The offset of the string within the string table.
+         */
+        private int offset(int s)
+        {
+            return data.getInt(offsetStart + s * Integer.BYTES);
+        }
+
+        /**
+         * Checks that a record has a valid kind and string indexes.
+         * @param r The record index.
+         * @return {@code true} if the record is valid.
+         */
+        private boolean isValid(int r)
+        {
+            int pos = HEADER_SIZE + r * RECORD_SIZE;
+            byte kind = data.get(pos);
+            int needed = kind == WEAPON ? 3 : kind == ARMOUR ? 2 : kind == POTION ? 1 : 0;
+            byte type = data.get(pos + 1);
+            boolean valid = needed > 0 && (kind != POTION || type == 'H' || type == 'D');
+            int[] fields = {4, 20, 24};
+            for (int f = 0; valid && f < fields.length; f++)
+            {
+                int index = data.getInt(pos + fields[f]);
+                valid = f < needed ? index >= 0 && index < stringCount : index == NO_STRING;
+            }
+            return valid;
+        }
+
+        /**
+         * Reads the type of item from a record, without creating the item.
+         * @param r The record index.
+         * @return The class of the item.
+         * @throws IndexOutOfBoundsException If the index is out of range.
+         */
+        @Override
+        public Class<? extends Item> typeOf(int r) throws IndexOutOfBoundsException
+        {
+            Class<? extends Item> type;
+            switch (data.get(record(r)))
+            {
+                case WEAPON:
+                    type = GenericWeapon.class;
+                break;
+
+                case ARMOUR:
+                    type = Armour.class;
+                break;
+
+                default:
+                    type = Potion.class;
+                break;
+            }
+            return type;
+        }
+
+        /**
+         * Reads an attribute of an item from a record, without creating the item.
+         * @param r The record index.
+         * @param attr The attribute.
+         * @return The value of the attribute.
+         * @throws IndexOutOfBoundsException If the index is out of range.
+         */
+        @Override
+        public int attributeOf(int r, CatalogueIndex.Attribute attr) throws IndexOutOfBoundsException
+        {
+            int pos = record(r);
+            int value = 0;
+            switch (attr)
+            {
+                case COST:
+                    value = data.getInt(pos + 8);
+                break;
+
+                case MIN_EFFECT:
+                    value = data.getInt(pos + 12);
+                break;
+
+                case MAX_EFFECT:
+                    value = data.getInt(pos + 16);
+                break;
+            }
+            return value;
+        }
+
+        /**
+         * @param r The record index.
+         * @return The offset of the record.
+         * @throws IndexOutOfBoundsException If the index is out of range.
+         */
+        private int record(int r) throws IndexOutOfBoundsException
+        {
+            if (r < 0 || r >= count)
+            {
+                throw new IndexOutOfBoundsException("Index " + r + " out of bounds for size " + count);
+            }
+            return HEADER_SIZE + r * RECORD_SIZE;
+        }
+
+        /**
+         * Creates the item described by a record.
+         * @param r The record index.
+         * @return The item.
+         */
+        @Override
+        protected Item load(int r)
+        {
+            int pos = HEADER_SIZE + r * RECORD_SIZE;
+            String name = string(data.getInt(pos + 4));
+            int cost = data.getInt(pos + 8);
+            int min = data.getInt(pos + 12);
+            int max = data.getInt(pos + 16);
+            Item item;
+            switch (data.get(pos))
+            {
+                case WEAPON:
+                    item = new GenericWeapon(name, cost, min, max, string(data.getInt(pos + 24)), string(data.getInt(pos + 20)));
+                break;
+
+                case ARMOUR:
+                    item = new Armour(name, cost, min, max, string(data.getInt(pos + 20)));
+                break;
+
+                default:
+                    item = new Potion(name, cost, min, max, (char)data.get(pos + 1));
+                break;
+            }
+            return item;
+        }
+
+        /**
+         * Decodes a string from the string table.
+         * @param s The string index.
+         * @return The string.
+         */
+        private String string(int s)
+        {
+            int start = offset(s);
+            int len = (s + 1 < stringCount ? offset(s + 1) : tableSize) - start;
+            if (len > scratch.length)
+            {
+                scratch = new byte[Math.max(len, scratch.length * 2)];
+            }
+            data.get(tableStart + start, scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Compiles the items of an item file into the records and string table of a catalogue as they are parsed.
+     */
+    static class Builder
+    {
+        /** The hash of the item file. */
+        private final long sourceHash;
+        /** The item records. */
+        private final ByteArrayOutputStream records;
+        /** Output used to write the item records. */
+        private final DataOutputStream recordOut;
+        /** The index of each distinct string. */
+        private final Map<String, Integer> strings;
+        /** The offset of each string within the string table. */
+        private int[] stringOffsets;
+        /** The string table. */
+        private final ByteArrayOutputStream stringTable;
+        /** The line numbers of the invalid lines. */
+        private int[] badLines;
+        /** The number of invalid lines. */
+        private int bad;
+        /** The number of items. */
+        private int count;
+
+        /**
+         * Constructs a builder for the catalogue of an item file.
+         * @param sourceHash The hash of the item file.
+         */
+        Builder(long sourceHash)
+        {
+            this.sourceHash = sourceHash;
+            this.records = new ByteArrayOutputStream();
+            this.recordOut = new DataOutputStream(records);
+            this.strings = new HashMap<String, Integer>();
+            this.stringOffsets = new int[16];
+            this.stringTable = new ByteArrayOutputStream();
+            this.badLines = new int[4];
+            this.bad = 0;
+            this.count = 0;
+        }
+
+        /**
+         * Adds the record of an item loaded from the file.
+         * @param item The item, which must be a generic weapon, armour or potion.
+         * @throws IllegalArgumentException If the item cannot be stored in a catalogue.
+         */
+        void addItem(Item item) throws IllegalArgumentException
+        {
+            try
+            {
+                if (item instanceof GenericWeapon)
+                {
+                    GenericWeapon w = (GenericWeapon)item;
+                    writeRecord(WEAPON, 0, w.getName(), w.getCost(), w.getMinEffect(), w.getMaxEffect(), w.getDamageType(), w.getType());
+                }
+                else if (item instanceof Armour)
+                {
+                    Armour a = (Armour)item;
+                    writeRecord(ARMOUR, 0, a.getName(), a.getCost(), a.getMinEffect(), a.getMaxEffect(), a.getMaterial(), null);
+                }
+                else if (item instanceof Potion)
+                {
+                    Potion p = (Potion)item;
+                    writeRecord(POTION, p.getType(), p.getName(), p.getCost(), p.getMinEffect(), p.getMaxEffect(), null, null);
+                }
+                else
+                {
+                    throw new IllegalArgumentException(item.getName() + " cannot be stored in a catalogue.");
+                }
+            }
+            catch (IOException e)
+            {
+                // Writing to memory never fails.
+                throw new UncheckedIOException(e);
+            }
+            count++;
+        }
+
+        /**
+         * Adds an invalid line of the file.
+         * @param line The line number, starting at 1.
+         */
+        void addInvalidLine(int line)
+        {
+            if (bad == badLines.length)
+            {
+                badLines = Arrays.copyOf(badLines, bad * 2);
+            }
+            badLines[bad++] = line;
+        }
+
+        /**
+         * Writes an item record.
+         * @param kind The kind of item.
+         * @param type The potion type, or 0 for other items.
+         * @param name The name of the item.
+         * @param cost The cost of the item.
+         * @param min The min effect of the item.
+         * @param max The max effect of the item.
+         * @param attr1 The damage type of a weapon or material of armour, or {@code null}.
+         * @param attr2 The type of a weapon, or {@code null}.
+         * @throws IOException If the record could not be written.
+         */
+        private void writeRecord(byte kind, int type, String name, int cost, int min, int max, String attr1, String attr2) throws IOException
+        {
+            recordOut.writeByte(kind);
+            recordOut.writeByte(type);
+            recordOut.writeShort(0);
+            recordOut.writeInt(stringIndex(name));
+            recordOut.writeInt(cost);
+            recordOut.writeInt(min);
+            recordOut.writeInt(max);
+            recordOut.writeInt(stringIndex(attr1));
+            recordOut.writeInt(stringIndex(attr2));
+        }
+
+        /**
+         * Returns the index of a string in the string table, adding it if it is not already in the table.
+         * @param s The string, or {@code null}.
+         * @return The index of the string, or {@code NO_STRING} if it is {@code null}.
+         */
+        private int stringIndex(String s)
+        {
+            int index = NO_STRING;
+            if (s != null)
+            {
+                Integer existing = strings.get(s);
+                if (existing == null)
+                {
+                    existing = strings.size();
+                    if (existing == stringOffsets.length)
+                    {
+                        stringOffsets = Arrays.copyOf(stringOffsets, existing * 2);
+                    }
+                    stringOffsets[existing] = stringTable.size();
+                    stringTable.writeBytes(s.getBytes(StandardCharsets.UTF_8));
+                    strings.put(s, existing);
+                }
+                index = existing;
+            }
+            return index;
+        }
+    }
+}
\ No newline at end of file
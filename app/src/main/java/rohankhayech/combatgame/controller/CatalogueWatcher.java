@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import rohankhayech.combatgame.model.item.*;
+import rohankhayech.combatgame.view.View;
+
+/**
+ * Watches an item file for changes and reloads the items listed in a shop while the game is running.
+ *
+ * The hash of each line is kept, so when the file changes only the lines that were added or edited are parsed
+ * again. The lines of the new file are matched against the old lines by skipping any unchanged lines at the start
+ * and end, then matching the remaining lines by hash, so moved lines are also kept. The items of unmatched old
+ * lines are removed and the items of unmatched new lines are added, as a single change submitted to the shop.
+ * The file is read and diffed on a background thread, and the change is applied by the shop the next time its
+ * items are read, so the game is never paused and menus never see part of a change.
+ *
+ * The watcher is started before the file is first loaded and records the initial lines of the file as the loader
+ * reads them, so the file is only read once at startup and changes made while it is being loaded are not missed.
+ *
+ * @author Rohan Khayech
+ * @see Shop#submitChange(List, List)
+ */
+public class CatalogueWatcher implements Closeable, ItemLoader.LineListener
+{
+    /** Time to wait for further changes before reloading, in milliseconds, as editors often write a file in steps. */
+    public static final long DEBOUNCE_MS = 100;
+
+    /** Offset basis of the 64-bit FNV-1a hash. */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    /** Prime of the 64-bit FNV-1a hash. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** The item file. */
+    private final Path file;
+    /** The shop to reload the items of. */
+    private final Shop shop;
+    /** The registry to intern reloaded items with. */
+    private final ItemRegistry registry;
+
+    /** The service watching the directory of the file, or {@code null} if not started. */
+    private WatchService watcher;
+    /** The thread reloading the file, or {@code null} if not started. */
+    private Thread thread;
+
+    /** The hash of each line of the file when last read. */
+    private long[] hashes;
+    /** The item on each line of the file when last read, or {@code null} for invalid lines. */
+    private Item[] items;
+    /** The number of lines each item is listed on. */
+    private final Map<Item, Integer> counts;
+    /** Released once the initial lines of the file have been recorded, or the watcher is closed. */
+    private final CountDownLatch loaded;
+
+    /**
+     * Constructs a watcher for the specified file, which is not watched until it is started.
+     * The initial lines of the file are recorded by passing the watcher to the loader that lists the items in the shop.
+     * @param file The item file.
+     * @param shop The shop to reload the items of.
+     */
+    public CatalogueWatcher(Path file, Shop shop)
+    {
+        this.file = file.toAbsolutePath();
+        this.shop = shop;
+        this.registry = ItemRegistry.getInstance();
+        this.hashes = new long[0];
+        this.items = new Item[0];
+        this.counts = new IdentityHashMap<Item, Integer>();
+        this.loaded = new CountDownLatch(1);
+    }
+
+    /**
+     * Starts watching the file on a background thread, which reloads changes once the initial lines have been recorded.
+     * @throws IOException If the directory of the file could not be watched.
+     * @throws IllegalStateException If the watcher has already been started.
+     */
+    public synchronized void start() throws IOException, IllegalStateException
+    {
+        if (watcher != null)
+        {
+            throw new IllegalStateException("Watcher already started.");
+        }
+        Path dir = file.getParent();
+        watcher = dir.getFileSystem().newWatchService();
+        try
+        {
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        catch (IOException e)
+        {
+            watcher.close();
+            watcher = null;
+            throw e;
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "catalogue-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops watching the file, after any reload in progress. Changes already submitted to the shop are still applied.
+     * @throws IOException If the watch service could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (watcher != null)
+        {
+            // Closing the service wakes the thread, which then stops.
+            watcher.close();
+        }
+        loaded.countDown();
+    }
+
+    /**
+     * Records the hash of each initial line of the file as it is loaded.
+     * @param data The contents of the file, from index 0 to its limit.
+     */
+    @Override
+    public void read(ByteBuffer data)
+    {
+        int[] starts = findLines(data);
+        int n = starts.length - 1;
+        hashes = new long[n];
+        for (int l = 0; l < n; l++)
+        {
+            hashes[l] = hash(data, starts[l], starts[l + 1]);
+        }
+        items = new Item[n];
+        counts.clear();
+        if (n == 0)
+        {
+            loaded.countDown();
+        }
+    }
+
+    /**
+     * Records the item on an initial line of the file as it is loaded.
+     * The initial lines are recorded once the last line is received.
+     * @param line The line number, starting at 1.
+     * @param item The interned item on the line, or {@code null} if the line does not contain a valid item.
+     */
+    @Override
+    public void line(int line, Item item)
+    {
+        if (line <= items.length)
+        {
+            if (item != null)
+            {
+                items[line - 1] = item;
+                count(item, 1);
+            }
+            if (line == items.length)
+            {
+                loaded.countDown();
+            }
+        }
+    }
+
+    /**
+     * Waits for the initial lines of the file to be recorded, then reloads the file each time it changes until
+     * the watcher is closed.
+     */
+    private void watch()
+    {
+        try
+        {
+            loaded.await();
+            while (true)
+            {
+                WatchKey key = watcher.take();
+                boolean changed = isFileChanged(key);
+                // Wait for the file to settle, collecting any further events.
+                while ((key = watcher.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null)
+                {
+                    changed |= isFileChanged(key);
+                }
+                if (changed)
+                {
+                    reload();
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            // Closed, stop watching.
+        }
+    }
+
+    /**
+     * Checks whether the events of a watch key refer to the file, and resets the key.
+     * @param key The key.
+     * @return {@code true} if the file was created or modified.
+     */
+    private boolean isFileChanged(WatchKey key)
+    {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context()))
+            {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Reads the file, parses the lines that changed since it was last read and submits the difference to the shop.
+     * The file is read into memory rather than mapped, as it may be truncated while it is being written.
+     * If the file cannot be read, it is skipped until it next changes.
+     */
+    private void reload()
+    {
+        try
+        {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+            int[] starts = findLines(data);
+            int n = starts.length - 1;
+            long[] newHashes = new long[n];
+            for (int l = 0; l < n; l++)
+            {
+                newHashes[l] = hash(data, starts[l], starts[l + 1]);
+            }
+            Item[] newItems = new Item[n];
+            List<Item> removed = new ArrayList<Item>();
+            List<Item> added = new ArrayList<Item>();
+            diff(newHashes, newItems, data, starts, removed, added);
+
+            hashes = newHashes;
+            items = newItems;
+            if (!removed.isEmpty() || !added.isEmpty())
+            {
+                shop.submitChange(removed, added);
+            }
+        }
+        catch (IOException e)
+        {
+            View.getInstance().report("Could not reload " + file.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Matches the new lines of the file against the old lines, reusing the items of matched lines
+     * and parsing the unmatched new lines.
+     * @param newHashes The hash of each new line.
+     * @param newItems  The array to store the item of each new line in.
+     * @param data      The new contents of the file.
+     * @param starts    The start index of each new line, followed by the end of the file.
+     * @param removed   The list to add the items no longer listed to.
+     * @param added     The list to add the newly listed items to.
+     */
+    private void diff(long[] newHashes, Item[] newItems, ByteBuffer data, int[] starts,
+        List<Item> removed, List<Item> added)
+    {
+        int m = hashes.length;
+        int n = newHashes.length;
+
+        // Skip the unchanged lines at the start and end.
+        int prefix = 0;
+        while (prefix < m && prefix < n && hashes[prefix] == newHashes[prefix])
+        {
+            newItems[prefix] = items[prefix];
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < m - prefix && suffix < n - prefix && hashes[m - 1 - suffix] == newHashes[n - 1 - suffix])
+        {
+            newItems[n - 1 - suffix] = items[m - 1 - suffix];
+            suffix++;
+        }
+
+        // Match the remaining lines by hash, in order.
+        boolean[] matched = new boolean[m - suffix - prefix];
+        Map<Long, Deque<Integer>> unmatched = new HashMap<Long, Deque<Integer>>();
+        for (int l = prefix; l < m - suffix; l++)
+        {
+            Deque<Integer> positions = unmatched.get(hashes[l]);
+            if (positions == null)
+            {
+                positions = new ArrayDeque<Integer>();
+                unmatched.put(hashes[l], positions);
+            }
+            positions.add(l);
+        }
+        for (int l = prefix; l < n - suffix; l++)
+        {
+            Deque<Integer> candidates = unmatched.get(newHashes[l]);
+            Integer old = candidates != null ? candidates.poll() : null;
+            if (old != null)
+            {
+                newItems[l] = items[old];
+                matched[old - prefix] = true;
+            }
+            else
+            {
+                Item item = ItemLoader.parseLine(data, starts[l], lineEnd(data, starts[l + 1]));
+                if (item != null)
+                {
+                    item = registry.intern(item);
+                    newItems[l] = item;
+                    // Items already listed on another line are only added again if they stack.
+                    if (count(item, 1) == 1 || item.isStackable())
+                    {
+                        added.add(item);
+                    }
+                }
+                else
+                {
+                    View.getInstance().report(ItemLoader.invalidLineMessage(l + 1));
+                }
+            }
+        }
+        // Remove the items of the unmatched old lines in line order, so an edited line pairs with its replacement.
+        for (int l = prefix; l < m - suffix; l++)
+        {
+            Item item = items[l];
+            if (!matched[l - prefix] && item != null && (count(item, -1) == 0 || item.isStackable()))
+            {
+                removed.add(item);
+            }
+        }
+    }
+
+    /**
+     * Changes the number of lines an item is listed on.
+     * @param item  The item.
+     * @param delta The change in the number of lines.
+     * @return The new number of lines.
+     */
+    private int count(Item item, int delta)
+    {
+        int count = counts.getOrDefault(item, 0) + delta;
+        if (count > 0)
+        {
+            counts.put(item, count);
+        }
+        else
+        {
+            counts.remove(item);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the start of each line in the data.
+     * @param data The data.
+     * @return The start index of each line, followed by the end of the data.
+     */
+    private static int[] findLines(ByteBuffer data)
+    {
+        int limit = data.limit();
+        int[] starts = new int[64];
+        int n = 0;
+        int pos = 0;
+        while (pos < limit)
+        {
+            if (n + 1 == starts.length)
+            {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+            }
+            starts[n++] = pos;
+            while (pos < limit && data.get(pos) != '\n')
+            {
+                pos++;
+            }
+            pos++;
+        }
+        starts[n] = Math.min(pos, limit);
+        return Arrays.copyOf(starts, n + 1);
+    }
+
+    /**
+     * Returns the end of a line, excluding its newline.
+     * @param data The data.
+     * @param next The start of the next line, or the end of the data.
+     * @return The index after the last byte of the line.
+     */
+    private static int lineEnd(ByteBuffer data, int next)
+    {
+        return next > 0 && data.get(next - 1) == '\n' ? next - 1 : next;
+    }
+
+    /**
+     * Computes the 64-bit FNV-1a hash of a line, ignoring its line ending.
+     * @param data The data.
+     * @param from The start index of the line.
+     * @param to   The start of the next line, or the end of the data.
+     * @return The hash.
+     */
+    private static long hash(ByteBuffer data, int from, int to)
+    {
+        int end = lineEnd(data, to);
+        if (end > from && data.get(end - 1) == '\r')
+        {
+            end--;
+        }
+        long h = FNV_OFFSET;
+        for (int i = from; i < end; i++)
+        {
+            h ^= data.get(i) & 0xff;
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
\ No newline at end of file
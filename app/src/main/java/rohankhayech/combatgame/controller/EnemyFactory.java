@@ -4,98 +4,195 @@
 
 package rohankhayech.combatgame.controller;
 
+import java.util.*;
+
 import rohankhayech.combatgame.model.character.*;
 
 /**
  * Factory class that constructs random Enemy objects based off of random probabilities.
+ * Enemies are spawned from a set of shared {@code EnemyTemplate}s, so spawning an enemy
+ * only constructs its mutable state.
  * 
  * @author Rohan Khayech
  */
 public class EnemyFactory {
 
-    /** Initial spawn rate of Slimes. */
-    private static double INIT_PROB_SLIME = 0.50; 
-    /** Initial spawn rate of Goblins. */
-    private static double INIT_PROB_GOBLIN = 0.30;
-    /** Initial spawn rate of Ogres. */ 
-    private static double INIT_PROB_OGRE = 0.20; 
-    /** Initial spawn rate of Dragons. */
-    private static double INIT_PROB_DRAGON = 0.00; 
-
-    /** Amount to decrease spawn rates by after each battle. */
-    private static double PROB_DEC = 0.05;
     /** Minimum spawn probability. */
     private static double MIN_PROB = 0.05;
 
-    /** Current spawn rate of Slimes. */
-    private double probSlime;
-    /** Current spawn rate of Goblins. */
-    private double probGoblin;
-    /** Current spawn rate of Ogres. */
-    private double probOgre;
-    /** Current spawn rate of Dragons. */
-    private double probDragon;
-    
+    /** The templates of the enemies that can be spawned. */
+    private EnemyTemplate[] templates;
+    /** The number of battles the factory has spawned enemies for. */
+    private int battle;
+    /** Sampler used to pick the enemy to spawn with the current spawn rates. */
+    private WeightedSampler sampler;
+
     /** 
-     * Constructs a new enemy factory with initial spawn rates. 
+     * Constructs a new enemy factory with no templates. 
+     * Templates must be set with {@code setTemplates()} before any enemies are spawned.
      */
     public EnemyFactory()
     {
-        probSlime = INIT_PROB_SLIME;
-        probGoblin = INIT_PROB_GOBLIN;
-        probOgre = INIT_PROB_OGRE;
-        probDragon = INIT_PROB_DRAGON;
+        this.templates = new EnemyTemplate[0];
+        this.battle = 0;
+        this.sampler = null;
+    }
+
+    /** 
+     * Constructs a new enemy factory with the specified templates and initial spawn rates. 
+     * @param templates The templates of the enemies that can be spawned.
+     */
+    public EnemyFactory(List<EnemyTemplate> templates)
+    {
+        this(templates, 0);
+    }
+
+    /**
+     * Constructs a new enemy factory with the specified templates and the spawn rates of the
+     * specified battle, as if it had already spawned that many enemies.
+     *
+     * @param templates The templates of the enemies that can be spawned.
+     * @param battle The number of battles already spawned.
+     */
+    public EnemyFactory(List<EnemyTemplate> templates, int battle)
+    {
+        this();
+        setTemplates(templates);
+        jumpTo(battle);
+    }
+
+    /**
+     * Sets the templates of the enemies that can be spawned, keeping the current battle number.
+     * @param templates The templates of the enemies that can be spawned.
+     * @throws IllegalArgumentException If there are no templates.
+     */
+    public void setTemplates(List<EnemyTemplate> templates) throws IllegalArgumentException
+    {
+        if (templates.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one enemy template is required.");
+        }
+        this.templates = templates.toArray(new EnemyTemplate[0]);
+        this.sampler = new WeightedSampler(getSpawnRates(battle));
+    }
+
+    /** @return The templates of the enemies that can be spawned. */
+    public List<EnemyTemplate> getTemplates()
+    {
+        return Collections.unmodifiableList(Arrays.asList(templates));
     }
 
     /** 
      * Spawns a random enemy with the current spawn rates.
      * 
      * @return The enemy that was spawned.
+     * @throws IllegalStateException If no templates have been set.
      */
-    public Enemy spawnRandomEnemy() {
-        Enemy e = null;
-        Randomizer rand = new Randomizer();
-
-        //Get a random integer (representing the enemy to spawn) based on the current spawn rates.
-        int n = rand.pickProbability(probSlime, probGoblin, probOgre, probDragon);
-        
-        //Construct a new enemy object based on the integer that was picked. 
-        switch (n) {
-            case 0:
-                e = new Slime();
-            break;
-            
-            case 1:
-                e = new Goblin();
-            break;
-            
-            case 2:
-                e = new Ogre();
-            break;
-            
-            case 3:
-                e = new Dragon();
-            break;
+    public Enemy spawnRandomEnemy() throws IllegalStateException {
+        if (sampler == null)
+        {
+            throw new IllegalStateException("No enemy templates have been set.");
         }
+        Randomizer rand = Randomizer.getInstance();
 
-        // Update the probabilities for each battle.
-        updateProbabilities();
+        //Pick the template of the enemy to spawn based on the current spawn rates, and construct a new enemy from it.
+        Enemy e = new Enemy(templates[sampler.sample(rand)]);
+
+        // Update the probabilities for the next battle.
+        jumpTo(battle + 1);
 
         //Return the enemy object
         return e;
     }
 
     /**
-     * Decreases the probability of each regular enemy by {@code PROB_INC} 
-     * and increases the probability of the dragon accordingly.
-     * Clamps probabilities between {@code MIN_PROB} and 1.00.
+     * Sets the spawn rates to those of the specified battle directly, as if the factory had spawned that many enemies.
+     * Allows campaign simulations to start at any depth.
+     *
+     * @param battle The number of battles already spawned.
+     */
+    public void jumpTo(int battle)
+    {
+        this.battle = battle;
+        if (sampler != null)
+        {
+            sampler.setWeights(getSpawnRates(battle));
+        }
+    }
+
+    /** @return The number of battles the factory has spawned enemies for. */
+    public int getBattle() { return battle; }
+
+    /**
+     * Returns the spawn rates of each template after the specified number of battles.
+     * Each template's rate decreases by its decrement per battle, down to {@code MIN_PROB},
+     * and templates that spawn with the remainder share what is left over equally.
+     *
+     * @param battle The number of battles already spawned.
+     * @return The spawn rate of each template, in the order of the templates.
+     */
+    public double[] getSpawnRates(int battle)
+    {
+        double[] rates = new double[templates.length];
+        double sum = 0.0;
+        int remainders = 0;
+        for (int i = 0; i < templates.length; i++)
+        {
+            if (templates[i].isSpawnRemainder())
+            {
+                remainders++;
+            }
+            else
+            {
+                rates[i] = templates[i].getSpawnRate(battle, MIN_PROB);
+                sum += rates[i];
+            }
+        }
+
+        double share = remainders > 0 ? Math.max(1.00 - sum, 0.0) / remainders : 0.0;
+        for (int i = 0; i < templates.length; i++)
+        {
+            if (templates[i].isSpawnRemainder())
+            {
+                rates[i] = share;
+            }
+        }
+        return rates;
+    }
+
+    /**
+     * Returns the template of the enemy type with the specified name.
+     * 
+     * @param name The name of the enemy type, such as {@code Slime} (case-insensitive).
+     * @return The template.
+     * @throws IllegalArgumentException If there is no enemy type with the name.
+     */
+    public EnemyTemplate getTemplate(String name) throws IllegalArgumentException
+    {
+        EnemyTemplate template = null;
+        for (EnemyTemplate t : templates)
+        {
+            if (template == null && t.getId().equalsIgnoreCase(name))
+            {
+                template = t;
+            }
+        }
+        if (template == null)
+        {
+            throw new IllegalArgumentException("Unknown enemy type: " + name);
+        }
+        return template;
+    }
+
+    /**
+     * Constructs a new enemy of the specified type.
+     * 
+     * @param name The name of the enemy type, such as {@code Slime} (case-insensitive).
+     * @return The enemy that was constructed.
+     * @throws IllegalArgumentException If there is no enemy type with the name.
      */
-    private void updateProbabilities()
+    public Enemy createEnemy(String name) throws IllegalArgumentException
     {
-        probSlime = Math.max(probSlime - PROB_DEC, MIN_PROB);
-        probSlime = Math.max(probSlime - PROB_DEC, MIN_PROB);
-        probSlime = Math.max(probSlime - PROB_DEC, MIN_PROB);
-        probDragon = 1.00 - (probSlime + probGoblin + probOgre);
+        return new Enemy(getTemplate(name));
     }
-    
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+/**
+ * Exception thrown when the EnemyLoader fails to load the enemy templates.
+ * 
+ * @author Rohan Khayech
+ */
+public class EnemyLoadException extends Exception
+{
+
+    public EnemyLoadException()
+    {
+        super();
+    }    
+
+    public EnemyLoadException(String message)
+    {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.io.*;
+import java.util.*;
+
+import rohankhayech.combatgame.model.character.*;
+import rohankhayech.combatgame.model.text.*;
+
+/**
+ * Class responsible for loading enemy templates into the game.
+ * 
+ * Each enemy is described by a line starting with {@code E}, or {@code B} for a boss that wins the game when defeated:
+ * {@code E, <name>, <colour>, <max health>, <min attack>, <max attack>, <min defence>, <max defence>, <gold>, <spawn rate>, <spawn rate decrement>}.
+ * The spawn rate and decrement can be replaced with {@code R} for the enemy to spawn with the probability left over by the others.
+ * Each enemy line can be followed by lines starting with {@code S} describing its special abilities:
+ * {@code S, <kind>, <chance>, <value>, <description>}, where the kind is one of {@code ZERO}, {@code BONUS}, {@code MULTIPLY},
+ * {@code HEAL} or {@code EXTRA} and {@code %s} in the description is replaced by the enemy's name.
+ * 
+ * @author Rohan Khayech
+ * @see EnemyTemplate
+ */
+public class EnemyLoader {
+
+    /** Default filename to load enemies from. */
+    public static final String DEF_FILENAME = "enemies.txt";
+
+    /** Name of the file to load enemies from. */
+    public String filename;
+
+    /**
+     * Constructs a new EnemyLoader using the default filename.
+     */
+    public EnemyLoader()
+    {
+        this.filename = DEF_FILENAME;
+    }
+
+    /**
+     * Constructs a new EnemyLoader using the specified filename.
+     * @param filename The filename to use.
+     */
+    public EnemyLoader(String filename)
+    {
+        this.filename = filename;
+    }
+
+    /**
+     * Reads a list of enemy templates from a file.
+     * 
+     * @return A list of enemy templates.
+     * @throws EnemyLoadException Thrown when the EnemyLoader fails to read enemies from the file.
+     */
+    public List<EnemyTemplate> fileLoadEnemies() throws EnemyLoadException
+    {
+        ClassLoader classLdr;
+        InputStream inputStream;
+        BufferedReader buffRdr;
+        List<EnemyTemplate> templates = null;
+
+        try
+        {
+            //Open the file in a buffered reader.
+            classLdr = Thread.currentThread().getContextClassLoader();
+            inputStream = classLdr.getResourceAsStream(filename);
+            if (inputStream == null)
+            {
+                throw new EnemyLoadException("Could not find " + filename + ".");
+            }
+            buffRdr = new BufferedReader(new InputStreamReader(inputStream));
+
+            //Read the templates.
+            templates = readEnemies(buffRdr);
+
+            //Close the file.
+            buffRdr.close();
+        }
+        catch (IOException e)
+        {
+            throw new EnemyLoadException("Error loading enemies from "+filename+": "+e.getMessage());
+        }
+
+        if (templates.isEmpty())
+        {
+            throw new EnemyLoadException("No valid enemies found in " + filename + ".");
+        }
+        return templates;
+    }
+
+    /** 
+     * Reads enemy templates described by lines of input strings from a {@code BufferedReader}.
+     * Calling class must close the reader after use.
+     * 
+     * @param source A {@code BufferedReader} object used to read lines of text from the input source.
+     * @return A list of enemy templates.
+     */
+    private List<EnemyTemplate> readEnemies(BufferedReader source) throws IOException
+    {
+        List<EnemyTemplate> templates = new ArrayList<EnemyTemplate>();
+        String[] enemy = null; //fields of the enemy currently being read
+        int enemyLineNum = 0;
+        List<EnemyAbility> abilities = new ArrayList<EnemyAbility>();
+        int lineNum = 1;
+
+        //Read each line from the file, building each template once all of its abilities have been read.
+        String line = source.readLine();
+        while (line != null)
+        {
+            String[] data = line.split(", ", 5);
+            char type = data[0].isEmpty() ? ' ' : data[0].charAt(0);
+            switch (type)
+            {
+                case 'E': case 'B':
+                    addTemplate(templates, enemy, abilities, enemyLineNum);
+                    enemy = line.split(", ");
+                    enemyLineNum = lineNum;
+                    abilities.clear();
+                break;
+
+                case 'S':
+                    EnemyAbility ab = enemy != null ? readAbility(data) : null;
+                    if (ab != null)
+                    {
+                        abilities.add(ab);
+                    }
+                    else
+                    {
+                        System.err.println("Line " + lineNum + " doesn't contain a valid ability, skipping...");
+                    }
+                break;
+
+                default:
+                    System.err.println("Line " + lineNum + " doesn't contain a valid enemy, skipping...");
+            }
+            line = source.readLine();
+            lineNum++;
+        }
+        addTemplate(templates, enemy, abilities, enemyLineNum);
+
+        return templates;
+    }
+
+    /**
+     * Builds a template from an enemy line and its abilities and adds it to the list if it is valid.
+     * 
+     * @param templates The list of templates to add to.
+     * @param data      Array containing the fields in the enemy's line of text, or {@code null} if there is none.
+     * @param abilities The abilities of the enemy.
+     * @param lineNum   The line number of the enemy.
+     */
+    private void addTemplate(List<EnemyTemplate> templates, String[] data, List<EnemyAbility> abilities, int lineNum)
+    {
+        if (data != null)
+        {
+            EnemyTemplate t = readTemplate(data, abilities);
+            if (t != null)
+            {
+                templates.add(t);
+            }
+            else
+            {
+                System.err.println("Line " + lineNum + " doesn't contain a valid enemy, skipping...");
+            }
+        }
+    }
+
+    /**
+     * Reads an enemy template from the given line.
+     * 
+     * @param data      Array containing the fields in the line of text.
+     * @param abilities The abilities of the enemy.
+     * @return The enemy template, or {@code null} if the line is invalid.
+     */
+    private EnemyTemplate readTemplate(String[] data, List<EnemyAbility> abilities)
+    {
+        EnemyTemplate t;
+        boolean remainder = data.length == 10 && data[9].equals("R");
+        if (data.length == 11 || remainder)
+        {
+            try
+            {
+                //Read each field into the correct data type
+                String id = data[1];
+                StyledText name = StyledText.of(id, Style.fromName(data[2]));
+                int maxHealth = Integer.parseInt(data[3]);
+                int minAttack = Integer.parseInt(data[4]);
+                int maxAttack = Integer.parseInt(data[5]);
+                int minDefence = Integer.parseInt(data[6]);
+                int maxDefence = Integer.parseInt(data[7]);
+                int gold = Integer.parseInt(data[8]);
+                boolean boss = data[0].charAt(0) == 'B';
+                double spawnRate = remainder ? EnemyTemplate.REMAINDER : Double.parseDouble(data[9]);
+                double spawnRateDec = remainder ? 0.0 : Double.parseDouble(data[10]);
+
+                //Construct the template
+                t = new EnemyTemplate(id, name, maxHealth, minAttack, maxAttack, minDefence, maxDefence,
+                        gold, boss, spawnRate, spawnRateDec, abilities);
+            }
+            catch (IllegalArgumentException e)
+            {
+                //invalid number, colour or stats
+                t = null;
+            }
+        }
+        else
+        {
+            t = null;
+        }
+
+        return t;
+    }
+
+    /**
+     * Reads an enemy ability from the given line.
+     * 
+     * @param data Array containing the fields in the line of text.
+     * @return The ability, or {@code null} if the line is invalid.
+     */
+    private EnemyAbility readAbility(String[] data)
+    {
+        EnemyAbility ab;
+        if (data.length == 5)
+        {
+            try
+            {
+                //Read each field into the correct data type
+                EnemyAbility.Kind kind = EnemyAbility.Kind.valueOf(data[1]);
+                double chance = Double.parseDouble(data[2]);
+                int value = Integer.parseInt(data[3]);
+                String description = data[4];
+
+                //Construct the ability
+                ab = new EnemyAbility(kind, chance, value, description);
+            }
+            catch (IllegalArgumentException e)
+            {
+                //invalid kind, number or chance
+                ab = null;
+            }
+        }
+        else
+        {
+            ab = null;
+        }
+
+        return ab;
+    }
+}
\ No newline at end of file
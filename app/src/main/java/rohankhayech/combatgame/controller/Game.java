@@ -4,7 +4,10 @@
 
 package rohankhayech.combatgame.controller;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 import rohankhayech.combatgame.model.character.*;
 import rohankhayech.combatgame.model.item.*;
@@ -33,6 +36,18 @@ public class Game {
     /** The factory object used to spawn enemies. */
     private EnemyFactory spawner;
 
+    /** Codec used to save and restore the state of the game, or {@code null} until the game is initialised. */
+    private SnapshotCodec codec;
+
+    /** Journal saving the actions of the game, or {@code null} if the game is not being saved. */
+    private SessionJournal journal;
+
+    /** Saver writing the journal of the game in the background, or {@code null} if the game is not being saved. */
+    private AutoSaver saver;
+
+    /** Watcher reloading the shop items when the item file changes, or {@code null} if not watched. */
+    private CatalogueWatcher watcher;
+
     /**
      * Constructs a new Game object. All dependencies are injected here so the game can be tested/mocked.
      * 
@@ -50,21 +65,29 @@ public class Game {
     }
 
     /**
-     * Initizilizes the game, loads the shop items from file using the specified
-     * loader, sets up the view for the game and gives the player starter items.
+     * Initizilizes the game, loads the shop items and enemy templates from file using the specified
+     * loaders, sets up the view for the game and gives the player starter items.
      * @param loader The ItemLoader object.
-     * @throws GameInitException if the shop item data could not be loaded.
+     * @param enemyLoader The EnemyLoader object.
+     * @throws GameInitException if the shop item or enemy data could not be loaded.
      */
-    public void init(ItemLoader loader) throws GameInitException {
-        // Load the shop items from file and stock the shop inventory with them.
+    public void init(ItemLoader loader, EnemyLoader enemyLoader) throws GameInitException {
+        // Load the shop items from file and stock the shop inventory with them,
+        // reloading them whenever the file changes.
         loadShopItems(loader);
 
+        // Load the enemy templates from file and give them to the enemy factory.
+        loadEnemies(enemyLoader);
+
         // Setup the view
         setupGameView();
 
         // Give the player the cheapest weapon and armour from the shop.
         setStarterItems();
 
+        // Create the codec to save and restore the state of the game with.
+        codec = new SnapshotCodec();
+
     }
 
 
@@ -73,52 +96,236 @@ public class Game {
      */
     public void run() {
         Boolean exit = false;
+        boolean gameOver = false;
 
         while (!exit) {
             // Run the main menu.
             exit = mMenu.run();
+            autosave();
 
             // Exit game if exit selected.
 
             if (!exit) {
                 Battle battle = new Battle(plr, spawner);
                 exit = battle.run();
+                gameOver = exit;
+                autosave();
             }
 
             // Exit game if player died.
         }
         
         //End the game.
-        end();
+        end(gameOver);
+    }
+
+    /**
+     * Starts saving the actions of the game in a journal as a new session, so that it can be resumed after the
+     * program exits or crashes. The journal is written in the background.
+     * @param j The journal.
+     * @return The id of the session.
+     * @throws IllegalStateException If the game has not been initialised.
+     */
+    public int startJournal(Journal j) throws IllegalStateException {
+        if (codec == null) {
+            throw new IllegalStateException("Game has not been initialised.");
+        }
+        startSaver(j);
+        journal = SessionJournal.start(j, saver, codec, plr, spawner);
+        plr.setJournal(journal);
+        return journal.getSession();
+    }
+
+    /**
+     * Resumes a session saved in a journal, restoring the game to the end of its last committed action,
+     * and continues saving the actions of the game in the session in the background.
+     * The game is unchanged if it cannot be resumed.
+     * @param j The journal.
+     * @param session The id of the session.
+     * @throws IOException If the journal could not be read.
+     * @throws SaveFormatException If the session cannot be resumed.
+     * @throws IllegalStateException If the game has not been initialised.
+     */
+    public void resumeJournal(Journal j, int session) throws IOException, SaveFormatException, IllegalStateException {
+        if (codec == null) {
+            throw new IllegalStateException("Game has not been initialised.");
+        }
+        // Keep the initial state, so that a session that is only partly replayed can be undone.
+        GameSnapshot initial = codec.encode(plr, spawner);
+        startSaver(j);
+        try {
+            journal = SessionJournal.resume(j, saver, session, codec, plr, spawner);
+        } catch (SaveFormatException | IOException e) {
+            stopSaver();
+            codec.decode(initial, plr, spawner);
+            throw e;
+        }
+        plr.setJournal(journal);
+    }
+
+    /**
+     * Saves a snapshot of the current state of the game.
+     * @return The snapshot.
+     * @throws IllegalStateException If the game has not been initialised.
+     */
+    public GameSnapshot save() throws IllegalStateException {
+        if (codec == null) {
+            throw new IllegalStateException("Game has not been initialised.");
+        }
+        return codec.encode(plr, spawner);
+    }
+
+    /**
+     * Restores the state of the game from a snapshot, such as to continue a saved game.
+     * @param snapshot The snapshot.
+     * @throws SaveFormatException If the snapshot is corrupt or from an unknown version.
+     * @throws IllegalStateException If the game has not been initialised.
+     */
+    public void load(GameSnapshot snapshot) throws SaveFormatException, IllegalStateException {
+        if (codec == null) {
+            throw new IllegalStateException("Game has not been initialised.");
+        }
+        codec.decode(snapshot, plr, spawner);
     }
 
     /**
      * Ends the game and resets the view.
+     * The saved session is ended if the game is over, otherwise it can be resumed later.
+     * @param gameOver Whether the game ended because the player died.
      */
-    private void end() {
+    private void end(boolean gameOver) {
         try {
             view.setHUD(HUD.NONE);
         } catch (UninitializedViewException e) {
             view.println(e.getMessage());
         }
         view.setPlayer(null);
+
+        if (journal != null) {
+            plr.setJournal(null);
+            if (gameOver) {
+                journal.end();
+            }
+            journal = null;
+        }
+        stopSaver();
+        stopWatcher();
     }
 
     /**
-     * Load the shop items from file and stock the shop inventory with them.
+     * Saves a snapshot of the game in the background at a safe point, if the game is being saved.
+     * Only the latest snapshot waiting to be written is kept, so the game never waits for an earlier one.
+     */
+    private void autosave() {
+        if (journal != null) {
+            journal.checkpoint();
+        }
+    }
+
+    /**
+     * Starts a saver writing to the specified journal in the background, stopping any previous saver.
+     * @param j The journal.
+     */
+    private void startSaver(Journal j) {
+        stopSaver();
+        saver = new AutoSaver(j);
+        saver.start();
+    }
+
+    /**
+     * Stops the saver, if one is running, after it has written every snapshot and action submitted to it.
+     */
+    private void stopSaver() {
+        if (saver != null) {
+            try {
+                saver.close();
+            } catch (IOException e) {
+                view.println("Could not finish saving: " + e.getMessage());
+            }
+            saver = null;
+        }
+    }
+
+    /**
+     * Load the shop items from file and stock the shop inventory with them as they are read,
+     * watching the file so that the items are reloaded whenever it changes.
+     * Large files are paged from their compiled catalogue instead, so the items are only read when needed.
      * @param loader The ItemLoader object.
      * @throws GameInitException if the shop item data could not be loaded.
      */
     private void loadShopItems(ItemLoader loader) throws GameInitException {
-        List<Item> shopItems = null;
+        shop.clearStock();
         try {
-            shopItems = loader.fileLoadItems();
+            if (loader.isPaged()) {
+                shop.stockCatalogue(loader.fileMapItems());
+            } else {
+                // Start watching before the file is read, and record its lines as they are loaded.
+                watchShopItems(loader);
+                loader.fileStreamItems(new Consumer<Item>() {
+                    @Override
+                    public void accept(Item i) {
+                        shop.addStock(i);
+                    }
+                }, watcher);
+            }
         } catch (ItemLoadException e) {
+            stopWatcher();
             String msg = "Could not load shop item data:\n"+ e.getMessage();
             throw new GameInitException(msg);
         }
 
-        shop.stockInventory(shopItems);
+        shop.stockEnchantments();
+    }
+
+    /**
+     * Watches the item file for changes and reloads the shop items when it changes, while the game is running.
+     * The watcher must be passed to the loader when the file is loaded, so it records the initial lines of the file.
+     * Items loaded from a file that is not on the file system are not reloaded.
+     * The game still runs if the file cannot be watched.
+     * @param loader The ItemLoader object the items will be loaded with.
+     */
+    private void watchShopItems(ItemLoader loader) {
+        Path file = loader.getFilePath();
+        if (file != null) {
+            watcher = new CatalogueWatcher(file, shop);
+            try {
+                watcher.start();
+            } catch (IOException e) {
+                view.println("Could not watch shop items for changes: " + e.getMessage());
+                watcher = null;
+            }
+        }
+    }
+
+    /**
+     * Stops watching the item file for changes, if it is being watched.
+     */
+    private void stopWatcher() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                view.println("Could not stop watching shop items: " + e.getMessage());
+            }
+            watcher = null;
+        }
+    }
+
+    /**
+     * Load the enemy templates from file and give them to the enemy factory.
+     * @param loader The EnemyLoader object.
+     * @throws GameInitException if the enemy data could not be loaded.
+     */
+    private void loadEnemies(EnemyLoader loader) throws GameInitException {
+        List<EnemyTemplate> templates = null;
+        try {
+            templates = loader.fileLoadEnemies();
+        } catch (EnemyLoadException e) {
+            String msg = "Could not load enemy data:\n"+ e.getMessage();
+            throw new GameInitException(msg);
+        }
+
+        spawner.setTemplates(templates);
     }
 
     /**
@@ -138,21 +345,22 @@ public class Game {
      * Give the player the cheapest weapon and armour from the shop.
      */
     private void setStarterItems() {
-        //Get the list of weapons from the shop and sort the list by cost.
-        List<Weapon> w = shop.getInventory().getAllWeapons();
-        w.sort(Item.getCostComparator());
+        CatalogueIndex catalogue = shop.getCatalogue();
+        ItemRegistry registry = ItemRegistry.getInstance();
+
+        //Find the cheapest weapon in the shop, interning it in case it was paged so it stacks with bought copies.
+        Weapon w = registry.intern(catalogue.getCheapest(Weapon.class));
         
         //Give the player the cheapest weapon and set it as their selected weapon.
-        plr.giveItem(w.get(0));
-        plr.setWeapon(w.get(0));
+        plr.giveItem(w);
+        plr.setWeapon(w);
 
-        //Get the list of armour from the shop and sort the list by cost.
-        List<Armour> a = shop.getInventory().getAllArmour();
-        a.sort(Item.getCostComparator());
+        //Find the cheapest armour in the shop.
+        Armour a = registry.intern(catalogue.getCheapest(Armour.class));
 
         //Give the player the cheapest armour and set it as their selected armour.
-        plr.giveItem(a.get(0));
-        plr.setArmour(a.get(0));
+        plr.giveItem(a);
+        plr.setArmour(a);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the state of a game, encoded in a compact binary form by a {@code SnapshotCodec}.
+ * Snapshots can be stored as bytes, such as in a file, and restored into a new game later.
+ *
+ * @author Rohan Khayech
+ * @see SnapshotCodec
+ */
+public class GameSnapshot
+{
+    /** The encoded state. */
+    private final byte[] data;
+
+    /**
+     * Constructs a snapshot from its encoded bytes, such as when read back from a file.
+     * The data is only checked when the snapshot is restored.
+     * @param data The encoded state, which is copied.
+     */
+    public GameSnapshot(byte[] data)
+    {
+        this(data, true);
+    }
+
+    /**
+     * Constructs a snapshot from its encoded bytes.
+     * @param data The encoded state.
+     * @param copy Whether to copy the data, rather than taking ownership of it.
+     */
+    GameSnapshot(byte[] data, boolean copy)
+    {
+        this.data = copy ? data.clone() : data;
+    }
+
+    /** @return The size of the encoded state, in bytes. */
+    public int size() { return data.length; }
+
+    /** @return A copy of the encoded state. */
+    public byte[] toByteArray()
+    {
+        return data.clone();
+    }
+
+    /** @return The encoded state, which must not be modified. */
+    byte[] getData() { return data; }
+
+    /**
+     * @param o The object to compare.
+     * @return {@code true} if the object is a snapshot with the same encoded state.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof GameSnapshot && Arrays.equals(data, ((GameSnapshot)o).data);
+    }
+
+    /** @return The hash code of the encoded state. */
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(data);
+    }
+}
\ No newline at end of file
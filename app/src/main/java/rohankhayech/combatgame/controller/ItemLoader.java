@@ -5,233 +5,873 @@
 package rohankhayech.combatgame.controller;
 
 import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 import rohankhayech.combatgame.model.item.*;
 
 /**
  * Class responsible for loading items into the game.
- * 
+ *
+ * Each item is described by a line of fields separated by {@code ", "}, starting with its type:
+ * {@code W, <name>, <min damage>, <max damage>, <cost>, <damage type>, <weapon type>},
+ * {@code A, <name>, <min defence>, <max defence>, <cost>, <material>} or
+ * {@code P, <name>, <min effect>, <max effect>, <cost>, <H|D>}.
+ *
+ * Items are parsed straight from the bytes of the file, which is memory-mapped when it is on the file system.
+ * Large files are split into chunks at line boundaries and parsed in parallel, while the items are delivered
+ * in file order on the calling thread as each chunk finishes.
+ *
+ * If the loader has a {@link CatalogueCache}, each file is compiled to a binary catalogue the first time it
+ * is loaded, and the catalogue is read instead of parsing the file again until the file changes.
+ *
  * @author Rohan Khayech
  */
 public class ItemLoader {
 
     /** Default filename to load items from. */
     public static final String DEF_FILENAME = "shop.txt";
+    /** Size of the chunks a file is split into to parse in parallel, in bytes. */
+    public static final int CHUNK_SIZE = 1 << 22;
+    /** Size of an item file, in bytes, from which it is paged rather than loaded into memory when a cache is available. */
+    public static final long PAGE_THRESHOLD = 1L << 26;
 
     /** Name of the file to load items from. */
-    public String filename; 
-    
+    public String filename;
+    /** The number of threads to parse chunks with. */
+    private final int threads;
+    /** The cache of compiled catalogues, or {@code null} to always parse the file. */
+    private final CatalogueCache cache;
+
     /**
      * Constructs a new ItemLoader using the default filename.
      */
     public ItemLoader()
     {
-        this.filename = DEF_FILENAME;
+        this(DEF_FILENAME);
+    }
+
+    /**
+     * Constructs a new ItemLoader using the specified filename,
+     * parsing with one thread per available processor.
+     * @param filename The filename to use.
+     */
+    public ItemLoader(String filename)
+    {
+        this(filename, Runtime.getRuntime().availableProcessors());
     }
 
     /**
-     * Constructs a new ItemLoader using the specified filename.
+     * Constructs a new ItemLoader using the specified filename and number of threads.
      * @param filename The filename to use.
+     * @param threads The number of threads to parse chunks with, or 1 to parse on the calling thread.
      */
-    public ItemLoader(String filename) 
-    { 
+    public ItemLoader(String filename, int threads)
+    {
+        this(filename, threads, null);
+    }
+
+    /**
+     * Constructs a new ItemLoader using the specified filename and catalogue cache,
+     * parsing with one thread per available processor.
+     * @param filename The filename to use.
+     * @param cache The cache of compiled catalogues.
+     */
+    public ItemLoader(String filename, CatalogueCache cache)
+    {
+        this(filename, Runtime.getRuntime().availableProcessors(), cache);
+    }
+
+    /**
+     * Constructs a new ItemLoader using the specified filename, number of threads and catalogue cache.
+     * @param filename The filename to use.
+     * @param threads The number of threads to parse chunks with, or 1 to parse on the calling thread.
+     * @param cache The cache of compiled catalogues, or {@code null} to always parse the file.
+     */
+    public ItemLoader(String filename, int threads, CatalogueCache cache)
+    {
         this.filename = filename;
+        this.threads = Math.max(1, threads);
+        this.cache = cache;
     }
 
     /**
      * Reads a list of inventory items from a file.
-     * 
+     * Each item is interned, so items already loaded are returned as the existing shared template.
+     *
      * @return A list of inventory items.
      * @throws ItemLoadException Thrown when the ItemLoader fails to read items from the file.
      */
     public List<Item> fileLoadItems() throws ItemLoadException
     {
-        ClassLoader classLdr;
-        InputStream inputStream;
-        InputStreamReader streamRdr;
-        BufferedReader buffRdr;
-        List<Item> items = null;
+        List<Item> items = new ArrayList<Item>();
+        fileStreamItems(new Consumer<Item>() {
+            @Override
+            public void accept(Item i) {
+                items.add(i);
+            }
+        });
+        return items;
+    }
+
+    /**
+     * Reads the inventory items from a file, passing each item to the specified consumer in file order
+     * as soon as it is parsed, without collecting them. Each item is interned before it is passed on.
+     * If the loader has a cache, the items are read from the file's compiled catalogue when it is up to date.
+     *
+     * @param consumer The consumer to pass each item to. Always called on the calling thread.
+     * @return The number of items read.
+     * @throws ItemLoadException Thrown when the ItemLoader fails to read items from the file.
+     */
+    public int fileStreamItems(Consumer<? super Item> consumer) throws ItemLoadException
+    {
+        return fileStreamItems(consumer, null);
+    }
 
+    /**
+     * Reads the inventory items from a file, passing each item to the specified consumer in file order
+     * as soon as it is parsed, and passing the contents of the file and the item on each line to a listener.
+     * Each item is interned before it is passed on.
+     * If the loader has a cache, the items are read from the file's compiled catalogue when it is up to date.
+     *
+     * @param consumer The consumer to pass each item to. Always called on the calling thread.
+     * @param listener The listener to pass the contents and lines of the file to, or {@code null}.
+     * @return The number of items read.
+     * @throws ItemLoadException Thrown when the ItemLoader fails to read items from the file.
+     */
+    public int fileStreamItems(Consumer<? super Item> consumer, LineListener listener) throws ItemLoadException
+    {
+        ByteBuffer source = fileReadSource();
         try
         {
-            //Open the file in a buffered reader.
-            classLdr = Thread.currentThread().getContextClassLoader();
-            inputStream = classLdr.getResourceAsStream(filename);
-            streamRdr = new InputStreamReader(inputStream);
-            buffRdr = new BufferedReader(streamRdr);
-            
-            //Read the items.
-            items = readItems(buffRdr);
-
-            //Close the file.
-            buffRdr.close();
+            if (listener != null)
+            {
+                listener.read(source);
+            }
+            return loadItems(source, consumer, listener);
         }
         catch (IOException e)
         {
             throw new ItemLoadException("Error loading items from "+filename+": "+e.getMessage());
         }
-        
-        return items;
     }
 
-    /** 
-     * Reads items described by lines of input strings from a {@code BufferedReader}.
-     * This allows item data to be added from other input sources in the future if necessary.
-     * Calling class must close the reader after use.
-     * 
-     * @param source A {@code BufferedReader} object used to read lines of text from the input source.
-     * @return A list of inventory items.
+    /**
+     * Opens the items in a file as a paged catalogue, which reads each item from the file's compiled catalogue
+     * only when it is needed instead of loading every item into memory. The file is compiled first if the
+     * compiled catalogue is missing or out of date. The items are not interned.
+     *
+     * @return The paged catalogue.
+     * @throws ItemLoadException Thrown when the ItemLoader fails to read items from the file or has no cache.
      */
-    private List<Item> readItems(BufferedReader source) throws IOException
+    public PagedCatalogue fileMapItems() throws ItemLoadException
     {
-        List<Item> items = new ArrayList<Item>();
-        String line;
-        String[] data;
-        int lineNum;
-        Item item = null;
-
-        lineNum = 1;
+        if (cache == null)
+        {
+            throw new ItemLoadException("Error loading items from "+filename+": Paging items requires a catalogue cache.");
+        }
 
-        //Read each line from the file and load in the item if the line is valid.
-        line = source.readLine();
-        while (line != null)
+        ByteBuffer source = fileReadSource();
+        PagedCatalogue catalogue;
+        try
         {
-            data = line.split(", ");
-            char type = data[0].charAt(0);
-            switch (type)
+            long hash = CatalogueCache.hash(source);
+            catalogue = cache.openCatalogue(filename, hash, true);
+            if (catalogue == null)
             {
-                case 'W':
-                    item = readWeapon(data);
-                break;
-
-                case 'A':
-                    item = readArmour(data);
-                break;
-
-                case 'P':
-                    item = readPotion(data);
-                break;
+                //Compile the file without keeping its items, then page them from the compiled catalogue.
+                CatalogueCache.Builder builder = new CatalogueCache.Builder(hash);
+                streamItems(source, null, builder, null);
+                cache.write(filename, builder);
+                catalogue = cache.openCatalogue(filename, hash, false);
+                if (catalogue == null)
+                {
+                    throw new IOException("Compiled catalogue could not be read back.");
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ItemLoadException("Error loading items from "+filename+": "+e.getMessage());
+        }
+        return catalogue;
+    }
 
-                default:
-                    item = null;
+    /**
+     * Returns whether the file should be paged with {@link #fileMapItems()} rather than loaded into memory,
+     * which is the case when the loader has a cache and the file is at least {@value #PAGE_THRESHOLD} bytes.
+     *
+     * @return {@code true} if the file should be paged, {@code false} if it should be loaded or does not exist.
+     */
+    public boolean isPaged()
+    {
+        boolean paged = false;
+        URL url = Thread.currentThread().getContextClassLoader().getResource(filename);
+        if (cache != null && url != null)
+        {
+            try
+            {
+                long size = url.getProtocol().equals("file") ? Files.size(Paths.get(url.toURI())) : url.openConnection().getContentLengthLong();
+                paged = size >= PAGE_THRESHOLD;
+            }
+            catch (IOException | URISyntaxException e)
+            {
+                // Fall back to loading the file, which reports the error.
+                paged = false;
             }
+        }
+        return paged;
+    }
 
-            if (item != null)
+    /**
+     * Reads the contents of the file, mapping it into memory when it is on the file system.
+     *
+     * @return The contents of the file, from index 0 to its limit.
+     * @throws ItemLoadException Thrown when the file could not be found or read.
+     */
+    private ByteBuffer fileReadSource() throws ItemLoadException
+    {
+        ClassLoader classLdr = Thread.currentThread().getContextClassLoader();
+        URL url = classLdr.getResource(filename);
+        if (url == null)
+        {
+            throw new ItemLoadException("Error loading items from "+filename+": File not found.");
+        }
+
+        ByteBuffer source;
+        try
+        {
+            if (url.getProtocol().equals("file"))
             {
-                items.add(item);
+                //Map the file into memory. The mapping stays valid after the channel is closed.
+                try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ))
+                {
+                    if (channel.size() > Integer.MAX_VALUE)
+                    {
+                        throw new ItemLoadException("Error loading items from "+filename+": File is larger than 2GB.");
+                    }
+                    source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
             }
             else
             {
-                System.err.println("Line " + lineNum + "doesn't contain a valid item, skipping...");
+                //Read resources that are not files, such as those packed in a jar, into memory.
+                try (InputStream in = url.openStream())
+                {
+                    source = ByteBuffer.wrap(in.readAllBytes());
+                }
             }
-            line = source.readLine();
-            lineNum++;
         }
+        catch (IOException | URISyntaxException e)
+        {
+            throw new ItemLoadException("Error loading items from "+filename+": "+e.getMessage());
+        }
+        return source;
+    }
 
+    /**
+     * Reads the items of the file from its compiled catalogue if it is up to date,
+     * otherwise parses the file and compiles it for next time.
+     * @param source The contents of the file.
+     * @param consumer The consumer to pass each item to.
+     * @param listener The listener to pass each line to, or {@code null}.
+     * @return The number of items read.
+     * @throws ItemLoadException If parsing was interrupted.
+     * @throws IOException If the compiled catalogue could not be read.
+     */
+    private int loadItems(ByteBuffer source, Consumer<? super Item> consumer, LineListener listener) throws ItemLoadException, IOException
+    {
+        int count = -1;
+        if (cache == null)
+        {
+            count = streamItems(source, consumer, null, listener);
+        }
+        else
+        {
+            long hash = CatalogueCache.hash(source);
+            count = cache.streamItems(filename, hash, consumer, listener);
+            if (count < 0)
+            {
+                CatalogueCache.Builder builder = new CatalogueCache.Builder(hash);
+                count = streamItems(source, consumer, builder, listener);
+                try
+                {
+                    cache.write(filename, builder);
+                }
+                catch (IOException e)
+                {
+                    // The items were still loaded, so the file is just parsed again next time.
+                    System.err.println("Could not cache items from "+filename+": "+e.getMessage());
+                }
+            }
+        }
+        return count;
+    }
 
-        return items;
-
+    /**
+     * Reads items described by lines of text encoded in UTF-8 from a buffer, passing each item to the
+     * specified consumer in order. This allows item data to be added from other input sources if necessary.
+     * Lines that do not describe a valid item are reported and skipped.
+     *
+     * @param data The buffer, read from index 0 to its limit.
+     * @param consumer The consumer to pass each item to. Always called on the calling thread.
+     * @return The number of items read.
+     * @throws ItemLoadException If parsing was interrupted.
+     */
+    public int streamItems(ByteBuffer data, Consumer<? super Item> consumer) throws ItemLoadException
+    {
+        return streamItems(data, consumer, null, null);
     }
 
     /**
-     * Reads a weapon from the given line.
-     * @param data Array containing the fields in the line of text.
-     * @return The weapon in item form.
+     * Reads items from a buffer, passing each item to the specified consumer in order
+     * and adding each item and invalid line to a catalogue builder.
+     *
+     * @param data The buffer, read from index 0 to its limit.
+     * @param consumer The consumer to pass each item to, or {@code null} to only compile the items. Always called on the calling thread.
+     * @param builder The builder to compile the items with, or {@code null}.
+     * @param listener The listener to pass each line to, or {@code null}.
+     * @return The number of items read.
+     * @throws ItemLoadException If parsing was interrupted.
      */
-    private Item readWeapon(String[] data)
+    private int streamItems(ByteBuffer data, Consumer<? super Item> consumer, CatalogueCache.Builder builder, LineListener listener) throws ItemLoadException
     {
-        Item item;
-        if (data.length == 7)
+        //Split the data into chunks, extending each chunk to the end of its last line.
+        List<int[]> chunks = new ArrayList<int[]>();
+        int limit = data.limit();
+        int start = 0;
+        while (start < limit)
         {
-            try
+            int end = (int)Math.min((long)start + CHUNK_SIZE, limit);
+            while (end < limit && data.get(end - 1) != '\n')
             {
-                //Read each field into the correct data type
-                String name = data[1];
-                int minDamage = Integer.parseInt(data[2]);
-                int maxDamage = Integer.parseInt(data[3]);
-                int cost = Integer.parseInt(data[4]);
-                String damageType = data[5];
-                String weaponType = data[6];
+                end++;
+            }
+            chunks.add(new int[] {start, end});
+            start = end;
+        }
 
-                // Construct the item
-                item = new GenericWeapon(name, cost, minDamage, maxDamage, weaponType, damageType);
-            } catch (NumberFormatException e)
+        Delivery delivery = new Delivery(consumer, builder, listener);
+        if (threads == 1 || chunks.size() <= 1)
+        {
+            for (int[] c : chunks)
             {
-                item = null;
+                delivery.deliver(new ChunkParser(data).parse(c[0], c[1]));
             }
         }
         else
         {
-            item = null;
+            //Parse up to two chunks per thread ahead of the chunk being delivered.
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try
+            {
+                Deque<Future<Chunk>> pending = new ArrayDeque<Future<Chunk>>();
+                int next = 0;
+                while (next < chunks.size() || !pending.isEmpty())
+                {
+                    while (next < chunks.size() && pending.size() < threads * 2)
+                    {
+                        int[] c = chunks.get(next++);
+                        pending.add(pool.submit(new Callable<Chunk>() {
+                            @Override
+                            public Chunk call() {
+                                return new ChunkParser(data.duplicate()).parse(c[0], c[1]);
+                            }
+                        }));
+                    }
+                    delivery.deliver(pending.remove().get());
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new ItemLoadException("Loading items was interrupted.");
+            }
+            catch (ExecutionException e)
+            {
+                throw new IllegalStateException("Failed to parse items.", e.getCause());
+            }
+            finally
+            {
+                pool.shutdownNow();
+            }
         }
-
-        return item;
+        return delivery.count;
     }
 
     /**
-     * Reads an Armour object from the given line.
-     * 
-     * @param data Array containing the fields in the line of text.
-     * @return The armour in item form.
+     * Returns the path of the file on the file system, so that it can be watched for changes.
+     *
+     * @return The path of the file, or {@code null} if it does not exist or is not on the file system, such as in a jar.
      */
-    private Item readArmour(String[] data) {
-        Item item;
-        if (data.length == 6) {
+    public Path getFilePath()
+    {
+        Path path = null;
+        URL url = Thread.currentThread().getContextClassLoader().getResource(filename);
+        if (url != null && url.getProtocol().equals("file"))
+        {
             try
             {
-                // Read each field into the correct data type
-                String name = data[1];
-                int minDefence = Integer.parseInt(data[2]);
-                int maxDefence = Integer.parseInt(data[3]);
-                int cost = Integer.parseInt(data[4]);
-                String material = data[5];
+                path = Paths.get(url.toURI());
+            }
+            catch (URISyntaxException e)
+            {
+                path = null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Parses an item from a single line of item data, without interning it.
+     * This allows individual lines to be parsed again when they change.
+     *
+     * @param data The buffer containing the line.
+     * @param from The index of the first byte of the line.
+     * @param to The index after the last byte of the line, excluding the newline.
+     * @return The item, or {@code null} if the line does not contain a valid item.
+     */
+    static Item parseLine(ByteBuffer data, int from, int to)
+    {
+        int end = to > from && data.get(to - 1) == '\r' ? to - 1 : to;
+        return new ChunkParser(data).parseLine(from, end);
+    }
+
+    /**
+     * Reports a line of an item file that does not contain a valid item.
+     * @param line The line number, starting at 1.
+     */
+    static void reportInvalidLine(int line)
+    {
+        System.err.println(invalidLineMessage(line));
+    }
+
+    /**
+     * Describes a line of an item file that does not contain a valid item.
+     * @param line The line number, starting at 1.
+     * @return The message to report.
+     */
+    static String invalidLineMessage(int line)
+    {
+        return "Line " + line + " doesn't contain a valid item, skipping...";
+    }
+
+    /**
+     * Receives the contents of an item file and the item on each of its lines as the file is loaded,
+     * such as to track which lines change when the file is edited.
+     */
+    public interface LineListener
+    {
+        /**
+         * Called with the contents of the file before any of its lines.
+         * @param data The contents of the file, from index 0 to its limit, which must not be modified.
+         */
+        void read(ByteBuffer data);
+
+        /**
+         * Called for each line of the file in order, on the thread loading the file.
+         * @param line The line number, starting at 1.
+         * @param item The interned item on the line, or {@code null} if the line does not contain a valid item.
+         */
+        void line(int line, Item item);
+    }
+
+    /**
+     * Passes the items of parsed chunks to a consumer in order, reporting invalid lines.
+     */
+    private static class Delivery
+    {
+        /** The consumer to pass items to, or {@code null}. */
+        private final Consumer<? super Item> consumer;
+        /** The registry to intern items with. */
+        private final ItemRegistry registry;
+        /** The builder to compile items with, or {@code null}. */
+        private final CatalogueCache.Builder builder;
+        /** The listener to pass each line to, or {@code null}. */
+        private final LineListener listener;
+        /** The number of lines in the chunks delivered so far. */
+        private int lines;
+        /** The number of items delivered so far. */
+        private int count;
+
+        /**
+         * Constructs a new delivery.
+         * @param consumer The consumer to pass items to, or {@code null} to only compile them.
+         * @param builder The builder to compile items with, or {@code null}.
+         * @param listener The listener to pass each line to, or {@code null}.
+         */
+        private Delivery(Consumer<? super Item> consumer, CatalogueCache.Builder builder, LineListener listener)
+        {
+            this.consumer = consumer;
+            this.registry = ItemRegistry.getInstance();
+            this.builder = builder;
+            this.listener = listener;
+            this.lines = 0;
+            this.count = 0;
+        }
 
-                //Construct the item
-                item = new Armour(name, cost, minDefence, maxDefence, material);
-            } catch (NumberFormatException e)
+        /**
+         * Interns and passes on the items of the next chunk, and reports its invalid lines,
+         * adding both to the builder if there is one, and passes each line to the listener if there is one.
+         * @param chunk The chunk.
+         */
+        private void deliver(Chunk chunk)
+        {
+            int b = 0;
+            Iterator<Item> items = chunk.items.iterator();
+            for (int l = 0; l < chunk.lines; l++)
             {
-                item = null;
+                int line = lines + l + 1;
+                if (b < chunk.bad && chunk.badLines[b] == l)
+                {
+                    b++;
+                    reportInvalidLine(line);
+                    if (builder != null)
+                    {
+                        builder.addInvalidLine(line);
+                    }
+                    if (listener != null)
+                    {
+                        listener.line(line, null);
+                    }
+                }
+                else
+                {
+                    Item item = items.next();
+                    if (builder != null)
+                    {
+                        builder.addItem(item);
+                    }
+                    if (consumer != null || listener != null)
+                    {
+                        item = registry.intern(item);
+                        if (listener != null)
+                        {
+                            listener.line(line, item);
+                        }
+                        if (consumer != null)
+                        {
+                            consumer.accept(item);
+                        }
+                    }
+                }
             }
-        } else {
-            item = null;
+            count += chunk.items.size();
+            lines += chunk.lines;
         }
+    }
 
-        return item;
+    /**
+     * The items and invalid lines parsed from a chunk.
+     */
+    private static class Chunk
+    {
+        /** The items, in order. */
+        private final List<Item> items = new ArrayList<Item>();
+        /** The number of lines in the chunk. */
+        private int lines = 0;
+        /** The line numbers of the invalid lines within the chunk, starting at 0. */
+        private int[] badLines = new int[4];
+        /** The number of invalid lines. */
+        private int bad = 0;
     }
 
     /**
-     * Reads a potion from the given line.
-     * 
-     * @param data Array containing the fields in the line of text.
-     * @return The potion in item form.
+     * Parses lines of item data from a buffer, splitting fields in place
+     * and only creating strings for the fields an item keeps.
      */
-    private Item readPotion(String[] data) {
-        Item item;
-        if (data.length == 6) {
-            try
+    private static class ChunkParser
+    {
+        /** Value returned when a number could not be parsed, outside the range of an int. */
+        private static final long NAN = Long.MIN_VALUE;
+
+        /** The buffer. */
+        private final ByteBuffer data;
+        /** The start index of each field in the current line. */
+        private int[] starts;
+        /** The end index of each field in the current line. */
+        private int[] ends;
+        /** The number of fields in the current line. */
+        private int fields;
+        /** Scratch space for decoding strings. */
+        private byte[] scratch;
+
+        /**
+         * Constructs a parser for the specified buffer.
+         * @param data The buffer.
+         */
+        private ChunkParser(ByteBuffer data)
+        {
+            this.data = data;
+            this.starts = new int[8];
+            this.ends = new int[8];
+            this.scratch = new byte[64];
+        }
+
+        /**
+         * Parses each line in a chunk of the buffer.
+         * @param from The index of the first byte of the chunk.
+         * @param to The index after the last byte of the chunk, which must be at the end of a line.
+         * @return The parsed chunk.
+         */
+        private Chunk parse(int from, int to)
+        {
+            Chunk chunk = new Chunk();
+            int pos = from;
+            while (pos < to)
             {
-                // Read each field into the correct data type
-                String name = data[1];
-                int minEffect = Integer.parseInt(data[2]);
-                int maxEffect = Integer.parseInt(data[3]);
-                int cost = Integer.parseInt(data[4]);
-                char type = data[5].charAt(0);
-                try {
-                    // Construct the item
-                    item = new Potion(name, cost, minEffect, maxEffect, type);
-                } catch (IllegalArgumentException e) {
-                    //potion type invalid
-                    item = null;
+                int eol = pos;
+                while (eol < to && data.get(eol) != '\n')
+                {
+                    eol++;
+                }
+                int end = eol > pos && data.get(eol - 1) == '\r' ? eol - 1 : eol;
+
+                Item item = parseLine(pos, end);
+                if (item != null)
+                {
+                    chunk.items.add(item);
                 }
-            } catch (NumberFormatException e)
+                else
+                {
+                    if (chunk.bad == chunk.badLines.length)
+                    {
+                        chunk.badLines = Arrays.copyOf(chunk.badLines, chunk.bad * 2);
+                    }
+                    chunk.badLines[chunk.bad++] = chunk.lines;
+                }
+                chunk.lines++;
+                pos = eol + 1;
+            }
+            return chunk;
+        }
+
+        /**
+         * Parses an item from a line.
+         * @param from The index of the first byte of the line.
+         * @param to The index after the last byte of the line.
+         * @return The item, or {@code null} if the line does not contain a valid item.
+         */
+        private Item parseLine(int from, int to)
+        {
+            split(from, to);
+            Item item = null;
+            if (fields > 0 && ends[0] > starts[0])
             {
-                item = null;
+                switch (data.get(starts[0]))
+                {
+                    case 'W':
+                        item = readWeapon();
+                    break;
+
+                    case 'A':
+                        item = readArmour();
+                    break;
+
+                    case 'P':
+                        item = readPotion();
+                    break;
+                }
             }
-        } else {
-            item = null;
+            return item;
         }
 
-        return item;
+        /**
+         * Finds the fields of a line, separated by {@code ", "}, ignoring any empty fields at the end of the line.
+         * @param from The index of the first byte of the line.
+         * @param to The index after the last byte of the line.
+         */
+        private void split(int from, int to)
+        {
+            fields = 0;
+            int start = from;
+            for (int i = from; i < to; i++)
+            {
+                if (data.get(i) == ',' && i + 1 < to && data.get(i + 1) == ' ')
+                {
+                    addField(start, i);
+                    start = i + 2;
+                    i++;
+                }
+            }
+            addField(start, to);
+
+            while (fields > 0 && ends[fields - 1] == starts[fields - 1])
+            {
+                fields--;
+            }
+        }
+
+        /**
+         * Records a field of the current line.
+         * @param start The index of the first byte of the field.
+         * @param end The index after the last byte of the field.
+         */
+        private void addField(int start, int end)
+        {
+            if (fields == starts.length)
+            {
+                starts = Arrays.copyOf(starts, fields * 2);
+                ends = Arrays.copyOf(ends, fields * 2);
+            }
+            starts[fields] = start;
+            ends[fields] = end;
+            fields++;
+        }
+
+        /**
+         * Reads a weapon from the fields of the current line.
+         * @return The weapon in item form, or {@code null} if the fields are invalid.
+         */
+        private Item readWeapon()
+        {
+            Item item = null;
+            if (fields == 7)
+            {
+                long minDamage = parseInt(1);
+                long maxDamage = parseInt(2);
+                long cost = parseInt(3);
+                if (minDamage != NAN && maxDamage != NAN && cost != NAN)
+                {
+                    item = new GenericWeapon(string(0), (int)cost, (int)minDamage, (int)maxDamage, string(5), string(4));
+                }
+            }
+            return item;
+        }
+
+        /**
+         * Reads an Armour object from the fields of the current line.
+         * @return The armour in item form, or {@code null} if the fields are invalid.
+         */
+        private Item readArmour()
+        {
+            Item item = null;
+            if (fields == 6)
+            {
+                long minDefence = parseInt(1);
+                long maxDefence = parseInt(2);
+                long cost = parseInt(3);
+                if (minDefence != NAN && maxDefence != NAN && cost != NAN)
+                {
+                    item = new Armour(string(0), (int)cost, (int)minDefence, (int)maxDefence, string(4));
+                }
+            }
+            return item;
+        }
+
+        /**
+         * Reads a potion from the fields of the current line.
+         * @return The potion in item form, or {@code null} if the fields are invalid.
+         */
+        private Item readPotion()
+        {
+            Item item = null;
+            if (fields == 6)
+            {
+                long minEffect = parseInt(1);
+                long maxEffect = parseInt(2);
+                long cost = parseInt(3);
+                byte type = data.get(starts[5]);
+                if (minEffect != NAN && maxEffect != NAN && cost != NAN && (type == 'H' || type == 'D'))
+                {
+                    item = new Potion(string(0), (int)cost, (int)minEffect, (int)maxEffect, (char)type);
+                }
+            }
+            return item;
+        }
+
+        /**
+         * Parses a field after the type as a decimal integer, accepting the same text as {@code Integer.parseInt}.
+         * @param f The field number, starting at 0 for the field after the type.
+         * @return The integer, or {@code NAN} if the field is not a valid integer.
+         */
+        private long parseInt(int f)
+        {
+            int i = starts[f + 1];
+            int end = ends[f + 1];
+            boolean negative = false;
+            if (i < end && (data.get(i) == '-' || data.get(i) == '+'))
+            {
+                negative = data.get(i) == '-';
+                i++;
+            }
+
+            long value = i < end ? 0 : NAN;
+            while (value != NAN && i < end)
+            {
+                byte b = data.get(i++);
+                int digit = b - '0';
+                if (b < 0)
+                {
+                    // Leave digits outside ASCII to the standard parser.
+                    value = parseUnicodeInt(f);
+                    i = end;
+                }
+                else if (digit < 0 || digit > 9)
+                {
+                    value = NAN;
+                }
+                else
+                {
+                    value = value * 10 + digit;
+                    if (value > (long)Integer.MAX_VALUE + 1)
+                    {
+                        value = NAN;
+                    }
+                }
+            }
+
+            if (value != NAN)
+            {
+                value = negative ? -value : value;
+                if (value > Integer.MAX_VALUE)
+                {
+                    value = NAN;
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Parses a field after the type containing characters outside ASCII using {@code Integer.parseInt}.
+         * @param f The field number, starting at 0 for the field after the type.
+         * @return The integer, or {@code NAN} if the field is not a valid integer.
+         */
+        private long parseUnicodeInt(int f)
+        {
+            long value;
+            try
+            {
+                value = Integer.parseInt(string(f));
+            }
+            catch (NumberFormatException e)
+            {
+                value = NAN;
+            }
+            return value;
+        }
+
+        /**
+         * Decodes a field after the type as a string.
+         * @param f The field number, starting at 0 for the field after the type.
+         * @return The string.
+         */
+        private String string(int f)
+        {
+            int start = starts[f + 1];
+            int len = ends[f + 1] - start;
+            if (len > scratch.length)
+            {
+                scratch = new byte[Math.max(len, scratch.length * 2)];
+            }
+            data.get(start, scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
     }
 }
\ No newline at end of file
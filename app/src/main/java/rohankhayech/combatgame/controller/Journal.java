@@ -0,0 +1,767 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+import rohankhayech.combatgame.view.View;
+
+/**
+ * Append-only journal of the saved state of any number of game sessions, shared in a single file.
+ *
+ * Each session is saved as a snapshot of its state followed by records of the actions committed since, and a new
+ * snapshot is appended periodically, making the records before it obsolete. Every record is framed with its length
+ * and a CRC32C checksum, in the following layout:
+ * <ul>
+ * <li>The length of the payload, as a variable-length integer.</li>
+ * <li>The checksum of the payload, as four bytes in big-endian order.</li>
+ * <li>The payload: the session id as a variable-length integer, the kind of record, and its body.</li>
+ * </ul>
+ * Appends are made durable with group commit: the first thread to append while no flush is in progress becomes the
+ * leader, writing the records of every waiting thread with a single write and a single {@code fsync}, so sessions
+ * appending concurrently share the cost of each flush. Once the obsolete records outweigh the live records, the
+ * leader compacts the file by copying the live records to a new file, which atomically replaces the old one.
+ *
+ * The file is locked while the journal is open, so only one instance of the game can save to it at a time.
+ *
+ * When opened, the file is scanned up to the first record that is incomplete or fails its checksum, such as one torn
+ * by a crash while it was being written, and the file is truncated there. Since a record is only acknowledged once it
+ * has been flushed, this only discards actions that were never committed.
+ *
+ * @author Rohan Khayech
+ * @see SessionJournal
+ */
+public class Journal implements Closeable
+{
+    /** Name of the default journal directory, within the user's home directory. */
+    public static final String DEF_DIRECTORY = ".combatgame";
+    /** Name of the default journal file. */
+    public static final String DEF_FILENAME = "journal.log";
+    /** Size the file must reach before it is compacted, in bytes. */
+    public static final long COMPACT_MIN_SIZE = 1 << 20;
+
+    /** Kind of a record containing a snapshot of a session's state. */
+    static final int SNAPSHOT = 1;
+    /** Kind of a record containing the changes of committed actions. */
+    static final int ACTIONS = 2;
+    /** Kind of a record marking the end of a session, so it can no longer be resumed. */
+    static final int END = 3;
+
+    /** Size of the largest frame header, for a five-byte length and a four-byte checksum. */
+    private static final int MAX_HEADER_SIZE = 9;
+
+    /** The journal file. */
+    private final Path file;
+    /** The channel the file is appended through. */
+    private FileChannel channel;
+    /** The size of the durable part of the file. */
+    private long size;
+    /** The number of bytes in the records of each session from its latest snapshot, which are kept when compacting. */
+    private long liveSize;
+    /** The state of each session with records in the file. */
+    private final Map<Integer, Session> sessions;
+    /** The id to assign to the next new session. */
+    private int nextSession;
+
+    /** The frames waiting to be written by the next leader. */
+    private List<Frame> pending;
+    /** The number of frames appended. */
+    private long appended;
+    /** The number of frames that are durable. */
+    private long durable;
+    /** Whether a thread currently has exclusive use of the file, to flush, compact or read it. */
+    private boolean busy;
+    /** The error that made the journal unusable, or {@code null} if none has occurred. */
+    private IOException failure;
+
+    /**
+     * Constructs a journal of an open file, which must already have been recovered.
+     * @param file The file.
+     * @param channel The channel of the file, positioned at its end.
+     */
+    private Journal(Path file, FileChannel channel)
+    {
+        this.file = file;
+        this.channel = channel;
+        this.size = 0;
+        this.liveSize = 0;
+        this.sessions = new HashMap<Integer, Session>();
+        this.nextSession = 0;
+        this.pending = new ArrayList<Frame>();
+        this.appended = 0;
+        this.durable = 0;
+        this.busy = false;
+        this.failure = null;
+    }
+
+    /**
+     * Opens the journal in the default file within the user's home directory, where it is kept across restarts
+     * unlike the system temporary directory.
+     * @return The journal.
+     * @throws IOException If the file could not be opened or recovered.
+     */
+    public static Journal open() throws IOException
+    {
+        return open(Paths.get(System.getProperty("user.home"), DEF_DIRECTORY, DEF_FILENAME));
+    }
+
+    /**
+     * Opens the journal in the specified file, creating it if it does not exist,
+     * and discards any incomplete or corrupt records at the end of it.
+     * @param file The file.
+     * @return The journal.
+     * @throws IOException If the file could not be opened or recovered, or is in use by another instance of the game.
+     */
+    public static Journal open(Path file) throws IOException
+    {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null)
+        {
+            Files.createDirectories(dir);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Journal journal = new Journal(file, channel);
+        try
+        {
+            lock(channel, file);
+            journal.recover();
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Creates a new session, with an id that has not been used in the journal.
+     * @return The id of the session.
+     */
+    public synchronized int newSession()
+    {
+        return nextSession++;
+    }
+
+    /**
+     * @return The ids of the sessions that can be resumed, which have a snapshot and have not ended, in ascending order.
+     */
+    public synchronized List<Integer> getSessions()
+    {
+        List<Integer> ids = new ArrayList<Integer>();
+        for (Map.Entry<Integer, Session> e : sessions.entrySet())
+        {
+            if (!e.getValue().ended && e.getValue().snapshot >= 0)
+            {
+                ids.add(e.getKey());
+            }
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Ends a session, so that it can no longer be resumed and its records are discarded when compacting.
+     * @param session The id of the session.
+     * @throws IOException If the journal could not be written.
+     */
+    public void endSession(int session) throws IOException
+    {
+        append(session, END, new byte[0], 0);
+    }
+
+    /**
+     * Reads the records of a session from its latest snapshot, in the order they were appended.
+     * @param session The id of the session.
+     * @return The records, starting with the snapshot, or an empty list if the session cannot be resumed.
+     * @throws IOException If the journal could not be read.
+     */
+    List<Record> read(int session) throws IOException
+    {
+        List<Record> records = new ArrayList<Record>();
+        acquire();
+        try
+        {
+            Session s = sessions.get(session);
+            if (s != null && !s.ended && s.snapshot >= 0)
+            {
+                scan(s.snapshot, size, new FrameVisitor() {
+                    @Override
+                    public void visit(long offset, int length, int id, int kind, ByteBuffer body) {
+                        if (id == session)
+                        {
+                            byte[] b = new byte[body.remaining()];
+                            body.get(b);
+                            records.add(new Record(kind, b));
+                        }
+                    }
+                });
+            }
+        }
+        finally
+        {
+            release();
+        }
+        return records;
+    }
+
+    /**
+     * Appends a record to the journal, returning once it is durable.
+     * The record is written by whichever thread leads the next flush, together with the records of any other threads
+     * appending at the same time.
+     *
+     * @param session The id of the session.
+     * @param kind The kind of record.
+     * @param body The body of the record.
+     * @param length The length of the body.
+     * @throws IOException If the journal could not be written, after which it cannot be used.
+     */
+    void append(int session, int kind, byte[] body, int length) throws IOException
+    {
+        await(submit(session, kind, body, length));
+    }
+
+    /**
+     * Submits a record to be appended by the next flush, without waiting for it to be written.
+     * The body is copied, so the buffer can be reused.
+     *
+     * @param session The id of the session.
+     * @param kind The kind of record.
+     * @param body The body of the record.
+     * @param length The length of the body.
+     * @return The sequence number of the record, to wait for with {@link #await(long)}.
+     * @throws IOException If the journal is unusable.
+     */
+    long submit(int session, int kind, byte[] body, int length) throws IOException
+    {
+        Frame frame = new Frame(session, kind, body, length);
+        synchronized (this)
+        {
+            checkFailure();
+            pending.add(frame);
+            return ++appended;
+        }
+    }
+
+    /**
+     * Waits until every record submitted up to the specified record is durable, leading a flush if none is in
+     * progress, so any number of submitted records are written with a single {@code fsync}.
+     *
+     * @param seq The sequence number of the record.
+     * @throws IOException If the journal could not be written, after which it cannot be used.
+     */
+    void await(long seq) throws IOException
+    {
+        boolean done = false;
+        while (!done)
+        {
+            List<Frame> batch = null;
+            long last = 0;
+            synchronized (this)
+            {
+                while (busy && durable < seq && failure == null)
+                {
+                    waitForRelease();
+                }
+                checkFailure();
+                if (durable >= seq)
+                {
+                    done = true;
+                }
+                else
+                {
+                    // Lead the next flush, taking every frame appended so far.
+                    busy = true;
+                    batch = pending;
+                    pending = new ArrayList<Frame>();
+                    last = appended;
+                }
+            }
+            if (batch != null)
+            {
+                flush(batch, last);
+            }
+        }
+    }
+
+    /**
+     * Closes the journal, waiting for any flush in progress.
+     * The file is closed even if an earlier error has made the journal unusable.
+     * @throws IOException If the file could not be closed, or the thread is interrupted while waiting.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            while (busy)
+            {
+                waitForRelease();
+            }
+            busy = true;
+        }
+        try
+        {
+            channel.close();
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                if (failure == null)
+                {
+                    failure = new IOException("Journal closed.");
+                }
+            }
+            release();
+        }
+    }
+
+    /**
+     * Writes a batch of frames and forces them to disk, then compacts the file if it has grown enough.
+     * Must be called by the thread that has exclusive use of the file, which it releases.
+     * @param batch The frames.
+     * @param last The sequence number of the last frame in the batch.
+     * @throws IOException If the frames could not be written.
+     */
+    private void flush(List<Frame> batch, long last) throws IOException
+    {
+        try
+        {
+            ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+            long offset = size;
+            for (int f = 0; f < batch.size(); f++)
+            {
+                buffers[f] = batch.get(f).bytes;
+                batch.get(f).offset = offset;
+                offset += buffers[f].remaining();
+            }
+            channel.position(size);
+            while (buffers.length > 0 && buffers[buffers.length - 1].hasRemaining())
+            {
+                channel.write(buffers);
+            }
+            channel.force(false);
+
+            synchronized (this)
+            {
+                for (Frame f : batch)
+                {
+                    track(f.session, f.kind, f.offset, f.bytes.limit());
+                }
+                size = offset;
+                durable = last;
+            }
+        }
+        catch (IOException e)
+        {
+            synchronized (this)
+            {
+                failure = e;
+            }
+            release();
+            throw e;
+        }
+
+        try
+        {
+            if (size >= COMPACT_MIN_SIZE && size > 2 * liveSize)
+            {
+                compact();
+            }
+        }
+        catch (IOException e)
+        {
+            // The batch is already durable, so keep appending to the uncompacted file.
+            View.getInstance().report("Could not compact saved data: " + e.getMessage());
+        }
+        finally
+        {
+            release();
+        }
+    }
+
+    /**
+     * Copies the live records to a new file and atomically replaces the journal with it.
+     * The new file is kept open and locked while it replaces the old one, so the journal is never left without a file to
+     * append to, and the directory is forced to disk afterwards so the replacement survives a crash.
+     * Must be called by the thread that has exclusive use of the file.
+     * @throws IOException If the file could not be compacted, in which case the journal is unchanged,
+     *                     or the replacement could not be forced to disk.
+     */
+    private void compact() throws IOException
+    {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        Map<Integer, Long> snapshots = new HashMap<Integer, Long>();
+        Map<Integer, Long> live = new HashMap<Integer, Long>();
+        try
+        {
+            lock(out, temp);
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            scan(0, size, new FrameVisitor() {
+                @Override
+                public void visit(long offset, int length, int id, int kind, ByteBuffer body) throws IOException {
+                    Session s = sessions.get(id);
+                    if (!s.ended && s.snapshot >= 0 && offset >= s.snapshot)
+                    {
+                        if (offset == s.snapshot)
+                        {
+                            snapshots.put(id, out.position());
+                        }
+                        Long bytes = live.get(id);
+                        live.put(id, (bytes != null ? bytes : 0) + length);
+                        ByteBuffer frame = data.duplicate();
+                        frame.limit((int)(offset + length)).position((int)offset);
+                        while (frame.hasRemaining())
+                        {
+                            out.write(frame);
+                        }
+                    }
+                }
+            });
+            out.force(false);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            out.close();
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        FileChannel old = channel;
+        synchronized (this)
+        {
+            channel = out;
+            size = out.position();
+            liveSize = size;
+            Iterator<Map.Entry<Integer, Session>> it = sessions.entrySet().iterator();
+            while (it.hasNext())
+            {
+                Map.Entry<Integer, Session> e = it.next();
+                Long snapshot = snapshots.get(e.getKey());
+                if (snapshot == null)
+                {
+                    it.remove();
+                }
+                else
+                {
+                    e.getValue().snapshot = snapshot;
+                    e.getValue().live = live.get(e.getKey());
+                }
+            }
+        }
+        old.close();
+        syncDirectory(file);
+    }
+
+    /**
+     * Locks a file for the journal, so no other instance of the game can open it.
+     * The lock is released when the channel is closed.
+     * @param channel The channel of the file.
+     * @param file The file.
+     * @throws IOException If the file could not be locked, or is already locked.
+     */
+    private static void lock(FileChannel channel, Path file) throws IOException
+    {
+        FileLock lock;
+        try
+        {
+            lock = channel.tryLock();
+        }
+        catch (OverlappingFileLockException e)
+        {
+            lock = null;
+        }
+        if (lock == null)
+        {
+            throw new IOException(file + " is in use by another instance of the game.");
+        }
+    }
+
+    /**
+     * Forces the directory containing a file to disk, so that a file moved into it survives a crash.
+     * @param file The file.
+     * @throws IOException If the directory could not be forced to disk.
+     */
+    private static void syncDirectory(Path file) throws IOException
+    {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null)
+        {
+            try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ))
+            {
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Scans the file for the session records, truncating it at the first incomplete or corrupt record.
+     * @throws IOException If the file could not be read or truncated.
+     */
+    private void recover() throws IOException
+    {
+        long fileSize = channel.size();
+        long end = scan(0, fileSize, new FrameVisitor() {
+            @Override
+            public void visit(long offset, int length, int id, int kind, ByteBuffer body) {
+                track(id, kind, offset, length);
+                nextSession = Math.max(nextSession, id + 1);
+            }
+        });
+        if (end < fileSize)
+        {
+            System.err.println("Discarding " + (fileSize - end) + " bytes of incomplete saved data.");
+            channel.truncate(end);
+            channel.force(false);
+        }
+        size = end;
+    }
+
+    /**
+     * Updates the state of a session for a record appended to the file.
+     * @param id The id of the session.
+     * @param kind The kind of record.
+     * @param offset The offset of the record's frame.
+     * @param length The length of the record's frame.
+     */
+    private void track(int id, int kind, long offset, int length)
+    {
+        Session s = sessions.get(id);
+        if (s == null)
+        {
+            s = new Session();
+            sessions.put(id, s);
+        }
+        if (kind == SNAPSHOT)
+        {
+            liveSize -= s.live;
+            s.snapshot = offset;
+            s.live = 0;
+        }
+        else if (kind == END)
+        {
+            liveSize -= s.live;
+            s.ended = true;
+            s.live = 0;
+        }
+        if (!s.ended)
+        {
+            s.live += length;
+            liveSize += length;
+        }
+    }
+
+    /**
+     * Visits each valid frame in part of the file, stopping at the first incomplete or corrupt frame.
+     * @param from The offset of the first frame.
+     * @param to The offset to stop at.
+     * @param visitor The visitor.
+     * @return The offset after the last valid frame.
+     * @throws IOException If the file could not be read.
+     */
+    private long scan(long from, long to, FrameVisitor visitor) throws IOException
+    {
+        ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, to);
+        CRC32C crc = new CRC32C();
+        int pos = (int)from;
+        boolean valid = true;
+        while (valid && pos < to)
+        {
+            valid = false;
+            VarIntReader header = new VarIntReader(data, pos, (int)Math.min(to, pos + MAX_HEADER_SIZE));
+            try
+            {
+                int length = header.readVarInt();
+                long checksum = header.readInt() & 0xffffffffL;
+                int start = header.getPosition();
+                if (length >= 0 && start + (long)length <= to)
+                {
+                    ByteBuffer payload = data.duplicate();
+                    payload.limit(start + length).position(start);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if (crc.getValue() == checksum)
+                    {
+                        VarIntReader in = new VarIntReader(data, start, start + length);
+                        int id = in.readVarInt();
+                        int kind = in.readByte();
+                        payload.position(in.getPosition());
+                        visitor.visit(pos, start + length - pos, id, kind, payload);
+                        pos = start + length;
+                        valid = true;
+                    }
+                }
+            }
+            catch (SaveFormatException e)
+            {
+                // Torn or corrupt frame header, stop here.
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Waits for exclusive use of the file, such as to read it.
+     * @throws IOException If the journal is unusable, or the thread is interrupted.
+     */
+    private synchronized void acquire() throws IOException
+    {
+        while (busy)
+        {
+            waitForRelease();
+        }
+        checkFailure();
+        busy = true;
+    }
+
+    /**
+     * Releases exclusive use of the file.
+     */
+    private synchronized void release()
+    {
+        busy = false;
+        notifyAll();
+    }
+
+    /**
+     * Waits for the thread with exclusive use of the file to release it.
+     * Must be called while holding the lock of the journal.
+     * @throws InterruptedIOException If the thread is interrupted.
+     */
+    private void waitForRelease() throws InterruptedIOException
+    {
+        try
+        {
+            wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal.");
+        }
+    }
+
+    /**
+     * Must be called while holding the lock of the journal.
+     * @throws IOException If an earlier error has made the journal unusable.
+     */
+    private void checkFailure() throws IOException
+    {
+        if (failure != null)
+        {
+            throw new IOException("Journal is unusable: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * A record of a session, read back from the journal.
+     */
+    static class Record
+    {
+        /** The kind of record. */
+        private final int kind;
+        /** The body of the record. */
+        private final byte[] body;
+
+        /**
+         * Constructs a record.
+         * @param kind The kind of record.
+         * @param body The body of the record.
+         */
+        private Record(int kind, byte[] body)
+        {
+            this.kind = kind;
+            this.body = body;
+        }
+
+        /** @return The kind of record. */
+        int getKind() { return kind; }
+
+        /** @return The body of the record. */
+        byte[] getBody() { return body; }
+    }
+
+    /**
+     * A framed record waiting to be written.
+     */
+    private static class Frame
+    {
+        /** The id of the session. */
+        private final int session;
+        /** The kind of record. */
+        private final int kind;
+        /** The framed record. */
+        private final ByteBuffer bytes;
+        /** The offset the frame was written at. */
+        private long offset;
+
+        /**
+         * Frames a record, computing its checksum.
+         * @param session The id of the session.
+         * @param kind The kind of record.
+         * @param body The body of the record.
+         * @param length The length of the body.
+         */
+        private Frame(int session, int kind, byte[] body, int length)
+        {
+            this.session = session;
+            this.kind = kind;
+            VarIntWriter payload = new VarIntWriter(length + 6);
+            payload.writeVarInt(session);
+            payload.writeByte(kind);
+            payload.writeBytes(body, 0, length);
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload.getBuffer(), 0, payload.size());
+            VarIntWriter frame = new VarIntWriter(payload.size() + MAX_HEADER_SIZE);
+            frame.writeVarInt(payload.size());
+            frame.writeInt((int)crc.getValue());
+            frame.writeBytes(payload.getBuffer(), 0, payload.size());
+            this.bytes = ByteBuffer.wrap(frame.getBuffer(), 0, frame.size());
+            this.offset = -1;
+        }
+    }
+
+    /**
+     * The state of a session in the file.
+     */
+    private static class Session
+    {
+        /** The offset of the session's latest snapshot, or -1 if it has none. */
+        private long snapshot = -1;
+        /** The number of bytes in the session's records from its latest snapshot. */
+        private long live = 0;
+        /** Whether the session has ended. */
+        private boolean ended = false;
+    }
+
+    /**
+     * Visitor of the frames in the file.
+     */
+    private interface FrameVisitor
+    {
+        /**
+         * Visits a frame.
+         * @param offset The offset of the frame.
+         * @param length The length of the frame, including its header.
+         * @param id The id of the session.
+         * @param kind The kind of record.
+         * @param body The body of the record, positioned within the mapped file.
+         * @throws IOException If the frame could not be processed.
+         */
+        public void visit(long offset, int length, int id, int kind, ByteBuffer body) throws IOException;
+    }
+}
\ No newline at end of file
@@ -4,6 +4,10 @@
 
 package rohankhayech.combatgame.controller;
 
+import java.io.IOException;
+import java.util.*;
+
+import rohankhayech.combatgame.controller.sim.*;
 import rohankhayech.combatgame.model.character.*;
 import rohankhayech.combatgame.model.item.*;
 import rohankhayech.combatgame.view.*;
@@ -17,28 +21,80 @@ import rohankhayech.combatgame.view.menu.*;
  */
 public class Main {
 
+    /** Command line option used to seed the random number generator, making the game reproducible. */
+    public static final String SEED_OPTION = "--seed";
+    /** Command line subcommand that estimates the win rate of a loadout instead of running the game. */
+    public static final String SIMULATE_COMMAND = "simulate";
+    /** Command line option used to set the number of battles to simulate. */
+    public static final String BATTLES_OPTION = "--battles";
+    /** Command line option used to set the file to load items from when simulating. */
+    public static final String FILE_OPTION = "--file";
+    /** Command line option used to compute exact probabilities instead of simulating battles. */
+    public static final String EXACT_OPTION = "--exact";
+    /** Default number of battles to simulate. */
+    public static final long DEF_BATTLES = 1000000;
+
+    /** Usage of the game. */
+    private static final String GAME_USAGE = "Usage: [" + SEED_OPTION + " <seed>] [filename]";
+    /** Usage of the simulate subcommand. */
+    private static final String SIMULATE_USAGE = "Usage: " + SIMULATE_COMMAND + " <enemy> <weapon> <armour> [<potion> ...] ["
+            + BATTLES_OPTION + " <n>] [" + SEED_OPTION + " <seed>] [" + FILE_OPTION + " <filename>] [" + EXACT_OPTION + "]";
+
     /**
      * Main line for the game program.
+     * Usage: {@code [--seed <seed>] [filename]}
+     * or {@code simulate <enemy> <weapon> <armour> [<potion> ...] [--battles <n>] [--seed <seed>] [--file <filename>] [--exact]}
      * @param args Command line arguments.
      */
     public static void main(String[] args) 
     {
         try
         {
+            //Run the simulation instead of the game if requested.
+            if (args.length >= 1 && args[0].equals(SIMULATE_COMMAND))
+            {
+                runSimulation(args);
+                return;
+            }
+
             //Initilize the view
             View.getInstance();
-            
-            // Read the filename from the command line argument if specified.
-            // Then construct an Item Loader to load shop item data.
-            ItemLoader loader;
-            if (args.length >= 1) {
-                loader = new ItemLoader(args[0]);
-            } else {
-                loader = new ItemLoader();
+
+            // Read the filename and random seed from the command line arguments if specified.
+            // Then construct an Item Loader to load shop item data, caching the compiled catalogue.
+            String filename = ItemLoader.DEF_FILENAME;
+            try {
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i].equals(SEED_OPTION)) {
+                        Randomizer.setSeed(parseLong(args, ++i));
+                    } else {
+                        filename = args[i];
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println(GAME_USAGE);
+                return;
+            }
+            ItemLoader loader = new ItemLoader(filename, new CatalogueCache());
+            EnemyLoader enemyLoader = new EnemyLoader();
+
+            // Open the journal of saved games. The game can still be played without saving if it cannot be opened.
+            Journal journal = null;
+            try {
+                journal = Journal.open();
+            } catch (IOException e) {
+                System.err.println("Could not open saved games, progress will not be saved: " + e.getMessage());
             }
 
             //Run the start menu, which in turn runs the game.
-            runStartMenu(loader);
+            try {
+                runStartMenu(loader, enemyLoader, journal);
+            } finally {
+                if (journal != null) {
+                    journal.close();
+                }
+            }
         } 
         catch (Exception e)
         {
@@ -50,41 +106,149 @@ public class Main {
         System.out.println();
     }
 
+    /**
+     * Estimates the win rate of a loadout against an enemy type and prints the results.
+     * If the exact option is specified, the exact probabilities are computed instead.
+     * 
+     * @param args Command line arguments, starting with the simulate subcommand.
+     * @throws ItemLoadException If the items could not be loaded.
+     * @throws EnemyLoadException If the enemy templates could not be loaded.
+     */
+    private static void runSimulation(String[] args) throws ItemLoadException, EnemyLoadException
+    {
+        // Read the arguments.
+        List<String> names = new ArrayList<String>();
+        long battles = DEF_BATTLES;
+        long seed = System.nanoTime();
+        String filename = ItemLoader.DEF_FILENAME;
+        boolean exact = false;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals(EXACT_OPTION)) {
+                    exact = true;
+                } else if (args[i].equals(BATTLES_OPTION)) {
+                    battles = parseLong(args, ++i);
+                } else if (args[i].equals(SEED_OPTION)) {
+                    seed = parseLong(args, ++i);
+                } else if (args[i].equals(FILE_OPTION)) {
+                    filename = optionValue(args, ++i);
+                } else {
+                    names.add(args[i]);
+                }
+            }
+
+            if (names.size() < 3) {
+                System.err.println(SIMULATE_USAGE);
+                return;
+            }
+
+            // Find the loadout items and simulate the battles.
+            List<Item> items = new ItemLoader(filename, new CatalogueCache()).fileLoadItems();
+            Loadout loadout = Loadout.fromItemNames(items, names.get(1), names.get(2), names.subList(3, names.size()));
+            EnemyTemplate enemy = new EnemyFactory(new EnemyLoader().fileLoadEnemies()).getTemplate(names.get(0));
+            if (exact) {
+                WinRateSolution sol = new WinRateSolver().solve(loadout, enemy);
+
+                System.out.println("Solved " + names.get(0) + " battles exactly, ignoring potions");
+                System.out.println(sol.toString());
+            } else {
+                WinRateEstimate est = new WinRateEstimator().estimate(loadout, enemy, battles, seed);
+
+                System.out.println("Simulated " + names.get(0) + " battles with seed " + seed);
+                System.out.println(est.toString());
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(SIMULATE_USAGE);
+        }
+    }
+
+    /**
+     * Returns the value of a command line option.
+     * @param args Command line arguments.
+     * @param i The index of the value, following the option.
+     * @return The value.
+     * @throws IllegalArgumentException If the option has no value.
+     */
+    private static String optionValue(String[] args, int i) throws IllegalArgumentException
+    {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1] + ".");
+        }
+        return args[i];
+    }
+
+    /**
+     * Returns the numeric value of a command line option.
+     * @param args Command line arguments.
+     * @param i The index of the value, following the option.
+     * @return The value.
+     * @throws IllegalArgumentException If the option has no value, or the value is not a whole number.
+     */
+    private static long parseLong(String[] args, int i) throws IllegalArgumentException
+    {
+        String value = optionValue(args, i);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + args[i - 1] + ": " + value + ".");
+        }
+    }
+
     /**
      * Runs the start menu for the game. 
      * 
      * @param loader The item loader object.
+     * @param enemyLoader The enemy loader object.
+     * @param journal The journal to save games in, or {@code null} if games are not saved.
      */
-    private static void runStartMenu(ItemLoader loader) 
+    private static void runStartMenu(ItemLoader loader, EnemyLoader enemyLoader, Journal journal) 
     {
-        //Create the start menu
-        Menu startMenu = new Menu("Start Menu",0,0);
         MenuReturn ret = null;
-
-        //Add an option for starting the game.
-        MenuOption startOption = new MenuOption("Start New Game");
-        startOption.setCloseParent(true);
-        startMenu.addItem(startOption);
+        int exit;
 
         //Run the menu and perform the chosen action.
         do
         {
+            //Create the start menu, with an option to continue the latest saved game if there is one.
+            Menu startMenu = new Menu("Start Menu",0,0);
+            List<Integer> saved = journal != null ? journal.getSessions() : Collections.<Integer>emptyList();
+
+            //Add an option for starting the game.
+            MenuOption startOption = new MenuOption("Start New Game");
+            startOption.setCloseParent(true);
+            startMenu.addItem(startOption);
+            if (!saved.isEmpty())
+            {
+                MenuOption continueOption = new MenuOption("Continue Game");
+                continueOption.setCloseParent(true);
+                startMenu.addItem(continueOption);
+            }
+            exit = saved.isEmpty() ? 2 : 3;
+
             ret = startMenu.select();
             if (ret.getSelection() == 1)
             {
-                startNewGame(loader);
+                startNewGame(loader, enemyLoader, journal, -1);
+            }
+            else if (ret.getSelection() == 2 && exit == 3)
+            {
+                startNewGame(loader, enemyLoader, journal, saved.get(saved.size() - 1));
             }
 
-        } while (ret.getSelection() != 2);
+        } while (ret.getSelection() != exit);
 
         System.out.println("Program exiting...");
     }
 
     /**
-     * Initilizes and starts a new game.
+     * Initilizes and starts a new game, or continues a saved game.
      * @param loader The ItemLoader object.
+     * @param enemyLoader The EnemyLoader object.
+     * @param journal The journal to save the game in, or {@code null} to not save it.
+     * @param session The id of the saved game to continue, or -1 to start a new game.
      */
-    private static void startNewGame(ItemLoader loader) 
+    private static void startNewGame(ItemLoader loader, EnemyLoader enemyLoader, Journal journal, int session) 
     {
         //Initilize the game objects.
         Player plr = new Player("Player");
@@ -96,7 +260,26 @@ public class Main {
         //Construct a new game and pass in the dependencies.
         Game game = new Game(mMenu, shop, plr, spawner);
         try {
-            game.init(loader);
+            game.init(loader, enemyLoader);
+
+            // Save the game as it is played, or continue from where the saved game left off.
+            if (journal != null) {
+                try {
+                    try {
+                        if (session >= 0) {
+                            game.resumeJournal(journal, session);
+                        }
+                    } catch (SaveFormatException e) {
+                        View.getInstance().println("Could not load saved game, starting a new game instead: " + e.getMessage());
+                        session = -1;
+                    }
+                    if (session < 0) {
+                        game.startJournal(journal);
+                    }
+                } catch (IOException e) {
+                    View.getInstance().println("Could not save game, progress will not be saved: " + e.getMessage());
+                }
+            }
 
             game.run();
 
@@ -4,10 +4,12 @@
 
 package rohankhayech.combatgame.controller;
 
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
 
 import rohankhayech.combatgame.model.character.Player;
 import rohankhayech.combatgame.model.item.*;
+import rohankhayech.combatgame.model.text.*;
 import rohankhayech.combatgame.view.*;
 import rohankhayech.combatgame.view.menu.*;
 
@@ -18,9 +20,25 @@ import rohankhayech.combatgame.view.menu.*;
  */
 public class MainMenuController 
 {
+    /** Number of items listed on each page of the shop menus. */
+    public static final int PAGE_SIZE = 10;
+
     private Player plr;
     private Shop shop;
     private View view;
+
+    /** The current shop search query, or {@code null} if no search has been made. */
+    private String searchQuery;
+    /** The results of the current shop search. */
+    private List<Item> searchResults;
+    /** The page of search results currently listed. */
+    private final Pager searchPager;
+    /** The page of items for sale currently listed. */
+    private final Pager buyPager;
+    /** The page of affordable items for sale currently listed. */
+    private final Pager affordablePager;
+    /** The page of the player's items currently listed for selling. */
+    private final Pager sellPager;
     
     /** Constructs a new main menu controller. 
      * @param plr The player.
@@ -31,6 +49,12 @@ public class MainMenuController
         this.plr = plr;
         this.shop = shop;
         this.view = View.getInstance();
+        this.searchQuery = null;
+        this.searchResults = List.of();
+        this.searchPager = new Pager();
+        this.buyPager = new Pager();
+        this.affordablePager = new Pager();
+        this.sellPager = new Pager();
     }
 
 	/**
@@ -103,6 +127,14 @@ public class MainMenuController
         Menu buyItems = setupBuyMenu();
         shopMenu.addItem(buyItems);
 
+        //add the buy affordable items menu
+        Menu buyAffordable = setupBuyAffordableMenu();
+        shopMenu.addItem(buyAffordable);
+
+        //add the search items menu
+        Menu searchItems = setupSearchMenu();
+        shopMenu.addItem(searchItems);
+
         //add the sell items menu
         Menu sellItems = setupSellMenu();
         shopMenu.addItem(sellItems);
@@ -140,13 +172,61 @@ public class MainMenuController
 
             @Override
             public void optionSelected(MenuReturn ret) {
-                populateBuyMenu(buyItems);
+                List<Item> stock = shop.getStock();
+                buyItems.setTitle("Buy Items" + buyPager.describe(stock.size()));
+                populateBuyMenu(buyItems, stock, buyPager);
             }
         });
         
         return buyItems;
     }
 
+    /**
+     * Sets up the sub-menu for buying items the player can afford from the shop, from cheapest to most expensive.
+     * 
+     * @return The sub-menu.
+     */
+    private Menu setupBuyAffordableMenu()
+    {
+        //create the menu
+        Menu buyAffordable = new Menu("Buy Affordable Items");
+
+        //add an observer to populate the menu with the items the player can currently afford when opened/refreshed
+        buyAffordable.addObserver(new MenuObserver() {
+
+            @Override
+            public void optionSelected(MenuReturn ret) {
+                List<Item> affordable = shop.getCatalogue().getAffordable(Item.class, plr.getGold());
+                buyAffordable.setTitle("Buy Affordable Items" + affordablePager.describe(affordable.size()));
+                populateBuyMenu(buyAffordable, affordable, affordablePager);
+            }
+        });
+
+        return buyAffordable;
+    }
+
+    /**
+     * Sets up the sub-menu for searching the shop's items by name and buying the results.
+     * 
+     * @return The sub-menu.
+     */
+    private Menu setupSearchMenu()
+    {
+        //create the menu
+        Menu searchItems = new Menu("Search Items");
+
+        //add an observer to populate the menu with the current page of results when opened/refreshed
+        searchItems.addObserver(new MenuObserver() {
+
+            @Override
+            public void optionSelected(MenuReturn ret) {
+                populateSearchMenu(searchItems);
+            }
+        });
+
+        return searchItems;
+    }
+
     /**
      * Sets up the sub-menu for selling items to the shop.
      * 
@@ -229,19 +309,22 @@ public class MainMenuController
     }
 
     /**
-     * Populates the shop menu with an option for each item in the shop.
+     * Populates a shop menu with an option for each of the specified items in the shop on the current page,
+     * and options to change page.
      * 
      * @param buyItems The menu to populate.
+     * @param items The items to list.
+     * @param pager The current page of the items.
      */
-    private void populateBuyMenu(Menu buyItems)
+    private void populateBuyMenu(Menu buyItems, List<? extends Item> items, Pager pager)
     {
         buyItems.clear(); //clear the exisiting options
 
-        //loop through all the items in the shop
-        for (Item i : shop.getInventory().getAllItems()) {
+        //loop through the listed items in the shop on the current page, so only they are read
+        for (Item i : pager.getPage(items)) {
             
             //add a menu option for the item
-            MenuOption opt = buyItems.addOption(i.toString());
+            MenuOption opt = buyItems.addOption(view.format(i.describe()));
             
             //set the option to return the item when selected
             opt.setReturnObj(i);
@@ -254,10 +337,42 @@ public class MainMenuController
                 }
             });
         }
+
+        //add options to change page when there are more items either side
+        pager.addPageOptions(buyItems, items.size());
     }
 
     /**
-     * Populates the sell items menu with an option for each item in the inventory.
+     * Populates the search menu with options to search, buy an item on the current page of results and change page.
+     * 
+     * @param searchItems The menu to populate.
+     */
+    private void populateSearchMenu(Menu searchItems)
+    {
+        populateBuyMenu(searchItems, searchResults, searchPager);
+
+        //update the title with the current search
+        if (searchQuery == null) {
+            searchItems.setTitle("Search Items");
+        } else if (searchResults.isEmpty()) {
+            searchItems.setTitle("Search Items: No items match \"" + searchQuery + "\"");
+        } else {
+            searchItems.setTitle("Search Items: \"" + searchQuery + "\"" + searchPager.describe(searchResults.size()));
+        }
+
+        //add an option to start a new search
+        MenuOption searchOpt = searchItems.addOption("New Search");
+        searchOpt.addObserver(new MenuObserver() {
+            @Override
+            public void optionSelected(MenuReturn ret) {
+                search();
+            }
+        });
+    }
+
+    /**
+     * Populates the sell items menu with an option for each item in the inventory on the current page,
+     * and options to change page.
      * 
      * @param sellItems The menu to populate.
      */
@@ -265,25 +380,37 @@ public class MainMenuController
     {
         sellItems.clear(); // clear the exisiting options
 
-        // loop through all the items in the inventory
+        // find the items with a copy other than the selected weapon/armour
+        List<Item> sellable = new ArrayList<Item>();
         for (Item i : plr.getInventory().getAllItems()) {
-            if (i != plr.getWeapon() && i != plr.getArmour()) { //if the current item is not the selected weapon/armour
-                
-                // add a menu option for the item
-                MenuOption opt = sellItems.addOption(i.getName()+" | "+Colour.BRIGHT_YELLOW+shop.getSellPrice(i)+"G"+Colour.RESET);
-                
-                // set the option to return the item when selected
-                opt.setReturnObj(i);
-                
-                // add an observer to sell the item when the option is selected
-                opt.addObserver(new MenuObserver() {
-                    @Override
-                    public void optionSelected(MenuReturn ret) {
-                        shop.sellItem((Item) ret.getReturnObj(),plr);
-                    }
-                });
+            if (plr.getSpareCount(i) > 0) {
+                sellable.add(i);
             }
         }
+        sellItems.setTitle("Sell Items" + sellPager.describe(sellable.size()));
+
+        // loop through the sellable items on the current page
+        for (Item i : sellPager.getPage(sellable)) {
+            int count = plr.getSpareCount(i);
+
+            // add a menu option for the item, selling one copy at a time from a stack
+            MenuOption opt = sellItems.addOption(view.format(StyledText.builder().append(i.getStyledName()).append((count > 1 ? " x"+count : "")+" | ")
+                .append(shop.getSellPrice(i)+"G", Style.BRIGHT_YELLOW).build()));
+            
+            // set the option to return the item when selected
+            opt.setReturnObj(i);
+            
+            // add an observer to sell the item when the option is selected
+            opt.addObserver(new MenuObserver() {
+                @Override
+                public void optionSelected(MenuReturn ret) {
+                    shop.sellItem((Item) ret.getReturnObj(),plr);
+                }
+            });
+        }
+
+        // add options to change page when there are more items either side
+        sellPager.addPageOptions(sellItems, sellable.size());
     }
 
     /**
@@ -299,7 +426,7 @@ public class MainMenuController
         for (Weapon w : plr.getInventory().getAllWeapons()) {
 
             // add a menu option for the item
-            MenuOption opt = weaponMenu.addOption(w.toString());
+            MenuOption opt = weaponMenu.addOption(view.format(w.describe()));
 
             // set the option to return the weapon and close the menu when selected
             opt.setReturnObj(w);
@@ -309,8 +436,9 @@ public class MainMenuController
             opt.addObserver(new MenuObserver() {
                 @Override
                 public void optionSelected(MenuReturn ret) {
-                    view.println("Switched to " + ((Weapon) ret.getReturnObj()).toString());
+                    view.println("Switched to " + view.format(((Weapon) ret.getReturnObj()).describe()));
                     plr.setWeapon((Weapon) ret.getReturnObj());
+                    plr.commitActions();
                 }
             });
         }
@@ -329,7 +457,7 @@ public class MainMenuController
         // loop through all the armour in the inventory
         for (Armour a : plr.getInventory().getAllArmour()) {
             // add a menu option for the item
-            MenuOption opt = armourMenu.addOption(a.toString());
+            MenuOption opt = armourMenu.addOption(view.format(a.describe()));
 
             // set the option to return the armour and close the menu when selected
             opt.setReturnObj(a);
@@ -340,6 +468,7 @@ public class MainMenuController
                 @Override
                 public void optionSelected(MenuReturn ret) {
                     plr.setArmour((Armour) ret.getReturnObj());
+                    plr.commitActions();
                 }
             });
         }
@@ -355,10 +484,12 @@ public class MainMenuController
 
         enchantMenu.clear(); //clear the existing options
 
-        // loop through all the enchantments in the inventory
-        for (EnchantmentItem e : plr.getInventory().getAllEnchantments()) {
+        // loop through all the stacks of enchantments in the inventory
+        Inventory inv = plr.getInventory();
+        for (EnchantmentItem e : inv.getAllEnchantments()) {
             // add a menu option for the item
-            MenuOption opt = enchantMenu.addOption("Enchant with "+e.toString());
+            int count = inv.getCount(e);
+            MenuOption opt = enchantMenu.addOption("Enchant with "+view.format(e.describe())+(count > 1 ? " x"+count : ""));
 
             // set the option to return the enhantment and close the menu when selected
             opt.setReturnObj(e);
@@ -367,13 +498,31 @@ public class MainMenuController
             opt.addObserver(new MenuObserver() {
                 @Override
                 public void optionSelected(MenuReturn ret) {
-                    view.println("Enchanted "+plr.getWeapon().getName()+" with " + ((EnchantmentItem) ret.getReturnObj()).toString());
+                    view.println("Enchanted "+view.format(plr.getWeapon().getStyledName())+" with " + view.format(((EnchantmentItem) ret.getReturnObj()).describe()));
                     plr.enchantWeapon((EnchantmentItem)ret.getReturnObj());
                 }
             });
         }
     }
 
+    /**
+     * Takes user input to search the shop's items by name, showing the first page of results.
+     */
+    private void search()
+    {
+        String query = "";
+        while (query.trim().equals(""))
+        {
+            view.clear();
+            view.getFrame().println("Search for:");
+            view.flush();
+            query = view.readLine();
+        }
+        searchQuery = query.trim();
+        searchResults = shop.search(searchQuery);
+        searchPager.reset();
+    }
+
     /**
      * Takes user input to change the player's name.
      */
@@ -384,11 +533,88 @@ public class MainMenuController
         while (name.equals(""))
         {
             view.clear();
-            Scanner sc = new Scanner(System.in);
-            System.out.println("What's your name?");
-            name = sc.nextLine();
+            view.getFrame().println("What's your name?");
+            view.flush();
+            name = view.readLine();
         }
         plr.setName(name);
+        plr.commitActions();
         view.println("Changed name to "+name+".");
     }
+
+    /**
+     * Tracks the page of a list of items shown in a menu, so only the items on that page get menu options.
+     */
+    private static class Pager
+    {
+        /** The page currently shown, starting at 0. */
+        private int page = 0;
+
+        /**
+         * Returns the items on the current page, moving back to the last page if the list has shrunk.
+         * @param <T> The type of item.
+         * @param items The items.
+         * @return A view of the items on the current page.
+         */
+        private <T> List<T> getPage(List<T> items)
+        {
+            page = Math.max(0, Math.min(page, getPageCount(items.size()) - 1));
+            int from = page * PAGE_SIZE;
+            return items.subList(from, Math.min(from + PAGE_SIZE, items.size()));
+        }
+
+        /**
+         * Adds options to a menu to move to the previous and next page when there are more items either side.
+         * @param menu The menu.
+         * @param size The number of items.
+         */
+        private void addPageOptions(Menu menu, int size)
+        {
+            if (page > 0) {
+                MenuOption prevOpt = menu.addOption("Previous Page");
+                prevOpt.addObserver(new MenuObserver() {
+                    @Override
+                    public void optionSelected(MenuReturn ret) {
+                        page--;
+                    }
+                });
+            }
+            if (page < getPageCount(size) - 1) {
+                MenuOption nextOpt = menu.addOption("Next Page");
+                nextOpt.addObserver(new MenuObserver() {
+                    @Override
+                    public void optionSelected(MenuReturn ret) {
+                        page++;
+                    }
+                });
+            }
+        }
+
+        /**
+         * @param size The number of items.
+         * @return A description of the current page to add to a menu title, or an empty string if there is only one page.
+         */
+        private String describe(int size)
+        {
+            int pages = getPageCount(size);
+            return pages > 1 ? " (page " + (Math.min(page, pages - 1) + 1) + " of " + pages + ")" : "";
+        }
+
+        /**
+         * Returns to the first page.
+         */
+        private void reset()
+        {
+            page = 0;
+        }
+
+        /**
+         * @param size The number of items.
+         * @return The number of pages needed to list the items.
+         */
+        private static int getPageCount(int size)
+        {
+            return (size + PAGE_SIZE - 1) / PAGE_SIZE;
+        }
+    }
 }
\ No newline at end of file
@@ -9,7 +9,7 @@ import rohankhayech.combatgame.model.character.CharacterObserver;
 import rohankhayech.combatgame.model.character.GameCharacter;
 import rohankhayech.combatgame.model.character.Player;
 import rohankhayech.combatgame.model.item.*;
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.view.View;
 import rohankhayech.combatgame.view.menu.*;
 
 /**
@@ -56,7 +56,7 @@ public class PlayerController implements CharacterObserver {
      */
     private void populateAttackMenu(Menu attackMenu) {
         // Add an option for using the current weapon.
-        MenuOption weaponOption = attackMenu.addOption("Attack with " + plr.getWeapon().getName());
+        MenuOption weaponOption = attackMenu.addOption("Attack with " + View.getInstance().format(plr.getWeapon().getStyledName()));
         weaponOption.setCloseParent(true);
         weaponOption.addObserver(new MenuObserver() {
             @Override
@@ -65,9 +65,11 @@ public class PlayerController implements CharacterObserver {
             }
         });
 
-        // Add an option for each potion in the inventory.
-        for (Potion p : plr.getInventory().getAllPotions()) {
-            MenuOption potionOption = attackMenu.addOption("Use " + p.getName());
+        // Add an option for each stack of potions in the inventory.
+        Inventory inv = plr.getInventory();
+        for (Potion p : inv.getAllPotions()) {
+            int count = inv.getCount(p);
+            MenuOption potionOption = attackMenu.addOption("Use " + View.getInstance().format(p.getStyledName()) + (count > 1 ? " x" + count : ""));
             potionOption.setCloseParent(true);
             potionOption.setReturnObj(p);
             potionOption.addObserver(new MenuObserver() {
@@ -86,11 +88,7 @@ public class PlayerController implements CharacterObserver {
      *         attack.
      */
     private Attack useWeapon() {
-        int damage = plr.getWeapon().rollDamage();
-        Attack att = new Attack(damage,
-                plr.getName() + " attacked with " + plr.getWeapon().toString() + ", dealing " + damage + "DP.");
-
-        return att;
+        return plr.weaponAttack();
     }
 
     /**
@@ -101,50 +99,7 @@ public class PlayerController implements CharacterObserver {
      *         attack.
      */
     private Attack usePotion(Potion potion) {
-        Attack att = null;
-        plr.takeItem((Item) potion);
-        switch (potion.getType()) {
-            case 'H':
-                att = useHealingPotion(potion);
-                break;
-            case 'D':
-                att = useDamagePotion(potion);
-                break;
-            default:
-                att = new Attack(0, plr.getName() + " used " + potion.getName() + ". It was not very effective.");
-        }
-        return att;
-    }
-
-    /**
-     * Uses a damage potion from the player's inventory as an attack.
-     * 
-     * @param potion The potion to use.
-     * @return An {@code Attack} object containing the damage and description of the
-     *         attack.
-     */
-    private Attack useDamagePotion(Potion potion) {
-        int damage = potion.rollEffect();
-        Attack att = new Attack(damage, plr.getName() + " attacked with " + potion.getName() + ", dealing "
-                + Colour.BRIGHT_RED + damage + "DP" + Colour.RESET + ".");
-
-        return att;
-    }
-
-    /**
-     * Uses a healing potion from the player's inventory to recover health.
-     * 
-     * @param potion The potion to use.
-     * @return An {@code Attack} object containing the damage and description of the
-     *         attack.
-     */
-    private Attack useHealingPotion(Potion potion) {
-        int healing = potion.rollEffect();
-        plr.modifyHealth(healing);
-        Attack att = new Attack(0, plr.getName() + " used " + potion.getName() + ", gaining " + Colour.BRIGHT_GREEN
-                + healing + "HP" + Colour.RESET + ".");
-
-        return att;
+        return plr.usePotion(potion);
     }
 
     //Character observer methods
@@ -162,4 +117,9 @@ public class PlayerController implements CharacterObserver {
     public void onDeath(GameCharacter gChar) {
         // Do nothing
     }
+
+    @Override
+    public void onChange(GameCharacter gChar) {
+        // Do nothing
+    }
 }
@@ -4,30 +4,118 @@
 
 package rohankhayech.combatgame.controller;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Helper class containing methods to randomise game stats and outcomes.
- * 
+ * Each Randomizer is an independent stream of random numbers. Streams constructed with
+ * the same seed produce identical results, and can be split cheaply to give each
+ * parallel worker its own stream.
+ * The stream used by the current thread can be obtained by calling {@code Randomizer.getInstance()}.
+ *
  * @author Rohan Khayech
  */
-public class Randomizer 
+public class Randomizer
 {
-    /** Constructs a new Randomizer object. */
-    public Randomizer() {}
-    
+    /** The stream used by each thread. Unseeded until replaced by {@code setInstance()} or {@code setSeed()}. */
+    private static final ThreadLocal<Randomizer> instance = new ThreadLocal<Randomizer>() {
+        @Override
+        protected Randomizer initialValue() {
+            return new Randomizer();
+        }
+    };
+
+    /** The underlying random number generator. */
+    private final SplittableRandom rng;
+
+    /** Constructs a new Randomizer object with a random seed. */
+    public Randomizer()
+    {
+        this.rng = new SplittableRandom();
+    }
+
+    /**
+     * Constructs a new Randomizer object with the specified seed.
+     * Randomizers constructed with the same seed produce identical results.
+     *
+     * @param seed The seed of the stream.
+     */
+    public Randomizer(final long seed)
+    {
+        this.rng = new SplittableRandom(seed);
+    }
+
+    /**
+     * Constructs a new Randomizer object wrapping the given generator.
+     * @param rng The underlying random number generator.
+     */
+    private Randomizer(final SplittableRandom rng)
+    {
+        this.rng = rng;
+    }
+
+    /**
+     * Returns the stream used by the current thread.
+     *
+     * @return The current thread's {@code Randomizer}.
+     */
+    public static Randomizer getInstance()
+    {
+        return instance.get();
+    }
+
+    /**
+     * Sets the stream used by the current thread.
+     *
+     * @param rand The {@code Randomizer} to use.
+     * @return The {@code Randomizer} previously used by the current thread, so that it can be restored.
+     */
+    public static Randomizer setInstance(final Randomizer rand)
+    {
+        final Randomizer prev = instance.get();
+        instance.set(rand);
+        return prev;
+    }
+
+    /**
+     * Replaces the stream used by the current thread with a new stream with the specified seed.
+     *
+     * @param seed The seed of the stream.
+     */
+    public static void setSeed(final long seed)
+    {
+        instance.set(new Randomizer(seed));
+    }
+
+    /**
+     * Splits off a new, independent stream from this Randomizer.
+     * Splitting advances this stream, so a sequence of splits from a seeded stream is itself reproducible.
+     *
+     * @return The new {@code Randomizer}.
+     */
+    public Randomizer split()
+    {
+        return new Randomizer(rng.split());
+    }
+
     /**
      * Generates a random number within the given range (inclusive).
      * @param min The lower end of the range.
      * @param max The upper end of the range.
      * @return A random int between min and max (inclusive).
-     */   
+     */
     public int randomRange(final int min, final int max)
     {
-        final Random r = new Random((long)(Math.random()*1000));
-        final int diff = max-min;
+        return rng.nextInt(min, max+1);
+    }
 
-        return (r.nextInt(diff+1) + min);
+    /**
+     * Generates a random number between 0.0 (inclusive) and 1.0 (exclusive).
+     * @return A random double.
+     */
+    public double nextDouble()
+    {
+        return rng.nextDouble();
     }
 
     /**
@@ -37,22 +125,24 @@ public class Randomizer
      */
     public boolean chance(final double percent)
     {
-        return Math.random() < percent;
+        return rng.nextDouble() < percent;
     }
 
     /**
      * Takes a number of probabilities and returns the number of the probability that won. Consider each argument is named a,b,c... if a = 0.2, b = 0.5 and c = 0.3, the function would return 0 20% of the time, 1 50% of the time and 2 30% of the time.
+     * This scans every probability on each call, so a {@code WeightedSampler} should be used to pick repeatedly from the same probabilities.
      * @param probs A number of probabilities.
      * @return An integer representing which argument was picked.
+     * @see WeightedSampler
      */
     public int pickProbability(final double ... probs)
     {
         final double s = sum(probs); //sum of probs
         double c = 0.0; //cumulative prob
-        final double r = Math.random(); //random number between 0 and 1
+        final double r = rng.nextDouble(); //random number between 0 and 1
         int n = 0; //prob to pick
 
-        for(final double p : probs) 
+        for(final double p : probs)
         {
             c += p/s; //add the next prob to the cumulative sum
             if (r<c) { break; }
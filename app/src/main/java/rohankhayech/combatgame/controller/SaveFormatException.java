@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+/**
+ * Exception thrown when saved game data is corrupt, or cannot be restored with the loaded items.
+ * 
+ * @author Rohan Khayech
+ */
+public class SaveFormatException extends Exception
+{
+
+    public SaveFormatException()
+    {
+        super();
+    }    
+
+    public SaveFormatException(String message)
+    {
+        super(message);
+    }
+}
\ No newline at end of file
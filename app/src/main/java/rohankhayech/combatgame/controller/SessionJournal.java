@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.io.IOException;
+import java.util.*;
+
+import rohankhayech.combatgame.model.character.*;
+import rohankhayech.combatgame.model.item.*;
+
+/**
+ * Journal of the actions of a single game session, saved in a shared {@code Journal}.
+ *
+ * The changes recorded by the player are encoded as they occur into a reusable buffer, and each committed action is
+ * submitted to an {@code AutoSaver}, which writes it in the background. Every {@value #SNAPSHOT_INTERVAL} actions, and
+ * at each checkpoint the game reaches, a snapshot of the whole game state is submitted instead, so recovering a
+ * session only replays the actions since its latest snapshot, and the journal can discard the records before it.
+ *
+ * Each change is encoded as the ordinal of its {@code PlayerAction}, followed by its item or value. Items are encoded
+ * by the {@code SnapshotCodec} of the session, referring to the template table of the latest snapshot, and replaying
+ * a change applies it to the player directly, so the random rolls of a battle are never repeated.
+ *
+ * @author Rohan Khayech
+ * @see Journal
+ * @see AutoSaver
+ */
+class SessionJournal implements ActionJournal
+{
+    /** Number of actions committed between snapshots. */
+    public static final int SNAPSHOT_INTERVAL = 64;
+
+    /** The saver writing the session in the background. */
+    private final AutoSaver saver;
+    /** The id of the session. */
+    private final int session;
+    /** The codec used to encode snapshots and items. */
+    private final SnapshotCodec codec;
+    /** The player of the session. */
+    private final Player plr;
+    /** The enemy factory of the session. */
+    private final EnemyFactory spawner;
+    /** The index of each template in the table of the latest snapshot, which the items of later changes refer to. */
+    private final Map<Item, Integer> templates;
+    /** The changes recorded since the last commit. */
+    private final VarIntWriter changes;
+    /** The number of actions committed since the last snapshot. */
+    private int actions;
+
+    /**
+     * Constructs a journal of a session.
+     * @param saver The saver writing the session in the background.
+     * @param session The id of the session.
+     * @param codec The codec used to encode snapshots and items.
+     * @param plr The player of the session.
+     * @param spawner The enemy factory of the session.
+     */
+    private SessionJournal(AutoSaver saver, int session, SnapshotCodec codec, Player plr, EnemyFactory spawner)
+    {
+        this.saver = saver;
+        this.session = session;
+        this.codec = codec;
+        this.plr = plr;
+        this.spawner = spawner;
+        this.templates = new IdentityHashMap<Item, Integer>();
+        this.changes = new VarIntWriter(64);
+        this.actions = 0;
+    }
+
+    /**
+     * Starts a new session in a journal, saving a snapshot of the current state of the game.
+     * @param journal The journal.
+     * @param saver The saver writing to the journal in the background.
+     * @param codec The codec used to encode snapshots and items.
+     * @param plr The player.
+     * @param spawner The enemy factory.
+     * @return The journal of the session.
+     */
+    static SessionJournal start(Journal journal, AutoSaver saver, SnapshotCodec codec, Player plr, EnemyFactory spawner)
+    {
+        SessionJournal sj = new SessionJournal(saver, journal.newSession(), codec, plr, spawner);
+        sj.checkpoint();
+        return sj;
+    }
+
+    /**
+     * Resumes a session saved in a journal, restoring the game to the end of its last committed action
+     * by restoring its latest snapshot and replaying the actions after it.
+     * @param journal The journal.
+     * @param saver The saver writing to the journal in the background, which must not have any waiting submissions
+     *              for the session.
+     * @param session The id of the session.
+     * @param codec The codec used to encode snapshots and items.
+     * @param plr The player.
+     * @param spawner The enemy factory.
+     * @return The journal of the session.
+     * @throws IOException If the journal could not be read.
+     * @throws SaveFormatException If the session cannot be resumed.
+     */
+    static SessionJournal resume(Journal journal, AutoSaver saver, int session, SnapshotCodec codec, Player plr,
+        EnemyFactory spawner) throws IOException, SaveFormatException
+    {
+        List<Journal.Record> records = journal.read(session);
+        if (records.isEmpty() || records.get(0).getKind() != Journal.SNAPSHOT)
+        {
+            throw new SaveFormatException("No saved game with id " + session + ".");
+        }
+        GameSnapshot snapshot = new GameSnapshot(records.get(0).getBody(), false);
+        List<Item> table = codec.readTemplates(snapshot);
+        codec.decode(snapshot, plr, spawner);
+
+        SessionJournal sj = new SessionJournal(saver, session, codec, plr, spawner);
+        for (int t = 0; t < table.size(); t++)
+        {
+            sj.templates.putIfAbsent(table.get(t), t);
+        }
+        for (Journal.Record r : records.subList(1, records.size()))
+        {
+            if (r.getKind() == Journal.ACTIONS)
+            {
+                sj.replay(r.getBody(), table);
+                sj.actions++;
+            }
+        }
+        return sj;
+    }
+
+    /** @return The id of the session. */
+    int getSession() { return session; }
+
+    /**
+     * Records a change that is part of the current action.
+     *
+     * @param type  The type of change.
+     * @param item  The item of the change, or {@code null} if it has none.
+     * @param value The value of the change.
+     */
+    @Override
+    public void record(PlayerAction type, Item item, int value)
+    {
+        changes.writeVarInt(type.ordinal());
+        switch (type)
+        {
+            case GIVE:
+            case ENCHANT:
+                codec.writeItem(changes, item, templates);
+            break;
+
+            case WEAPON:
+            case ARMOUR:
+                changes.writeSignedVarInt(value);
+                if (value < 0)
+                {
+                    codec.writeItem(changes, item, templates);
+                }
+            break;
+
+            case NAME:
+                changes.writeString(plr.getName());
+            break;
+
+            default:
+                changes.writeSignedVarInt(value);
+            break;
+        }
+    }
+
+    /**
+     * Commits the changes recorded since the last commit as a single action, submitting it to be saved without
+     * waiting for it to be written.
+     */
+    @Override
+    public void commit()
+    {
+        if (changes.size() > 0)
+        {
+            if (++actions >= SNAPSHOT_INTERVAL)
+            {
+                checkpoint();
+            }
+            else
+            {
+                saver.submitActions(session, changes.getBuffer(), changes.size());
+            }
+        }
+        changes.reset();
+    }
+
+    /**
+     * Submits a snapshot of the current state of the game to be saved, which includes every change recorded so far.
+     * Should be called at safe points, when no action is part way through, such as after a battle or menu ends.
+     */
+    void checkpoint()
+    {
+        saver.submitSnapshot(session, codec.encode(plr, spawner, templates));
+        changes.reset();
+        actions = 0;
+    }
+
+    /**
+     * Ends the session, so that it can no longer be resumed.
+     */
+    void end()
+    {
+        changes.reset();
+        saver.submitEnd(session);
+    }
+
+    /**
+     * Applies the changes of a committed action to the player and enemy factory.
+     * @param body The encoded changes.
+     * @param table The templates in the table of the snapshot before the changes, in index order.
+     * @throws SaveFormatException If the changes are corrupt or cannot be applied.
+     */
+    private void replay(byte[] body, List<Item> table) throws SaveFormatException
+    {
+        PlayerAction[] types = PlayerAction.values();
+        List<Item> items = plr.getInventory().getAllItems();
+        VarIntReader in = new VarIntReader(body, 0, body.length);
+        while (in.remaining() > 0)
+        {
+            int ordinal = in.readVarInt();
+            if (ordinal < 0 || ordinal >= types.length)
+            {
+                throw new SaveFormatException("Saved action is corrupt.");
+            }
+            switch (types[ordinal])
+            {
+                case GOLD:
+                    plr.modifyGold(in.readSignedVarInt());
+                break;
+
+                case HEALTH:
+                    plr.modifyHealth(in.readSignedVarInt() - plr.getHealth());
+                break;
+
+                case GIVE:
+                    plr.giveItem(codec.readItem(in, table));
+                break;
+
+                case TAKE:
+                    plr.takeItem(slotItem(items, in.readSignedVarInt(), Item.class));
+                break;
+
+                case WEAPON:
+                    int weapon = in.readSignedVarInt();
+                    plr.setWeapon(weapon < 0 ? cast(codec.readItem(in, table), Weapon.class) : slotItem(items, weapon, Weapon.class));
+                break;
+
+                case ARMOUR:
+                    int armour = in.readSignedVarInt();
+                    plr.setArmour(armour < 0 ? cast(codec.readItem(in, table), Armour.class) : slotItem(items, armour, Armour.class));
+                break;
+
+                case ENCHANT:
+                    plr.enchantWeapon(cast(codec.readItem(in, table), EnchantmentItem.class));
+                break;
+
+                case BATTLE:
+                    int battle = in.readSignedVarInt();
+                    if (battle < 0)
+                    {
+                        throw new SaveFormatException("Saved action is corrupt.");
+                    }
+                    spawner.jumpTo(battle);
+                break;
+
+                case NAME:
+                    plr.setName(in.readString());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the item in an inventory slot.
+     * @param <T> The expected type of item.
+     * @param items The items in the inventory, by slot.
+     * @param slot The slot.
+     * @param type The expected type of item.
+     * @return The item.
+     * @throws SaveFormatException If the slot is empty or holds a different type of item.
+     */
+    private static <T extends Item> T slotItem(List<Item> items, int slot, Class<T> type) throws SaveFormatException
+    {
+        if (slot < 0 || slot >= items.size())
+        {
+            throw new SaveFormatException("Saved action refers to an empty inventory slot.");
+        }
+        return cast(items.get(slot), type);
+    }
+
+    /**
+     * @param <T> The expected type of item.
+     * @param item An item.
+     * @param type The expected type of item.
+     * @return The item, as the expected type.
+     * @throws SaveFormatException If the item is of a different type.
+     */
+    private static <T extends Item> T cast(Item item, Class<T> type) throws SaveFormatException
+    {
+        if (!type.isInstance(item))
+        {
+            throw new SaveFormatException("Saved action refers to the wrong type of item.");
+        }
+        return type.cast(item);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.util.*;
+
+import rohankhayech.combatgame.model.character.*;
+import rohankhayech.combatgame.model.item.*;
+
+/**
+ * Encodes and restores snapshots of the state of a game in a compact, versioned binary format.
+ *
+ * A snapshot contains the player's name, health, gold, inventory and equipped items, and the number of battles the
+ * enemy factory has spawned, from which its spawn rates are computed. Every value is a variable-length integer or
+ * a length-prefixed string, in the following order:
+ * <ul>
+ * <li>A magic number and the format version.</li>
+ * <li>The number of item templates in the snapshot's template table, then each template by its attributes.</li>
+ * <li>The battle number, player name, health and gold.</li>
+ * <li>The number of inventory slots, then the item and count of each slot in order.</li>
+ * <li>The equipped weapon and armour, as the inventory slot holding them, or the item if they are not held.</li>
+ * </ul>
+ * Stackable items, such as the shop items and enchantments, are templates that are stored by their attributes
+ * once, in the template table, and as their index in the table everywhere else, so most items take one byte. The
+ * actions journaled after a snapshot also refer to its templates by index. Restoring a snapshot interns each template
+ * again, so it does not depend on which items are loaded: templates that are still loaded stack with the loaded items,
+ * while items that have since been changed or removed from the item file are restored as they were saved.
+ * Any other item is stored by its attributes, and an enchanted weapon is stored as its base weapon followed by its
+ * enchantments, from which the compiled enchantment program is rebuilt.
+ *
+ * @author Rohan Khayech
+ * @see GameSnapshot
+ */
+public class SnapshotCodec
+{
+    /** Version of the snapshot format, changed whenever the format changes. */
+    public static final int VERSION = 2;
+
+    /** Magic number at the start of every snapshot. */
+    private static final int MAGIC = 0xC6;
+    /** Largest stack count accepted, so corrupt data cannot exhaust memory. */
+    private static final int MAX_COUNT = 1 << 20;
+
+    /** Tag of an inline generic weapon. Tags of templates stored by index are even. */
+    private static final int WEAPON = 1;
+    /** Tag of an inline armour item. */
+    private static final int ARMOUR = 3;
+    /** Tag of an inline potion. */
+    private static final int POTION = 5;
+    /** Tag of an inline enchantment. */
+    private static final int ENCHANTMENT = 7;
+    /** Tag of an enchanted weapon. */
+    private static final int ENCHANTED = 9;
+
+    /** Code of the Damage II enchantment. */
+    private static final int DAMAGE_II = 0;
+    /** Code of the Damage V enchantment. */
+    private static final int DAMAGE_V = 1;
+    /** Code of the Fire Damage enchantment. */
+    private static final int FIRE_DAMAGE = 2;
+    /** Code of the Power enchantment. */
+    private static final int POWER = 3;
+
+    /** The registry of item templates. */
+    private final ItemRegistry registry;
+    /** Buffer reused to encode snapshots. */
+    private final VarIntWriter buf;
+    /** The index of each template in the table of the last snapshot encoded without a map of its own. */
+    private final Map<Item, Integer> templates;
+    /** The templates in the table of the snapshot being encoded, in index order. */
+    private final List<Item> table;
+
+    /**
+     * Constructs a codec.
+     */
+    public SnapshotCodec()
+    {
+        this.registry = ItemRegistry.getInstance();
+        this.buf = new VarIntWriter(64);
+        this.templates = new IdentityHashMap<Item, Integer>();
+        this.table = new ArrayList<Item>();
+    }
+
+    /**
+     * Encodes a snapshot of the state of a game.
+     *
+     * @param plr The player.
+     * @param spawner The enemy factory.
+     * @return The snapshot.
+     * @throws IllegalArgumentException If the player holds an item that cannot be stored.
+     */
+    public GameSnapshot encode(Player plr, EnemyFactory spawner) throws IllegalArgumentException
+    {
+        return encode(plr, spawner, templates);
+    }
+
+    /**
+     * Encodes a snapshot of the state of a game, recording the index of each template in its template table.
+     *
+     * @param plr The player.
+     * @param spawner The enemy factory.
+     * @param index The map to replace the contents of with the index of each template in the snapshot's table.
+     * @return The snapshot.
+     * @throws IllegalArgumentException If the player holds an item that cannot be stored.
+     */
+    synchronized GameSnapshot encode(Player plr, EnemyFactory spawner, Map<Item, Integer> index) throws IllegalArgumentException
+    {
+        Inventory inv = plr.getInventory();
+        List<Item> items = inv.getAllItems();
+        index.clear();
+        table.clear();
+        for (Item i : items)
+        {
+            collect(i, index);
+        }
+        collect(plr.getWeapon(), index);
+        collect(plr.getArmour(), index);
+
+        VarIntWriter out = buf;
+        out.reset();
+        out.writeByte(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeVarInt(table.size());
+        for (Item t : table)
+        {
+            writeItem(out, t, Collections.<Item, Integer>emptyMap());
+        }
+
+        out.writeVarInt(spawner.getBattle());
+        out.writeString(plr.getName());
+        out.writeSignedVarInt(plr.getHealth());
+        out.writeSignedVarInt(plr.getGold());
+
+        out.writeVarInt(items.size());
+        for (Item i : items)
+        {
+            writeItem(out, i, index);
+            out.writeVarInt(inv.getCount(i));
+        }
+        writeEquipped(out, plr.getWeapon(), items, index);
+        writeEquipped(out, plr.getArmour(), items, index);
+
+        return new GameSnapshot(out.toByteArray(), false);
+    }
+
+    /**
+     * Adds the templates an item is made of to the template table, if they are not already in it.
+     * @param item The item.
+     * @param index The index of each template in the table.
+     */
+    private void collect(Item item, Map<Item, Integer> index)
+    {
+        if (item instanceof EnchantedWeapon)
+        {
+            EnchantedWeapon w = (EnchantedWeapon)item;
+            collect(w.getBase(), index);
+            for (EnchantmentItem e : w.getEnchantments())
+            {
+                collect(e, index);
+            }
+        }
+        else if (item.isStackable() && !index.containsKey(item))
+        {
+            index.put(item, table.size());
+            table.add(item);
+        }
+    }
+
+    /**
+     * Restores a snapshot into a game, replacing the state of the player and enemy factory.
+     * The snapshot is decoded completely before anything is replaced, so nothing is changed if it cannot be restored.
+     *
+     * @param snapshot The snapshot.
+     * @param plr The player.
+     * @param spawner The enemy factory.
+     * @throws SaveFormatException If the snapshot is corrupt or from an unknown version.
+     */
+    public void decode(GameSnapshot snapshot, Player plr, EnemyFactory spawner) throws SaveFormatException
+    {
+        byte[] data = snapshot.getData();
+        VarIntReader in = new VarIntReader(data, 0, data.length);
+        List<Item> savedTable = readHeader(in);
+
+        int battle = in.readVarInt();
+        String name = in.readString();
+        int health = in.readSignedVarInt();
+        int gold = in.readSignedVarInt();
+
+        int slots = in.readVarInt();
+        if (battle < 0 || slots < 0 || slots > in.remaining())
+        {
+            throw new SaveFormatException("Save data is corrupt.");
+        }
+        List<Item> slotItems = new ArrayList<Item>(slots);
+        List<Item> items = new ArrayList<Item>(slots);
+        for (int s = 0; s < slots; s++)
+        {
+            Item i = readItem(in, savedTable);
+            int count = in.readVarInt();
+            if (count < 1 || (count > 1 && !i.isStackable()) || count > MAX_COUNT)
+            {
+                throw new SaveFormatException("Save data contains an invalid item count.");
+            }
+            slotItems.add(i);
+            for (int c = 0; c < count; c++)
+            {
+                items.add(i);
+            }
+        }
+        Weapon weapon = readEquipped(in, savedTable, slotItems, Weapon.class);
+        Armour armour = readEquipped(in, savedTable, slotItems, Armour.class);
+        if (in.remaining() != 0)
+        {
+            throw new SaveFormatException("Save data contains unexpected data.");
+        }
+
+        plr.setName(name);
+        plr.restore(health, gold, items, weapon, armour);
+        spawner.jumpTo(battle);
+    }
+
+    /**
+     * Reads the template table of a snapshot, which the actions journaled after it refer to.
+     * @param snapshot The snapshot.
+     * @return The interned templates, in index order.
+     * @throws SaveFormatException If the snapshot is corrupt or from an unknown version.
+     */
+    List<Item> readTemplates(GameSnapshot snapshot) throws SaveFormatException
+    {
+        byte[] data = snapshot.getData();
+        return readHeader(new VarIntReader(data, 0, data.length));
+    }
+
+    /**
+     * Reads the header and template table of a snapshot, checking that it is from this version.
+     * @param in The reader.
+     * @return The interned templates, in index order.
+     * @throws SaveFormatException If the header is corrupt or from an unknown version.
+     */
+    private List<Item> readHeader(VarIntReader in) throws SaveFormatException
+    {
+        if (in.readByte() != MAGIC)
+        {
+            throw new SaveFormatException("Not a saved game.");
+        }
+        int version = in.readVarInt();
+        if (version != VERSION)
+        {
+            throw new SaveFormatException("Unsupported save version " + version + ".");
+        }
+        int count = in.readVarInt();
+        if (count < 0 || count > in.remaining())
+        {
+            throw new SaveFormatException("Save data is corrupt.");
+        }
+        List<Item> savedTable = new ArrayList<Item>(count);
+        for (int t = 0; t < count; t++)
+        {
+            // Templates are stored by their attributes, so they cannot refer to the table themselves.
+            savedTable.add(readItem(in, Collections.<Item>emptyList()));
+        }
+        return savedTable;
+    }
+
+    /**
+     * Writes an equipped item, as the inventory slot holding it or as the item itself.
+     * @param out The writer.
+     * @param item The item.
+     * @param items The items in the inventory, by slot.
+     * @param index The index of each template in the template table.
+     */
+    private void writeEquipped(VarIntWriter out, Item item, List<Item> items, Map<Item, Integer> index)
+    {
+        int slot = items.indexOf(item);
+        out.writeVarInt(slot + 1);
+        if (slot < 0)
+        {
+            writeItem(out, item, index);
+        }
+    }
+
+    /**
+     * Writes an item, as its index if it is in the template table, or otherwise by its attributes.
+     * @param out The writer.
+     * @param item The item.
+     * @param index The index of each template in the template table.
+     * @throws IllegalArgumentException If the item cannot be stored.
+     */
+    void writeItem(VarIntWriter out, Item item, Map<Item, Integer> index) throws IllegalArgumentException
+    {
+        Integer t = index.get(item);
+        if (t != null)
+        {
+            out.writeVarInt(t << 1);
+        }
+        else if (item instanceof EnchantedWeapon)
+        {
+            EnchantedWeapon w = (EnchantedWeapon)item;
+            List<EnchantmentItem> enchants = w.getEnchantments();
+            out.writeVarInt(ENCHANTED);
+            writeItem(out, w.getBase(), index);
+            out.writeVarInt(enchants.size());
+            for (EnchantmentItem e : enchants)
+            {
+                writeItem(out, e, index);
+            }
+        }
+        else if (item instanceof GenericWeapon)
+        {
+            GenericWeapon w = (GenericWeapon)item;
+            out.writeVarInt(WEAPON);
+            writeAttributes(out, w.getName(), w.getCost(), w.getMinEffect(), w.getMaxEffect());
+            out.writeString(w.getType());
+            out.writeString(w.getDamageType());
+        }
+        else if (item instanceof Armour)
+        {
+            Armour a = (Armour)item;
+            out.writeVarInt(ARMOUR);
+            writeAttributes(out, a.getName(), a.getCost(), a.getMinEffect(), a.getMaxEffect());
+            out.writeString(a.getMaterial());
+        }
+        else if (item instanceof Potion)
+        {
+            Potion p = (Potion)item;
+            out.writeVarInt(POTION);
+            writeAttributes(out, p.getName(), p.getCost(), p.getMinEffect(), p.getMaxEffect());
+            out.writeByte(p.getType());
+        }
+        else if (item instanceof EnchantmentItem)
+        {
+            out.writeVarInt(ENCHANTMENT);
+            out.writeVarInt(enchantmentCode((EnchantmentItem)item));
+        }
+        else
+        {
+            throw new IllegalArgumentException(item.getName() + " cannot be saved.");
+        }
+    }
+
+    /**
+     * Writes the attributes shared by every inline item.
+     * @param out The writer.
+     * @param name The name of the item.
+     * @param cost The cost of the item.
+     * @param min The minimum effect of the item.
+     * @param max The maximum effect of the item.
+     */
+    private static void writeAttributes(VarIntWriter out, String name, int cost, int min, int max)
+    {
+        out.writeString(name);
+        out.writeSignedVarInt(cost);
+        out.writeSignedVarInt(min);
+        out.writeSignedVarInt(max);
+    }
+
+    /**
+     * Reads an equipped item, as the inventory slot holding it or as the item itself.
+     * @param <T> The type of the item.
+     * @param in The reader.
+     * @param savedTable The templates in the template table, in index order.
+     * @param slotItems The items in the inventory, by slot.
+     * @param type The type of the item.
+     * @return The item.
+     * @throws SaveFormatException If the item is invalid or not of the expected type.
+     */
+    private <T extends Item> T readEquipped(VarIntReader in, List<Item> savedTable, List<Item> slotItems, Class<T> type) throws SaveFormatException
+    {
+        int slot = in.readVarInt() - 1;
+        if (slot < -1 || slot >= slotItems.size())
+        {
+            throw new SaveFormatException("Save data contains an invalid inventory slot.");
+        }
+        Item item = slot >= 0 ? slotItems.get(slot) : readItem(in, savedTable);
+        if (!type.isInstance(item))
+        {
+            throw new SaveFormatException("Save data contains an invalid equipped item.");
+        }
+        return type.cast(item);
+    }
+
+    /**
+     * Reads an item, interning it if it is stackable so that it stacks with the loaded templates.
+     * @param in The reader.
+     * @param savedTable The templates in the template table, in index order.
+     * @return The item.
+     * @throws SaveFormatException If the item is invalid.
+     */
+    Item readItem(VarIntReader in, List<Item> savedTable) throws SaveFormatException
+    {
+        int tag = in.readVarInt();
+        Item item;
+        try
+        {
+            if ((tag & 1) == 0)
+            {
+                int t = tag >>> 1;
+                if (t >= savedTable.size())
+                {
+                    throw new SaveFormatException("Save data contains an invalid item reference.");
+                }
+                item = savedTable.get(t);
+            }
+            else
+            {
+                switch (tag)
+                {
+                    case WEAPON:
+                        item = registry.intern(new GenericWeapon(in.readString(), in.readSignedVarInt(), in.readSignedVarInt(),
+                            in.readSignedVarInt(), in.readString(), in.readString()));
+                    break;
+
+                    case ARMOUR:
+                        item = registry.intern(new Armour(in.readString(), in.readSignedVarInt(), in.readSignedVarInt(),
+                            in.readSignedVarInt(), in.readString()));
+                    break;
+
+                    case POTION:
+                        item = registry.intern(new Potion(in.readString(), in.readSignedVarInt(), in.readSignedVarInt(),
+                            in.readSignedVarInt(), (char)in.readByte()));
+                    break;
+
+                    case ENCHANTMENT:
+                        item = registry.intern(createEnchantment(in.readVarInt()));
+                    break;
+
+                    case ENCHANTED:
+                        item = readEnchantedWeapon(in, savedTable);
+                    break;
+
+                    default:
+                        throw new SaveFormatException("Save data contains an unknown item.");
+                }
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new SaveFormatException("Save data contains an invalid item: " + e.getMessage());
+        }
+        return item;
+    }
+
+    /**
+     * Reads an enchanted weapon, applying each of its enchantments to its base weapon in order.
+     * @param in The reader.
+     * @param savedTable The templates in the template table, in index order.
+     * @return The weapon.
+     * @throws SaveFormatException If the weapon is invalid.
+     */
+    private Weapon readEnchantedWeapon(VarIntReader in, List<Item> savedTable) throws SaveFormatException
+    {
+        Item base = readItem(in, savedTable);
+        int n = in.readVarInt();
+        if (!(base instanceof Weapon) || base instanceof EnchantedWeapon || n < 1 || n > in.remaining())
+        {
+            throw new SaveFormatException("Save data contains an invalid enchanted weapon.");
+        }
+        Weapon weapon = (Weapon)base;
+        for (int e = 0; e < n; e++)
+        {
+            Item enchant = readItem(in, savedTable);
+            if (!(enchant instanceof EnchantmentItem))
+            {
+                throw new SaveFormatException("Save data contains an invalid enchantment.");
+            }
+            weapon = new EnchantedWeapon(weapon, (EnchantmentItem)enchant);
+        }
+        return weapon;
+    }
+
+    /**
+     * @param e An enchantment.
+     * @return The code the enchantment is stored as.
+     * @throws IllegalArgumentException If the enchantment cannot be stored.
+     */
+    private static int enchantmentCode(EnchantmentItem e) throws IllegalArgumentException
+    {
+        int code;
+        if (e instanceof DamageII)
+        {
+            code = DAMAGE_II;
+        }
+        else if (e instanceof DamageV)
+        {
+            code = DAMAGE_V;
+        }
+        else if (e instanceof FireDamage)
+        {
+            code = FIRE_DAMAGE;
+        }
+        else if (e instanceof Power)
+        {
+            code = POWER;
+        }
+        else
+        {
+            throw new IllegalArgumentException(e.getName() + " cannot be saved.");
+        }
+        return code;
+    }
+
+    /**
+     * @param code The code of an enchantment.
+     * @return A new enchantment of the type with the code.
+     * @throws SaveFormatException If there is no enchantment with the code.
+     */
+    private static EnchantmentItem createEnchantment(int code) throws SaveFormatException
+    {
+        EnchantmentItem e;
+        switch (code)
+        {
+            case DAMAGE_II:
+                e = new DamageII();
+            break;
+
+            case DAMAGE_V:
+                e = new DamageV();
+            break;
+
+            case FIRE_DAMAGE:
+                e = new FireDamage();
+            break;
+
+            case POWER:
+                e = new Power();
+            break;
+
+            default:
+                throw new SaveFormatException("Save data contains an unknown enchantment.");
+        }
+        return e;
+    }
+}
\ No newline at end of file
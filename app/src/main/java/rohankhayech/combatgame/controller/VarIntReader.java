@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads values written by a {@code VarIntWriter} from an array or buffer of bytes.
+ * Reading past the end of the data, or a variable-length integer longer than five bytes,
+ * throws a {@code SaveFormatException} rather than returning a corrupt value.
+ *
+ * @author Rohan Khayech
+ * @see VarIntWriter
+ */
+class VarIntReader
+{
+    /** The data. */
+    private final ByteBuffer data;
+    /** The index of the next byte to read. */
+    private int pos;
+    /** The index after the last byte of the data. */
+    private final int end;
+
+    /**
+     * Constructs a reader of part of an array.
+     * @param data The array.
+     * @param from The index of the first byte to read.
+     * @param to The index after the last byte to read.
+     */
+    VarIntReader(byte[] data, int from, int to)
+    {
+        this(ByteBuffer.wrap(data), from, to);
+    }
+
+    /**
+     * Constructs a reader of part of a buffer, without changing its position.
+     * @param data The buffer.
+     * @param from The index of the first byte to read.
+     * @param to The index after the last byte to read.
+     */
+    VarIntReader(ByteBuffer data, int from, int to)
+    {
+        this.data = data;
+        this.pos = from;
+        this.end = to;
+    }
+
+    /** @return The index of the next byte to read. */
+    int getPosition() { return pos; }
+
+    /** @return The number of bytes left to read. */
+    int remaining() { return end - pos; }
+
+    /**
+     * @return The next byte, from 0 to 255.
+     * @throws SaveFormatException If there are no bytes left.
+     */
+    int readByte() throws SaveFormatException
+    {
+        if (pos >= end)
+        {
+            throw new SaveFormatException("Save data ended unexpectedly.");
+        }
+        return data.get(pos++) & 0xff;
+    }
+
+    /**
+     * @return The next variable-length integer.
+     * @throws SaveFormatException If the integer is truncated or longer than five bytes.
+     */
+    int readVarInt() throws SaveFormatException
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            if (shift > 28)
+            {
+                throw new SaveFormatException("Save data contains an invalid integer.");
+            }
+            b = readByte();
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * @return The next zig-zag encoded variable-length integer.
+     * @throws SaveFormatException If the integer is truncated or longer than five bytes.
+     */
+    int readSignedVarInt() throws SaveFormatException
+    {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return The next four bytes as a big-endian int.
+     * @throws SaveFormatException If there are fewer than four bytes left.
+     */
+    int readInt() throws SaveFormatException
+    {
+        int value = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * @return The next eight bytes as a big-endian long.
+     * @throws SaveFormatException If there are fewer than eight bytes left.
+     */
+    long readLong() throws SaveFormatException
+    {
+        long value = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            value = (value << 8) | readByte();
+        }
+        return value;
+    }
+
+    /**
+     * @return The next length-prefixed UTF-8 string.
+     * @throws SaveFormatException If the string is truncated.
+     */
+    String readString() throws SaveFormatException
+    {
+        int length = readVarInt();
+        if (length < 0 || length > end - pos)
+        {
+            throw new SaveFormatException("Save data ended unexpectedly.");
+        }
+        byte[] bytes = new byte[length];
+        data.duplicate().position(pos).get(bytes);
+        pos += length;
+        String s = new String(bytes, StandardCharsets.UTF_8);
+        return s;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable buffer of compactly encoded values, for saving game state.
+ *
+ * Integers are written as variable-length integers of 7 bits per byte, least significant group first, with the high
+ * bit set on every byte except the last, so small values take a single byte. Signed values are zig-zag encoded
+ * first, so small negative values are also short. The buffer can be reset and reused, so writing allocates nothing
+ * once it has grown to the size of the data.
+ *
+ * @author Rohan Khayech
+ * @see VarIntReader
+ */
+class VarIntWriter
+{
+    /** The written bytes. */
+    private byte[] buf;
+    /** The number of bytes written. */
+    private int size;
+
+    /**
+     * Constructs an empty buffer.
+     * @param capacity The initial capacity, in bytes.
+     */
+    VarIntWriter(int capacity)
+    {
+        this.buf = new byte[Math.max(capacity, 16)];
+        this.size = 0;
+    }
+
+    /**
+     * Discards the written bytes, keeping the capacity.
+     */
+    void reset()
+    {
+        size = 0;
+    }
+
+    /** @return The number of bytes written. */
+    int size() { return size; }
+
+    /** @return The internal buffer, of which the first {@code size()} bytes have been written. */
+    byte[] getBuffer() { return buf; }
+
+    /** @return A copy of the written bytes. */
+    byte[] toByteArray()
+    {
+        return Arrays.copyOf(buf, size);
+    }
+
+    /**
+     * Writes a single byte.
+     * @param b The byte.
+     */
+    void writeByte(int b)
+    {
+        ensure(1);
+        buf[size++] = (byte)b;
+    }
+
+    /**
+     * Writes a non-negative integer as a variable-length integer of one to five bytes.
+     * @param value The value, treated as unsigned.
+     */
+    void writeVarInt(int value)
+    {
+        ensure(5);
+        while ((value & ~0x7f) != 0)
+        {
+            buf[size++] = (byte)((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buf[size++] = (byte)value;
+    }
+
+    /**
+     * Writes a signed integer as a zig-zag encoded variable-length integer.
+     * @param value The value.
+     */
+    void writeSignedVarInt(int value)
+    {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes an int as four bytes in big-endian order.
+     * @param value The value.
+     */
+    void writeInt(int value)
+    {
+        ensure(4);
+        for (int shift = 24; shift >= 0; shift -= 8)
+        {
+            buf[size++] = (byte)(value >>> shift);
+        }
+    }
+
+    /**
+     * Writes part of an array of bytes as is.
+     * @param bytes The array.
+     * @param from The index of the first byte to write.
+     * @param length The number of bytes to write.
+     */
+    void writeBytes(byte[] bytes, int from, int length)
+    {
+        ensure(length);
+        System.arraycopy(bytes, from, buf, size, length);
+        size += length;
+    }
+
+    /**
+     * Writes a long as eight bytes in big-endian order.
+     * @param value The value.
+     */
+    void writeLong(long value)
+    {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            buf[size++] = (byte)(value >>> shift);
+        }
+    }
+
+    /**
+     * Writes a string as its length in UTF-8 bytes followed by the bytes.
+     * @param s The string.
+     */
+    void writeString(String s)
+    {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Grows the buffer if needed to fit more bytes.
+     * @param n The number of bytes to fit.
+     */
+    private void ensure(int n)
+    {
+        if (size + n > buf.length)
+        {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + n));
+        }
+    }
+}
\ No newline at end of file
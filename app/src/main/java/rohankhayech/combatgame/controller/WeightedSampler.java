@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller;
+
+import java.util.Arrays;
+
+/**
+ * Picks random indices with probability proportional to a set of weights, in constant time per pick.
+ * Uses Vose's alias method: the weights are arranged into a table of equally likely columns, each
+ * split between its own index and one alias, so that a pick only needs to choose a column and a side.
+ *
+ * The table is rebuilt lazily on the next pick after the weights change, and only if they changed.
+ * Not thread-safe, but any number of threads can pick from samplers that are not being modified.
+ *
+ * @author Rohan Khayech
+ * @see Randomizer#pickProbability(double...)
+ */
+public class WeightedSampler
+{
+    /** The weight of each index. */
+    private final double[] weights;
+    /** The probability of each column picking its own index rather than its alias. */
+    private final double[] prob;
+    /** The alias index of each column. */
+    private final int[] alias;
+    /** Work list of columns under the average weight, used when building the table. */
+    private final int[] small;
+    /** Work list of columns at or over the average weight, used when building the table. */
+    private final int[] large;
+    /** Whether the weights have changed since the table was built. */
+    private boolean dirty;
+
+    /**
+     * Constructs a new sampler with the specified weights.
+     *
+     * @param weights The non-negative weight of each index, with at least one positive weight.
+     * @throws IllegalArgumentException If the weights are invalid.
+     */
+    public WeightedSampler(final double ... weights) throws IllegalArgumentException
+    {
+        if (weights.length == 0)
+        {
+            throw new IllegalArgumentException("At least one weight is required.");
+        }
+        int n = weights.length;
+        this.weights = new double[n];
+        this.prob = new double[n];
+        this.alias = new int[n];
+        this.small = new int[n];
+        this.large = new int[n];
+        this.dirty = true;
+        setWeights(weights);
+    }
+
+    /** @return The number of indices that can be picked. */
+    public int size() { return weights.length; }
+
+    /**
+     * @param i The index.
+     * @return The weight of the index.
+     */
+    public double getWeight(int i) { return weights[i]; }
+
+    /**
+     * Sets the weight of a single index. The table is rebuilt on the next pick if the weight changed.
+     *
+     * @param i      The index.
+     * @param weight The non-negative weight.
+     * @throws IllegalArgumentException If the weight is negative or not a number.
+     */
+    public void setWeight(int i, double weight) throws IllegalArgumentException
+    {
+        if (!(weight >= 0.0) || Double.isInfinite(weight))
+        {
+            throw new IllegalArgumentException("Invalid weight: " + weight);
+        }
+        if (weights[i] != weight)
+        {
+            weights[i] = weight;
+            dirty = true;
+        }
+    }
+
+    /**
+     * Sets the weight of every index. The table is rebuilt on the next pick if any weight changed.
+     *
+     * @param weights The non-negative weight of each index, with at least one positive weight.
+     * @throws IllegalArgumentException If the weights are invalid.
+     */
+    public void setWeights(final double ... weights) throws IllegalArgumentException
+    {
+        if (weights.length != this.weights.length)
+        {
+            throw new IllegalArgumentException("Expected " + this.weights.length + " weights but got " + weights.length + ".");
+        }
+        for (int i = 0; i < weights.length; i++)
+        {
+            setWeight(i, weights[i]);
+        }
+    }
+
+    /**
+     * Picks a random index, with probability proportional to its weight.
+     *
+     * @param rand The random number generator to use.
+     * @return The index that was picked.
+     * @throws IllegalStateException If every weight is zero.
+     */
+    public int sample(Randomizer rand) throws IllegalStateException
+    {
+        if (dirty)
+        {
+            build();
+        }
+
+        // Use the integer part of a single random number to pick the column and the fraction to pick the side.
+        double u = rand.nextDouble() * prob.length;
+        int col = Math.min((int)u, prob.length - 1);
+        return u - col < prob[col] ? col : alias[col];
+    }
+
+    /**
+     * Rebuilds the alias table from the current weights.
+     *
+     * @throws IllegalStateException If every weight is zero.
+     */
+    private void build() throws IllegalStateException
+    {
+        int n = weights.length;
+        double sum = 0.0;
+        for (double w : weights)
+        {
+            sum += w;
+        }
+        if (sum <= 0.0)
+        {
+            throw new IllegalStateException("At least one weight must be positive.");
+        }
+
+        // Scale the weights so that the average column holds exactly 1.
+        int s = 0;
+        int l = 0;
+        for (int i = 0; i < n; i++)
+        {
+            prob[i] = weights[i] * n / sum;
+            alias[i] = i;
+            if (prob[i] < 1.0) { small[s++] = i; }
+            else { large[l++] = i; }
+        }
+
+        // Fill each small column with its own weight, topping it up from a large column.
+        while (s > 0 && l > 0)
+        {
+            int less = small[--s];
+            int more = large[--l];
+            alias[less] = more;
+            prob[more] = (prob[more] + prob[less]) - 1.0;
+            if (prob[more] < 1.0) { small[s++] = more; }
+            else { large[l++] = more; }
+        }
+
+        // Any columns left over are full, up to rounding error.
+        while (l > 0) { prob[large[--l]] = 1.0; }
+        while (s > 0) { prob[small[--s]] = 1.0; }
+
+        dirty = false;
+    }
+
+    /** @return A String representation of the weights. */
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(weights);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+import rohankhayech.combatgame.controller.BattleEngine;
+import rohankhayech.combatgame.controller.Randomizer;
+import rohankhayech.combatgame.model.character.*;
+import rohankhayech.combatgame.model.item.*;
+
+/**
+ * Resolves large batches of headless battles without the object model.
+ *
+ * The kernel packs up to {@code width} battles at a time into primitive arrays and advances every
+ * battle in the batch by one turn per pass, without creating any objects per turn. Finished battles
+ * are retired by moving the last battle in the batch into their slot, and new battles are streamed
+ * in as slots become free.
+ *
+ * Battle {@code i} of a run rolls from its own stream, {@code new Randomizer(seed + i)}, in exactly the
+ * same order as a {@code BattleEngine}, so its result is identical to the result of the object model
+ * resolving the same battle with that stream as the current thread's {@code Randomizer}.
+ * The player's loadout must consist of a weapon, which can be enchanted, and armour without potions.
+ *
+ * A kernel can be reused for any number of runs, but is not thread-safe.
+ *
+ * @author Rohan Khayech
+ * @see BattleEngine
+ */
+public class BatchKernel
+{
+    /** Default number of battles to advance at a time. */
+    public static final int DEF_WIDTH = 1024;
+
+    /** The number of battles to advance at a time. */
+    private final int width;
+
+    // Player stats, shared by all battles in a run.
+    /** The player's starting health. */
+    private int plrInitHealth;
+    /** The player's maximum health. */
+    private int plrMaxHealth;
+    /** The minimum damage of the player's base weapon. */
+    private int plrMinAtt;
+    /** The maximum damage of the player's base weapon. */
+    private int plrMaxAtt;
+    /** The compiled enchantments of the player's weapon. */
+    private EnchantmentProgram plrProgram;
+    /** The player's minimum defence. */
+    private int plrMinDef;
+    /** The player's maximum defence. */
+    private int plrMaxDef;
+
+    // State of each battle in the batch, indexed by slot.
+    /** The battle number in each slot. */
+    private final int[] battle;
+    /** The random stream of each battle. */
+    private final Randomizer[] rand;
+    /** The number of turns taken in each battle. */
+    private final int[] turns;
+    /** The health lost by the enemy in each battle. */
+    private final int[] dealt;
+    /** The health lost by the player in each battle. */
+    private final int[] taken;
+    /** The player's current health in each battle. */
+    private final int[] plrHealth;
+    /** The enemy's current health in each battle. */
+    private final int[] enHealth;
+    /** The enemy's maximum health in each battle. */
+    private final int[] enMaxHealth;
+    /** The enemy's minimum attack in each battle. */
+    private final int[] enMinAtt;
+    /** The enemy's maximum attack in each battle. */
+    private final int[] enMaxAtt;
+    /** The enemy's minimum defence in each battle. */
+    private final int[] enMinDef;
+    /** The enemy's maximum defence in each battle. */
+    private final int[] enMaxDef;
+    /** The gold dropped by the enemy in each battle. */
+    private final int[] enGold;
+    /** The template of the enemy in each battle, used to roll its special abilities. */
+    private final EnemyTemplate[] template;
+
+    /**
+     * Constructs a new kernel that advances {@code DEF_WIDTH} battles at a time.
+     */
+    public BatchKernel()
+    {
+        this(DEF_WIDTH);
+    }
+
+    /**
+     * Constructs a new kernel.
+     *
+     * @param width The number of battles to advance at a time.
+     */
+    public BatchKernel(int width)
+    {
+        this.width = width;
+        battle = new int[width];
+        rand = new Randomizer[width];
+        turns = new int[width];
+        dealt = new int[width];
+        taken = new int[width];
+        plrHealth = new int[width];
+        enHealth = new int[width];
+        enMaxHealth = new int[width];
+        enMinAtt = new int[width];
+        enMaxAtt = new int[width];
+        enMinDef = new int[width];
+        enMaxDef = new int[width];
+        enGold = new int[width];
+        template = new EnemyTemplate[width];
+    }
+
+    /**
+     * Resolves a battle between a player with the specified loadout and each of the specified enemies.
+     * The enemies are only read, so the same enemy object can be used for any number of battles.
+     *
+     * @param loadout The player's loadout.
+     * @param enemies The enemy of each battle, starting from its current health.
+     * @param seed    The seed of the random streams.
+     * @param results The storage to write the result of each battle to, with at least as many battles as enemies.
+     * @throws IllegalArgumentException If the loadout contains potions.
+     */
+    public void run(Loadout loadout, Enemy[] enemies, long seed, BatchResults results) throws IllegalArgumentException
+    {
+        if (!loadout.getPotions().isEmpty())
+        {
+            throw new IllegalArgumentException("Batch loadouts must not have potions.");
+        }
+        Player plr = loadout.createPlayer();
+        plrInitHealth = plr.getHealth();
+        plrMaxHealth = plr.getMaxHealth();
+        Weapon weapon = loadout.getWeapon();
+        plrProgram = EnchantmentProgram.EMPTY;
+        if (weapon instanceof EnchantedWeapon)
+        {
+            plrProgram = ((EnchantedWeapon)weapon).getProgram();
+            weapon = ((EnchantedWeapon)weapon).getBase();
+        }
+        plrMinAtt = weapon.getMinEffect();
+        plrMaxAtt = weapon.getMaxEffect();
+        plrMinDef = plr.getMinDefence();
+        plrMaxDef = plr.getMaxDefence();
+
+        // Fill the batch.
+        int next = 0;
+        int active = 0;
+        while (active < width && next < enemies.length)
+        {
+            load(active++, next, enemies[next], seed);
+            next++;
+        }
+
+        // Advance every battle in the batch by one turn, replacing finished battles until none remain.
+        while (active > 0)
+        {
+            int s = 0;
+            while (s < active)
+            {
+                if (step(s))
+                {
+                    retire(s, results);
+                    if (next < enemies.length)
+                    {
+                        load(s, next, enemies[next], seed);
+                        next++;
+                        s++;
+                    }
+                    else
+                    {
+                        // Compact the batch by moving the last battle into the free slot, then advance it.
+                        active--;
+                        move(active, s);
+                    }
+                }
+                else
+                {
+                    s++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a new battle into a slot.
+     *
+     * @param s  The slot.
+     * @param i  The battle number.
+     * @param en The enemy.
+     * @param seed The seed of the random streams.
+     */
+    private void load(int s, int i, Enemy en, long seed)
+    {
+        battle[s] = i;
+        rand[s] = new Randomizer(seed + i);
+        turns[s] = 0;
+        dealt[s] = 0;
+        taken[s] = 0;
+        plrHealth[s] = plrInitHealth;
+        enHealth[s] = en.getHealth();
+        enMaxHealth[s] = en.getMaxHealth();
+        enMinAtt[s] = en.getMinAttack();
+        enMaxAtt[s] = en.getMaxAttack();
+        enMinDef[s] = en.getMinDefence();
+        enMaxDef[s] = en.getMaxDefence();
+        enGold[s] = en.getGold();
+        template[s] = en.getTemplate();
+    }
+
+    /**
+     * Moves the battle in one slot to another.
+     *
+     * @param from The slot to move from.
+     * @param to   The slot to move to.
+     */
+    private void move(int from, int to)
+    {
+        battle[to] = battle[from];
+        rand[to] = rand[from];
+        rand[from] = null;
+        turns[to] = turns[from];
+        dealt[to] = dealt[from];
+        taken[to] = taken[from];
+        plrHealth[to] = plrHealth[from];
+        enHealth[to] = enHealth[from];
+        enMaxHealth[to] = enMaxHealth[from];
+        enMinAtt[to] = enMinAtt[from];
+        enMaxAtt[to] = enMaxAtt[from];
+        enMinDef[to] = enMinDef[from];
+        enMaxDef[to] = enMaxDef[from];
+        enGold[to] = enGold[from];
+        template[to] = template[from];
+        template[from] = null;
+    }
+
+    /**
+     * Advances the battle in a slot by one turn.
+     *
+     * @param s The slot.
+     * @return {@code true} if the battle ended on this turn.
+     */
+    private boolean step(int s)
+    {
+        Randomizer r = rand[s];
+        boolean ended;
+        turns[s]++;
+
+        if ((turns[s] & 1) == 1) // Player's turn
+        {
+            int damage = plrProgram.roll(r.randomRange(plrMinAtt, plrMaxAtt), r);
+            if (damage > 0)
+            {
+                int lost = Math.min(enHealth[s], Math.max(0, damage - r.randomRange(enMinDef[s], enMaxDef[s])));
+                enHealth[s] -= lost;
+                dealt[s] += lost;
+            }
+            ended = enHealth[s] == 0;
+        }
+        else // Enemy's turn
+        {
+            // Roll each attack and its ability, attacking again for as long as extra attacks trigger.
+            int damage = 0;
+            boolean again;
+            do
+            {
+                int d = r.randomRange(enMinAtt[s], enMaxAtt[s]);
+                EnemyAbility ab = template[s].rollAbility(r);
+                again = false;
+                if (ab != null)
+                {
+                    switch (ab.getKind())
+                    {
+                        case ZERO:
+                            d = 0;
+                        break;
+
+                        case BONUS:
+                            d += ab.getValue();
+                        break;
+
+                        case MULTIPLY:
+                            d *= ab.getValue();
+                        break;
+
+                        case HEAL:
+                            enHealth[s] = Math.min(enMaxHealth[s], enHealth[s] + ab.getValue());
+                        break;
+
+                        case EXTRA:
+                            again = true;
+                        break;
+                    }
+                }
+                damage += d;
+            } while (again);
+
+            if (damage > 0)
+            {
+                int lost = Math.min(plrHealth[s], Math.max(0, damage - r.randomRange(plrMinDef, plrMaxDef)));
+                plrHealth[s] -= lost;
+                taken[s] += lost;
+            }
+            ended = plrHealth[s] == 0;
+        }
+        return ended;
+    }
+
+    /**
+     * Writes the result of the finished battle in a slot, applying the reward if the player won.
+     *
+     * @param s       The slot.
+     * @param results The storage to write to.
+     */
+    private void retire(int s, BatchResults results)
+    {
+        int i = battle[s];
+        boolean won = enHealth[s] == 0;
+        int health = plrHealth[s];
+        if (won)
+        {
+            health = Math.min(plrMaxHealth, health + (int)Math.ceil((double)health * BattleEngine.HEAL_RATE));
+        }
+        results.won[i] = won;
+        results.turns[i] = turns[s];
+        results.damageDealt[i] = dealt[s];
+        results.damageTaken[i] = taken[s];
+        results.gold[i] = won ? enGold[s] : 0;
+        results.playerHealth[i] = health;
+        rand[s] = null;
+        template[s] = null;
+    }
+}
\ No newline at end of file
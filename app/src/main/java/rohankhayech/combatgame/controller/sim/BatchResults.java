@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+import rohankhayech.combatgame.controller.BattleResult;
+
+/**
+ * Stores the results of a batch of battles resolved by a {@code BatchKernel}, with each field held
+ * in its own array indexed by battle number so that no objects are created per battle.
+ *
+ * @author Rohan Khayech
+ * @see BatchKernel
+ */
+public class BatchResults
+{
+    /** Whether the player won each battle. */
+    final boolean[] won;
+    /** The number of turns taken in each battle. */
+    final int[] turns;
+    /** The health lost by the enemy in each battle. */
+    final int[] damageDealt;
+    /** The health lost by the player in each battle. */
+    final int[] damageTaken;
+    /** The gold awarded to the player in each battle. */
+    final int[] gold;
+    /** The player's health at the end of each battle, after any reward is applied. */
+    final int[] playerHealth;
+
+    /**
+     * Constructs storage for the results of the specified number of battles.
+     *
+     * @param battles The number of battles.
+     */
+    public BatchResults(int battles)
+    {
+        won = new boolean[battles];
+        turns = new int[battles];
+        damageDealt = new int[battles];
+        damageTaken = new int[battles];
+        gold = new int[battles];
+        playerHealth = new int[battles];
+    }
+
+    /** @return The number of battles. */
+    public int size() { return won.length; }
+
+    /**
+     * @param i The battle number.
+     * @return Whether the player won the battle.
+     */
+    public boolean isPlayerWon(int i) { return won[i]; }
+
+    /**
+     * @param i The battle number.
+     * @return The number of turns taken in the battle.
+     */
+    public int getTurns(int i) { return turns[i]; }
+
+    /**
+     * @param i The battle number.
+     * @return The health lost by the enemy in the battle.
+     */
+    public int getDamageDealt(int i) { return damageDealt[i]; }
+
+    /**
+     * @param i The battle number.
+     * @return The health lost by the player in the battle.
+     */
+    public int getDamageTaken(int i) { return damageTaken[i]; }
+
+    /**
+     * @param i The battle number.
+     * @return The gold awarded to the player in the battle.
+     */
+    public int getGold(int i) { return gold[i]; }
+
+    /**
+     * @param i The battle number.
+     * @return The player's health at the end of the battle, after any reward is applied.
+     */
+    public int getPlayerHealth(int i) { return playerHealth[i]; }
+
+    /**
+     * Returns the result of a battle in object form.
+     *
+     * @param i The battle number.
+     * @return The result of the battle.
+     */
+    public BattleResult getResult(int i)
+    {
+        return new BattleResult(won[i], turns[i], damageDealt[i], damageTaken[i], gold[i], playerHealth[i]);
+    }
+}
\ No newline at end of file
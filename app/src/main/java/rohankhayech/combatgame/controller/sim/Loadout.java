@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+import java.util.*;
+
+import rohankhayech.combatgame.model.character.Player;
+import rohankhayech.combatgame.model.item.*;
+
+/**
+ * Class describing the items a player takes into a simulated battle.
+ *
+ * @author Rohan Khayech
+ */
+public class Loadout
+{
+    /** The weapon to use. */
+    private final Weapon weapon;
+    /** The armour to use. */
+    private final Armour armour;
+    /** The potions to carry. */
+    private final List<Potion> potions;
+
+    /**
+     * Constructs a new loadout.
+     *
+     * @param weapon  The weapon to use.
+     * @param armour  The armour to use.
+     * @param potions The potions to carry.
+     */
+    public Loadout(Weapon weapon, Armour armour, List<Potion> potions)
+    {
+        this.weapon = weapon;
+        this.armour = armour;
+        this.potions = List.copyOf(potions);
+    }
+
+    /** @return The weapon to use. */
+    public Weapon getWeapon() { return weapon; }
+
+    /** @return The armour to use. */
+    public Armour getArmour() { return armour; }
+
+    /** @return The potions to carry. */
+    public List<Potion> getPotions() { return potions; }
+
+    /**
+     * Constructs a new player at full health equipped with this loadout.
+     *
+     * @return The player.
+     */
+    public Player createPlayer()
+    {
+        Player plr = new Player("Player");
+        plr.giveItem(weapon);
+        plr.setWeapon(weapon);
+        plr.giveItem(armour);
+        plr.setArmour(armour);
+        for (Potion p : potions)
+        {
+            plr.giveItem(p);
+        }
+        return plr;
+    }
+
+    /**
+     * Finds the loadout items with the specified names in a list of items, such as the shop's items.
+     * Names are matched ignoring case and colour codes.
+     *
+     * @param items       The items to search.
+     * @param weaponName  The name of the weapon.
+     * @param armourName  The name of the armour.
+     * @param potionNames The names of the potions.
+     * @return The loadout.
+     * @throws IllegalArgumentException If an item could not be found.
+     */
+    public static Loadout fromItemNames(List<Item> items, String weaponName, String armourName, List<String> potionNames)
+            throws IllegalArgumentException
+    {
+        Weapon weapon = (Weapon) findItem(items, weaponName, Weapon.class);
+        Armour armour = (Armour) findItem(items, armourName, Armour.class);
+        List<Potion> potions = new ArrayList<Potion>();
+        for (String name : potionNames)
+        {
+            potions.add((Potion) findItem(items, name, Potion.class));
+        }
+        return new Loadout(weapon, armour, potions);
+    }
+
+    /**
+     * Finds the item of the given type with the specified name.
+     *
+     * @param items The items to search.
+     * @param name  The name of the item.
+     * @param type  The type of the item.
+     * @return The item.
+     * @throws IllegalArgumentException If the item could not be found.
+     */
+    private static Item findItem(List<Item> items, String name, Class<? extends Item> type)
+            throws IllegalArgumentException
+    {
+        for (Item i : items)
+        {
+            if (type.isInstance(i) && i.getName().equalsIgnoreCase(name))
+            {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No " + type.getSimpleName() + " named " + name);
+    }
+}
\ No newline at end of file
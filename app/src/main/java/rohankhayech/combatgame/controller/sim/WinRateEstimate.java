@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+/**
+ * Informative class containing the statistics estimated by a {@code WinRateEstimator}.
+ *
+ * @author Rohan Khayech
+ * @see WinRateEstimator
+ */
+public class WinRateEstimate
+{
+    /** The number of battles simulated. */
+    private final long battles;
+    /** The number of battles won by the player. */
+    private final long wins;
+    /** The total number of turns taken across all battles. */
+    private final long totalTurns;
+    /** The total health the player finished each battle with. */
+    private final long totalHealth;
+    /** The time taken to run the simulation in nanoseconds. */
+    private final long elapsedNanos;
+
+    /**
+     * Constructs a new WinRateEstimate object.
+     *
+     * @param battles      The number of battles simulated.
+     * @param wins         The number of battles won by the player.
+     * @param totalTurns   The total number of turns taken across all battles.
+     * @param totalHealth  The total health the player finished each battle with.
+     * @param elapsedNanos The time taken to run the simulation in nanoseconds.
+     */
+    public WinRateEstimate(long battles, long wins, long totalTurns, long totalHealth, long elapsedNanos)
+    {
+        this.battles = battles;
+        this.wins = wins;
+        this.totalTurns = totalTurns;
+        this.totalHealth = totalHealth;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /** @return The number of battles simulated. */
+    public long getBattles() { return battles; }
+
+    /** @return The number of battles won by the player. */
+    public long getWins() { return wins; }
+
+    /** @return The estimated probability of the player winning a battle. */
+    public double getWinProbability() { return (double)wins / battles; }
+
+    /** @return The estimated number of turns in a battle. */
+    public double getExpectedTurns() { return (double)totalTurns / battles; }
+
+    /** @return The estimated health remaining at the end of a battle after any reward, counting losses as 0HP. */
+    public double getExpectedHealth() { return (double)totalHealth / battles; }
+
+    /** @return The time taken to run the simulation in nanoseconds. */
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /** @return The number of battles simulated per second. */
+    public double getThroughput() { return battles / (elapsedNanos / 1e9); }
+
+    /** @return A String representation of the estimate. */
+    @Override
+    public String toString()
+    {
+        return String.format("Battles: %d (%.0f battles/s)%nWin probability: %.2f%%%nExpected turns: %.2f%nExpected HP remaining: %.2f",
+                battles, getThroughput(), getWinProbability() * 100, getExpectedTurns(), getExpectedHealth());
+    }
+}
\ No newline at end of file
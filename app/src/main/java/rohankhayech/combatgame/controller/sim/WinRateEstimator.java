@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import rohankhayech.combatgame.controller.*;
+import rohankhayech.combatgame.model.character.*;
+
+/**
+ * Estimates the chance of a loadout winning against an enemy type by simulating
+ * many headless battles in parallel.
+ *
+ * The battles are split between fork/join workers, each with its own random stream split
+ * from the seed, so an estimate is reproducible for a given seed regardless of the number
+ * of cores or how the workers are scheduled.
+ *
+ * @author Rohan Khayech
+ * @see BattleEngine
+ */
+public class WinRateEstimator
+{
+    /** Minimum number of battles simulated by a single worker. */
+    private static final int MIN_CHUNK = 1024;
+
+    /** The pool to run the workers in. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new estimator that uses all available cores.
+     */
+    public WinRateEstimator()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new estimator that runs its workers in the specified pool.
+     *
+     * @param pool The pool to run the workers in.
+     */
+    public WinRateEstimator(ForkJoinPool pool)
+    {
+        this.pool = pool;
+    }
+
+    /**
+     * Estimates the outcome of battles between a player with the specified loadout and an enemy type.
+     *
+     * @param loadout   The player's loadout.
+     * @param enemyType The template of the enemy type.
+     * @param battles   The number of battles to simulate.
+     * @param seed      The seed of the random stream.
+     * @return The estimate.
+     * @throws IllegalArgumentException If the number of battles is not positive.
+     */
+    public WinRateEstimate estimate(Loadout loadout, EnemyTemplate enemyType, long battles, long seed)
+            throws IllegalArgumentException
+    {
+        if (battles <= 0)
+        {
+            throw new IllegalArgumentException("Number of battles must be positive.");
+        }
+
+        long chunk = Math.max(MIN_CHUNK, battles / (pool.getParallelism() * 8L));
+        long start = System.nanoTime();
+        Tally t = pool.invoke(new Worker(loadout, enemyType, battles, chunk, new Randomizer(seed)));
+        long elapsed = System.nanoTime() - start;
+
+        return new WinRateEstimate(t.battles, t.wins, t.turns, t.health, elapsed);
+    }
+
+    /**
+     * Running totals of the battles simulated by a worker.
+     */
+    private static class Tally
+    {
+        /** The number of battles simulated. */
+        private long battles;
+        /** The number of battles won. */
+        private long wins;
+        /** The total turns taken. */
+        private long turns;
+        /** The total health remaining. */
+        private long health;
+
+        /**
+         * Adds the result of a battle to the tally.
+         * @param r The result of the battle.
+         */
+        private void add(BattleResult r)
+        {
+            battles++;
+            turns += r.getTurns();
+            health += r.getPlayerHealth();
+            if (r.isPlayerWon())
+            {
+                wins++;
+            }
+        }
+
+        /**
+         * Merges the specified tally into this tally.
+         * @param t The tally to merge.
+         */
+        private void merge(Tally t)
+        {
+            battles += t.battles;
+            wins += t.wins;
+            turns += t.turns;
+            health += t.health;
+        }
+    }
+
+    /**
+     * Fork/join task that simulates a number of battles, splitting them between subtasks
+     * until each has at most {@code chunk} battles.
+     */
+    private static class Worker extends RecursiveTask<Tally>
+    {
+        /** Serialization version of the task. */
+        private static final long serialVersionUID = 1L;
+
+        /** The player's loadout. */
+        private final Loadout loadout;
+        /** The template of the enemy type. */
+        private final EnemyTemplate enemyType;
+        /** The number of battles to simulate. */
+        private final long battles;
+        /** The maximum number of battles to simulate without splitting. */
+        private final long chunk;
+        /** The random stream owned by this task. */
+        private final Randomizer rand;
+
+        /**
+         * Constructs a new worker.
+         *
+         * @param loadout   The player's loadout.
+         * @param enemyType The template of the enemy type.
+         * @param battles   The number of battles to simulate.
+         * @param chunk     The maximum number of battles to simulate without splitting.
+         * @param rand      The random stream owned by this task.
+         */
+        private Worker(Loadout loadout, EnemyTemplate enemyType, long battles, long chunk, Randomizer rand)
+        {
+            this.loadout = loadout;
+            this.enemyType = enemyType;
+            this.battles = battles;
+            this.chunk = chunk;
+            this.rand = rand;
+        }
+
+        @Override
+        protected Tally compute()
+        {
+            Tally t;
+            if (battles <= chunk)
+            {
+                t = simulate();
+            }
+            else
+            {
+                // Split the streams before forking so each subtask's stream does not depend on scheduling.
+                long half = battles / 2;
+                Worker left = new Worker(loadout, enemyType, half, chunk, rand.split());
+                Worker right = new Worker(loadout, enemyType, battles - half, chunk, rand.split());
+                left.fork();
+                t = right.compute();
+                t.merge(left.join());
+            }
+            return t;
+        }
+
+        /**
+         * Simulates this worker's battles on the current thread using its own random stream.
+         * @return The tally of the battles.
+         */
+        private Tally simulate()
+        {
+            Tally t = new Tally();
+            BattleEngine engine = new BattleEngine();
+            Randomizer prev = Randomizer.setInstance(rand);
+            try
+            {
+                for (long i = 0; i < battles; i++)
+                {
+                    Player plr = loadout.createPlayer();
+                    Enemy en = new Enemy(enemyType);
+                    t.add(engine.run(plr, en));
+                }
+            }
+            finally
+            {
+                Randomizer.setInstance(prev);
+            }
+            return t;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+import java.io.*;
+
+/**
+ * Informative class containing the exact outcome probabilities of a battle computed by a {@code WinRateSolver}.
+ *
+ * @author Rohan Khayech
+ * @see WinRateSolver
+ */
+public class WinRateSolution
+{
+    /** The probability of the player winning the battle. */
+    private final double winProbability;
+    /** The expected health remaining at the end of the battle after any reward, counting losses as 0HP. */
+    private final double expectedHealth;
+    /** The probability of the battle not ending within {@code WinRateSolver.MAX_TURNS}. */
+    private final double unresolved;
+    /** The probability of the battle ending on each turn, indexed by turn number. */
+    private final double[] turnDistribution;
+
+    /**
+     * Constructs a new WinRateSolution object.
+     *
+     * @param winProbability   The probability of the player winning the battle.
+     * @param expectedHealth   The expected health remaining at the end of the battle.
+     * @param unresolved       The probability of the battle not ending.
+     * @param turnDistribution The probability of the battle ending on each turn, indexed by turn number.
+     */
+    public WinRateSolution(double winProbability, double expectedHealth, double unresolved, double[] turnDistribution)
+    {
+        this.winProbability = winProbability;
+        this.expectedHealth = expectedHealth;
+        this.unresolved = unresolved;
+        this.turnDistribution = turnDistribution;
+    }
+
+    /** @return The probability of the player winning the battle. */
+    public double getWinProbability() { return winProbability; }
+
+    /** @return The expected health remaining at the end of the battle after any reward, counting losses as 0HP. */
+    public double getExpectedHealth() { return expectedHealth; }
+
+    /** @return The probability of the battle never ending, eg. when neither character can deal damage. */
+    public double getUnresolved() { return unresolved; }
+
+    /**
+     * Returns the probability of the battle ending on the specified turn,
+     * counting each attack by either character as one turn.
+     *
+     * @param turn The turn number, starting at 1.
+     * @return The probability of the battle ending on that turn.
+     */
+    public double getTurnProbability(int turn)
+    {
+        return turn < turnDistribution.length ? turnDistribution[turn] : 0.0;
+    }
+
+    /** @return The last turn the battle can end on with non-negligible probability. */
+    public int getMaxTurns() { return turnDistribution.length - 1; }
+
+    /** @return The expected number of turns in the battle, given that it ends. */
+    public double getExpectedTurns()
+    {
+        double sum = 0.0;
+        double mass = 0.0;
+        for (int t = 1; t < turnDistribution.length; t++)
+        {
+            sum += t * turnDistribution[t];
+            mass += turnDistribution[t];
+        }
+        return mass > 0.0 ? sum / mass : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Writes the solution to the specified output stream.
+     *
+     * @param out The output stream.
+     * @throws IOException If the solution could not be written.
+     */
+    public void write(DataOutput out) throws IOException
+    {
+        out.writeDouble(winProbability);
+        out.writeDouble(expectedHealth);
+        out.writeDouble(unresolved);
+        out.writeInt(turnDistribution.length);
+        for (double p : turnDistribution)
+        {
+            out.writeDouble(p);
+        }
+    }
+
+    /**
+     * Reads a solution previously written by {@code write()}.
+     *
+     * @param in The input stream.
+     * @return The solution.
+     * @throws IOException If the solution could not be read.
+     */
+    public static WinRateSolution read(DataInput in) throws IOException
+    {
+        double winProbability = in.readDouble();
+        double expectedHealth = in.readDouble();
+        double unresolved = in.readDouble();
+        double[] turnDistribution = new double[in.readInt()];
+        for (int t = 0; t < turnDistribution.length; t++)
+        {
+            turnDistribution[t] = in.readDouble();
+        }
+        return new WinRateSolution(winProbability, expectedHealth, unresolved, turnDistribution);
+    }
+
+    /** @return A String representation of the solution. */
+    @Override
+    public String toString()
+    {
+        return String.format("Win probability: %.4f%%%nExpected turns: %.4f%nExpected HP remaining: %.4f",
+                winProbability * 100, getExpectedTurns(), expectedHealth);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,605 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.controller.sim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import rohankhayech.combatgame.controller.BattleEngine;
+import rohankhayech.combatgame.model.character.*;
+
+/**
+ * Computes the exact outcome probabilities of a battle without sampling.
+ *
+ * A battle is a Markov chain over the health of the player and the enemy. Each turn the player
+ * attacks with a damage rolled uniformly between their minimum and maximum attack, the enemy
+ * defends with a defence rolled uniformly between its minimum and maximum defence, and then the
+ * enemy does the same with its special ability applied. The solver propagates the probability of
+ * each pair of health values turn by turn until all but a negligible amount has reached the end of
+ * the battle. Player attacks are modelled as weapon attacks only, so potions are not considered.
+ *
+ * Solutions are cached by the stats of the characters, keeping the most recently used in memory.
+ * If a spill directory is set, solutions evicted from memory are written to disk and reloaded
+ * when next queried.
+ *
+ * @author Rohan Khayech
+ * @see WinRateEstimator
+ */
+public class WinRateSolver
+{
+    /** Default number of solutions to keep in memory. */
+    public static final int DEF_CAPACITY = 1024;
+    /** Maximum number of turns to propagate before treating the battle as never ending. */
+    public static final int MAX_TURNS = 100000;
+    /** Probability below which the remaining battles are considered negligible. */
+    public static final double EPSILON = 1e-12;
+
+    /** The cached solutions, in least to most recently used order. */
+    private final LinkedHashMap<Key, WinRateSolution> cache;
+    /** The directory to spill evicted solutions to, or {@code null} if disabled. */
+    private final Path spillDir;
+
+    /**
+     * Constructs a new solver that keeps up to {@code DEF_CAPACITY} solutions in memory.
+     */
+    public WinRateSolver()
+    {
+        this(DEF_CAPACITY, null);
+    }
+
+    /**
+     * Constructs a new solver.
+     *
+     * @param capacity The number of solutions to keep in memory.
+     * @param spillDir The directory to spill evicted solutions to, or {@code null} to discard them.
+     */
+    public WinRateSolver(final int capacity, Path spillDir)
+    {
+        this.spillDir = spillDir;
+        this.cache = new LinkedHashMap<Key, WinRateSolution>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, WinRateSolution> eldest) {
+                boolean evict = size() > capacity;
+                if (evict) {
+                    spill(eldest.getKey(), eldest.getValue());
+                }
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Solves a battle between a player at full health with the specified loadout and an enemy type.
+     *
+     * @param loadout   The player's loadout.
+     * @param enemyType The template of the enemy type.
+     * @return The solution.
+     * @throws IllegalArgumentException If the enemy's abilities cannot be solved.
+     */
+    public WinRateSolution solve(Loadout loadout, EnemyTemplate enemyType) throws IllegalArgumentException
+    {
+        return solve(loadout.createPlayer(), new Enemy(enemyType));
+    }
+
+    /**
+     * Solves a battle between the player and enemy, starting from their current health.
+     *
+     * @param plr The player.
+     * @param en  The enemy.
+     * @return The solution.
+     * @throws IllegalArgumentException If the enemy's abilities cannot be solved.
+     */
+    public synchronized WinRateSolution solve(Player plr, Enemy en) throws IllegalArgumentException
+    {
+        Key key = new Key(plr, en);
+        WinRateSolution sol = cache.get(key);
+        if (sol == null)
+        {
+            sol = unspill(key);
+            if (sol == null)
+            {
+                sol = compute(key);
+            }
+            cache.put(key, sol);
+        }
+        return sol;
+    }
+
+    /**
+     * Computes the solution for the specified stats.
+     *
+     * @param k The stats of the characters.
+     * @return The solution.
+     */
+    private static WinRateSolution compute(Key k)
+    {
+        // Distributions of the health lost by each character in a single turn.
+        double[] enemyLoss = lossDistribution(uniform(k.minAtt, k.maxAtt), k.enMinDef, k.enMaxDef);
+        double[][] attack = enemyAttackDistribution(k);
+        double[] playerLoss = lossDistribution(attack[0], k.minDef, k.maxDef);
+        double[] playerLossHealed = lossDistribution(attack[1], k.minDef, k.maxDef);
+
+        // Probability of each pair of health values, indexed by [player health * width + enemy health].
+        int width = k.enMaxHealth + 1;
+        double[] cur = new double[(k.health + 1) * width];
+        double[] next = new double[cur.length];
+        cur[k.health * width + k.enHealth] = 1.0;
+
+        double[] turnDist = new double[64];
+        double win = 0.0;
+        double expectedHealth = 0.0;
+        double remaining = 1.0;
+        int turn = 0;
+
+        while (remaining > EPSILON && turn < MAX_TURNS)
+        {
+            // Player's turn.
+            turn++;
+            double ended = 0.0;
+            Arrays.fill(next, 0.0);
+            for (int p = 1; p <= k.health; p++)
+            {
+                for (int e = 1; e <= k.enMaxHealth; e++)
+                {
+                    double m = cur[p * width + e];
+                    if (m == 0.0) { continue; }
+                    for (int l = 0; l < enemyLoss.length; l++)
+                    {
+                        double q = m * enemyLoss[l];
+                        if (e - l <= 0)
+                        {
+                            ended += q;
+                            expectedHealth += q * rewardedHealth(p, k.maxHealth);
+                        }
+                        else
+                        {
+                            next[p * width + e - l] += q;
+                        }
+                    }
+                }
+            }
+            win += ended;
+            turnDist = record(turnDist, turn, ended);
+
+            // Enemy's turn.
+            turn++;
+            ended = 0.0;
+            Arrays.fill(cur, 0.0);
+            for (int p = 1; p <= k.health; p++)
+            {
+                for (int e = 1; e <= k.enMaxHealth; e++)
+                {
+                    double m = next[p * width + e];
+                    if (m == 0.0) { continue; }
+                    int healed = Math.min(k.enMaxHealth, e + k.heal);
+                    for (int l = 0; l < playerLoss.length; l++)
+                    {
+                        double q = m * playerLoss[l];
+                        if (p - l <= 0) { ended += q; }
+                        else { cur[(p - l) * width + e] += q; }
+                    }
+                    for (int l = 0; l < playerLossHealed.length; l++)
+                    {
+                        double q = m * playerLossHealed[l];
+                        if (p - l <= 0) { ended += q; }
+                        else { cur[(p - l) * width + healed] += q; }
+                    }
+                }
+            }
+            turnDist = record(turnDist, turn, ended);
+
+            // Sum the probability of the battle continuing, rather than subtracting, so rounding errors do not accumulate.
+            remaining = 0.0;
+            for (double m : cur) { remaining += m; }
+        }
+
+        // Trim the distribution to the last turn with non-negligible probability.
+        int last = turnDist.length - 1;
+        while (last > 0 && turnDist[last] <= EPSILON) { last--; }
+        return new WinRateSolution(win, expectedHealth, remaining, Arrays.copyOf(turnDist, last + 1));
+    }
+
+    /**
+     * Records the probability of the battle ending on the specified turn, growing the distribution if needed.
+     *
+     * @param dist The distribution.
+     * @param turn The turn number.
+     * @param p    The probability of ending on that turn.
+     * @return The distribution.
+     */
+    private static double[] record(double[] dist, int turn, double p)
+    {
+        if (turn >= dist.length)
+        {
+            dist = Arrays.copyOf(dist, dist.length * 2);
+        }
+        dist[turn] = p;
+        return dist;
+    }
+
+    /**
+     * Returns the player's health after the reward for winning a battle is applied.
+     *
+     * @param health    The player's health at the end of the battle.
+     * @param maxHealth The player's maximum health.
+     * @return The player's health after healing.
+     */
+    private static int rewardedHealth(int health, int maxHealth)
+    {
+        return Math.min(maxHealth, health + (int)Math.ceil(health * BattleEngine.HEAL_RATE));
+    }
+
+    /**
+     * Returns a uniform distribution over the specified range.
+     *
+     * @param min The lower end of the range.
+     * @param max The upper end of the range.
+     * @return The probability of each value, indexed by value.
+     */
+    private static double[] uniform(int min, int max)
+    {
+        double[] dist = new double[max + 1];
+        for (int v = min; v <= max; v++)
+        {
+            dist[v] = 1.0 / (max - min + 1);
+        }
+        return dist;
+    }
+
+    /**
+     * Returns the distribution of health lost when defending against an attack with the specified
+     * damage distribution. Attacks that deal no damage are not defended.
+     *
+     * @param damage The probability of each damage value, indexed by value.
+     * @param minDef The minimum defence of the defending character.
+     * @param maxDef The maximum defence of the defending character.
+     * @return The probability of each amount of health lost, indexed by amount.
+     */
+    private static double[] lossDistribution(double[] damage, int minDef, int maxDef)
+    {
+        double[] loss = new double[Math.max(1, damage.length)];
+        double pDef = 1.0 / (maxDef - minDef + 1);
+        if (damage.length > 0)
+        {
+            loss[0] += damage[0];
+        }
+        for (int d = 1; d < damage.length; d++)
+        {
+            if (damage[d] == 0.0) { continue; }
+            for (int def = minDef; def <= maxDef; def++)
+            {
+                loss[Math.max(0, d - def)] += damage[d] * pDef;
+            }
+        }
+        return loss;
+    }
+
+    /**
+     * Returns the distribution of damage dealt by a single enemy attack with its special ability applied.
+     *
+     * @param k The stats of the characters.
+     * @return The probability of each damage value, indexed by value, for attacks where the
+     *         enemy does not heal ({@code [0]}) and where it does ({@code [1]}).
+     */
+    private static double[][] enemyAttackDistribution(Key k)
+    {
+        double[] base = uniform(k.enMinAtt, k.enMaxAtt);
+        double[] healed = new double[0];
+        double extra = 0.0;
+
+        // Each ability triggers exclusively with its own chance, otherwise the base damage is dealt.
+        double none = 1.0;
+        for (EnemyAbility ab : k.abilities) { none -= ab.getChance(); }
+        double[] dist = scale(base, Math.max(none, 0.0));
+
+        for (EnemyAbility ab : k.abilities)
+        {
+            double p = ab.getChance();
+            switch (ab.getKind())
+            {
+                case ZERO: // deal no damage
+                    dist[0] += p;
+                break;
+
+                case BONUS: // gain flat damage
+                    dist = add(dist, shift(scale(base, p), ab.getValue()));
+                break;
+
+                case MULTIPLY: // multiply damage
+                    dist = add(dist, stretch(scale(base, p), ab.getValue()));
+                break;
+
+                case HEAL: // heal before the damage lands
+                    healed = add(healed, scale(base, p));
+                break;
+
+                case EXTRA: // attack again, repeatedly
+                    extra += p;
+                break;
+            }
+        }
+
+        if (extra > 0.0)
+        {
+            // The damage of an attack with extra attacks is the fixed point of D = dist + extra * (base + D).
+            double[] single = dist;
+            double[] prev;
+            do
+            {
+                prev = dist;
+                dist = add(single, scale(convolve(base, prev), extra));
+            } while (distance(prev, dist) > EPSILON);
+        }
+        return new double[][] { dist, healed };
+    }
+
+    /**
+     * Multiplies each probability in a distribution.
+     * @param d The distribution.
+     * @param f The factor.
+     * @return A new distribution.
+     */
+    private static double[] scale(double[] d, double f)
+    {
+        double[] r = new double[d.length];
+        for (int i = 0; i < d.length; i++) { r[i] = d[i] * f; }
+        return r;
+    }
+
+    /**
+     * Adds two distributions.
+     * @param a The first distribution.
+     * @param b The second distribution.
+     * @return A new distribution.
+     */
+    private static double[] add(double[] a, double[] b)
+    {
+        double[] r = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for (int i = 0; i < b.length; i++) { r[i] += b[i]; }
+        return r;
+    }
+
+    /**
+     * Shifts each value in a distribution by a constant.
+     * @param d The distribution.
+     * @param n The amount to shift by.
+     * @return A new distribution.
+     */
+    private static double[] shift(double[] d, int n)
+    {
+        double[] r = new double[d.length + n];
+        System.arraycopy(d, 0, r, n, d.length);
+        return r;
+    }
+
+    /**
+     * Multiplies each value in a distribution by a constant.
+     * @param d The distribution.
+     * @param n The multiplier.
+     * @return A new distribution.
+     */
+    private static double[] stretch(double[] d, int n)
+    {
+        double[] r = new double[(d.length - 1) * n + 1];
+        for (int i = 0; i < d.length; i++) { r[i * n] += d[i]; }
+        return r;
+    }
+
+    /**
+     * Returns the distribution of the sum of two independent values.
+     * @param a The distribution of the first value.
+     * @param b The distribution of the second value.
+     * @return A new distribution.
+     */
+    private static double[] convolve(double[] a, double[] b)
+    {
+        double[] r = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++)
+        {
+            if (a[i] == 0.0) { continue; }
+            for (int j = 0; j < b.length; j++) { r[i + j] += a[i] * b[j]; }
+        }
+        return r;
+    }
+
+    /**
+     * Returns the total absolute difference between two distributions.
+     * @param a The first distribution.
+     * @param b The second distribution.
+     * @return The difference.
+     */
+    private static double distance(double[] a, double[] b)
+    {
+        double sum = 0.0;
+        for (int i = 0; i < Math.max(a.length, b.length); i++)
+        {
+            sum += Math.abs((i < a.length ? a[i] : 0.0) - (i < b.length ? b[i] : 0.0));
+        }
+        return sum;
+    }
+
+    /**
+     * Writes an evicted solution to the spill directory, if set.
+     * Failures are ignored, since the solution can always be recomputed.
+     *
+     * @param key The stats of the characters.
+     * @param sol The solution.
+     */
+    private void spill(Key key, WinRateSolution sol)
+    {
+        if (spillDir != null)
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(spillDir.resolve(key.toFilename())))))
+            {
+                sol.write(out);
+            }
+            catch (IOException e)
+            {
+                // Discard the solution.
+            }
+        }
+    }
+
+    /**
+     * Reads a previously evicted solution from the spill directory, if present.
+     *
+     * @param key The stats of the characters.
+     * @return The solution, or {@code null} if it was not found.
+     */
+    private WinRateSolution unspill(Key key)
+    {
+        WinRateSolution sol = null;
+        if (spillDir != null)
+        {
+            Path file = spillDir.resolve(key.toFilename());
+            if (Files.exists(file))
+            {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+                {
+                    sol = WinRateSolution.read(in);
+                }
+                catch (IOException e)
+                {
+                    sol = null;
+                }
+            }
+        }
+        return sol;
+    }
+
+    /**
+     * The stats of the characters in a battle, which fully determine its outcome probabilities.
+     */
+    private static class Key
+    {
+        /** The player's current health. */
+        private final int health;
+        /** The player's maximum health. */
+        private final int maxHealth;
+        /** The player's minimum attack. */
+        private final int minAtt;
+        /** The player's maximum attack. */
+        private final int maxAtt;
+        /** The player's minimum defence. */
+        private final int minDef;
+        /** The player's maximum defence. */
+        private final int maxDef;
+        /** The type of enemy and its special abilities, as a String. */
+        private final String enemyType;
+        /** The enemy's special abilities. */
+        private final List<EnemyAbility> abilities;
+        /** The enemy's current health. */
+        private final int enHealth;
+        /** The enemy's maximum health. */
+        private final int enMaxHealth;
+        /** The enemy's minimum attack. */
+        private final int enMinAtt;
+        /** The enemy's maximum attack. */
+        private final int enMaxAtt;
+        /** The enemy's minimum defence. */
+        private final int enMinDef;
+        /** The enemy's maximum defence. */
+        private final int enMaxDef;
+        /** The health the enemy recovers when it heals. */
+        private final int heal;
+
+        /**
+         * Constructs a new key from the current stats of the characters.
+         * @param plr The player.
+         * @param en  The enemy.
+         * @throws IllegalArgumentException If the enemy's abilities cannot be solved.
+         */
+        private Key(Player plr, Enemy en) throws IllegalArgumentException
+        {
+            health = plr.getHealth();
+            maxHealth = plr.getMaxHealth();
+            minAtt = plr.getMinAttack();
+            maxAtt = plr.getMaxAttack();
+            minDef = plr.getMinDefence();
+            maxDef = plr.getMaxDefence();
+            abilities = en.getTemplate().getAbilities();
+            enHealth = en.getHealth();
+            enMaxHealth = en.getMaxHealth();
+            enMinAtt = en.getMinAttack();
+            enMaxAtt = en.getMaxAttack();
+            enMinDef = en.getMinDefence();
+            enMaxDef = en.getMaxDefence();
+
+            // Identify the enemy by its abilities as well as its name, and find the amount it heals.
+            StringBuilder type = new StringBuilder(en.getTemplate().getId());
+            int h = 0;
+            boolean extra = false;
+            for (EnemyAbility ab : abilities)
+            {
+                type.append('-').append(ab.getKind()).append(ab.getValue()).append('x').append(ab.getChance());
+                if (ab.getKind() == EnemyAbility.Kind.HEAL)
+                {
+                    if (h != 0 && h != ab.getValue())
+                    {
+                        throw new IllegalArgumentException("Enemies that heal by different amounts cannot be solved.");
+                    }
+                    h = ab.getValue();
+                }
+                extra |= ab.getKind() == EnemyAbility.Kind.EXTRA;
+            }
+            if (extra && h != 0)
+            {
+                throw new IllegalArgumentException("Enemies that both heal and attack again cannot be solved.");
+            }
+            enemyType = type.toString();
+            heal = h;
+        }
+
+        /** @return The stats as an array, in a fixed order. */
+        private int[] stats()
+        {
+            return new int[] { health, maxHealth, minAtt, maxAtt, minDef, maxDef,
+                    enHealth, enMaxHealth, enMinAtt, enMaxAtt, enMinDef, enMaxDef, heal };
+        }
+
+        /** @return The name of the file to spill the solution to. */
+        private String toFilename()
+        {
+            StringBuilder sb = new StringBuilder(enemyType);
+            for (int s : stats())
+            {
+                sb.append('_').append(s);
+            }
+            return sb.append(".sol").toString();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key)) { return false; }
+            Key k = (Key) o;
+            return health == k.health && maxHealth == k.maxHealth && minAtt == k.minAtt && maxAtt == k.maxAtt
+                    && minDef == k.minDef && maxDef == k.maxDef && enHealth == k.enHealth && enMaxHealth == k.enMaxHealth
+                    && enMinAtt == k.enMinAtt && enMaxAtt == k.enMaxAtt && enMinDef == k.enMinDef && enMaxDef == k.enMaxDef
+                    && heal == k.heal && enemyType.equals(k.enemyType);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int h = enemyType.hashCode();
+            h = 31 * h + health;
+            h = 31 * h + maxHealth;
+            h = 31 * h + minAtt;
+            h = 31 * h + maxAtt;
+            h = 31 * h + minDef;
+            h = 31 * h + maxDef;
+            h = 31 * h + enHealth;
+            h = 31 * h + enMaxHealth;
+            h = 31 * h + enMinAtt;
+            h = 31 * h + enMaxAtt;
+            h = 31 * h + enMinDef;
+            h = 31 * h + enMaxDef;
+            return 31 * h + heal;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+import rohankhayech.combatgame.model.item.Item;
+
+/**
+ * Journal that records each change to the state of a player, so that the player can be recovered by replaying them.
+ * Changes are grouped into actions, such as buying an item or finishing a battle, and an action is only kept once it
+ * has been committed, so a player is always recovered to the end of an action.
+ *
+ * @author Rohan Khayech
+ * @see Player#setJournal(ActionJournal)
+ */
+public interface ActionJournal
+{
+    /**
+     * Records a change that is part of the current action.
+     *
+     * @param type  The type of change.
+     * @param item  The item of the change, or {@code null} if it has none.
+     * @param value The value of the change.
+     */
+    public void record(PlayerAction type, Item item, int value);
+
+    /**
+     * Commits the changes recorded since the last commit as a single action.
+     */
+    public void commit();
+}
\ No newline at end of file
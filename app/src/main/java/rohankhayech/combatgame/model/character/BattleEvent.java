@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+/**
+ * Types of event that can occur during a battle, recorded in a {@code BattleLog}.
+ * Each event is recorded with the character that performed it, an optional subject and an integer value.
+ *
+ * @author Rohan Khayech
+ * @see BattleLog
+ */
+public enum BattleEvent
+{
+    /** An enemy started an attack. */
+    ATTACK_START,
+    /** An enemy finished an attack. The value is the damage dealt. */
+    ATTACK,
+    /** A character's special ability triggered. The subject is the {@code EnemyAbility}. */
+    ABILITY,
+    /** The player attacked with a weapon. The subject is the {@code Weapon} and the value is the damage dealt. */
+    WEAPON_ATTACK,
+    /** The player drank a healing potion. The subject is the {@code Potion} and the value is the health gained. */
+    POTION_HEAL,
+    /** The player threw a damage potion. The subject is the {@code Potion} and the value is the damage dealt. */
+    POTION_DAMAGE,
+    /** The player used a potion with no effect. The subject is the {@code Potion}. */
+    POTION_FAILED,
+    /** A character defended against an attack. The value is the defence applied. */
+    DEFEND,
+    /** A character lost health from an attack. The value is the health lost. */
+    HEALTH_LOST
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer that records the events of a battle as they occur.
+ * Events are stored in parallel arrays, so that recording an event does not build any text
+ * and the buffer can be cleared and reused without allocating. Descriptions are only
+ * rendered from the events when they are displayed.
+ *
+ * @author Rohan Khayech
+ * @see BattleEvent
+ */
+public class BattleLog
+{
+    /** Initial number of events the log can hold before growing. */
+    private static final int INIT_CAPACITY = 16;
+
+    /** The type of each event. */
+    private BattleEvent[] types;
+    /** The character that performed each event. */
+    private GameCharacter[] actors;
+    /** The subject of each event, or {@code null} if it has none. */
+    private Object[] subjects;
+    /** The value of each event. */
+    private int[] values;
+    /** The number of events recorded. */
+    private int size;
+
+    /**
+     * Constructs a new empty battle log.
+     */
+    public BattleLog()
+    {
+        types = new BattleEvent[INIT_CAPACITY];
+        actors = new GameCharacter[INIT_CAPACITY];
+        subjects = new Object[INIT_CAPACITY];
+        values = new int[INIT_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param type    The type of event.
+     * @param actor   The character that performed the event.
+     * @param subject The subject of the event, or {@code null} if it has none.
+     * @param value   The value of the event.
+     */
+    public void log(BattleEvent type, GameCharacter actor, Object subject, int value)
+    {
+        if (size == types.length)
+        {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            actors = Arrays.copyOf(actors, capacity);
+            subjects = Arrays.copyOf(subjects, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        types[size] = type;
+        actors[size] = actor;
+        subjects[size] = subject;
+        values[size] = value;
+        size++;
+    }
+
+    /** @return The number of events recorded. */
+    public int size() { return size; }
+
+    /**
+     * @param i The index of the event.
+     * @return The type of the event.
+     */
+    public BattleEvent getType(int i) { return types[i]; }
+
+    /**
+     * @param i The index of the event.
+     * @return The character that performed the event.
+     */
+    public GameCharacter getActor(int i) { return actors[i]; }
+
+    /**
+     * @param i The index of the event.
+     * @return The subject of the event, or {@code null} if it has none.
+     */
+    public Object getSubject(int i) { return subjects[i]; }
+
+    /**
+     * @param i The index of the event.
+     * @return The value of the event.
+     */
+    public int getValue(int i) { return values[i]; }
+
+    /**
+     * Removes all events from the log.
+     */
+    public void clear()
+    {
+        Arrays.fill(actors, 0, size, null);
+        Arrays.fill(subjects, 0, size, null);
+        size = 0;
+    }
+}
\ No newline at end of file
@@ -23,4 +23,11 @@ public interface CharacterObserver {
      * @param gChar The character triggering the event.
      */
     public void onAttack(GameCharacter gChar);
+
+    /**
+     * Called when the state of the character shown to the user changes, such as its health, gold, name or items.
+     * 
+     * @param gChar The character triggering the event.
+     */
+    public void onChange(GameCharacter gChar);
 }
\ No newline at end of file
@@ -5,8 +5,8 @@
 package rohankhayech.combatgame.model.character;
 
 /**
- * Informative class used to return the stats and description of a defence
- * event.
+ * Informative class used to return the stats of a defence event.
+ * The description of the defence is recorded separately in the defender's {@code BattleLog}.
  * 
  * @author Rohan Khayech
  */
@@ -16,21 +16,17 @@ public class Defence
     private int damage;
     /** Integer defining defence applied. */
     private int defence;
-    /** String containing all defence information to be displayed. */
-    private String desc;
     
     /**
      * Constructs a new Defence object.
      * 
      * @param damage The damage taken after defence.
      * @param defence The defence applied.
-     * @param desc Description of the defence information.
      */
-    public Defence(int damage, int defence, String desc)
+    public Defence(int damage, int defence)
     {
         this.damage = damage;
         this.defence = defence;
-        this.desc = desc + "\n";
     }
     
     /**
@@ -47,13 +43,6 @@ public class Defence
         return defence;
     }
 
-    /**
-     * @return String containing all attack information to be displayed.
-     */
-    public String getDescription() {
-        return desc;
-    }
-
     /**
      * Sets the damage taken after defence is applied.
      * 
@@ -71,13 +60,4 @@ public class Defence
     public void setDefence(int defence) {
         this.defence = defence;
     }
-
-    /**
-     * Adds a line describing an attack event to the description.
-     * 
-     * @param str The line to add.
-     */
-    public void addToDescription(String str) {
-        desc += str + "\n";
-    }
 }
\ No newline at end of file
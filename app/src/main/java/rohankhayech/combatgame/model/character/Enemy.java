@@ -5,73 +5,102 @@
 package rohankhayech.combatgame.model.character;
 
 import rohankhayech.combatgame.controller.Randomizer;
+import rohankhayech.combatgame.model.text.StyledText;
 
 /**
- * Abstract class defining an enemy character in the game.
+ * Class representing an enemy character in the game.
+ * An enemy only holds its own current health, with its stats and special abilities
+ * read from an immutable {@code EnemyTemplate} shared by all enemies of its type.
  * 
  * @author Rohan Khayech
+ * @see EnemyTemplate
  */
-public abstract class Enemy extends GameCharacter
+public class Enemy extends GameCharacter
 {   
+    /** The template defining the type of enemy. */
+    private final EnemyTemplate template;
+
     /**
-     * Superclass constructor for all enemy characters.
-     * @param name Name of the enemy.
+     * Spawns a new enemy of the specified type at full health.
+     * @param template The template defining the type of enemy.
      */
-    public Enemy(String name)
+    public Enemy(EnemyTemplate template)
     {
-        super(name);
+        super(template.getName(), template.getMaxHealth());
+        this.template = template;
     }
+
+    /** @return The template defining the type of enemy. */
+    public EnemyTemplate getTemplate() { return template; }
+
+    /** @return The name of the enemy, styled for display. */
+    @Override
+    public StyledText getStyledName() { return template.getStyledName(); }
+
+    /** @return Whether defeating the enemy wins the game. */
+    public boolean isBoss() { return template.isBoss(); }
     
     /**
      * Performs an attack with the enemy.
-     * @return An {@code Attack} object containing the damage and description of the attack.
+     * @return An {@code Attack} object containing the damage of the attack.
      */
     @Override
     public Attack attack()
     {
         notifyOnAttack(); //nothing currently observes an enemies attack, but added here for further extensibility
 
-        Randomizer rand = new Randomizer();
+        Randomizer rand = Randomizer.getInstance();
         
         int damage = rand.randomRange(getMinAttack(), getMaxAttack());
-        Attack att = new Attack(damage, name+" attacks!");
+        logEvent(BattleEvent.ATTACK_START, null, damage);
+        Attack att = new Attack(damage);
 
         att = specialAbility(att);
 
-        att.addToDescription(name+" attacked, dealing "+att.getDamage()+"DP.");
+        logEvent(BattleEvent.ATTACK, null, att.getDamage());
 
         return att;
     }
 
     /** @return The minimum defence of the enemy. */
     @Override
-    public abstract int getMinDefence();
+    public int getMinDefence() { return template.getMinDefence(); }
 
     /** @return The maximum defence of the enemy. */
     @Override
-    public abstract int getMaxDefence();
+    public int getMaxDefence() { return template.getMaxDefence(); }
     
     /** @return The minimum damage the enemy can inflict. */
     @Override
-    public abstract int getMinAttack();
+    public int getMinAttack() { return template.getMinAttack(); }
 
     /** @return The maximum damage the enemy can inflict. */
     @Override
-    public abstract int getMaxAttack();
+    public int getMaxAttack() { return template.getMaxAttack(); }
 
     /** @return The maximum health of the enemy. */
     @Override
-    public abstract int getMaxHealth();
+    public int getMaxHealth() { return template.getMaxHealth(); }
 
     /** @return The amount of gold the enemy drops on death. */
     @Override
-    public abstract int getGold();
+    public int getGold() { return template.getGold(); }
 
     /**
-     * Perform the enemy's special ability.
+     * Perform the enemy's special ability, if one triggers.
      * 
      * @param att The enemy's attack to modify.
      * @return The enemy's attack with the special ability applied.
      */
-    protected abstract Attack specialAbility(Attack att);
+    protected Attack specialAbility(Attack att)
+    {
+        EnemyAbility ab = template.rollAbility(Randomizer.getInstance());
+        if (ab != null)
+        {
+            logEvent(BattleEvent.ABILITY, ab, 0);
+            att.setDamage(ab.apply(this, att.getDamage()));
+        }
+
+        return att;
+    }
 }
\ No newline at end of file
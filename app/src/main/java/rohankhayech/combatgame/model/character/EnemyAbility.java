@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+import java.util.regex.Pattern;
+
+import rohankhayech.combatgame.model.text.StyledText;
+
+/**
+ * Immutable special ability of an enemy template, built from one of a fixed set of ability kernels.
+ * Each time an enemy attacks, at most one of its abilities triggers, with the chance of each
+ * given by the ability.
+ *
+ * @author Rohan Khayech
+ * @see EnemyTemplate
+ */
+public class EnemyAbility
+{
+    /** Token in the description that is replaced by the enemy's name. */
+    public static final String NAME_TOKEN = "%s";
+
+    /** Kernels defining the effect of an ability on an enemy's attack. */
+    public enum Kind
+    {
+        /** The attack deals no damage. */
+        ZERO,
+        /** The attack deals {@code value} extra damage. */
+        BONUS,
+        /** The attack's damage is multiplied by {@code value}. */
+        MULTIPLY,
+        /** The enemy recovers {@code value} health before the attack lands. */
+        HEAL,
+        /** The enemy attacks again, adding the damage of the new attack, which can trigger abilities of its own. */
+        EXTRA
+    }
+
+    /** The kernel of the ability. */
+    private final Kind kind;
+    /** The chance of the ability triggering on an attack. */
+    private final double chance;
+    /** The value of the ability, used by the kernel. */
+    private final int value;
+    /** Description of the ability, with {@code NAME_TOKEN} in place of the enemy's name. */
+    private final String description;
+
+    /**
+     * Constructs a new enemy ability.
+     *
+     * @param kind        The kernel of the ability.
+     * @param chance      The chance of the ability triggering on an attack, between 0 and 1.
+     * @param value       The value of the ability, used by the kernel.
+     * @param description Description of the ability, with {@code NAME_TOKEN} in place of the enemy's name.
+     * @throws IllegalArgumentException If the chance or value is invalid.
+     */
+    public EnemyAbility(Kind kind, double chance, int value, String description) throws IllegalArgumentException
+    {
+        if (!(chance > 0.0 && chance <= 1.0))
+        {
+            throw new IllegalArgumentException("Ability chance must be between 0 and 1.");
+        }
+        if (value < 0)
+        {
+            throw new IllegalArgumentException("Ability value must not be negative.");
+        }
+        if (kind == Kind.EXTRA && chance >= 1.0)
+        {
+            throw new IllegalArgumentException("Extra attacks must have a chance below 1.");
+        }
+        this.kind = kind;
+        this.chance = chance;
+        this.value = value;
+        this.description = description;
+    }
+
+    /** @return The kernel of the ability. */
+    public Kind getKind() { return kind; }
+
+    /** @return The chance of the ability triggering on an attack. */
+    public double getChance() { return chance; }
+
+    /** @return The value of the ability, used by the kernel. */
+    public int getValue() { return value; }
+
+    /** @return Description of the ability, with {@code NAME_TOKEN} in place of the enemy's name. */
+    public String getDescription() { return description; }
+
+    /**
+     * Describes the ability being performed by the specified enemy.
+     *
+     * @param name The name of the enemy.
+     * @return The description.
+     */
+    public String describe(String name)
+    {
+        return description.replace(NAME_TOKEN, name);
+    }
+
+    /**
+     * Describes the ability being performed by the specified enemy, keeping the style of its name.
+     *
+     * @param name The styled name of the enemy.
+     * @return The styled description.
+     */
+    public StyledText describe(StyledText name)
+    {
+        StyledText.Builder sb = StyledText.builder();
+        String[] parts = description.split(Pattern.quote(NAME_TOKEN), -1);
+        for (int i = 0; i < parts.length; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(name);
+            }
+            sb.append(parts[i]);
+        }
+        return sb.build();
+    }
+
+    /**
+     * Applies the ability to an attack by the specified enemy.
+     *
+     * @param en     The enemy performing the attack.
+     * @param damage The damage of the attack.
+     * @return The damage of the attack with the ability applied.
+     */
+    public int apply(Enemy en, int damage)
+    {
+        switch (kind)
+        {
+            case ZERO:
+                damage = 0;
+            break;
+
+            case BONUS:
+                damage += value;
+            break;
+
+            case MULTIPLY:
+                damage *= value;
+            break;
+
+            case HEAL:
+                en.modifyHealth(value);
+            break;
+
+            case EXTRA:
+                damage += en.attack().getDamage();
+            break;
+        }
+        return damage;
+    }
+
+    /** @return A String representation of the ability. */
+    @Override
+    public String toString()
+    {
+        return kind + " " + value + " (" + chance + ")";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+import java.util.*;
+
+import rohankhayech.combatgame.controller.Randomizer;
+import rohankhayech.combatgame.model.text.*;
+
+/**
+ * Immutable definition of a type of enemy, shared by every enemy of that type.
+ * Templates are loaded from data, so new enemy types can be added without new classes.
+ *
+ * @author Rohan Khayech
+ * @see Enemy
+ */
+public class EnemyTemplate
+{
+    /** Spawn rate of templates that spawn with whatever probability the other templates leave over. */
+    public static final double REMAINDER = -1.0;
+
+    /** Name of the enemy type. */
+    private final String id;
+    /** Name of the enemy, styled for display. */
+    private final StyledText name;
+    /** Maximum health of the enemy. */
+    private final int maxHealth;
+    /** Minimum damage the enemy can inflict. */
+    private final int minAttack;
+    /** Maximum damage the enemy can inflict. */
+    private final int maxAttack;
+    /** Minimum defence of the enemy. */
+    private final int minDefence;
+    /** Maximum defence of the enemy. */
+    private final int maxDefence;
+    /** Amount of gold dropped on death. */
+    private final int gold;
+    /** Whether defeating the enemy wins the game. */
+    private final boolean boss;
+    /** Initial spawn rate of the enemy, or {@code REMAINDER}. */
+    private final double spawnRate;
+    /** Amount to decrease the spawn rate by after each battle. */
+    private final double spawnRateDec;
+    /** The special abilities of the enemy, in the order their chances are rolled. */
+    private final EnemyAbility[] abilities;
+    /** The chance of any special ability triggering on an attack. */
+    private final double abilityChance;
+
+    /**
+     * Constructs a new enemy template.
+     *
+     * @param id           Name of the enemy type.
+     * @param name         Name of the enemy, styled for display.
+     * @param maxHealth    Maximum health of the enemy.
+     * @param minAttack    Minimum damage the enemy can inflict.
+     * @param maxAttack    Maximum damage the enemy can inflict.
+     * @param minDefence   Minimum defence of the enemy.
+     * @param maxDefence   Maximum defence of the enemy.
+     * @param gold         Amount of gold dropped on death.
+     * @param boss         Whether defeating the enemy wins the game.
+     * @param spawnRate    Initial spawn rate of the enemy, or {@code REMAINDER}.
+     * @param spawnRateDec Amount to decrease the spawn rate by after each battle.
+     * @param abilities    The special abilities of the enemy, in the order their chances are rolled.
+     * @throws IllegalArgumentException If any of the stats are invalid, or the abilities' chances sum to more than 1.
+     */
+    public EnemyTemplate(String id, StyledText name, int maxHealth, int minAttack, int maxAttack, int minDefence, int maxDefence,
+            int gold, boolean boss, double spawnRate, double spawnRateDec, List<EnemyAbility> abilities) throws IllegalArgumentException
+    {
+        if (maxHealth <= 0 || minAttack < 0 || maxAttack < minAttack || minDefence < 0 || maxDefence < minDefence || gold < 0)
+        {
+            throw new IllegalArgumentException("Invalid enemy stats for " + id + ".");
+        }
+        if (spawnRate != REMAINDER && (spawnRate < 0.0 || spawnRate > 1.0 || spawnRateDec < 0.0))
+        {
+            throw new IllegalArgumentException("Invalid spawn rate for " + id + ".");
+        }
+
+        double chance = 0.0;
+        for (EnemyAbility ab : abilities)
+        {
+            chance += ab.getChance();
+        }
+        if (chance > 1.0 + 1e-9)
+        {
+            throw new IllegalArgumentException("Ability chances for " + id + " sum to more than 1.");
+        }
+
+        this.id = id;
+        this.name = name;
+        this.maxHealth = maxHealth;
+        this.minAttack = minAttack;
+        this.maxAttack = maxAttack;
+        this.minDefence = minDefence;
+        this.maxDefence = maxDefence;
+        this.gold = gold;
+        this.boss = boss;
+        this.spawnRate = spawnRate;
+        this.spawnRateDec = spawnRateDec;
+        this.abilities = abilities.toArray(new EnemyAbility[0]);
+        this.abilityChance = Math.min(chance, 1.0);
+    }
+
+    /** @return Name of the enemy type. */
+    public String getId() { return id; }
+
+    /** @return Name of the enemy, without styles. */
+    public String getName() { return name.toString(); }
+
+    /** @return Name of the enemy, styled for display. */
+    public StyledText getStyledName() { return name; }
+
+    /** @return Maximum health of the enemy. */
+    public int getMaxHealth() { return maxHealth; }
+
+    /** @return Minimum damage the enemy can inflict. */
+    public int getMinAttack() { return minAttack; }
+
+    /** @return Maximum damage the enemy can inflict. */
+    public int getMaxAttack() { return maxAttack; }
+
+    /** @return Minimum defence of the enemy. */
+    public int getMinDefence() { return minDefence; }
+
+    /** @return Maximum defence of the enemy. */
+    public int getMaxDefence() { return maxDefence; }
+
+    /** @return Amount of gold dropped on death. */
+    public int getGold() { return gold; }
+
+    /** @return Whether defeating the enemy wins the game. */
+    public boolean isBoss() { return boss; }
+
+    /** @return Whether the enemy spawns with whatever probability the other templates leave over. */
+    public boolean isSpawnRemainder() { return spawnRate == REMAINDER; }
+
+    /**
+     * Returns the spawn rate of the enemy after the specified number of battles,
+     * decreasing by the spawn rate decrement each battle down to the specified minimum.
+     *
+     * @param battle  The number of battles already spawned.
+     * @param minRate The minimum spawn rate.
+     * @return The spawn rate, or {@code REMAINDER}.
+     */
+    public double getSpawnRate(int battle, double minRate)
+    {
+        return isSpawnRemainder() ? REMAINDER : Math.max(spawnRate - battle * spawnRateDec, Math.min(minRate, spawnRate));
+    }
+
+    /** @return The special abilities of the enemy, in the order their chances are rolled. */
+    public List<EnemyAbility> getAbilities() { return Collections.unmodifiableList(Arrays.asList(abilities)); }
+
+    /**
+     * Rolls which special ability, if any, triggers on an attack.
+     * The chance of any ability triggering is rolled first, then each ability in turn is rolled
+     * with its chance given that none of the previous abilities were picked, so that an enemy
+     * with a single ability rolls once.
+     *
+     * @param rand The random number generator to use.
+     * @return The ability that triggered, or {@code null} if none did.
+     */
+    public EnemyAbility rollAbility(Randomizer rand)
+    {
+        EnemyAbility ab = null;
+        if (abilities.length > 0 && rand.chance(abilityChance))
+        {
+            double left = abilityChance;
+            int i = 0;
+            while (ab == null && i < abilities.length - 1)
+            {
+                if (rand.chance(abilities[i].getChance() / left))
+                {
+                    ab = abilities[i];
+                }
+                left -= abilities[i].getChance();
+                i++;
+            }
+            if (ab == null)
+            {
+                ab = abilities[abilities.length - 1];
+            }
+        }
+        return ab;
+    }
+
+    /** @return A String representation of the template. */
+    @Override
+    public String toString()
+    {
+        return id;
+    }
+}
\ No newline at end of file
@@ -5,9 +5,10 @@
 package rohankhayech.combatgame.model.character;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import rohankhayech.combatgame.controller.Randomizer;
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.StyledText;
 
 /**
  * Abstract class defining a character in the game.
@@ -20,8 +21,10 @@ public abstract class GameCharacter
     protected int health;
     /** Name of the character. */
     protected String name;
-    /** List of observers watching this character. */
+    /** List of observers watching this character. Copied on write so observers can be removed during notification. */
     protected List<CharacterObserver> observers;
+    /** Log to record battle events to, or {@code null} if events are not displayed. */
+    private BattleLog log;
 
     /**
      * Superclass constructor for all game characters.
@@ -31,7 +34,21 @@ public abstract class GameCharacter
     {
         this.name = name;
         this.health = getMaxHealth();
-        this.observers = new ArrayList<CharacterObserver>();
+        this.observers = new CopyOnWriteArrayList<CharacterObserver>();
+        this.log = null;
+    }
+
+    /**
+     * Superclass constructor for game characters whose maximum health is not known until after construction.
+     * @param name The name of the character.
+     * @param health The starting health of the character.
+     */
+    public GameCharacter(String name, int health)
+    {
+        this.name = name;
+        this.health = health;
+        this.observers = new CopyOnWriteArrayList<CharacterObserver>();
+        this.log = null;
     }
 
     //Accessors
@@ -41,9 +58,13 @@ public abstract class GameCharacter
      */
     public int getHealth() { return health; }
     /**
-     * @return The character's name.
+     * @return The character's name, without styles.
      */
     public String getName() { return name; }
+    /**
+     * @return The character's name, styled for display.
+     */
+    public StyledText getStyledName() { return StyledText.plain(name); }
     
     /** @return The minimum defence of the character. */
     public abstract int getMinDefence();
@@ -65,7 +86,7 @@ public abstract class GameCharacter
 
     /**
      * Performs an attack with the character.
-     * @return An {@code Attack} object containing the damage and description of the attack.
+     * @return An {@code Attack} object containing the damage of the attack.
      */
     public abstract Attack attack();
 
@@ -73,20 +94,46 @@ public abstract class GameCharacter
      * Defends against an attack with the specified damage.
      * 
      * @param damage The damage to inflict on the character.
-     * @return A {@code Defence} object containing the damage taken, and the amount and description of the defence applied.
+     * @return A {@code Defence} object containing the damage taken and the amount of defence applied.
      */
     public Defence defend(int damage)
     {
-        Randomizer rand = new Randomizer();
+        Randomizer rand = Randomizer.getInstance();
         
         int defence = rand.randomRange(getMinDefence(), getMaxDefence());
         int damageTaken = Math.max(0, damage - defence);
         modifyHealth(damageTaken*-1);
 
-        Defence def = new Defence(damage, defence, name+" deflected "+defence+"DP.");
-        def.addToDescription(name+" lost "+Colour.RED+damageTaken+"HP"+Colour.RESET+".");
+        logEvent(BattleEvent.DEFEND, null, defence);
+        logEvent(BattleEvent.HEALTH_LOST, null, damageTaken);
 
-        return def;
+        return new Defence(damage, defence);
+    }
+
+    /**
+     * Sets the log to record the character's battle events to, such as to display them to the user.
+     * No events are recorded while the log is {@code null}, such as in headless battles.
+     *
+     * @param log The log to record events to, or {@code null} to stop recording.
+     */
+    public void setBattleLog(BattleLog log)
+    {
+        this.log = log;
+    }
+
+    /**
+     * Records a battle event performed by this character, if a log is set.
+     *
+     * @param type    The type of event.
+     * @param subject The subject of the event, or {@code null} if it has none.
+     * @param value   The value of the event.
+     */
+    protected void logEvent(BattleEvent type, Object subject, int value)
+    {
+        if (log != null)
+        {
+            log.log(type, this, subject, value);
+        }
     }
 
     /**
@@ -110,6 +157,15 @@ public abstract class GameCharacter
         }
     }
 
+    /**
+     * Notifies any observers of a change to the character's state.
+     */
+    protected void notifyOnChange() {
+        for (CharacterObserver ob : observers) {
+            ob.onChange(this);
+        }
+    }
+
     /**
      * Modifies the the character's health by the given amount.
      * This should only be used directly to grant the player health.
@@ -119,6 +175,7 @@ public abstract class GameCharacter
      */
     public void modifyHealth(int amount) 
     {
+        int oldHealth = health;
         health = health + amount;
 
         if (health <= 0)
@@ -130,6 +187,25 @@ public abstract class GameCharacter
         {
             health = getMaxHealth();
         }
+
+        if (health != oldHealth)
+        {
+            notifyOnChange();
+        }
+    }
+
+    /**
+     * Subscribes an observer to be notified on certain character events until the returned subscription is closed.
+     * Subscriptions should be scoped with try-with-resources, so that short-lived observers
+     * such as those of a battle do not accumulate on long-lived characters.
+     *
+     * @param ob The observer to add.
+     * @return The subscription handle, which removes the observer when closed.
+     */
+    public Subscription subscribe(CharacterObserver ob)
+    {
+        addObserver(ob);
+        return new Subscription(this, ob);
     }
 
     /**
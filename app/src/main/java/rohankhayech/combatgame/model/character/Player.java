@@ -4,6 +4,8 @@
 
 package rohankhayech.combatgame.model.character;
 
+import java.util.List;
+
 import rohankhayech.combatgame.model.item.*;
 
 /**
@@ -30,6 +32,9 @@ public class Player extends GameCharacter
     /** The next attack chosen by the user.*/
     private Attack nextAttack; 
 
+    /** The journal to record changes to the player's state to, or {@code null} if they are not recorded. */
+    private ActionJournal journal;
+
     /**
      * Constructs a new Player character.
      * 
@@ -49,19 +54,99 @@ public class Player extends GameCharacter
 
     /**
      * Performs an attack chosen by the player.
-     * @return An {@code Attack} object containing the damage and description of the attack.
+     * @return An {@code Attack} object containing the damage of the attack.
      */
     @Override
     public Attack attack() {
         
+        nextAttack = null;
         notifyOnAttack(); 
         //This notifies the player controller to run the player attack menu.
         //The player controller then takes the user choice, and calls setNextAttack(),
         //passing in the chosen attack. nextAttack can then be returned as below. 
 
+        //If no attack was chosen (eg. the player has no controller in a headless battle)
+        //choose one automatically.
+        if (nextAttack == null)
+        {
+            nextAttack = autoAttack();
+        }
+
         return nextAttack;
     }
 
+    /**
+     * Chooses and performs an attack without user input.
+     * Drinks a healing potion when at or below half health, otherwise throws a damage
+     * potion if it deals more damage on average than the current weapon, otherwise
+     * attacks with the current weapon.
+     * 
+     * @return An {@code Attack} object containing the damage of the
+     *         attack.
+     */
+    public Attack autoAttack() {
+        Potion healing = null;
+        Potion damage = null;
+        for (Potion p : inv.getAllPotions()) {
+            if (p.getType() == 'H' && healing == null) {
+                healing = p;
+            } else if (p.getType() == 'D' && (damage == null || p.getMaxEffect() + p.getMinEffect() > damage.getMaxEffect() + damage.getMinEffect())) {
+                damage = p;
+            }
+        }
+
+        Attack att;
+        if (healing != null && health * 2 <= getMaxHealth()) {
+            att = usePotion(healing);
+        } else if (damage != null && damage.getMinEffect() + damage.getMaxEffect() > getMinAttack() + getMaxAttack()) {
+            att = usePotion(damage);
+        } else {
+            att = weaponAttack();
+        }
+        return att;
+    }
+
+    /**
+     * Performs an attack using the current weapon.
+     * 
+     * @return An {@code Attack} object containing the damage of the
+     *         attack.
+     */
+    public Attack weaponAttack() {
+        int damage = weapon.rollDamage();
+        logEvent(BattleEvent.WEAPON_ATTACK, weapon, damage);
+        return new Attack(damage);
+    }
+
+    /**
+     * Uses a potion from the player's inventory, either as an attack or to heal.
+     * 
+     * @param potion The potion to use.
+     * @return An {@code Attack} object containing the damage of the
+     *         attack.
+     */
+    public Attack usePotion(Potion potion) {
+        Attack att = null;
+        takeItem((Item) potion);
+        switch (potion.getType()) {
+            case 'H':
+                int healing = potion.rollEffect();
+                modifyHealth(healing);
+                logEvent(BattleEvent.POTION_HEAL, potion, healing);
+                att = new Attack(0);
+                break;
+            case 'D':
+                int damage = potion.rollEffect();
+                logEvent(BattleEvent.POTION_DAMAGE, potion, damage);
+                att = new Attack(damage);
+                break;
+            default:
+                logEvent(BattleEvent.POTION_FAILED, potion, 0);
+                att = new Attack(0);
+        }
+        return att;
+    }
+
     /** @return The minimum defence of the player's current armour. */
     @Override
     public int getMinDefence() { return armour.getMinEffect(); }
@@ -100,6 +185,22 @@ public class Player extends GameCharacter
     public void modifyGold(int amount)
     {
         gold+=amount;
+        recordAction(PlayerAction.GOLD, null, amount);
+        notifyOnChange();
+    }
+
+    /**
+     * Modifies the player's health by the given amount.
+     * This should only be used directly to grant the player health.
+     * If the player is taking damage {@code defend()} should be used instead.
+     * 
+     * @param amount The amount of health to increase by.
+     */
+    @Override
+    public void modifyHealth(int amount)
+    {
+        super.modifyHealth(amount);
+        recordAction(PlayerAction.HEALTH, null, health);
     }
 
     /**
@@ -108,7 +209,11 @@ public class Player extends GameCharacter
      */
     public void giveItem(Item i)
     {
-        inv.addItem(i);
+        if (inv.addItem(i))
+        {
+            recordAction(PlayerAction.GIVE, i, 0);
+            notifyOnChange();
+        }
     }
 
     /**
@@ -117,7 +222,12 @@ public class Player extends GameCharacter
      */
     public void takeItem(Item i)
     {
-        inv.removeItem(i);
+        int slot = journal != null ? inv.getAllItems().indexOf(i) : -1;
+        if (inv.removeItem(i))
+        {
+            recordAction(PlayerAction.TAKE, null, slot);
+            notifyOnChange();
+        }
     }
 
     /**
@@ -129,9 +239,35 @@ public class Player extends GameCharacter
         return !inv.isFull();
     }
 
+    /**
+     * Returns whether the player has room for the specified item, either in a free slot or on the item's stack.
+     * @param i The item to give the player.
+     * @return {@code true} if the item can be given to the player, {@code false} otherwise.
+     */
+    public boolean hasInventorySpace(Item i)
+    {
+        return inv.canAdd(i);
+    }
+
     /** @return The player's inventory. */
     public Inventory getInventory() { return inv; }
 
+    /**
+     * Returns the number of copies of the given item in the player's inventory,
+     * not counting the copy in use if it is the current weapon or armour.
+     * @param i The item.
+     * @return The number of unequipped copies of the item.
+     */
+    public int getSpareCount(Item i)
+    {
+        int count = inv.getCount(i);
+        if (count > 0 && (i == weapon || i == armour))
+        {
+            count--;
+        }
+        return count;
+    }
+
     /**
      * Sets the name of the player.
      * @param n The player's new name.
@@ -139,6 +275,8 @@ public class Player extends GameCharacter
     public void setName(String n)
     {
         name = n; 
+        recordAction(PlayerAction.NAME, null, 0);
+        notifyOnChange();
     }
 
     /**
@@ -148,6 +286,8 @@ public class Player extends GameCharacter
     public void setWeapon(Weapon w)
     {
         weapon = w; 
+        recordEquip(PlayerAction.WEAPON, w);
+        notifyOnChange();
     }
 
     /**
@@ -156,6 +296,8 @@ public class Player extends GameCharacter
      */
     public void setArmour(Armour a) {
         armour = a;
+        recordEquip(PlayerAction.ARMOUR, a);
+        notifyOnChange();
     }
 
     /**
@@ -168,7 +310,93 @@ public class Player extends GameCharacter
         inv.removeItem(enchant);
         inv.removeItem(weapon);
         inv.addItem(enWeapon);
-        setWeapon(enWeapon);
+        weapon = enWeapon;
+        recordAction(PlayerAction.ENCHANT, enchant, 0);
+        commitActions();
+        notifyOnChange();
+    }
+
+    /**
+     * Sets the journal to record changes to the player's state to, such as to recover the player after a crash.
+     * No changes are recorded while the journal is {@code null}, such as in headless battles.
+     *
+     * @param journal The journal to record changes to, or {@code null} to stop recording.
+     */
+    public void setJournal(ActionJournal journal)
+    {
+        this.journal = journal;
+    }
+
+    /**
+     * Records the end of a battle, committing the changes made during it as a single action.
+     * @param battle The number of battles the enemy factory has spawned.
+     */
+    public void recordBattle(int battle)
+    {
+        recordAction(PlayerAction.BATTLE, null, battle);
+        commitActions();
+    }
+
+    /**
+     * Commits the changes recorded since the last commit as a single action, if a journal is set.
+     */
+    public void commitActions()
+    {
+        if (journal != null)
+        {
+            journal.commit();
+        }
+    }
+
+    /**
+     * Records a change to the player's state, if a journal is set.
+     * @param type  The type of change.
+     * @param item  The item of the change, or {@code null} if it has none.
+     * @param value The value of the change.
+     */
+    private void recordAction(PlayerAction type, Item item, int value)
+    {
+        if (journal != null)
+        {
+            journal.record(type, item, value);
+        }
+    }
+
+    /**
+     * Records that the player equipped an item, by its inventory slot if it is held.
+     * @param type The type of change.
+     * @param item The equipped item.
+     */
+    private void recordEquip(PlayerAction type, Item item)
+    {
+        if (journal != null)
+        {
+            int slot = inv.getAllItems().indexOf(item);
+            journal.record(type, slot < 0 ? item : null, slot);
+        }
+    }
+
+    /**
+     * Restores the player to a previous state, such as from a saved game,
+     * replacing its health, gold, inventory and equipped items.
+     * @param health The health of the player, up to the maximum health.
+     * @param gold The amount of gold the player has.
+     * @param items The items in the player's inventory, with a copy of a stackable item for each item in its stack.
+     * @param weapon The equipped weapon.
+     * @param armour The equipped armour.
+     */
+    public void restore(int health, int gold, List<? extends Item> items, Weapon weapon, Armour armour)
+    {
+        this.health = Math.min(health, getMaxHealth());
+        this.gold = gold;
+        inv.clear();
+        for (Item i : items)
+        {
+            inv.addItem(i);
+        }
+        this.weapon = weapon;
+        this.armour = armour;
+        notifyOnChange();
     }
 
     /**
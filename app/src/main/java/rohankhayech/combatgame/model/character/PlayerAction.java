@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+/**
+ * Types of change to the state of a player, recorded in an {@code ActionJournal} so that the changes can be replayed.
+ * Each change is recorded with an optional item and an integer value. Items held by the player are referred to by
+ * their inventory slot, as copies of unstackable items are only distinguished by identity.
+ *
+ * @author Rohan Khayech
+ * @see ActionJournal
+ */
+public enum PlayerAction
+{
+    /** The player's gold changed. The value is the amount added. */
+    GOLD,
+    /** The player's health changed. The value is the new health. */
+    HEALTH,
+    /** An item was added to the player's inventory. The item is the item added. */
+    GIVE,
+    /** An item was removed from the player's inventory. The value is the inventory slot it was removed from. */
+    TAKE,
+    /** The player equipped a weapon. The value is its inventory slot, or -1 with the weapon if it is not held. */
+    WEAPON,
+    /** The player equipped armour. The value is its inventory slot, or -1 with the armour if it is not held. */
+    ARMOUR,
+    /** The player's weapon was enchanted. The item is the enchantment. */
+    ENCHANT,
+    /** A battle ended. The value is the number of battles the enemy factory has spawned. */
+    BATTLE,
+    /** The player was renamed. The new name is read from the player when the change is recorded. */
+    NAME
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.character;
+
+/**
+ * Handle to a {@code CharacterObserver} subscribed to a {@code GameCharacter}.
+ * Closing the subscription removes the observer from the character, so it can be scoped
+ * to a block using try-with-resources. Closing a subscription more than once has no effect.
+ *
+ * @author Rohan Khayech
+ * @see GameCharacter#subscribe(CharacterObserver)
+ */
+public class Subscription implements AutoCloseable
+{
+    /** The character being observed. */
+    private final GameCharacter gChar;
+    /** The subscribed observer. */
+    private final CharacterObserver ob;
+    /** Whether the subscription has been closed. */
+    private boolean closed;
+
+    /**
+     * Constructs a new subscription handle. The observer must already be added to the character.
+     *
+     * @param gChar The character being observed.
+     * @param ob    The subscribed observer.
+     */
+    Subscription(GameCharacter gChar, CharacterObserver ob)
+    {
+        this.gChar = gChar;
+        this.ob = ob;
+        this.closed = false;
+    }
+
+    /** @return Whether the subscription has been closed. */
+    public boolean isClosed() { return closed; }
+
+    /**
+     * Removes the observer from the character, if it has not already been removed by this subscription.
+     */
+    @Override
+    public void close()
+    {
+        if (!closed)
+        {
+            closed = true;
+            gChar.removeObserver(ob);
+        }
+    }
+}
\ No newline at end of file
@@ -4,7 +4,7 @@
 
 package rohankhayech.combatgame.model.item;
 
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /**
  * Class representing an Armour item in the game.
@@ -14,11 +14,11 @@ import rohankhayech.combatgame.view.Colour;
 public class Armour extends Item {
 
     /** Material of the armour. */
-    private String material;
+    private final String material;
     /** Minimum defence of the armour. */
-    private int minEffect;
+    private final int minEffect;
     /** Maximum defence of the armour. */
-    private int maxEffect;
+    private final int maxEffect;
 
     /**
      * Construct a new Armour item.
@@ -36,22 +36,40 @@ public class Armour extends Item {
         this.material = material;
     }
 
-    /**
-     * Constructs a copy of the specified Armour item.
-     * 
-     * @param a The armour to copy.
-     */
-    private Armour(Armour a) {
-        super(a.getName(),a.getCost());
-        this.minEffect = a.getMinEffect();
-        this.maxEffect = a.getMaxEffect();
-        this.material = a.getMaterial();
+    /** @return This armour, as armour is immutable and can be shared. */
+    public Item clone() 
+    {
+        return this;
     }
 
-    /** @return A copy of the specified item. */
-    public Item clone() 
+    /** @return {@code true}, as armour is immutable and stacks. */
+    @Override
+    public boolean isStackable() { return true; }
+
+    /** @return The hash code of the armour's attributes. */
+    @Override
+    protected int getTemplateHash()
+    {
+        int hash = super.getTemplateHash();
+        hash = 31 * hash + minEffect;
+        hash = 31 * hash + maxEffect;
+        return 31 * hash + material.hashCode();
+    }
+
+    /**
+     * @param other The other item.
+     * @return {@code true} if the other item is armour with the same attributes.
+     */
+    @Override
+    protected boolean isSameTemplate(Item other)
     {
-        return new Armour(this);
+        boolean same = super.isSameTemplate(other);
+        if (same)
+        {
+            Armour a = (Armour)other;
+            same = a.minEffect == minEffect && a.maxEffect == maxEffect && a.material.equals(material);
+        }
+        return same;
     }
 
     /** @return The material of the armour. */
@@ -64,13 +82,15 @@ public class Armour extends Item {
     public int getMaxEffect() { return maxEffect; }
 
     /**
-     * Returns a string representation of the Armour item.
-     * @return String describing the Armour item.
+     * Returns a styled description of the Armour item.
+     * @return Styled string describing the Armour item.
      */
     @Override
-    public String toString()
+    protected StyledText buildDescription()
     {
-        return name+" | "+material+" | "+Colour.BRIGHT_CYAN+"DEF: "+minEffect+"-"+maxEffect+Colour.RESET + " | " + Colour.BRIGHT_YELLOW + getCost() + "G" + Colour.RESET;
+        return StyledText.builder().append(name+" | "+material+" | ")
+            .append("DEF: "+minEffect+"-"+maxEffect, Style.BRIGHT_CYAN)
+            .append(" | ").append(getCost() + "G", Style.BRIGHT_YELLOW).build();
     }
 
 
@@ -0,0 +1,964 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.item;
+
+import java.util.*;
+
+/**
+ * Index over a catalogue of items, such as the items for sale in a shop.
+ *
+ * Items are split into categories by type, and each category is sorted once by every {@code Attribute}
+ * and by value for money, the first time it is queried. Queries binary search the sorted orders and
+ * return read-only views of them, so they take logarithmic time regardless of the size of the catalogue.
+ * Items with equal attributes keep their catalogue order.
+ *
+ * Items can be added, removed and replaced after the index is built, such as when the listed items of a shop change.
+ * Each change is inserted into or removed from the sorted orders of the queried categories at its sorted position,
+ * so the categories are never sorted again. The sorted orders are copied on each change rather than modified, so a
+ * view returned by a query is unaffected by later changes.
+ *
+ * The index only stores ids of the items, reading the items themselves through the catalogue when they are returned,
+ * so a paged catalogue does not need to be held in memory. The items of a paged catalogue are split into categories
+ * and sorted by reading their types and attributes from the catalogue's stored records, so building the index does
+ * not create the paged items.
+ *
+ * @author Rohan Khayech
+ * @see Shop#getCatalogue()
+ */
+public class CatalogueIndex
+{
+    /**
+     * Attributes the items in a catalogue are sorted by.
+     */
+    public enum Attribute
+    {
+        /** The cost of the item. */
+        COST,
+        /** The minimum effect of the item. */
+        MIN_EFFECT,
+        /** The maximum effect of the item. */
+        MAX_EFFECT;
+
+        /**
+         * @param item The item.
+         * @return The value of this attribute for the item.
+         */
+        public int of(Item item)
+        {
+            int value = 0;
+            switch (this)
+            {
+                case COST:
+                    value = item.getCost();
+                break;
+
+                case MIN_EFFECT:
+                    value = item.getMinEffect();
+                break;
+
+                case MAX_EFFECT:
+                    value = item.getMaxEffect();
+                break;
+            }
+            return value;
+        }
+    }
+
+    /** The types of item indexed as categories, in addition to all items. */
+    private static final List<Class<? extends Item>> TYPES = List.of(Weapon.class, Armour.class, Potion.class, EnchantmentItem.class);
+
+    /** Number of removed items to keep before the added items are renumbered. */
+    private static final int MIN_COMPACT = 16;
+
+    /** The paged catalogue at the start of the catalogue, or {@code null} if the catalogue is not paged. */
+    private final PagedCatalogue paged;
+    /** The number of paged items, which have the ids from zero up to it. */
+    private final int pagedCount;
+    /**
+     * The items added after the paged items, by id less the number of paged items.
+     * Removed items are kept until the ids are renumbered, so views of earlier orders can still read them.
+     */
+    private Item[] extras;
+    /** The catalogue rank of each added item, by id less the number of paged items, which orders items with equal attributes. */
+    private int[] ranks;
+    /** The number of ids given to added items, including removed items. */
+    private int extraCount;
+    /** The rank to give the next added item. */
+    private int nextRank;
+    /** The id of each added item in the catalogue. */
+    private final Map<Item, Integer> ids;
+    /** The index of each category that has been queried, by type. */
+    private final Map<Class<? extends Item>, Category> categories;
+
+    /**
+     * Constructs an index of the specified catalogue.
+     *
+     * @param items The items in the catalogue, in catalogue order.
+     */
+    public CatalogueIndex(Collection<? extends Item> items)
+    {
+        this(null, items);
+    }
+
+    /**
+     * Constructs an index of a paged catalogue followed by additional items, without holding the paged items.
+     *
+     * @param paged The paged catalogue, which must not change while the index is in use, or {@code null} if there is none.
+     * @param extra The additional items, in catalogue order.
+     */
+    public CatalogueIndex(PagedCatalogue paged, Collection<? extends Item> extra)
+    {
+        this.paged = paged;
+        this.pagedCount = paged != null ? paged.size() : 0;
+        this.extras = new Item[Math.max(16, extra.size())];
+        this.ranks = new int[extras.length];
+        this.extraCount = 0;
+        this.nextRank = pagedCount;
+        this.ids = new IdentityHashMap<Item, Integer>();
+        this.categories = new HashMap<Class<? extends Item>, Category>();
+        for (Item i : extra)
+        {
+            if (!ids.containsKey(i))
+            {
+                ids.put(i, append(i, nextRank++));
+            }
+        }
+    }
+
+    /** @return The number of items in the catalogue. */
+    public synchronized int size() { return pagedCount + ids.size(); }
+
+    /**
+     * Adds an item to the end of the catalogue, if it is not already in the catalogue.
+     *
+     * @param item The item.
+     */
+    public synchronized void add(Item item)
+    {
+        if (!ids.containsKey(item))
+        {
+            int id = append(item, nextRank++);
+            ids.put(item, id);
+            for (Map.Entry<Class<? extends Item>, Category> e : categories.entrySet())
+            {
+                if (e.getKey().isInstance(item))
+                {
+                    e.getValue().insert(this, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an item from the catalogue, if it was added to the catalogue. Paged items cannot be removed.
+     *
+     * @param item The item.
+     */
+    public synchronized void remove(Item item)
+    {
+        Integer id = ids.remove(item);
+        if (id != null)
+        {
+            for (Map.Entry<Class<? extends Item>, Category> e : categories.entrySet())
+            {
+                if (e.getKey().isInstance(item))
+                {
+                    e.getValue().delete(this, id);
+                }
+            }
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * Replaces an item added to the catalogue with another item in the same catalogue position.
+     * If the item is not in the catalogue or the replacement already is, the item is removed and the replacement added.
+     *
+     * @param item        The item to replace.
+     * @param replacement The item to list instead.
+     */
+    public synchronized void replace(Item item, Item replacement)
+    {
+        Integer id = ids.get(item);
+        if (id == null || ids.containsKey(replacement))
+        {
+            remove(item);
+            add(replacement);
+        }
+        else
+        {
+            int newId = append(replacement, rankOf(id));
+            ids.remove(item);
+            ids.put(replacement, newId);
+            for (Map.Entry<Class<? extends Item>, Category> e : categories.entrySet())
+            {
+                if (e.getKey().isInstance(item))
+                {
+                    e.getValue().delete(this, id);
+                }
+                if (e.getKey().isInstance(replacement))
+                {
+                    e.getValue().insert(this, newId);
+                }
+            }
+            compactIfSparse();
+        }
+    }
+
+    /**
+     * Returns the items of a type sorted in ascending order of an attribute.
+     *
+     * @param <T>  The type of item.
+     * @param type The type of item, either {@code Item}, {@code Weapon}, {@code Armour}, {@code Potion} or {@code EnchantmentItem}.
+     * @param by   The attribute to sort by.
+     * @return A read-only view of the sorted items.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    public synchronized <T extends Item> List<T> getSorted(Class<T> type, Attribute by) throws IllegalArgumentException
+    {
+        Category cat = getCategory(type);
+        return view(cat.order[by.ordinal()], 0, cat.order[by.ordinal()].length);
+    }
+
+    /**
+     * Returns the items of a type with an attribute within the specified range, sorted in ascending order of that attribute.
+     *
+     * @param <T>  The type of item.
+     * @param type The type of item.
+     * @param by   The attribute.
+     * @param min  The minimum value of the attribute, inclusive.
+     * @param max  The maximum value of the attribute, inclusive.
+     * @return A read-only view of the items in range.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    public synchronized <T extends Item> List<T> getInRange(Class<T> type, Attribute by, int min, int max) throws IllegalArgumentException
+    {
+        Category cat = getCategory(type);
+        int[] keys = cat.keys[by.ordinal()];
+        int from = lowerBound(keys, min);
+        int to = max == Integer.MAX_VALUE ? keys.length : Math.max(from, lowerBound(keys, max + 1));
+        return view(cat.order[by.ordinal()], from, to);
+    }
+
+    /**
+     * Returns the items of a type that cost at most the specified amount of gold, from cheapest to most expensive.
+     *
+     * @param <T>  The type of item.
+     * @param type The type of item.
+     * @param gold The amount of gold available.
+     * @return A read-only view of the affordable items.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    public <T extends Item> List<T> getAffordable(Class<T> type, int gold) throws IllegalArgumentException
+    {
+        return getInRange(type, Attribute.COST, Integer.MIN_VALUE, gold);
+    }
+
+    /**
+     * Returns the cheapest item of a type.
+     *
+     * @param <T>  The type of item.
+     * @param type The type of item.
+     * @return The cheapest item, or {@code null} if there are no items of the type.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    public <T extends Item> T getCheapest(Class<T> type) throws IllegalArgumentException
+    {
+        List<T> sorted = getSorted(type, Attribute.COST);
+        return sorted.isEmpty() ? null : sorted.get(0);
+    }
+
+    /**
+     * Returns the cheapest item of a type with an attribute of at least the specified value,
+     * eg. the cheapest armour with a minimum defence of at least 5.
+     *
+     * @param <T>     The type of item.
+     * @param type    The type of item.
+     * @param by      The attribute.
+     * @param atLeast The minimum value of the attribute, inclusive.
+     * @return The cheapest matching item, or {@code null} if no item matches.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Item> T getCheapestWith(Class<T> type, Attribute by, int atLeast) throws IllegalArgumentException
+    {
+        Category cat = getCategory(type);
+        int from = lowerBound(cat.keys[by.ordinal()], atLeast);
+        T item = null;
+        if (from < cat.byValue.length)
+        {
+            item = (T)itemAt(cat.cheapestFrom[by.ordinal()][from]);
+        }
+        return item;
+    }
+
+    /**
+     * Returns the items of a type with the best value for money, measured as the average effect per gold.
+     *
+     * @param <T>  The type of item.
+     * @param type The type of item.
+     * @param k    The maximum number of items to return.
+     * @return A read-only view of up to {@code k} items, from best to worst value.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    public synchronized <T extends Item> List<T> getBestValue(Class<T> type, int k) throws IllegalArgumentException
+    {
+        Category cat = getCategory(type);
+        return view(cat.byValue, 0, Math.max(0, Math.min(k, cat.byValue.length)));
+    }
+
+    /**
+     * Returns the index of a category, sorting the category if it has not been queried before.
+     * Must be called while holding the lock of the index.
+     *
+     * @param type The type of item.
+     * @return The index of the category.
+     * @throws IllegalArgumentException If the type is not indexed.
+     */
+    private Category getCategory(Class<? extends Item> type) throws IllegalArgumentException
+    {
+        Category cat = categories.get(type);
+        if (cat == null)
+        {
+            if (type != Item.class && !TYPES.contains(type))
+            {
+                throw new IllegalArgumentException(type.getSimpleName() + " is not an indexed item type.");
+            }
+            cat = new Category(this, members(type));
+            categories.put(type, cat);
+        }
+        return cat;
+    }
+
+    /**
+     * Finds the items in a category.
+     *
+     * @param type The type of item.
+     * @return The ids of the items of the type, in catalogue order.
+     */
+    private int[] members(Class<? extends Item> type)
+    {
+        int[] found = new int[type == Item.class ? size() : 16];
+        int count = 0;
+        for (int id = 0; id < pagedCount; id++)
+        {
+            if (type == Item.class || type.isAssignableFrom(paged.typeOf(id)))
+            {
+                if (count == found.length)
+                {
+                    found = Arrays.copyOf(found, count * 2);
+                }
+                found[count++] = id;
+            }
+        }
+
+        // Order the added items by rank, packing it with the id to sort them without boxing.
+        long[] added = new long[ids.size()];
+        int n = 0;
+        for (Map.Entry<Item, Integer> e : ids.entrySet())
+        {
+            if (type.isInstance(e.getKey()))
+            {
+                added[n++] = ((long)rankOf(e.getValue()) << 32) | e.getValue();
+            }
+        }
+        Arrays.sort(added, 0, n);
+        if (count + n > found.length)
+        {
+            found = Arrays.copyOf(found, count + n);
+        }
+        for (int a = 0; a < n; a++)
+        {
+            found[count++] = (int)added[a];
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Gives an added item a new id.
+     *
+     * @param item The item.
+     * @param rank The catalogue rank of the item.
+     * @return The id of the item.
+     */
+    private int append(Item item, int rank)
+    {
+        if (extraCount == extras.length)
+        {
+            // Copy rather than grow in place, so views of earlier orders keep reading the old array.
+            extras = Arrays.copyOf(extras, extraCount * 2);
+            ranks = Arrays.copyOf(ranks, extraCount * 2);
+        }
+        extras[extraCount] = item;
+        ranks[extraCount] = rank;
+        return pagedCount + extraCount++;
+    }
+
+    /**
+     * Renumbers the added items once removed items outnumber them, dropping the removed items.
+     * The sorted orders of the categories are renumbered without sorting them again.
+     */
+    private void compactIfSparse()
+    {
+        int removed = extraCount - ids.size();
+        if (removed > MIN_COMPACT && removed > ids.size())
+        {
+            int[] renumber = new int[extraCount];
+            Item[] live = new Item[Math.max(16, ids.size() * 2)];
+            int[] liveRanks = new int[live.length];
+            int n = 0;
+            for (int e = 0; e < extraCount; e++)
+            {
+                Integer id = ids.get(extras[e]);
+                if (id != null && id == pagedCount + e)
+                {
+                    live[n] = extras[e];
+                    liveRanks[n] = ranks[e];
+                    ids.put(extras[e], pagedCount + n);
+                    renumber[e] = pagedCount + n++;
+                }
+            }
+            extras = live;
+            ranks = liveRanks;
+            extraCount = n;
+            for (Category cat : categories.values())
+            {
+                cat.renumber(pagedCount, renumber);
+            }
+        }
+    }
+
+    /**
+     * @param id The id of an item.
+     * @return The item.
+     */
+    private Item itemAt(int id)
+    {
+        return id < pagedCount ? paged.get(id) : extras[id - pagedCount];
+    }
+
+    /**
+     * @param id The id of an item.
+     * @return The catalogue rank of the item, which orders items with equal attributes.
+     */
+    private int rankOf(int id)
+    {
+        return id < pagedCount ? id : ranks[id - pagedCount];
+    }
+
+    /**
+     * @param id   The id of an item.
+     * @param attr The attribute.
+     * @return The value of the attribute for the item, read from the stored record if it is paged.
+     */
+    private int attributeAt(int id, Attribute attr)
+    {
+        return id < pagedCount ? paged.attributeOf(id, attr) : attr.of(extras[id - pagedCount]);
+    }
+
+    /**
+     * Creates a view of a range of a sorted order, reading the items that are currently added.
+     *
+     * @param <T>   The type of item.
+     * @param order The ids of the items in sorted order.
+     * @param from  The first position in the sorted order, inclusive.
+     * @param to    The last position in the sorted order, exclusive.
+     * @return The view.
+     */
+    private <T extends Item> List<T> view(int[] order, int from, int to)
+    {
+        return new IndexView<T>(paged, pagedCount, extras, order, from, to);
+    }
+
+    /**
+     * Returns the position of the first value in a sorted array that is at least the specified key.
+     *
+     * @param keys The sorted array.
+     * @param key  The key.
+     * @return The position, or the length of the array if every value is less than the key.
+     */
+    private static int lowerBound(int[] keys, int key)
+    {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key)
+            {
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @param a     An array.
+     * @param at    The position to insert at.
+     * @param value The value to insert.
+     * @return A copy of the array with the value inserted.
+     */
+    private static int[] inserted(int[] a, int at, int value)
+    {
+        int[] b = new int[a.length + 1];
+        System.arraycopy(a, 0, b, 0, at);
+        b[at] = value;
+        System.arraycopy(a, at, b, at + 1, a.length - at);
+        return b;
+    }
+
+    /**
+     * @param a     An array.
+     * @param at    The position to insert at.
+     * @param value The value to insert.
+     * @return A copy of the array with the value inserted.
+     */
+    private static double[] inserted(double[] a, int at, double value)
+    {
+        double[] b = new double[a.length + 1];
+        System.arraycopy(a, 0, b, 0, at);
+        b[at] = value;
+        System.arraycopy(a, at, b, at + 1, a.length - at);
+        return b;
+    }
+
+    /**
+     * @param a  An array.
+     * @param at The position to remove.
+     * @return A copy of the array without the value at the position.
+     */
+    private static int[] removed(int[] a, int at)
+    {
+        int[] b = new int[a.length - 1];
+        System.arraycopy(a, 0, b, 0, at);
+        System.arraycopy(a, at + 1, b, at, a.length - at - 1);
+        return b;
+    }
+
+    /**
+     * @param a  An array.
+     * @param at The position to remove.
+     * @return A copy of the array without the value at the position.
+     */
+    private static double[] removed(double[] a, int at)
+    {
+        double[] b = new double[a.length - 1];
+        System.arraycopy(a, 0, b, 0, at);
+        System.arraycopy(a, at + 1, b, at, a.length - at - 1);
+        return b;
+    }
+
+    /**
+     * Sorted orders of the items in a single category, as item ids.
+     */
+    private static class Category
+    {
+        /** The ids of the items sorted by each attribute, indexed by attribute. */
+        private final int[][] order;
+        /** The value of each attribute in sorted order, indexed by attribute. */
+        private final int[][] keys;
+        /**
+         * The id of the cheapest item from each point in the sorted order onwards, indexed by attribute.
+         */
+        private final int[][] cheapestFrom;
+        /** The ids of the items sorted from best to worst value for money. */
+        private int[] byValue;
+        /** The value for money of each item in {@code byValue}. */
+        private double[] values;
+
+        /**
+         * Sorts the items with the specified ids.
+         *
+         * @param index The index of the catalogue, used to read the attributes of the items.
+         * @param ids   The ids of the items in the category, in catalogue order.
+         */
+        private Category(CatalogueIndex index, int[] ids)
+        {
+            int n = ids.length;
+            Attribute[] attrs = Attribute.values();
+            order = new int[attrs.length][];
+            keys = new int[attrs.length][];
+            cheapestFrom = new int[attrs.length][];
+
+            // Read the attributes of every item once, so that sorting does not touch the items themselves.
+            int[][] attrValues = new int[attrs.length][n];
+            for (int i = 0; i < n; i++)
+            {
+                for (Attribute attr : attrs)
+                {
+                    attrValues[attr.ordinal()][i] = index.attributeAt(ids[i], attr);
+                }
+            }
+            int[] cost = attrValues[Attribute.COST.ordinal()];
+            double[] value = new double[n];
+            for (int i = 0; i < n; i++)
+            {
+                value[i] = valueOf(cost[i], attrValues[Attribute.MIN_EFFECT.ordinal()][i], attrValues[Attribute.MAX_EFFECT.ordinal()][i]);
+            }
+
+            for (Attribute attr : attrs)
+            {
+                // Sort by the attribute, breaking ties by catalogue order, by packing both into a long.
+                int a = attr.ordinal();
+                long[] packed = new long[n];
+                for (int i = 0; i < n; i++)
+                {
+                    packed[i] = ((long)attrValues[a][i] << 32) | i;
+                }
+                Arrays.sort(packed);
+
+                order[a] = new int[n];
+                keys[a] = new int[n];
+                for (int i = 0; i < n; i++)
+                {
+                    order[a][i] = (int)packed[i];
+                    keys[a][i] = (int)(packed[i] >> 32);
+                }
+
+                // Find the cheapest item from each point onwards, scanning backwards.
+                cheapestFrom[a] = new int[n];
+                for (int i = n - 1; i >= 0; i--)
+                {
+                    int pos = order[a][i];
+                    if (i < n - 1)
+                    {
+                        int best = cheapestFrom[a][i + 1];
+                        if (cost[best] < cost[pos] || (cost[best] == cost[pos] && best < pos))
+                        {
+                            pos = best;
+                        }
+                    }
+                    cheapestFrom[a][i] = pos;
+                }
+            }
+
+            // Sort by value for money, breaking ties by catalogue order.
+            byValue = new int[n];
+            for (int i = 0; i < n; i++)
+            {
+                byValue[i] = i;
+            }
+            sortByValue(byValue, value);
+            values = new double[n];
+            for (int i = 0; i < n; i++)
+            {
+                values[i] = value[byValue[i]];
+            }
+
+            // Convert the orders from positions within the category to item ids.
+            for (Attribute attr : attrs)
+            {
+                toIds(order[attr.ordinal()], ids);
+                toIds(cheapestFrom[attr.ordinal()], ids);
+            }
+            toIds(byValue, ids);
+        }
+
+        /**
+         * Inserts an item into each sorted order at its sorted position.
+         *
+         * @param index The index of the catalogue.
+         * @param id    The id of the item.
+         */
+        private void insert(CatalogueIndex index, int id)
+        {
+            int rank = index.rankOf(id);
+            for (Attribute attr : Attribute.values())
+            {
+                int a = attr.ordinal();
+                int key = index.attributeAt(id, attr);
+                int at = upperBound(index, a, key, rank);
+                order[a] = inserted(order[a], at, id);
+                keys[a] = inserted(keys[a], at, key);
+
+                // The item is only the cheapest from points at or before it, and once it is not, it is not before either.
+                int[] cheapest = inserted(cheapestFrom[a], at, id);
+                cheapest[at] = cheaper(index, id, at + 1 < order[a].length ? cheapest[at + 1] : id);
+                for (int i = at - 1; i >= 0 && cheaper(index, id, cheapest[i]) == id; i--)
+                {
+                    cheapest[i] = id;
+                }
+                cheapestFrom[a] = cheapest;
+            }
+
+            double value = valueOf(index, id);
+            int at = valueBound(index, value, rank);
+            byValue = inserted(byValue, at, id);
+            values = inserted(values, at, value);
+        }
+
+        /**
+         * Removes an item from each sorted order.
+         *
+         * @param index The index of the catalogue, which must still be able to read the item.
+         * @param id    The id of the item.
+         */
+        private void delete(CatalogueIndex index, int id)
+        {
+            int rank = index.rankOf(id);
+            for (Attribute attr : Attribute.values())
+            {
+                int a = attr.ordinal();
+                int at = upperBound(index, a, index.attributeAt(id, attr), rank) - 1;
+                order[a] = removed(order[a], at);
+                keys[a] = removed(keys[a], at);
+
+                // Only the points where the item was the cheapest change, and they are all just before it.
+                int[] cheapest = removed(cheapestFrom[a], at);
+                for (int i = at - 1; i >= 0 && cheapest[i] == id; i--)
+                {
+                    cheapest[i] = i + 1 < cheapest.length ? cheaper(index, order[a][i], cheapest[i + 1]) : order[a][i];
+                }
+                cheapestFrom[a] = cheapest;
+            }
+
+            int at = valueBound(index, valueOf(index, id), rank) - 1;
+            byValue = removed(byValue, at);
+            values = removed(values, at);
+        }
+
+        /**
+         * Renumbers the ids of the added items in each sorted order.
+         *
+         * @param pagedCount The number of paged items, whose ids are unchanged.
+         * @param renumber   The new id of each added item, by old id less the number of paged items.
+         */
+        private void renumber(int pagedCount, int[] renumber)
+        {
+            for (int a = 0; a < order.length; a++)
+            {
+                order[a] = renumbered(order[a], pagedCount, renumber);
+                cheapestFrom[a] = renumbered(cheapestFrom[a], pagedCount, renumber);
+            }
+            byValue = renumbered(byValue, pagedCount, renumber);
+        }
+
+        /**
+         * @param ids        Item ids.
+         * @param pagedCount The number of paged items, whose ids are unchanged.
+         * @param renumber   The new id of each added item, by old id less the number of paged items.
+         * @return A renumbered copy of the ids.
+         */
+        private static int[] renumbered(int[] ids, int pagedCount, int[] renumber)
+        {
+            int[] copy = new int[ids.length];
+            for (int i = 0; i < ids.length; i++)
+            {
+                copy[i] = ids[i] < pagedCount ? ids[i] : renumber[ids[i] - pagedCount];
+            }
+            return copy;
+        }
+
+        /**
+         * Returns the position after every item that sorts at or before an attribute value and rank.
+         *
+         * @param index The index of the catalogue.
+         * @param a     The ordinal of the attribute.
+         * @param key   The value of the attribute.
+         * @param rank  The catalogue rank.
+         * @return The position.
+         */
+        private int upperBound(CatalogueIndex index, int a, int key, int rank)
+        {
+            int lo = 0;
+            int hi = order[a].length;
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (keys[a][mid] < key || (keys[a][mid] == key && index.rankOf(order[a][mid]) <= rank))
+                {
+                    lo = mid + 1;
+                }
+                else
+                {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Returns the position after every item that sorts at or before a value for money and rank.
+         *
+         * @param index The index of the catalogue.
+         * @param value The value for money.
+         * @param rank  The catalogue rank.
+         * @return The position.
+         */
+        private int valueBound(CatalogueIndex index, double value, int rank)
+        {
+            int lo = 0;
+            int hi = byValue.length;
+            while (lo < hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] > value || (values[mid] == value && index.rankOf(byValue[mid]) <= rank))
+                {
+                    lo = mid + 1;
+                }
+                else
+                {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * @param index The index of the catalogue.
+         * @param id    The id of an item.
+         * @param other The id of another item.
+         * @return The id of the cheaper item, or the one earlier in the catalogue if they cost the same.
+         */
+        private static int cheaper(CatalogueIndex index, int id, int other)
+        {
+            int cost = index.attributeAt(id, Attribute.COST);
+            int otherCost = index.attributeAt(other, Attribute.COST);
+            return otherCost < cost || (otherCost == cost && index.rankOf(other) < index.rankOf(id)) ? other : id;
+        }
+
+        /**
+         * Replaces positions within a category with the corresponding item ids.
+         *
+         * @param sorted The positions within the category.
+         * @param ids    The id of each item in the category.
+         */
+        private static void toIds(int[] sorted, int[] ids)
+        {
+            for (int i = 0; i < sorted.length; i++)
+            {
+                sorted[i] = ids[sorted[i]];
+            }
+        }
+
+        /**
+         * Stably sorts positions from highest to lowest value using a bottom-up merge sort,
+         * avoiding boxing the positions to sort them with a comparator.
+         *
+         * @param order The positions to sort.
+         * @param value The value at each position.
+         */
+        private static void sortByValue(int[] order, double[] value)
+        {
+            int n = order.length;
+            int[] src = order;
+            int[] dst = new int[n];
+            for (int width = 1; width < n; width *= 2)
+            {
+                for (int lo = 0; lo < n; lo += 2 * width)
+                {
+                    int mid = Math.min(lo + width, n);
+                    int hi = Math.min(lo + 2 * width, n);
+                    int i = lo;
+                    int j = mid;
+                    for (int k = lo; k < hi; k++)
+                    {
+                        if (i < mid && (j >= hi || value[src[i]] >= value[src[j]]))
+                        {
+                            dst[k] = src[i++];
+                        }
+                        else
+                        {
+                            dst[k] = src[j++];
+                        }
+                    }
+                }
+                int[] tmp = src;
+                src = dst;
+                dst = tmp;
+            }
+            if (src != order)
+            {
+                System.arraycopy(src, 0, order, 0, n);
+            }
+        }
+
+        /**
+         * @param index The index of the catalogue.
+         * @param id    The id of an item.
+         * @return The average effect of the item per gold, or infinity if the item is free.
+         */
+        private static double valueOf(CatalogueIndex index, int id)
+        {
+            return valueOf(index.attributeAt(id, Attribute.COST), index.attributeAt(id, Attribute.MIN_EFFECT),
+                index.attributeAt(id, Attribute.MAX_EFFECT));
+        }
+
+        /**
+         * @param cost The cost of the item.
+         * @param min  The minimum effect of the item.
+         * @param max  The maximum effect of the item.
+         * @return The average effect of the item per gold, or infinity if the item is free.
+         */
+        private static double valueOf(int cost, int min, int max)
+        {
+            double effect = (min + max) / 2.0;
+            return cost > 0 ? effect / cost : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Read-only view of a range of a sorted order of items.
+     *
+     * @param <T> The type of item.
+     */
+    private static class IndexView<T extends Item> extends AbstractList<T> implements RandomAccess
+    {
+        /** The paged catalogue, or {@code null} if the catalogue is not paged. */
+        private final PagedCatalogue paged;
+        /** The number of paged items. */
+        private final int pagedCount;
+        /** The added items when the view was created, by id less the number of paged items. */
+        private final Item[] extras;
+        /** The ids of the items in sorted order. */
+        private final int[] order;
+        /** The first position in the sorted order, inclusive. */
+        private final int from;
+        /** The last position in the sorted order, exclusive. */
+        private final int to;
+
+        /**
+         * Constructs a view of a range of a sorted order.
+         *
+         * @param paged      The paged catalogue, or {@code null} if the catalogue is not paged.
+         * @param pagedCount The number of paged items.
+         * @param extras     The added items, by id less the number of paged items.
+         * @param order      The ids of the items in sorted order.
+         * @param from       The first position in the sorted order, inclusive.
+         * @param to         The last position in the sorted order, exclusive.
+         */
+        private IndexView(PagedCatalogue paged, int pagedCount, Item[] extras, int[] order, int from, int to)
+        {
+            this.paged = paged;
+            this.pagedCount = pagedCount;
+            this.extras = extras;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int i)
+        {
+            if (i < 0 || i >= to - from)
+            {
+                throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + (to - from));
+            }
+            int id = order[from + i];
+            return (T)(id < pagedCount ? paged.get(id) : extras[id - pagedCount]);
+        }
+
+        @Override
+        public int size()
+        {
+            return to - from;
+        }
+    }
+}
\ No newline at end of file
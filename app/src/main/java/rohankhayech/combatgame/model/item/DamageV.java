@@ -4,7 +4,7 @@
 
 package rohankhayech.combatgame.model.item;
 
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /**
  * Weapon enchantment that adds 5 damage.
@@ -14,7 +14,9 @@ import rohankhayech.combatgame.view.Colour;
 public class DamageV extends EnchantmentItem {
 
     /** Name of the enchantment. */
-    public static final String NAME = Colour.RED+"Damage V"+Colour.RESET;
+    public static final String NAME = "Damage V";
+    /** Style of the enchantment's name. */
+    public static final Style STYLE = Style.RED;
     /** Cost of the enchantment. */
     public static final int COST = 5;
     /** Damage increase of the enchantment. */
@@ -24,12 +26,12 @@ public class DamageV extends EnchantmentItem {
      * Constructs a new Damage V enchantment item.
      */
     public DamageV() {
-        super(NAME, COST);
+        super(NAME, STYLE, COST);
     }
 
-    /** @return A copy of the specified item. */
+    /** @return This enchantment, as enchantments are immutable and can be shared. */
     public Item clone() {
-        return new DamageV();
+        return this;
     }
 
     /** @return The minimum effect of the enchantment. */
@@ -45,36 +47,14 @@ public class DamageV extends EnchantmentItem {
     }
 
     /**
-     * Returns the accumulative minimum damage of the base weapon and all its enchantments. Adds to the minimum damage of the next weapon.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return The accumulative minimum damage of the weapon.
-     */
-    @Override
-    public int getWeaponMinEffect(Weapon next) {
-        return next.getMinEffect() + DAMAGE_INC;
-    }
-
-    /**
-     * Returns the accumulative maximum damage of the base weapon and all its enchantments. Adds to the maximum damage of the next weapon.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return The accumulative maximum damage of the weapon.
-     */
-    @Override
-    public int getWeaponMaxEffect(Weapon next) {
-        return next.getMaxEffect() + DAMAGE_INC;
-    }
-
-    /**
-     * Rolls a random damage value between the minimum and maximum damage of a weapon with this enchantment applied.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return An integer representing the damage that the weapon inflicts.
+     * Compiles the effect of the enchantment onto a program of the enchantments applied before it.
+     * Adds to the damage of the weapon.
+     * @param prev The program of the enchantments applied before this one.
+     * @return A new program with this enchantment's operations appended.
      */
     @Override
-    public int rollDamage(Weapon next) {
-        return next.rollDamage() + DAMAGE_INC;
+    public EnchantmentProgram compile(EnchantmentProgram prev) {
+        return prev.add(DAMAGE_INC);
     }
 
     /**
@@ -83,8 +63,8 @@ public class DamageV extends EnchantmentItem {
      * @return A string desribing the enchantment.
      */
     @Override
-    public String getDescription() {
-        return Colour.BRIGHT_RED + "[+" + DAMAGE_INC + " ATT]" + Colour.RESET;
+    public StyledText getDescription() {
+        return StyledText.of("[+" + DAMAGE_INC + " ATT]", Style.BRIGHT_RED);
     }
 
 }
\ No newline at end of file
@@ -4,41 +4,80 @@
 
 package rohankhayech.combatgame.model.item;
 
+import java.util.*;
+
+import rohankhayech.combatgame.controller.Randomizer;
+import rohankhayech.combatgame.model.text.*;
+
 /**
- * Wrapper class representing an enchantment applied to a weapon.
- * Wraps a Weapon object with an EnchantmentItem object.
+ * Class representing a weapon with one or more enchantments applied.
+ * Rather than wrapping each enchantment around the previous weapon, the chain is flattened into the
+ * base weapon and an {@code EnchantmentProgram} compiled from the enchantments in the order they were
+ * applied, with the damage range and cost computed once when each enchantment is applied.
+ * Enchanted weapons are immutable, so enchanting a weapon again creates a new weapon.
  * 
  * @author Rohan Khayech
  */
 public class EnchantedWeapon extends Weapon {
 
-    /** The weapon to wrap. */
-    private Weapon next;
-    /** The enchantment wrapping the weapon. */
-    private EnchantmentItem enchant;
+    /** The weapon without any enchantments. */
+    private final Weapon base;
+    /** The weapon before the last enchantment was applied, or {@code null} if it is the base weapon. */
+    private final EnchantedWeapon prev;
+    /** The last enchantment applied to the weapon. */
+    private final EnchantmentItem enchant;
+    /** The compiled operations of every enchantment applied to the weapon. */
+    private final EnchantmentProgram program;
+    /** The minimum damage of the weapon after enchantments are applied. */
+    private final int minEffect;
+    /** The maximum damage of the weapon after enchantments are applied. */
+    private final int maxEffect;
+    /** The description of the weapon, or {@code null} if it has not been produced yet. */
+    private StyledText desc;
 
     /**
-     * Constructs a new EnchantedWeapon wrapper object.
+     * Constructs a new weapon with an enchantment applied to the specified weapon.
      * 
-     * @param next The weapon to wrap.
-     * @param enchant The enchantment wrapping the object.
+     * @param next The weapon to enchant.
+     * @param enchant The enchantment to apply.
      */
     public EnchantedWeapon(Weapon next, EnchantmentItem enchant) {
-        super(enchant.getName(), enchant.getCost());
-        this.next = next;
+        super(next.getName(), next.getCost() + enchant.getCost());
+        EnchantmentProgram prevProgram;
+        if (next instanceof EnchantedWeapon) {
+            EnchantedWeapon w = (EnchantedWeapon)next;
+            this.base = w.base;
+            this.prev = w;
+            prevProgram = w.program;
+        } else {
+            this.base = next;
+            this.prev = null;
+            prevProgram = EnchantmentProgram.EMPTY;
+        }
         this.enchant = enchant;
+
+        // Compile the enchantment onto the previous program and apply only its new operations to the previous damage range.
+        this.program = enchant.compile(prevProgram);
+        this.minEffect = program.apply(next.getMinEffect(), false, prevProgram.size());
+        this.maxEffect = program.apply(next.getMaxEffect(), true, prevProgram.size());
+        this.desc = null;
     }
 
     /**
      * Constructs a copy of the specified EnchantedWeapon object.
+     * The compiled enchantments are immutable, so they are shared with the copy.
      * 
-     * @param next    The weapon to wrap.
-     * @param enchant The enchantment wrapping the object.
+     * @param w The weapon to copy.
      */
     private EnchantedWeapon(EnchantedWeapon w) {
-        super(w.name, w.enchant.getCost());
-        this.next = (Weapon)w.next.clone();
+        super(w.name, w.cost);
+        this.base = (Weapon)w.base.clone();
+        this.prev = w.prev;
         this.enchant = w.enchant; //enchants are immutable
+        this.program = w.program;
+        this.minEffect = w.minEffect;
+        this.maxEffect = w.maxEffect;
+        this.desc = w.desc;
     }
 
     /** @return A copy of the specified item. */
@@ -46,66 +85,108 @@ public class EnchantedWeapon extends Weapon {
         return new EnchantedWeapon(this);
     }
 
+    /** @return The weapon without any enchantments. */
+    public Weapon getBase() {
+        return base;
+    }
+
+    /** @return The enchantments applied to the weapon, in the order they were applied. */
+    public List<EnchantmentItem> getEnchantments() {
+        int n = 0;
+        for (EnchantedWeapon w = this; w != null; w = w.prev) { n++; }
+        EnchantmentItem[] enchants = new EnchantmentItem[n];
+        for (EnchantedWeapon w = this; w != null; w = w.prev) { enchants[--n] = w.enchant; }
+        return Arrays.asList(enchants);
+    }
+
+    /** @return The compiled operations of every enchantment applied to the weapon. */
+    public EnchantmentProgram getProgram() {
+        return program;
+    }
+
     /** @return The type of the base weapon. */
     @Override
     public String getType() {
-        return next.getType();
+        return base.getType();
     }
 
     /** @return The type of damage that the base weapon inflicts. */
     @Override
     public String getDamageType() {
-        return next.getDamageType();
+        return base.getDamageType();
     }
 
-    /** @return The accumulated cost of the base weapon and all previous enchantments (including this one). */
+    /** @return The accumulated cost of the base weapon and all enchantments. */
     @Override
     public int getCost()
     {
-        return cost + next.getCost();
+        return cost;
     }
 
     /** @return The name of the base weapon. */
     @Override
     public String getName()
     {
-        return next.getName();
+        return base.getName();
+    }
+
+    /** @return The styled name of the base weapon. */
+    @Override
+    public StyledText getStyledName()
+    {
+        return base.getStyledName();
     }
 
     /** @return The minimum damage of the weapon after enchantments are applied. */
     @Override
     public int getMinEffect()
     {
-        return enchant.getWeaponMinEffect(next);
+        return minEffect;
     }
 
     /** @return The maximum damage of the weapon after enchantments are applied. */
     @Override
     public int getMaxEffect()
     {
-        return enchant.getWeaponMaxEffect(next);
+        return maxEffect;
     }
 
     /**
-     * Rolls a random damage value between the minimum and maximum damage of the weapon.
+     * Rolls a random damage value with the base weapon, then applies each enchantment in the order they were applied.
      * 
      * @return An integer representing the damage that the weapon inflicts.
      */
     @Override
     public int rollDamage()
     {
-        return enchant.rollDamage(next);
+        return program.roll(base.rollDamage(), Randomizer.getInstance());
     }
 
     /**
-     * Produces a String description of the weapon's attributes.
-     *  Used by toString() to get description of each decorator in the chain.
+     * Produces a styled description of the weapon's attributes, including each enchantment.
+     * The description is produced once and cached.
      * 
-     * @return A string desribing the weapon.
+     * @return A styled string desribing the weapon.
      */
     @Override
-    protected String getDescription() 
+    protected StyledText getDescription() 
     {
-        return next.getDescription() + " | " + enchant.getName() + " "+ enchant.getDescription();
+        if (desc == null && prev != null && prev.desc != null)
+        {
+            // Extend the previous weapon's description if it has already been produced.
+            desc = StyledText.builder().append(prev.desc)
+                .append(" | ").append(enchant.getStyledName()).append(" ").append(enchant.getDescription()).build();
+        }
+        else if (desc == null)
+        {
+            // Describe the enchantments in the order they were applied.
+            StyledText.Builder sb = StyledText.builder().append(base.getDescription());
+            for (EnchantmentItem e : getEnchantments())
+            {
+                sb.append(" | ").append(e.getStyledName()).append(" ").append(e.getDescription());
+            }
+            desc = sb.build();
+        }
+        return desc;
     }
 }
\ No newline at end of file
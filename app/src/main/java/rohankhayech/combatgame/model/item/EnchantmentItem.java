@@ -4,21 +4,26 @@
 
 package rohankhayech.combatgame.model.item;
 
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
-/** Abstract class representing an enchantment in item form. Can be used as a decorator in an EnchantedItem wrapper object.
+/** Abstract class representing an enchantment in item form. Can be applied to a weapon to create an EnchantedWeapon.
  * 
  * @author Rohan Khayech 
 */
 public abstract class EnchantmentItem extends Item {
 
+    /** Style of the enchantment item's name. */
+    private final Style style;
+
     /**
      * Superclass constructor for enchantment items.
      * @param name Name of the enchantment item.
+     * @param style Style of the enchantment item's name.
      * @param cost Cost of the enchantment item.
      */
-    public EnchantmentItem(String name, int cost) {
+    public EnchantmentItem(String name, Style style, int cost) {
         super(name, cost);
+        this.style = style;
     }
 
     /** @return A copy of the specified item. */
@@ -32,44 +37,37 @@ public abstract class EnchantmentItem extends Item {
     @Override
     public abstract int getMaxEffect();
 
-    /** @return A String representation of the enchantment item. */
+    /** @return {@code true}, as enchantments are interchangeable and stack. */
     @Override
-    public String toString()
-    {
-        return name + " " + getDescription() +" | "+Colour.BRIGHT_YELLOW+getCost()+"G"+Colour.RESET;
-    }
+    public boolean isStackable() { return true; }
 
-    /**
-     * Returns the accumulative minimum damage of the base weapon and all its enchantments.
-     * Modifies the minimum damage of the next weapon. 
-     * @param next The next weapon/decorator in the chain. 
-     * @return The accumulative minimum damage of the weapon.
-     */
-    public abstract int getWeaponMinEffect(Weapon next);
+    /** @return The name of the enchantment item, in its style. */
+    @Override
+    public StyledText getStyledName() { return StyledText.of(name, style); }
 
-    /**
-     * Returns the accumulative maximum damage of the base weapon and all its enchantments. 
-     * Modifies the minimum damage of the next weapon.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return The accumulative maximum damage of the weapon.
-     */
-    public abstract int getWeaponMaxEffect(Weapon next);
+    /** @return A styled description of the enchantment item. */
+    @Override
+    protected StyledText buildDescription()
+    {
+        return StyledText.builder().append(getStyledName()).append(" ").append(getDescription())
+            .append(" | ").append(getCost() + "G", Style.BRIGHT_YELLOW).build();
+    }
 
     /**
-     * Rolls a random damage value between the minimum and maximum damage of a weapon with this enchantment applied.
+     * Compiles the effect of the enchantment on a weapon's damage onto a program of the
+     * enchantments applied before it.
      * 
-     * @param next The next weapon/decorator in the chain.
-     * @return An integer representing the damage that the weapon inflicts.
+     * @param prev The program of the enchantments applied before this one.
+     * @return A new program with this enchantment's operations appended.
      */
-    public abstract int rollDamage(Weapon next);
+    public abstract EnchantmentProgram compile(EnchantmentProgram prev);
 
     /**
-     * Produces a String description of the enchantment.
-     * Used by toString() to get description of each decorator in the chain.
+     * Produces a styled description of the enchantment's effect.
+     * Used by describe() to get description of each decorator in the chain.
      * 
-     * @return A string desribing the enchantment.
+     * @return A styled string desribing the enchantment.
      */
-    public abstract String getDescription();
+    public abstract StyledText getDescription();
 
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.item;
+
+import java.util.Arrays;
+
+import rohankhayech.combatgame.controller.Randomizer;
+
+/**
+ * Immutable, flat list of the damage operations of a chain of weapon enchantments, in the order they are applied.
+ * Each enchantment compiles itself into operations with {@code EnchantmentItem.compile()}, so a weapon's
+ * damage can be computed in a single loop instead of recursing through each enchantment.
+ *
+ * Appending an operation to a program returns a new program. The operations are stored in arrays
+ * shared with the program they were appended to, so appending to the most recent program in a
+ * chain does not copy the operations before it.
+ *
+ * @author Rohan Khayech
+ * @see EnchantedWeapon
+ */
+public class EnchantmentProgram
+{
+    /** Adds a constant to the damage. */
+    public static final int ADD = 0;
+    /** Adds a random value within a range to the damage. */
+    public static final int ADD_RANGE = 1;
+    /** Multiplies the damage by a factor, rounding to the nearest integer. */
+    public static final int MULTIPLY = 2;
+
+    /** Program with no operations. */
+    public static final EnchantmentProgram EMPTY = new EnchantmentProgram(new Store(4), 0);
+
+    /** The operation storage, shared by programs appended from the same chain. */
+    private final Store store;
+    /** The number of operations in this program. */
+    private final int length;
+
+    /**
+     * Constructs a new program from the first operations in a store.
+     *
+     * @param store  The operation storage.
+     * @param length The number of operations in the program.
+     */
+    private EnchantmentProgram(Store store, int length)
+    {
+        this.store = store;
+        this.length = length;
+    }
+
+    /** @return The number of operations in the program. */
+    public int size() { return length; }
+
+    /**
+     * @param i The index of the operation.
+     * @return The opcode of the operation, one of {@code ADD}, {@code ADD_RANGE} or {@code MULTIPLY}.
+     */
+    public int getOp(int i) { return store.ops[i]; }
+
+    /**
+     * @param i The index of the operation.
+     * @return The minimum value added by the operation, or 0 for a multiplication.
+     */
+    public int getMin(int i) { return store.min[i]; }
+
+    /**
+     * @param i The index of the operation.
+     * @return The maximum value added by the operation, or 0 for a multiplication.
+     */
+    public int getMax(int i) { return store.max[i]; }
+
+    /**
+     * @param i The index of the operation.
+     * @return The factor of a multiplication, or 1 for an addition.
+     */
+    public double getFactor(int i) { return store.factor[i]; }
+
+    /**
+     * Returns a new program that also adds a constant to the damage.
+     * @param value The value to add.
+     * @return The new program.
+     */
+    public EnchantmentProgram add(int value)
+    {
+        return append(ADD, value, value, 1.0);
+    }
+
+    /**
+     * Returns a new program that also adds a random value within a range to the damage.
+     * @param min The minimum value to add.
+     * @param max The maximum value to add.
+     * @return The new program.
+     */
+    public EnchantmentProgram addRange(int min, int max)
+    {
+        return append(ADD_RANGE, min, max, 1.0);
+    }
+
+    /**
+     * Returns a new program that also multiplies the damage by a factor, rounding to the nearest integer.
+     * @param factor The factor to multiply by.
+     * @return The new program.
+     */
+    public EnchantmentProgram multiply(double factor)
+    {
+        return append(MULTIPLY, 0, 0, factor);
+    }
+
+    /**
+     * Returns a new program with the specified operation appended.
+     * The operation is written in place if no other program has been appended to this one, otherwise the operations are copied.
+     *
+     * @param op     The opcode.
+     * @param min    The minimum value added.
+     * @param max    The maximum value added.
+     * @param factor The factor multiplied by.
+     * @return The new program.
+     */
+    private EnchantmentProgram append(int op, int min, int max, double factor)
+    {
+        Store s = store;
+        synchronized (s)
+        {
+            if (s.size != length || length == s.ops.length)
+            {
+                s = store.copy(length, Math.max(4, length * 2));
+            }
+            s.ops[length] = op;
+            s.min[length] = min;
+            s.max[length] = max;
+            s.factor[length] = factor;
+            s.size = length + 1;
+        }
+        return new EnchantmentProgram(s, length + 1);
+    }
+
+    /**
+     * Applies the operations to a damage value, taking each range at the specified end.
+     * @param damage The damage before the enchantments.
+     * @param useMax Whether to take the maximum of each range, rather than the minimum.
+     * @return The damage after the enchantments.
+     */
+    public int apply(int damage, boolean useMax)
+    {
+        return apply(damage, useMax, 0);
+    }
+
+    /**
+     * Applies the operations from the specified index onwards to a damage value, taking each range at the specified end.
+     * Allows the damage of a longer program to be computed from the damage of a shorter program it was appended to.
+     * @param damage The damage before the operations.
+     * @param useMax Whether to take the maximum of each range, rather than the minimum.
+     * @param from   The index of the first operation to apply.
+     * @return The damage after the operations.
+     */
+    public int apply(int damage, boolean useMax, int from)
+    {
+        for (int i = from; i < length; i++)
+        {
+            damage = apply(i, damage, useMax ? store.max[i] : store.min[i]);
+        }
+        return damage;
+    }
+
+    /**
+     * Applies the operations to a rolled damage value, rolling each range in order.
+     * @param damage The damage rolled by the base weapon.
+     * @param rand   The random number generator to use.
+     * @return The damage after the enchantments.
+     */
+    public int roll(int damage, Randomizer rand)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            int value = store.ops[i] == ADD_RANGE ? rand.randomRange(store.min[i], store.max[i]) : store.min[i];
+            damage = apply(i, damage, value);
+        }
+        return damage;
+    }
+
+    /**
+     * Applies a single operation to a damage value.
+     * @param i      The index of the operation.
+     * @param damage The damage before the operation.
+     * @param value  The value to add, for an addition.
+     * @return The damage after the operation.
+     */
+    private int apply(int i, int damage, int value)
+    {
+        return store.ops[i] == MULTIPLY ? (int)Math.round((double)damage * store.factor[i]) : damage + value;
+    }
+
+    /**
+     * Growable storage of operations in parallel arrays.
+     */
+    private static class Store
+    {
+        /** The opcode of each operation. */
+        private int[] ops;
+        /** The minimum value added by each operation. */
+        private int[] min;
+        /** The maximum value added by each operation. */
+        private int[] max;
+        /** The factor multiplied by each operation. */
+        private double[] factor;
+        /** The number of operations written, which is the length of the only program that can append in place. */
+        private int size;
+
+        /**
+         * Constructs a new empty store.
+         * @param capacity The number of operations the store can hold.
+         */
+        private Store(int capacity)
+        {
+            ops = new int[capacity];
+            min = new int[capacity];
+            max = new int[capacity];
+            factor = new double[capacity];
+            size = 0;
+        }
+
+        /**
+         * Copies the first operations into a new store.
+         * @param length   The number of operations to copy.
+         * @param capacity The number of operations the new store can hold.
+         * @return The new store.
+         */
+        private Store copy(int length, int capacity)
+        {
+            Store s = new Store(0);
+            s.ops = Arrays.copyOf(ops, capacity);
+            s.min = Arrays.copyOf(min, capacity);
+            s.max = Arrays.copyOf(max, capacity);
+            s.factor = Arrays.copyOf(factor, capacity);
+            s.size = length;
+            return s;
+        }
+    }
+}
\ No newline at end of file
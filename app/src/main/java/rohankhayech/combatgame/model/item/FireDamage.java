@@ -4,8 +4,7 @@
 
 package rohankhayech.combatgame.model.item;
 
-import rohankhayech.combatgame.controller.Randomizer;
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /** 
  * Weapon enchantment that adds 5-10 damage.
@@ -15,7 +14,9 @@ import rohankhayech.combatgame.view.Colour;
 public class FireDamage extends EnchantmentItem {
 
     /** Name of the enchantment. */
-    public static final String NAME = Colour.YELLOW+"Fire Damage"+Colour.RESET;
+    public static final String NAME = "Fire Damage";
+    /** Style of the enchantment's name. */
+    public static final Style STYLE = Style.YELLOW;
     /** Cost of the enchantment. */
     public static final int COST = 20;
     /** Minimum damage increase of the enchantment. */
@@ -27,12 +28,12 @@ public class FireDamage extends EnchantmentItem {
      * Constructs a new Fire Damage enchantment item.
      */
     public FireDamage() {
-        super(NAME, COST);
+        super(NAME, STYLE, COST);
     }
 
-    /** @return A copy of the specified item. */
+    /** @return This enchantment, as enchantments are immutable and can be shared. */
     public Item clone() {
-        return new FireDamage();
+        return this;
     }
 
     /** @return The minimum effect of the enchantment. */
@@ -48,38 +49,14 @@ public class FireDamage extends EnchantmentItem {
     }
 
     /**
-     * Returns the accumulative minimum damage of the base weapon and all its enchantments.
-     * Adds to the minimum damage of the next weapon. 
-     * @param next The next weapon/decorator in the chain. 
-     * @return The accumulative minimum damage of the weapon.
+     * Compiles the effect of the enchantment onto a program of the enchantments applied before it.
+     * Adds a random amount to the damage of the weapon.
+     * @param prev The program of the enchantments applied before this one.
+     * @return A new program with this enchantment's operations appended.
      */
     @Override
-    public int getWeaponMinEffect(Weapon next) {
-        return next.getMinEffect() + MIN_DAMAGE_INC;
-    }
-
-    /**
-     * Returns the accumulative maximum damage of the base weapon and all its enchantments. 
-     * Adds to the maximum damage of the next weapon.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return The accumulative maximum damage of the weapon.
-     */
-    @Override
-    public int getWeaponMaxEffect(Weapon next) {
-        return next.getMaxEffect() + MAX_DAMAGE_INC;
-    }
-
-    /**
-     * Rolls a random damage value between the minimum and maximum damage of a weapon with this enchantment applied.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return An integer representing the damage that the weapon inflicts.
-     */
-    @Override
-    public int rollDamage(Weapon next) {
-        Randomizer rand = new Randomizer();
-        return next.rollDamage() + rand.randomRange(MIN_DAMAGE_INC,MAX_DAMAGE_INC);
+    public EnchantmentProgram compile(EnchantmentProgram prev) {
+        return prev.addRange(MIN_DAMAGE_INC, MAX_DAMAGE_INC);
     }
 
     /**
@@ -88,8 +65,8 @@ public class FireDamage extends EnchantmentItem {
      * @return A string desribing the enchantment.
      */
     @Override
-    public String getDescription() {
-        return Colour.BRIGHT_RED+"[+"+MIN_DAMAGE_INC+"-"+MAX_DAMAGE_INC+" ATT]"+Colour.RESET;
+    public StyledText getDescription() {
+        return StyledText.of("[+"+MIN_DAMAGE_INC+"-"+MAX_DAMAGE_INC+" ATT]", Style.BRIGHT_RED);
     }
 
 }
\ No newline at end of file
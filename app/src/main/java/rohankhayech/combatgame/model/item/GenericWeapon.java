@@ -5,7 +5,7 @@
 package rohankhayech.combatgame.model.item;
 
 import rohankhayech.combatgame.controller.Randomizer;
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /** 
  * Class representing a base Weapon item. 
@@ -16,13 +16,13 @@ public class GenericWeapon extends Weapon
 {
 
     /** Type of weapon. */
-    private String type;
+    private final String type;
     /** Type of damage the weapon inflicts. */
-    private String damageType;
+    private final String damageType;
     /** Minimum damage of the weapon. */
-    private int minEffect;
+    private final int minEffect;
     /** Maximum damage of the weapon. */
-    private int maxEffect;
+    private final int maxEffect;
 
     /** Constructs a new Generic Weapon item.
      * 
@@ -42,32 +42,49 @@ public class GenericWeapon extends Weapon
         this.damageType = damageType;
     }
 
-    /**
-     * Constructs a copy of the specified Generic Weapon item.
-     * 
-     * @param w The weapon to copy.
-     */
-    private GenericWeapon(GenericWeapon w) {
-        super(w.getName(), w.getCost());
-        this.type = w.getType();
-        this.minEffect = w.getMinEffect();
-        this.maxEffect = w.getMaxEffect();
-        this.damageType = w.getDamageType();
+    /** @return This weapon, as generic weapons are immutable and can be shared. */
+    public Item clone() {
+        return this;
     }
 
-    /** @return A copy of the specified item. */
-    public Item clone() {
-        return new GenericWeapon(this);
+    /** @return {@code true}, as generic weapons are immutable and stack. */
+    @Override
+    public boolean isStackable() { return true; }
+
+    /** @return The hash code of the weapon's attributes. */
+    @Override
+    protected int getTemplateHash() {
+        int hash = super.getTemplateHash();
+        hash = 31 * hash + minEffect;
+        hash = 31 * hash + maxEffect;
+        hash = 31 * hash + type.hashCode();
+        return 31 * hash + damageType.hashCode();
+    }
+
+    /**
+     * @param other The other item.
+     * @return {@code true} if the other item is a weapon with the same attributes.
+     */
+    @Override
+    protected boolean isSameTemplate(Item other) {
+        boolean same = super.isSameTemplate(other);
+        if (same) {
+            GenericWeapon w = (GenericWeapon)other;
+            same = w.minEffect == minEffect && w.maxEffect == maxEffect
+                && w.type.equals(type) && w.damageType.equals(damageType);
+        }
+        return same;
     }
 
     /** 
-     * Produces a String description of the weapon's attributes. 
-     * @return A string desribing the weapon.
+     * Produces a styled description of the weapon's attributes. 
+     * @return A styled string desribing the weapon.
      */
     @Override
-    protected String getDescription() 
+    protected StyledText getDescription() 
     {
-        return name+" | "+damageType+" "+type+" | "+Colour.BRIGHT_RED+"ATT: "+minEffect+"-"+maxEffect+Colour.RESET;
+        return StyledText.builder().append(name+" | "+damageType+" "+type+" | ")
+            .append("ATT: "+minEffect+"-"+maxEffect, Style.BRIGHT_RED).build();
     }
 
     /** @return The type of weapon. */
@@ -98,7 +115,7 @@ public class GenericWeapon extends Weapon
     @Override
     public int rollDamage() 
     {
-        Randomizer rand = new Randomizer();
+        Randomizer rand = Randomizer.getInstance();
         return rand.randomRange(minEffect, maxEffect);
     }    
 }
\ No newline at end of file
@@ -8,14 +8,44 @@ import java.util.*;
 
 /**
  * Wrapper class for a collection of items with a fixed number of slots.
- * Contains methods to retrieve all items of a given subtype.
- * 
+ * Items are kept in insertion order and also bucketed by type, so that the items of a given subtype
+ * can be retrieved as a live, read-only view without scanning or copying the inventory.
+ *
+ * Items are held by identity: an inventory holds each item object at most once, and removing an item
+ * takes constant time regardless of the size of the inventory. Adding a stackable item that is already
+ * held adds to its {@code ItemStack} instead, so any number of copies take up a single slot.
+ *
  * @author Rohan Khayech
  */
 public class Inventory implements Iterable<Item>
 {
-    private List<Item> items;
-    private int slots;
+    /** Number of slots of an inventory with no slot limit. */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /** All items in the inventory. */
+    private final Bucket<Item> items;
+    /** The weapons in the inventory. */
+    private final Bucket<Weapon> weapons;
+    /** The armour in the inventory. */
+    private final Bucket<Armour> armour;
+    /** The potions in the inventory. */
+    private final Bucket<Potion> potions;
+    /** The enchantments in the inventory. */
+    private final Bucket<EnchantmentItem> enchantments;
+    /** The stack of each stackable item in the inventory. */
+    private final Map<Item, ItemStack> stacks;
+    /** The number of items in the inventory, counting each copy in a stack. */
+    private int count;
+    /** Maximum number of slots in the inventory. */
+    private final int slots;
+
+    /**
+     * Constructs an empty Inventory object with no slot limit.
+     */
+    public Inventory()
+    {
+        this(UNLIMITED);
+    }
 
     /**
      * Constructs an empty Inventory object with the given amount of slots.
@@ -23,20 +53,58 @@ public class Inventory implements Iterable<Item>
      */
     public Inventory(int slots)
     {
-        items = new LinkedList<Item>();
+        items = new Bucket<Item>();
+        weapons = new Bucket<Weapon>();
+        armour = new Bucket<Armour>();
+        potions = new Bucket<Potion>();
+        enchantments = new Bucket<EnchantmentItem>();
+        stacks = new IdentityHashMap<Item, ItemStack>();
+        count = 0;
         this.slots = slots;
     }
 
     /**
-     * Adds an item to the inventory if there is a free slot. 
+     * Adds an item to the inventory. A stackable item already in the inventory is added to its stack,
+     * otherwise the item takes a free slot if there is one and it is not already in the inventory.
      * @param i The Item to add.
+     * @return {@code true} if the item was added, {@code false} otherwise.
      */
-    public void addItem(Item i)
+    public boolean addItem(Item i)
     {
-        if (items.size()<slots)
+        boolean added = false;
+        ItemStack stack = stacks.get(i);
+        if (stack != null)
         {
-            items.add(i);
+            stack.push();
+            count++;
+            added = true;
         }
+        else if (!isFull() && items.put(i))
+        {
+            if (i instanceof Weapon)
+            {
+                weapons.put((Weapon)i);
+            }
+            else if (i instanceof Armour)
+            {
+                armour.put((Armour)i);
+            }
+            else if (i instanceof Potion)
+            {
+                potions.put((Potion)i);
+            }
+            else if (i instanceof EnchantmentItem)
+            {
+                enchantments.put((EnchantmentItem)i);
+            }
+            if (i.isStackable())
+            {
+                stacks.put(i, new ItemStack(i));
+            }
+            count++;
+            added = true;
+        }
+        return added;
     }
 
     /**
@@ -45,34 +113,158 @@ public class Inventory implements Iterable<Item>
      * to the amount of free slots will be added.
      * @param newItems A list of Items to add.
      */
-    public void addAll(List<Item> newItems)
+    public void addAll(List<? extends Item> newItems)
     {
-        int spacesLeft = Math.min(slots - items.size(), newItems.size());
-        newItems = newItems.subList(0, spacesLeft-1);
-        items.addAll(newItems);
+        Iterator<? extends Item> it = newItems.iterator();
+        while (!isFull() && it.hasNext())
+        {
+            addItem(it.next());
+        }
     }
 
     /**
-     * Removes the given item from the inventory if it exists. 
+     * Removes the given item from the inventory if it exists.
+     * Only one copy is removed from a stack, freeing its slot once the stack is empty.
      * @param i The Item to remove.
+     * @return {@code true} if the item was removed, {@code false} if it was not in the inventory.
+     */
+    public boolean removeItem(Item i)
+    {
+        boolean removed;
+        ItemStack stack = stacks.get(i);
+        // Only the last copy frees the item's slot, so check before popping the stack.
+        boolean last = stack == null || stack.getCount() == 1;
+        if (!last)
+        {
+            stack.pop();
+            removed = true;
+        }
+        else
+        {
+            removed = items.delete(i);
+        }
+
+        if (removed && last)
+        {
+            stacks.remove(i);
+            if (i instanceof Weapon)
+            {
+                weapons.delete(i);
+            }
+            else if (i instanceof Armour)
+            {
+                armour.delete(i);
+            }
+            else if (i instanceof Potion)
+            {
+                potions.delete(i);
+            }
+            else if (i instanceof EnchantmentItem)
+            {
+                enchantments.delete(i);
+            }
+        }
+        if (removed)
+        {
+            count--;
+        }
+        return removed;
+    }
+
+    /**
+     * Replaces an item with another item in the same position, such as an updated version of the item.
+     * An item can only be replaced in place if a single copy of it is held, the replacement is not
+     * already held, and both are the same type of item.
+     * @param i The item to replace.
+     * @param replacement The item to replace it with.
+     * @return {@code true} if the item was replaced, {@code false} if it could not be replaced in place.
      */
-    public void removeItem(Item i)
+    public boolean replaceItem(Item i, Item replacement)
     {
-        items.remove(i);
+        boolean replaced = false;
+        Bucket<?> bucket = bucketOf(i);
+        if (getCount(i) == 1 && !items.has(replacement) && bucket == bucketOf(replacement))
+        {
+            items.replace(i, replacement);
+            if (bucket != null)
+            {
+                bucket.replace(i, replacement);
+            }
+            stacks.remove(i);
+            if (replacement.isStackable())
+            {
+                stacks.put(replacement, new ItemStack(replacement));
+            }
+            replaced = true;
+        }
+        return replaced;
     }
 
     /**
-     * Removes the item at the specified index of the inventory.
+     * Removes the item at the specified index of the inventory, or one copy of it if it is a stack.
      * @param index The index of the item to remove.
      * @return The item previously at the specified index.
+     * @throws IndexOutOfBoundsException If the index is out of range.
      */
     public Item removeItem(int index)
     {
-        return items.remove(index);
+        Item i = items.get(index);
+        removeItem(i);
+        return i;
+    }
+
+    /**
+     * Returns whether the given item is in the inventory.
+     * @param i The item.
+     * @return {@code true} if the inventory contains the item, {@code false} otherwise.
+     */
+    public boolean contains(Item i)
+    {
+        return items.has(i);
+    }
+
+    /**
+     * Returns the number of copies of the given item in the inventory.
+     * @param i The item.
+     * @return The size of the item's stack, 1 if the item is held but does not stack, or 0 if it is not held.
+     */
+    public int getCount(Item i)
+    {
+        ItemStack stack = stacks.get(i);
+        int n;
+        if (stack != null)
+        {
+            n = stack.getCount();
+        }
+        else
+        {
+            n = items.has(i) ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the stack holding the given item.
+     * @param i The item.
+     * @return The item's stack, or {@code null} if the item is not held or does not stack.
+     */
+    public ItemStack getStack(Item i)
+    {
+        return stacks.get(i);
     }
 
     /**
-     * @return An iterator over the Items in the inventory.
+     * Returns whether the given item can be added to the inventory, either to its stack or a free slot.
+     * @param i The item.
+     * @return {@code true} if the item can be added, {@code false} otherwise.
+     */
+    public boolean canAdd(Item i)
+    {
+        return stacks.containsKey(i) || (!isFull() && !items.has(i));
+    }
+
+    /**
+     * @return An iterator over the Items in the inventory, returning each stack once.
      */
     public Iterator<Item> iterator()
     {
@@ -80,68 +272,57 @@ public class Inventory implements Iterable<Item>
     }
 
     /**
-     * @return A list of all the Items in the inventory.
+     * @return A live, read-only view of all the Items in the inventory, containing each stack once.
      */
     public List<Item> getAllItems()
     {
-        return List.copyOf(items);
+        return items;
     }
 
     /**
-     * @return A list of all the Weapons in the inventory.
+     * @return A live, read-only view of all the Weapons in the inventory.
      */
     public List<Weapon> getAllWeapons()
     {
-        List<Weapon> weapons = new ArrayList<Weapon>(); 
-        for (Item i : items)
-        {
-            if(i instanceof Weapon)
-            {
-                weapons.add((Weapon)i);
-            }
-        }
         return weapons;
     }
 
     /**
-     * @return A list of all the Armour in the inventory.
+     * @return A live, read-only view of all the Armour in the inventory.
      */
-    public List<Armour> getAllArmour() {
-        List<Armour> armour = new ArrayList<Armour>();
-        for (Item i : items) {
-            if (i instanceof Armour) {
-                armour.add((Armour) i);
-            }
-        }
+    public List<Armour> getAllArmour()
+    {
         return armour;
     }
 
     /**
-     * @return A list of all the Potions in the inventory.
+     * @return A live, read-only view of all the Potions in the inventory, containing each stack once.
      */
-    public List<Potion> getAllPotions() {
-        List<Potion> potions = new ArrayList<Potion>();
-        for (Item i : items) {
-            if (i instanceof Potion) {
-                potions.add((Potion) i);
-            }
-        }
+    public List<Potion> getAllPotions()
+    {
         return potions;
     }
 
     /**
-     * @return A list of all the Enchantments in the inventory.
+     * @return A live, read-only view of all the Enchantments in the inventory, containing each stack once.
      */
-    public List<EnchantmentItem> getAllEnchantments() {
-        List<EnchantmentItem> enchantments = new ArrayList<EnchantmentItem>();
-        for (Item i : items) {
-            if (i instanceof EnchantmentItem) {
-                enchantments.add((EnchantmentItem) i);
-            }
-        }
+    public List<EnchantmentItem> getAllEnchantments()
+    {
         return enchantments;
     }
 
+    /** @return The number of slots in use, counting each stack once. */
+    public int size() { return items.size(); }
+
+    /** @return The number of items in the inventory, counting each copy in a stack. */
+    public int getItemCount() { return count; }
+
+    /** @return The maximum number of slots in the inventory, or {@code UNLIMITED}. */
+    public int getSlots() { return slots; }
+
+    /** @return The number of free slots in the inventory. */
+    public int getFreeSlots() { return slots - items.size(); }
+
     /**
      * Returns whether the inventory is full (out of free slots).
      * @return {@code true} when the inventory is full, {@code false} otherwise.
@@ -151,11 +332,281 @@ public class Inventory implements Iterable<Item>
         return items.size() >= slots;
     }
 
+    /**
+     * @param i An item.
+     * @return The bucket for the item's type, or {@code null} if it is only held in the bucket of all items.
+     */
+    private Bucket<?> bucketOf(Item i)
+    {
+        Bucket<?> bucket = null;
+        if (i instanceof Weapon)
+        {
+            bucket = weapons;
+        }
+        else if (i instanceof Armour)
+        {
+            bucket = armour;
+        }
+        else if (i instanceof Potion)
+        {
+            bucket = potions;
+        }
+        else if (i instanceof EnchantmentItem)
+        {
+            bucket = enchantments;
+        }
+        return bucket;
+    }
+
     /**
      * Removes all the items from the inventory, resulting in an empty inventory.
      */
     public void clear()
     {
-        items.clear();
+        items.reset();
+        weapons.reset();
+        armour.reset();
+        potions.reset();
+        enchantments.reset();
+        stacks.clear();
+        count = 0;
+    }
+
+    /**
+     * Insertion-ordered bucket of items that doubles as a read-only list view of its contents.
+     * Removed items leave an empty position behind, so removal does not move the other items, and the items are
+     * packed back to the front of the bucket by a later removal once the empty positions outnumber the items.
+     * A tree of item counts over the positions maps between indices and positions, so indexed reads and
+     * {@code indexOf} take logarithmic time without packing the bucket, and never modify it.
+     *
+     * @param <T> The type of item in the bucket.
+     */
+    private static class Bucket<T extends Item> extends AbstractList<T> implements RandomAccess
+    {
+        /** Initial capacity of the bucket. */
+        private static final int INIT_CAPACITY = 8;
+        /** Number of empty positions to allow before the bucket is packed, regardless of the number of items. */
+        private static final int MIN_HOLES = 16;
+
+        /** The items in the bucket, in insertion order, with {@code null} at removed positions. */
+        private Item[] elems;
+        /**
+         * Binary indexed tree of the number of items at each position, with the count of the positions
+         * up to and including {@code p} stored at {@code p + 1}.
+         */
+        private int[] counts;
+        /** The number of positions in use, including removed positions. */
+        private int end;
+        /** The number of items in the bucket. */
+        private int live;
+        /** The position of each item in the bucket. */
+        private final Map<Item, Integer> index;
+
+        /**
+         * Constructs an empty bucket.
+         */
+        private Bucket()
+        {
+            elems = new Item[INIT_CAPACITY];
+            counts = new int[INIT_CAPACITY + 1];
+            end = 0;
+            live = 0;
+            index = new IdentityHashMap<Item, Integer>();
+        }
+
+        /**
+         * Adds an item to the end of the bucket if it is not already in the bucket.
+         * @param item The item.
+         * @return {@code true} if the item was added.
+         */
+        private boolean put(T item)
+        {
+            boolean added = false;
+            if (!index.containsKey(item))
+            {
+                if (end == elems.length)
+                {
+                    elems = Arrays.copyOf(elems, elems.length * 2);
+                    pack();
+                }
+                index.put(item, end);
+                elems[end] = item;
+                count(end++, 1);
+                live++;
+                modCount++;
+                added = true;
+            }
+            return added;
+        }
+
+        /**
+         * Removes an item from the bucket if it exists, leaving its position empty, and packs the bucket
+         * if the empty positions outnumber the items.
+         * @param item The item.
+         * @return {@code true} if the item was removed.
+         */
+        private boolean delete(Object item)
+        {
+            Integer pos = index.remove(item);
+            if (pos != null)
+            {
+                elems[pos] = null;
+                count(pos, -1);
+                live--;
+                if (end - live > Math.max(MIN_HOLES, live))
+                {
+                    pack();
+                }
+                modCount++;
+            }
+            return pos != null;
+        }
+
+        /**
+         * Replaces an item in the bucket with another item at the same position.
+         * @param item The item to replace, which must be in the bucket.
+         * @param replacement The replacement, which must be of the bucket's type and not already in the bucket.
+         */
+        private void replace(Object item, Item replacement)
+        {
+            int pos = index.remove(item);
+            elems[pos] = replacement;
+            index.put(replacement, pos);
+            modCount++;
+        }
+
+        /**
+         * @param item The item.
+         * @return {@code true} if the item is in the bucket.
+         */
+        private boolean has(Object item)
+        {
+            return index.containsKey(item);
+        }
+
+        /**
+         * Removes all items from the bucket.
+         */
+        private void reset()
+        {
+            Arrays.fill(elems, 0, end, null);
+            Arrays.fill(counts, 0);
+            index.clear();
+            end = 0;
+            live = 0;
+            modCount++;
+        }
+
+        /**
+         * Moves all items to the front of the bucket, removing the empty positions between them,
+         * and rebuilds the item counts to fit the capacity of the bucket.
+         * The order of the items, and so their indices in the list, is unchanged.
+         */
+        private void pack()
+        {
+            int to = 0;
+            for (int from = 0; from < end; from++)
+            {
+                Item item = elems[from];
+                if (item != null)
+                {
+                    if (to != from)
+                    {
+                        elems[to] = item;
+                        index.put(item, to);
+                    }
+                    to++;
+                }
+            }
+            Arrays.fill(elems, to, end, null);
+            end = to;
+
+            // Every position before the end holds an item, so each node counts the positions it covers before the end.
+            counts = new int[elems.length + 1];
+            for (int n = 1; n < counts.length; n++)
+            {
+                counts[n] = Math.max(0, Math.min(n, end) - (n - (n & -n)));
+            }
+        }
+
+        /**
+         * Adds to the number of items counted at a position.
+         * @param pos The position.
+         * @param delta The number of items added, or negative if removed.
+         */
+        private void count(int pos, int delta)
+        {
+            for (int n = pos + 1; n < counts.length; n += n & -n)
+            {
+                counts[n] += delta;
+            }
+        }
+
+        /**
+         * @param pos The position.
+         * @return The number of items before the position, which is the index of an item at the position.
+         */
+        private int countBefore(int pos)
+        {
+            int total = 0;
+            for (int n = pos; n > 0; n -= n & -n)
+            {
+                total += counts[n];
+            }
+            return total;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int i)
+        {
+            if (i < 0 || i >= live)
+            {
+                throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + live);
+            }
+
+            int pos = i;
+            if (end != live)
+            {
+                // Descend the count tree to the position holding the item with i items before it.
+                pos = 0;
+                int remaining = i;
+                for (int step = Integer.highestOneBit(elems.length); step > 0; step >>= 1)
+                {
+                    int n = pos + step;
+                    if (n < counts.length && counts[n] <= remaining)
+                    {
+                        pos = n;
+                        remaining -= counts[n];
+                    }
+                }
+            }
+            return (T)elems[pos];
+        }
+
+        @Override
+        public int size()
+        {
+            return live;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return index.containsKey(o);
+        }
+
+        @Override
+        public int indexOf(Object o)
+        {
+            Integer pos = index.get(o);
+            return pos == null ? -1 : end != live ? countBefore(pos) : pos;
+        }
+
+        @Override
+        public int lastIndexOf(Object o)
+        {
+            return indexOf(o);
+        }
     }
 }
\ No newline at end of file
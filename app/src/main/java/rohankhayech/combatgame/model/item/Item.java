@@ -6,6 +6,8 @@ package rohankhayech.combatgame.model.item;
 
 import java.util.*;
 
+import rohankhayech.combatgame.model.text.*;
+
 /**
  * Abstract class representing an item in the game.
  * 
@@ -13,11 +15,17 @@ import java.util.*;
  */
 public abstract class Item 
 {
+    /** Id of an item that has not been interned by the {@code ItemRegistry}. */
+    public static final int NO_ID = -1;
     
     /* Name of the item. */
     protected String name;
     /** Cost of the item in gold.*/
     protected int cost;
+    /** Id of the item in the {@code ItemRegistry}, or {@code NO_ID} if it has not been interned. */
+    int id;
+    /** The description of the item, or {@code null} if it has not been produced yet. */
+    private StyledText description;
     
     /**
      * Superclass constructor for Items.
@@ -29,13 +37,21 @@ public abstract class Item
     {
         this.name = name;
         this.cost = cost;
+        this.id = NO_ID;
+        this.description = null;
     }
 
     /** @return A copy of the specified item. */
     public abstract Item clone();
 
-    /** @return The name of the item. */
+    /** @return The name of the item, without styles. */
     public String getName() { return name; }
+
+    /** @return The name of the item, styled for display. */
+    public StyledText getStyledName() { return StyledText.plain(getName()); }
+
+    /** @return The id of the item in the {@code ItemRegistry}, or {@code NO_ID} if it has not been interned. */
+    public int getId() { return id; }
     
     /** @return The cost of the item in gold. */
     public int getCost() { return cost; }
@@ -46,8 +62,58 @@ public abstract class Item
     /** @return The maximum effect of the item. */
     public abstract int getMaxEffect();
 
-    /** @return A String representation of the item. */
-    public abstract String toString();
+    /**
+     * Returns a description of the item's attributes, styled for display.
+     * Items are immutable, so the description is produced once and cached.
+     * @return The styled description.
+     */
+    public StyledText describe()
+    {
+        if (description == null)
+        {
+            description = buildDescription();
+        }
+        return description;
+    }
+
+    /** @return A description of the item's attributes, styled for display. */
+    protected abstract StyledText buildDescription();
+
+    /** @return A String representation of the item, without styles. */
+    @Override
+    public String toString()
+    {
+        return describe().toString();
+    }
+
+    /**
+     * Returns whether copies of the item are interchangeable, so that they can be held as a
+     * single item with a count rather than as separate objects.
+     * Stackable items are immutable templates that can be interned by the {@code ItemRegistry}.
+     * @return {@code true} if the item stacks, {@code false} otherwise.
+     */
+    public boolean isStackable() { return false; }
+
+    /**
+     * Returns a hash code of the attributes of a stackable item,
+     * equal for any two items that are interchangeable.
+     * @return The hash code of the item's attributes.
+     */
+    protected int getTemplateHash()
+    {
+        return 31 * (31 * getClass().getName().hashCode() + name.hashCode()) + cost;
+    }
+
+    /**
+     * Returns whether a stackable item has the same attributes as another item,
+     * so that the two are interchangeable.
+     * @param other The other item.
+     * @return {@code true} if the items are interchangeable, {@code false} otherwise.
+     */
+    protected boolean isSameTemplate(Item other)
+    {
+        return other.getClass() == getClass() && other.name.equals(name) && other.cost == cost;
+    }
 
     /**
      * Returns a comparator that compares items by their cost.
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.item;
+
+import java.lang.ref.*;
+
+/**
+ * Singleton registry of interned item templates.
+ *
+ * Interning an item returns the one shared template with the same attributes, assigning it the next
+ * integer id if it has not been seen before. Since interned templates are immutable and unique, every
+ * copy of an item can be held as a reference to its template, and two templates are the same item
+ * exactly when their ids are equal.
+ *
+ * The registry only holds weak references to the templates, so a template is dropped once nothing else refers
+ * to it, such as an item removed from the shop by a reload that no player holds. Interning the same attributes
+ * again afterwards creates a new template with a new id, as ids are never reused.
+ *
+ * @author Rohan Khayech
+ * @see Item#isStackable()
+ */
+public class ItemRegistry
+{
+    /** Singleton object of the registry. */
+    private static final ItemRegistry instance = new ItemRegistry();
+
+    /** Initial capacity of the template table. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Open-addressed hash table of the interned templates, hashed by their attributes.
+     * The slots of dropped templates are reused by later inserts, and removed when the table is rebuilt.
+     * Kept at most half full, including the dropped templates, so lookups allocate nothing.
+     */
+    private Template[] table;
+    /** Queue the references of dropped templates are added to. */
+    private final ReferenceQueue<Item> dropped;
+    /** The number of slots in use, including the slots of dropped templates. */
+    private int used;
+    /** The number of interned templates that have not been dropped. */
+    private int size;
+    /** The id to give the next interned template. */
+    private int nextId;
+
+    /**
+     * Constructs an empty registry.
+     */
+    private ItemRegistry()
+    {
+        table = new Template[INITIAL_CAPACITY];
+        dropped = new ReferenceQueue<Item>();
+        used = 0;
+        size = 0;
+        nextId = 0;
+    }
+
+    /**
+     * @return The item registry.
+     */
+    public static ItemRegistry getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Returns the interned template with the same attributes as the specified item,
+     * interning the item itself if there is none.
+     *
+     * @param <T>  The type of item.
+     * @param item The item.
+     * @return The interned template.
+     * @throws IllegalArgumentException If the item is not stackable, so copies of it are not interchangeable.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends Item> T intern(T item) throws IllegalArgumentException
+    {
+        if (!item.isStackable())
+        {
+            throw new IllegalArgumentException(item.getName() + " cannot be interned as it is not stackable.");
+        }
+
+        T template = item;
+        if (item.id == Item.NO_ID)
+        {
+            expunge();
+
+            // Find the template, remembering the first dropped slot on the way to reuse if there is none.
+            int mask = table.length - 1;
+            int h = item.getTemplateHash();
+            int slot = (h ^ (h >>> 16)) & mask;
+            int free = -1;
+            Item found = null;
+            while (found == null && table[slot] != null)
+            {
+                Item candidate = table[slot].get();
+                if (candidate == null)
+                {
+                    free = free < 0 ? slot : free;
+                }
+                else if (candidate.isSameTemplate(item))
+                {
+                    found = candidate;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (found != null)
+            {
+                template = (T)found;
+            }
+            else
+            {
+                if (free < 0)
+                {
+                    free = slot;
+                    used++;
+                }
+                item.id = nextId++;
+                table[free] = new Template(item, h, dropped);
+                size++;
+                if (used * 2 > table.length)
+                {
+                    rebuild();
+                }
+            }
+        }
+        return template;
+    }
+
+    /** @return The number of interned templates that have not been dropped. */
+    public synchronized int size()
+    {
+        expunge();
+        return size;
+    }
+
+    /**
+     * Counts the templates that have been dropped since the last call.
+     * Their slots are left in the table until they are reused or the table is rebuilt.
+     */
+    private void expunge()
+    {
+        while (dropped.poll() != null)
+        {
+            size--;
+        }
+    }
+
+    /**
+     * Rebuilds the template table without the slots of dropped templates,
+     * sized so that the remaining templates fill at most a quarter of it.
+     */
+    private void rebuild()
+    {
+        int live = 0;
+        for (Template t : table)
+        {
+            if (t != null && t.get() != null)
+            {
+                live++;
+            }
+        }
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < live * 4)
+        {
+            capacity *= 2;
+        }
+
+        Template[] old = table;
+        table = new Template[capacity];
+        used = 0;
+        int mask = capacity - 1;
+        for (Template t : old)
+        {
+            if (t != null && t.get() != null)
+            {
+                int slot = (t.hash ^ (t.hash >>> 16)) & mask;
+                while (table[slot] != null)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = t;
+                used++;
+            }
+        }
+    }
+
+    /**
+     * Weak reference to an interned template, which keeps the hash of its attributes
+     * so the template table can be rebuilt after templates are dropped.
+     */
+    private static class Template extends WeakReference<Item>
+    {
+        /** The hash of the attributes of the template. */
+        private final int hash;
+
+        /**
+         * Constructs a reference to a template.
+         * @param item The template.
+         * @param hash The hash of the attributes of the template.
+         * @param queue The queue to add the reference to once the template is dropped.
+         */
+        private Template(Item item, int hash, ReferenceQueue<Item> queue)
+        {
+            super(item, queue);
+            this.hash = hash;
+        }
+    }
+}
\ No newline at end of file
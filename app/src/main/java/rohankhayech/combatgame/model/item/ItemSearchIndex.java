@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.item;
+
+import java.util.*;
+
+/**
+ * Index for searching items by name, such as the items for sale in a shop.
+ *
+ * Names are searched ignoring case. Each name is indexed by its trigrams and the first
+ * one or two letters of each word, mapped to posting lists of the items containing them. Queries of three
+ * or more characters match anywhere in a name, while shorter queries match the start of any word.
+ * A query only reads the posting lists of its own n-grams, starting from the shortest, so its latency
+ * depends on the number of candidate matches rather than the size of the catalogue.
+ *
+ * Matches are ranked with names starting with the query first, then names with a word starting with the
+ * query, then all other matches, breaking ties by shorter name and then by the order items were added.
+ *
+ * @author Rohan Khayech
+ * @see Shop#search(String)
+ */
+public class ItemSearchIndex
+{
+    /** Length of the n-grams used to match queries anywhere in a name. */
+    private static final int GRAM = 3;
+    /** Separator marking the start of each word in an indexed name. */
+    private static final char WORD_START = ' ';
+
+    /** The indexed items by slot, with {@code null} at removed slots. */
+    private Item[] items;
+    /** The normalised name of the item in each slot, prefixed with a word separator. */
+    private String[] names;
+    /** The number of slots in use, including removed slots. */
+    private int end;
+    /** The number of indexed items. */
+    private int live;
+    /** The slot of each indexed item. */
+    private final Map<Item, Integer> slots;
+    /** The slots of the items containing each n-gram, in ascending order. */
+    private final Map<String, Postings> postings;
+
+    /**
+     * Constructs an empty index.
+     */
+    public ItemSearchIndex()
+    {
+        items = new Item[16];
+        names = new String[16];
+        end = 0;
+        live = 0;
+        slots = new IdentityHashMap<Item, Integer>();
+        postings = new HashMap<String, Postings>();
+    }
+
+    /**
+     * Constructs an index of the specified items.
+     * @param items The items to index.
+     */
+    public ItemSearchIndex(Collection<? extends Item> items)
+    {
+        this();
+        for (Item i : items)
+        {
+            add(i);
+        }
+    }
+
+    /** @return The number of indexed items. */
+    public int size() { return live; }
+
+    /**
+     * Adds an item to the index if it is not already indexed.
+     * @param item The item.
+     */
+    public void add(Item item)
+    {
+        if (!slots.containsKey(item))
+        {
+            if (end == items.length)
+            {
+                items = Arrays.copyOf(items, end * 2);
+                names = Arrays.copyOf(names, end * 2);
+            }
+            int slot = end++;
+            String name = WORD_START + normalise(item.getName());
+            items[slot] = item;
+            names[slot] = name;
+            slots.put(item, slot);
+            live++;
+
+            for (int i = 0; i + GRAM <= name.length(); i++)
+            {
+                post(name.substring(i, i + GRAM), slot);
+            }
+            for (int i = 0; i + 2 <= name.length(); i++)
+            {
+                if (name.charAt(i) == WORD_START)
+                {
+                    post(name.substring(i, i + 2), slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an item from the index if it is indexed.
+     * The posting lists are rebuilt once removed items outnumber indexed items.
+     * @param item The item.
+     */
+    public void remove(Item item)
+    {
+        Integer slot = slots.remove(item);
+        if (slot != null)
+        {
+            items[slot] = null;
+            names[slot] = null;
+            live--;
+            if (end - live > live)
+            {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Removes all items from the index.
+     */
+    public void clear()
+    {
+        Arrays.fill(items, 0, end, null);
+        Arrays.fill(names, 0, end, null);
+        end = 0;
+        live = 0;
+        slots.clear();
+        postings.clear();
+    }
+
+    /**
+     * Finds the items with names matching the specified query, ranked from best to worst match.
+     *
+     * @param query The text to search for, ignoring case.
+     * @return The matching items, or an empty list if the query is blank.
+     */
+    public List<Item> search(String query)
+    {
+        String q = normalise(query).trim();
+        List<Item> matches = new ArrayList<Item>();
+        if (!q.isEmpty())
+        {
+            // Short queries match the start of a word, longer queries match anywhere.
+            String pattern = q.length() < GRAM ? WORD_START + q : q;
+            List<Postings> lists = new ArrayList<Postings>();
+            boolean possible = true;
+            if (q.length() < GRAM)
+            {
+                possible = addPostings(lists, pattern);
+            }
+            else
+            {
+                for (int i = 0; possible && i + GRAM <= q.length(); i++)
+                {
+                    possible = addPostings(lists, q.substring(i, i + GRAM));
+                }
+            }
+
+            if (possible)
+            {
+                // Walk the shortest posting list, keeping slots found in every other list whose name contains the pattern.
+                lists.sort(new Comparator<Postings>() {
+                    @Override
+                    public int compare(Postings p1, Postings p2) {
+                        return Integer.compare(p1.size, p2.size);
+                    }
+                });
+                Postings shortest = lists.get(0);
+                List<Integer> found = new ArrayList<Integer>();
+                for (int i = 0; i < shortest.size; i++)
+                {
+                    int slot = shortest.slots[i];
+                    boolean match = items[slot] != null;
+                    for (int l = 1; match && l < lists.size(); l++)
+                    {
+                        match = lists.get(l).contains(slot);
+                    }
+                    if (match && names[slot].contains(pattern))
+                    {
+                        found.add(slot);
+                    }
+                }
+
+                found.sort(new Comparator<Integer>() {
+                    @Override
+                    public int compare(Integer s1, Integer s2) {
+                        int cmp = Integer.compare(rank(names[s1], q), rank(names[s2], q));
+                        if (cmp == 0)
+                        {
+                            cmp = Integer.compare(names[s1].length(), names[s2].length());
+                        }
+                        if (cmp == 0)
+                        {
+                            cmp = Integer.compare(s1, s2);
+                        }
+                        return cmp;
+                    }
+                });
+                for (int slot : found)
+                {
+                    matches.add(items[slot]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Adds the posting list of an n-gram to a list.
+     * @param lists The list.
+     * @param gram  The n-gram.
+     * @return {@code false} if no item contains the n-gram, {@code true} otherwise.
+     */
+    private boolean addPostings(List<Postings> lists, String gram)
+    {
+        Postings p = postings.get(gram);
+        if (p != null)
+        {
+            lists.add(p);
+        }
+        return p != null;
+    }
+
+    /**
+     * Records that the item in a slot contains an n-gram.
+     * @param gram The n-gram.
+     * @param slot The slot.
+     */
+    private void post(String gram, int slot)
+    {
+        Postings p = postings.get(gram);
+        if (p == null)
+        {
+            p = new Postings();
+            postings.put(gram, p);
+        }
+        p.add(slot);
+    }
+
+    /**
+     * Re-indexes the remaining items, removing empty slots and dropping them from the posting lists.
+     */
+    private void rebuild()
+    {
+        List<Item> remaining = new ArrayList<Item>(live);
+        for (int s = 0; s < end; s++)
+        {
+            if (items[s] != null)
+            {
+                remaining.add(items[s]);
+            }
+        }
+        clear();
+        for (Item i : remaining)
+        {
+            add(i);
+        }
+    }
+
+    /**
+     * Ranks how well a name matches a query.
+     * @param name The indexed name, prefixed with a word separator.
+     * @param q    The normalised query.
+     * @return 0 if the name starts with the query, 1 if a word in the name does, or 2 otherwise.
+     */
+    private static int rank(String name, String q)
+    {
+        int rank = 2;
+        if (name.startsWith(q, 1))
+        {
+            rank = 0;
+        }
+        else if (name.contains(WORD_START + q))
+        {
+            rank = 1;
+        }
+        return rank;
+    }
+
+    /**
+     * Normalises text for indexing or searching by converting it to lower case.
+     * @param text The text.
+     * @return The normalised text.
+     */
+    private static String normalise(String text)
+    {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Growable list of slots in ascending order.
+     */
+    private static class Postings
+    {
+        /** The slots. */
+        private int[] slots = new int[4];
+        /** The number of slots. */
+        private int size = 0;
+
+        /**
+         * Appends a slot, ignoring it if it is the last slot in the list.
+         * Slots are assigned in ascending order, so this keeps the list sorted and free of duplicates.
+         * @param slot The slot.
+         */
+        private void add(int slot)
+        {
+            if (size == 0 || slots[size - 1] != slot)
+            {
+                if (size == slots.length)
+                {
+                    slots = Arrays.copyOf(slots, size * 2);
+                }
+                slots[size++] = slot;
+            }
+        }
+
+        /**
+         * @param slot The slot.
+         * @return {@code true} if the list contains the slot.
+         */
+        private boolean contains(int slot)
+        {
+            return Arrays.binarySearch(slots, 0, size, slot) >= 0;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.item;
+
+/**
+ * Inventory entry holding a number of copies of a stackable item as a single shared item and a count.
+ * Stacks are created and updated by the {@code Inventory} that holds them.
+ *
+ * @author Rohan Khayech
+ * @see Item#isStackable()
+ */
+public class ItemStack
+{
+    /** The item shared by every copy in the stack. */
+    private final Item item;
+    /** The number of copies in the stack. */
+    private int count;
+
+    /**
+     * Constructs a new stack holding one copy of the specified item.
+     * @param item The stackable item.
+     * @throws IllegalArgumentException If the item is not stackable.
+     */
+    ItemStack(Item item) throws IllegalArgumentException
+    {
+        if (!item.isStackable())
+        {
+            throw new IllegalArgumentException(item.getName() + " is not stackable.");
+        }
+        this.item = item;
+        this.count = 1;
+    }
+
+    /** @return The item shared by every copy in the stack. */
+    public Item getItem() { return item; }
+
+    /** @return The number of copies in the stack. */
+    public int getCount() { return count; }
+
+    /**
+     * Adds one copy to the stack.
+     */
+    void push()
+    {
+        count++;
+    }
+
+    /**
+     * Removes one copy from the stack.
+     * @return The number of copies remaining.
+     */
+    int pop()
+    {
+        return --count;
+    }
+
+    /** @return A String representation of the stack. */
+    @Override
+    public String toString()
+    {
+        return item.toString() + " x" + count;
+    }
+}
\ No newline at end of file
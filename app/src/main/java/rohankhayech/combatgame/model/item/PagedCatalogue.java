@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.item;
+
+import java.util.*;
+
+/**
+ * Read-only list of items stored outside the heap, such as in a memory-mapped file.
+ *
+ * Items are only created when they are read, and the most recently read items are kept in a small
+ * least-recently-used cache, so heap use stays constant regardless of the size of the catalogue.
+ * The items are not interned, so the same item may be returned as a different object once it leaves the cache.
+ *
+ * @author Rohan Khayech
+ * @see Shop#stockCatalogue(PagedCatalogue)
+ */
+public abstract class PagedCatalogue extends AbstractList<Item> implements RandomAccess
+{
+    /** Default number of items to keep in the cache. */
+    public static final int DEF_CACHE_SIZE = 256;
+
+    /** The most recently read items by index, from least to most recently read. */
+    private final Map<Integer, Item> cache;
+
+    /**
+     * Constructs a catalogue with the default cache size.
+     */
+    protected PagedCatalogue()
+    {
+        this(DEF_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a catalogue with the specified cache size.
+     * @param cacheSize The maximum number of items to keep in the cache.
+     */
+    protected PagedCatalogue(int cacheSize)
+    {
+        this.cache = new LinkedHashMap<Integer, Item>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Item> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Creates the item at the specified index from its stored form.
+     * @param index The index of the item, within the size of the catalogue.
+     * @return The item.
+     */
+    protected abstract Item load(int index);
+
+    /**
+     * Returns the item at the specified index, creating it if it is not in the cache.
+     * @param index The index of the item.
+     * @return The item.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    @Override
+    public synchronized Item get(int index) throws IndexOutOfBoundsException
+    {
+        if (index < 0 || index >= size())
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        Item item = cache.get(index);
+        if (item == null)
+        {
+            item = load(index);
+            cache.put(index, item);
+        }
+        return item;
+    }
+
+    /**
+     * Returns the type of the item at the specified index.
+     * Catalogues that store the type of each item should override this to read it without creating the item.
+     * @param index The index of the item.
+     * @return The class of the item.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public Class<? extends Item> typeOf(int index) throws IndexOutOfBoundsException
+    {
+        return get(index).getClass();
+    }
+
+    /**
+     * Returns the value of an attribute of the item at the specified index.
+     * Catalogues that store the attributes of each item should override this to read it without creating the item.
+     * @param index The index of the item.
+     * @param attr The attribute.
+     * @return The value of the attribute.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public int attributeOf(int index, CatalogueIndex.Attribute attr) throws IndexOutOfBoundsException
+    {
+        return attr.of(get(index));
+    }
+
+    /**
+     * Returns a read-only view of the items in this catalogue followed by the items in a list,
+     * reflecting any changes to the list.
+     * @param extra The items to follow this catalogue.
+     * @return The view.
+     */
+    public List<Item> followedBy(List<? extends Item> extra)
+    {
+        return new AbstractList<Item>() {
+            @Override
+            public Item get(int index) {
+                int n = PagedCatalogue.this.size();
+                return index < n ? PagedCatalogue.this.get(index) : extra.get(index - n);
+            }
+
+            @Override
+            public int size() {
+                return PagedCatalogue.this.size() + extra.size();
+            }
+        };
+    }
+}
@@ -5,7 +5,7 @@
 package rohankhayech.combatgame.model.item;
 
 import rohankhayech.combatgame.controller.Randomizer;
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /** 
  * Class representing a Potion item.
@@ -15,14 +15,16 @@ import rohankhayech.combatgame.view.Colour;
 public class Potion extends Item {
 
     /** The minimum effect of the potion. */
-    private int minEffect;
+    private final int minEffect;
     /** The maximum effect of the potion. */
-    private int maxEffect;
+    private final int maxEffect;
     /**
      * String desribing type of potion. Must be set to 
      * 'H' for Healing or 'D' for Damage.
      */
-    private char type; 
+    private final char type; 
+    /** The name of the potion, styled based on potion type. */
+    private final StyledText styledName;
 
     /**
      * Constructs a new Potion item.
@@ -41,6 +43,7 @@ public class Potion extends Item {
             this.type = type;
             this.minEffect = minEffect;
             this.maxEffect = maxEffect;
+            this.styledName = StyledText.of(name, getStyle(type));
         }
         else
         {
@@ -54,35 +57,38 @@ public class Potion extends Item {
      */
     public Potion(Potion p) 
     {
-        super(p.getName(), p.getCost());
+        super(p.name, p.cost);
         this.type = p.getType();
         this.minEffect = p.getMinEffect();
         this.maxEffect = p.getMaxEffect();
+        this.styledName = p.styledName;
     }
 
-    /** @return A copy of the specified item. */
+    /** @return This potion, as potions are immutable and can be shared. */
     public Item clone() {
-        return new Potion(this);
+        return this;
     }
 
     /** 
-     * Returns the name of the object, coloured based on potion type.
+     * Returns the name of the object, styled based on potion type.
      * 
-     * @return The name of the item. 
+     * @return The styled name of the item. 
      */
     @Override
-    public String getName()
+    public StyledText getStyledName()
     {
-        String nameStr = name;
-        switch (type) {
-            case 'H':
-                nameStr = Colour.BRIGHT_GREEN+name+Colour.RESET;
-            break;
-            case 'D':
-                nameStr = Colour.BRIGHT_RED+name+Colour.RESET;
-            break;
-        }
-        return nameStr;
+        return styledName;
+    }
+
+    /**
+     * Returns the style of a potion based on its type.
+     * 
+     * @param type The type of potion.
+     * @return The style.
+     */
+    private static Style getStyle(char type)
+    {
+        return type == 'H' ? Style.BRIGHT_GREEN : Style.BRIGHT_RED;
     }
 
     /** @return The minimum effect of the potion. */
@@ -94,6 +100,33 @@ public class Potion extends Item {
     /** @return The type of potion. */
     public char getType() { return type; }
 
+    /** @return {@code true}, as potions are interchangeable and stack. */
+    @Override
+    public boolean isStackable() { return true; }
+
+    /** @return The hash code of the potion's attributes. */
+    @Override
+    protected int getTemplateHash() {
+        int hash = super.getTemplateHash();
+        hash = 31 * hash + minEffect;
+        hash = 31 * hash + maxEffect;
+        return 31 * hash + type;
+    }
+
+    /**
+     * @param other The other item.
+     * @return {@code true} if the other item is a potion with the same attributes.
+     */
+    @Override
+    protected boolean isSameTemplate(Item other) {
+        boolean same = super.isSameTemplate(other);
+        if (same) {
+            Potion p = (Potion)other;
+            same = p.minEffect == minEffect && p.maxEffect == maxEffect && p.type == type;
+        }
+        return same;
+    }
+
     /**
      * Rolls a random effect value between the minimum and maximum effect of the potion.
      * 
@@ -101,24 +134,17 @@ public class Potion extends Item {
      */
     public int rollEffect() 
     {
-        Randomizer rand = new Randomizer();
+        Randomizer rand = Randomizer.getInstance();
         return rand.randomRange(minEffect, maxEffect);
     }  
 
-    /** @return A String representation of the item. */
+    /** @return A styled description of the item. */
     @Override
-    public String toString() {
-        String prefix = null;
-        
-        switch (type) {
-            case 'H':
-                prefix = " | " + Colour.BRIGHT_GREEN + "HEL: ";
-            break;
-            case 'D':
-                prefix = " | " + Colour.BRIGHT_RED + "ATT: ";
-            break;
-        }
+    protected StyledText buildDescription() {
+        String prefix = type == 'H' ? "HEL: " : "ATT: ";
 
-        return getName() + prefix + minEffect + "-" + maxEffect + Colour.RESET + " | " + Colour.BRIGHT_YELLOW+cost+"G"+Colour.RESET;   
+        return StyledText.builder().append(styledName).append(" | ")
+            .append(prefix + minEffect + "-" + maxEffect, getStyle(type))
+            .append(" | ").append(cost + "G", Style.BRIGHT_YELLOW).build();
     }
 }
\ No newline at end of file
@@ -4,7 +4,7 @@
 
 package rohankhayech.combatgame.model.item;
 
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /**
  * Weapon enchantment that multiplies damage by 1.1.
@@ -14,7 +14,9 @@ import rohankhayech.combatgame.view.Colour;
 public class Power extends EnchantmentItem {
 
     /** Name of the enchantment. */
-    public static final String NAME = Colour.MAGENTA+"Power"+Colour.RESET;
+    public static final String NAME = "Power";
+    /** Style of the enchantment's name. */
+    public static final Style STYLE = Style.MAGENTA;
     /** Cost of the enchantment. */
     public static final int COST = 10;
     /** Damage multiplier of the enchantment. */
@@ -24,12 +26,12 @@ public class Power extends EnchantmentItem {
      * Constructs a new Power enchantment item.
      */
     public Power() {
-        super(NAME, COST);
+        super(NAME, STYLE, COST);
     }
 
-    /** @return A copy of the specified item. */
+    /** @return This enchantment, as enchantments are immutable and can be shared. */
     public Item clone() {
-        return new Power();
+        return this;
     }
 
     /** @return The minimum effect of the enchantment. */
@@ -45,37 +47,14 @@ public class Power extends EnchantmentItem {
     }
 
     /**
-     * Returns the accumulative minimum damage of the base weapon and all its enchantments.
-     * Multiplies the minimum damage of the next weapon. 
-     * @param next The next weapon/decorator in the chain. 
-     * @return The accumulative minimum damage of the weapon.
+     * Compiles the effect of the enchantment onto a program of the enchantments applied before it.
+     * Multiplies the damage of the weapon.
+     * @param prev The program of the enchantments applied before this one.
+     * @return A new program with this enchantment's operations appended.
      */
     @Override
-    public int getWeaponMinEffect(Weapon next) {
-        return (int)Math.round(((double)next.getMinEffect()*DAMAGE_MULT));
-    }
-
-    /**
-     * Returns the accumulative maximum damage of the base weapon and all its enchantments. 
-     * Multiplies the maximum damage of the next weapon.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return The accumulative maximum damage of the weapon.
-     */
-    @Override
-    public int getWeaponMaxEffect(Weapon next) {
-        return (int)Math.round(((double)next.getMaxEffect()*DAMAGE_MULT));
-    }
-
-    /**
-     * Rolls a random damage value between the minimum and maximum damage of a weapon with this enchantment applied.
-     * 
-     * @param next The next weapon/decorator in the chain.
-     * @return An integer representing the damage that the weapon inflicts.
-     */
-    @Override
-    public int rollDamage(Weapon next) {
-        return (int)Math.round(((double)next.rollDamage()*DAMAGE_MULT));
+    public EnchantmentProgram compile(EnchantmentProgram prev) {
+        return prev.multiply(DAMAGE_MULT);
     }
 
     /**
@@ -84,8 +63,8 @@ public class Power extends EnchantmentItem {
      * @return A string desribing the enchantment.
      */
     @Override
-    public String getDescription() {
-        return Colour.BRIGHT_RED+"[x" + DAMAGE_MULT + " ATT]"+Colour.RESET;
+    public StyledText getDescription() {
+        return StyledText.of("[x" + DAMAGE_MULT + " ATT]", Style.BRIGHT_RED);
     }
 
 }
\ No newline at end of file
@@ -4,7 +4,8 @@
 
 package rohankhayech.combatgame.model.item;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import rohankhayech.combatgame.model.character.Player;
 import rohankhayech.combatgame.view.*;
@@ -21,27 +22,198 @@ public class Shop {
     
     /** The shops inventory of listed items for sale. */
     Inventory inv;
+    /** The items listed for sale ahead of the inventory that are paged from outside the heap, or {@code null}. */
+    private PagedCatalogue paged;
+    /** Index of the listed items, or {@code null} if it has not been built since the items were stocked. */
+    private CatalogueIndex catalogue;
+    /** Index of the names of the listed items, or {@code null} if it has not been built since the items were stocked. */
+    private ItemSearchIndex searchIndex;
+    /** Changes to the listed items submitted by other threads, waiting to be applied in order. */
+    private final Queue<StockChange> pending;
 
     /**
      * Constructs a new Shop object.
      */
     public Shop()
     {
-        inv = new Inventory(100);
+        inv = new Inventory();
+        paged = null;
+        catalogue = null;
+        searchIndex = null;
+        pending = new ConcurrentLinkedQueue<StockChange>();
     }
 
     /**
-     * Replaces the currently listed sale items with the items in the specified list.
+     * Replaces the currently listed sale items with the items in the specified list, followed by the enchantments.
      * @param items List of items to list for sale.
      */
     public void stockInventory(List<Item> items)
     {
+        clearStock();
+        for (Item i : items)
+        {
+            addStock(i);
+        }
+        stockEnchantments();
+    }
+
+    /**
+     * Replaces the currently listed sale items with the items in a paged catalogue, which are read
+     * only when they are shown or bought so that large catalogues do not need to be held in memory.
+     * Further items, such as the enchantments, can be listed after the catalogue with {@code addStock}.
+     * @param items The paged catalogue of items to list for sale.
+     */
+    public void stockCatalogue(PagedCatalogue items)
+    {
+        clearStock();
+        paged = items;
+        searchIndex = null;
+    }
+
+    /**
+     * Removes all the listed sale items, discarding any submitted changes that have not been applied.
+     */
+    public void clearStock()
+    {
+        pending.clear();
         inv.clear();
-        inv.addAll(items);
-        inv.addItem(new DamageII());
-        inv.addItem(new DamageV());
-        inv.addItem(new FireDamage());
-        inv.addItem(new Power());
+        paged = null;
+        catalogue = null;
+        searchIndex = null;
+    }
+
+    /**
+     * Lists each of the weapon enchantments for sale.
+     */
+    public void stockEnchantments()
+    {
+        ItemRegistry registry = ItemRegistry.getInstance();
+        addStock(registry.intern(new DamageII()));
+        addStock(registry.intern(new DamageV()));
+        addStock(registry.intern(new FireDamage()));
+        addStock(registry.intern(new Power()));
+    }
+
+    /**
+     * Lists an additional item for sale.
+     * @param i The item to list.
+     */
+    public void addStock(Item i)
+    {
+        if (inv.addItem(i))
+        {
+            if (catalogue != null)
+            {
+                catalogue.add(i);
+            }
+            if (searchIndex != null)
+            {
+                searchIndex.add(i);
+            }
+        }
+    }
+
+    /**
+     * Removes an item from sale. Items listed from a paged catalogue cannot be removed.
+     * @param i The item to remove.
+     */
+    public void removeStock(Item i)
+    {
+        // Only drop the item from the indexes once the last copy of its stack is removed.
+        if (inv.removeItem(i) && !inv.contains(i))
+        {
+            if (catalogue != null)
+            {
+                catalogue.remove(i);
+            }
+            if (searchIndex != null)
+            {
+                searchIndex.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Submits a change to the listed items, which can be called from any thread, such as when the items are reloaded
+     * from a file in the background. The change is applied as a whole the next time the listed items are read,
+     * so that menus never see part of a change. Removed items are replaced in place by the added item at the
+     * same index where possible, and any remaining items are removed or added.
+     * @param removed The items to remove from sale.
+     * @param added The items to list for sale.
+     */
+    public void submitChange(List<Item> removed, List<Item> added)
+    {
+        pending.add(new StockChange(List.copyOf(removed), List.copyOf(added)));
+    }
+
+    /**
+     * Applies any submitted changes to the listed items, in the order they were submitted.
+     */
+    private void applyChanges()
+    {
+        StockChange change;
+        while ((change = pending.poll()) != null)
+        {
+            int replaced = Math.min(change.removed.size(), change.added.size());
+            for (int k = 0; k < replaced; k++)
+            {
+                replaceStock(change.removed.get(k), change.added.get(k));
+            }
+            for (Item i : change.removed.subList(replaced, change.removed.size()))
+            {
+                removeStock(i);
+            }
+            for (Item i : change.added.subList(replaced, change.added.size()))
+            {
+                addStock(i);
+            }
+        }
+    }
+
+    /**
+     * Replaces a listed item with another item, in the same position if possible.
+     * @param i The item to replace.
+     * @param replacement The item to list instead.
+     */
+    private void replaceStock(Item i, Item replacement)
+    {
+        if (i != replacement)
+        {
+            if (inv.replaceItem(i, replacement))
+            {
+                if (catalogue != null)
+                {
+                    catalogue.replace(i, replacement);
+                }
+                if (searchIndex != null)
+                {
+                    searchIndex.remove(i);
+                    searchIndex.add(replacement);
+                }
+            }
+            else
+            {
+                removeStock(i);
+                addStock(replacement);
+            }
+        }
+    }
+
+    /**
+     * Searches the items listed for sale by name, ignoring case and colour codes.
+     * The index of the item names is built by the first search after the items are stocked, so that stocking
+     * large catalogues does not pay for it, and is then kept up to date as items are listed and removed.
+     * @param query The text to search for. Queries shorter than three characters match the start of a word.
+     * @return The matching items, ranked from best to worst match.
+     */
+    public List<Item> search(String query)
+    {
+        applyChanges();
+        if (searchIndex == null)
+        {
+            searchIndex = new ItemSearchIndex(getStock());
+        }
+        return searchIndex.search(query);
     }
 
     /**
@@ -59,12 +231,16 @@ public class Shop {
 
         if (plr.getGold()>=i.getCost())
         {
-            if (plr.hasInventorySpace())
+            if (plr.hasInventorySpace(i))
             {
                 plr.modifyGold(-i.getCost());
-                plr.giveItem(i.clone()); //give the player a copy so any duplicates are seperate items.
+                //give the player a copy so any duplicates are seperate items. Immutable items are their own copy, so they share a stack.
+                //Paged items are not interned, so intern the copy to stack it with any copies bought before.
+                Item copy = i.clone();
+                plr.giveItem(copy.isStackable() ? ItemRegistry.getInstance().intern(copy) : copy);
+                plr.commitActions();
                 sold = true;
-                view.println("Bought "+i.getName());
+                view.println("Bought "+view.format(i.getStyledName()));
             }
             else
             {
@@ -90,7 +266,8 @@ public class Shop {
         
         plr.takeItem(i);
         plr.modifyGold(getSellPrice(i));
-        view.println("Sold " + i.getName()+". It can be bought back from the shop.");
+        plr.commitActions();
+        view.println("Sold " + view.format(i.getStyledName())+". It can be bought back from the shop.");
     }
 
     /**
@@ -104,10 +281,59 @@ public class Shop {
     }
 
     /**
-     * @return The inventory of the shop.
+     * Returns an index of the items listed for sale, building it the first time it is needed after the items are stocked.
+     * Later changes to the listed items are applied to the index in place.
+     * @return The catalogue index of the shop.
+     */
+    public CatalogueIndex getCatalogue()
+    {
+        applyChanges();
+        if (catalogue == null)
+        {
+            catalogue = paged == null ? new CatalogueIndex(inv.getAllItems()) : new CatalogueIndex(paged, inv.getAllItems());
+        }
+        return catalogue;
+    }
+
+    /**
+     * Returns the items listed for sale, including any paged items followed by the items in the shop's inventory.
+     * Paged items are only read when they are accessed.
+     * @return A live, read-only view of the listed items.
+     */
+    public List<Item> getStock()
+    {
+        applyChanges();
+        return paged == null ? inv.getAllItems() : paged.followedBy(inv.getAllItems());
+    }
+
+    /**
+     * @return The inventory of the shop, containing the listed items that are not paged.
      */
     public Inventory getInventory()
     {
+        applyChanges();
         return inv;
     }
+
+    /**
+     * A change to the listed items.
+     */
+    private static class StockChange
+    {
+        /** The items to remove. */
+        private final List<Item> removed;
+        /** The items to add. */
+        private final List<Item> added;
+
+        /**
+         * Constructs a change.
+         * @param removed The items to remove.
+         * @param added The items to add.
+         */
+        private StockChange(List<Item> removed, List<Item> added)
+        {
+            this.removed = removed;
+            this.added = added;
+        }
+    }
 }
\ No newline at end of file
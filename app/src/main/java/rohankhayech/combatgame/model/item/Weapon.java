@@ -4,7 +4,7 @@
 
 package rohankhayech.combatgame.model.item;
 
-import rohankhayech.combatgame.view.Colour;
+import rohankhayech.combatgame.model.text.*;
 
 /**
  * Abstract class representing a Weapon item.
@@ -52,16 +52,16 @@ public abstract class Weapon extends Item {
     public abstract int rollDamage();
 
     /**
-     * Produces a String description of the weapon's attributes.
-     * Used by toString() to get description of each decorator in the chain.
-     * @return A String describing the items attributes.
+     * Produces a styled description of the weapon's attributes.
+     * Used by describe() to get description of each decorator in the chain.
+     * @return A styled string describing the items attributes.
      */
-    protected abstract String getDescription();
+    protected abstract StyledText getDescription();
 
-    /** @return A String representation of the weapon. */
+    /** @return A styled description of the weapon, including its cost. */
     @Override
-    public String toString()
+    protected StyledText buildDescription()
     {
-        return getDescription() +" | "+Colour.BRIGHT_YELLOW+getCost()+"G"+Colour.RESET;
+        return StyledText.builder().append(getDescription()).append(" | ").append(getCost() + "G", Style.BRIGHT_YELLOW).build();
     }
 }
\ No newline at end of file
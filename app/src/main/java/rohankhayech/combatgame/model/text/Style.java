@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.text;
+
+/**
+ * Styles that a span of text can be displayed in.
+ * Styles are tags only, and are converted to colour codes or markup by a {@code TextRenderer} when the text is displayed.
+ * 
+ * @author Rohan Khayech
+ * @see StyledText
+ */
+public enum Style
+{
+    /** Default style. */
+    NONE,
+
+    /** Red text. */
+    RED,
+    /** Green text. */
+    GREEN,
+    /** Yellow text. */
+    YELLOW,
+    /** Blue text. */
+    BLUE,
+    /** Magenta text. */
+    MAGENTA,
+    /** Cyan text. */
+    CYAN,
+    /** White text. */
+    WHITE,
+
+    /** Bright red text. */
+    BRIGHT_RED,
+    /** Bright green text. */
+    BRIGHT_GREEN,
+    /** Bright yellow text. */
+    BRIGHT_YELLOW,
+    /** Bright blue text. */
+    BRIGHT_BLUE,
+    /** Bright magenta text. */
+    BRIGHT_MAGENTA,
+    /** Bright cyan text. */
+    BRIGHT_CYAN,
+    /** Bright white text. */
+    BRIGHT_WHITE;
+
+    /** @return Whether the style is a bright colour. */
+    public boolean isBright()
+    {
+        return ordinal() >= BRIGHT_RED.ordinal();
+    }
+
+    /**
+     * Returns the style with the specified name, such as {@code "BRIGHT_RED"}.
+     * @param name The name of the style.
+     * @return The style.
+     * @throws IllegalArgumentException If there is no style with the name.
+     */
+    public static Style fromName(String name) throws IllegalArgumentException
+    {
+        try
+        {
+            return valueOf(name);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Unknown colour: " + name);
+        }
+    }
+}
\ No newline at end of file
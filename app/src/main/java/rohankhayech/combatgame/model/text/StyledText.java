@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.text;
+
+import java.util.*;
+
+/**
+ * Immutable text made up of spans, each displayed in a single style.
+ *
+ * Styled text keeps its plain text separate from its styles, so that it can be compared, measured, searched and logged
+ * without any colour codes, and is only converted to a displayable form by a {@code TextRenderer} when it is shown.
+ * The last rendering of the text is cached, so text that is shown repeatedly, such as the description of an item,
+ * is only rendered once by each renderer in turn.
+ * 
+ * @author Rohan Khayech
+ * @see Style
+ * @see TextRenderer
+ */
+public final class StyledText
+{
+    /** Styled text with no spans. */
+    public static final StyledText EMPTY = new StyledText(new String[0], new Style[0], "");
+
+    /** The text of each span. */
+    private final String[] texts;
+    /** The style of each span. */
+    private final Style[] styles;
+    /** The text of every span, without styles. */
+    private final String plain;
+    /** The last rendering of the text, or {@code null} if it has not been rendered. */
+    private Rendering rendering;
+
+    /**
+     * Constructs styled text from its spans.
+     * @param texts The text of each span.
+     * @param styles The style of each span.
+     * @param plain The text of every span, without styles.
+     */
+    private StyledText(String[] texts, Style[] styles, String plain)
+    {
+        this.texts = texts;
+        this.styles = styles;
+        this.plain = plain;
+        this.rendering = null;
+    }
+
+    /**
+     * @param text The text.
+     * @return Styled text of a single span in the default style.
+     */
+    public static StyledText plain(String text)
+    {
+        return of(text, Style.NONE);
+    }
+
+    /**
+     * @param text The text.
+     * @param style The style of the text.
+     * @return Styled text of a single span in the specified style.
+     */
+    public static StyledText of(String text, Style style)
+    {
+        return text.isEmpty() ? EMPTY : new StyledText(new String[] {text}, new Style[] {style}, text);
+    }
+
+    /** @return A builder of styled text, initially empty. */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /** @return The number of spans in the text. */
+    public int getSpanCount() { return texts.length; }
+
+    /**
+     * @param i The index of a span.
+     * @return The text of the span.
+     */
+    public String getText(int i) { return texts[i]; }
+
+    /**
+     * @param i The index of a span.
+     * @return The style of the span.
+     */
+    public Style getStyle(int i) { return styles[i]; }
+
+    /** @return The length of the text, not counting styles. */
+    public int length() { return plain.length(); }
+
+    /**
+     * Renders the text with the specified renderer, reusing the last rendering if it was made by the same renderer.
+     * @param renderer The renderer.
+     * @return The rendered text.
+     */
+    public String render(TextRenderer renderer)
+    {
+        Rendering r = rendering;
+        if (r == null || r.renderer != renderer)
+        {
+            r = new Rendering(renderer, renderer.render(this));
+            rendering = r;
+        }
+        return r.text;
+    }
+
+    /** @return The text, without styles. */
+    @Override
+    public String toString()
+    {
+        return plain;
+    }
+
+    /**
+     * @param obj The other object.
+     * @return {@code true} if the other object is styled text with the same spans.
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        boolean equal = obj == this;
+        if (!equal && obj instanceof StyledText)
+        {
+            StyledText other = (StyledText)obj;
+            equal = plain.equals(other.plain) && Arrays.equals(styles, other.styles) && Arrays.equals(texts, other.texts);
+        }
+        return equal;
+    }
+
+    /** @return The hash code of the spans. */
+    @Override
+    public int hashCode()
+    {
+        return 31 * plain.hashCode() + Arrays.hashCode(styles);
+    }
+
+    /**
+     * Builds styled text by appending spans. Adjacent spans in the same style are joined into one.
+     */
+    public static class Builder
+    {
+        /** The text of each finished span. */
+        private final List<String> texts;
+        /** The style of each finished span. */
+        private final List<Style> styles;
+        /** The text of every span, without styles. */
+        private final StringBuilder plain;
+        /** The start of the current span in the plain text. */
+        private int spanStart;
+        /** The style of the current span, or {@code null} if there is none. */
+        private Style spanStyle;
+
+        /**
+         * Constructs an empty builder.
+         */
+        private Builder()
+        {
+            this.texts = new ArrayList<String>();
+            this.styles = new ArrayList<Style>();
+            this.plain = new StringBuilder();
+            this.spanStart = 0;
+            this.spanStyle = null;
+        }
+
+        /**
+         * Appends text in the default style.
+         * @param text The text, converted to a string.
+         * @return This builder.
+         */
+        public Builder append(Object text)
+        {
+            return append(text, Style.NONE);
+        }
+
+        /**
+         * Appends text in the specified style.
+         * @param text The text, converted to a string.
+         * @param style The style of the text.
+         * @return This builder.
+         */
+        public Builder append(Object text, Style style)
+        {
+            String str = String.valueOf(text);
+            if (!str.isEmpty())
+            {
+                if (style != spanStyle)
+                {
+                    endSpan();
+                    spanStyle = style;
+                }
+                plain.append(str);
+            }
+            return this;
+        }
+
+        /**
+         * Appends the spans of styled text.
+         * @param text The styled text.
+         * @return This builder.
+         */
+        public Builder append(StyledText text)
+        {
+            for (int i = 0; i < text.texts.length; i++)
+            {
+                append(text.texts[i], text.styles[i]);
+            }
+            return this;
+        }
+
+        /** @return The styled text of the spans appended so far. */
+        public StyledText build()
+        {
+            endSpan();
+            spanStyle = null;
+            return texts.isEmpty() ? EMPTY
+                : new StyledText(texts.toArray(new String[0]), styles.toArray(new Style[0]), plain.toString());
+        }
+
+        /**
+         * Finishes the current span, if there is one.
+         */
+        private void endSpan()
+        {
+            if (spanStyle != null && plain.length() > spanStart)
+            {
+                texts.add(plain.substring(spanStart));
+                styles.add(spanStyle);
+            }
+            spanStart = plain.length();
+        }
+    }
+
+    /**
+     * The text rendered by a renderer.
+     */
+    private static class Rendering
+    {
+        /** The renderer. */
+        private final TextRenderer renderer;
+        /** The rendered text. */
+        private final String text;
+
+        /**
+         * Constructs a rendering.
+         * @param renderer The renderer.
+         * @param text The rendered text.
+         */
+        private Rendering(TextRenderer renderer, String text)
+        {
+            this.renderer = renderer;
+            this.text = text;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.model.text;
+
+/**
+ * Renders styled text into a form that can be displayed, such as text with colour codes or markup.
+ * 
+ * @author Rohan Khayech
+ * @see StyledText#render(TextRenderer)
+ */
+public interface TextRenderer
+{
+    /**
+     * Renders the spans of styled text.
+     * @param text The styled text.
+     * @return The rendered text.
+     */
+    public String render(StyledText text);
+}
\ No newline at end of file
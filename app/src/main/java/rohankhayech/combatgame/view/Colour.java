@@ -4,6 +4,8 @@
 
 package rohankhayech.combatgame.view;
 
+import java.util.regex.Pattern;
+
 /**
  * Class containing colour code constants for console colours.
  * 
@@ -34,4 +36,48 @@ public class Colour
     public static final String BRIGHT_MAGENTA = "\u001b[35;1m";
     public static final String BRIGHT_CYAN = "\u001b[36;1m";
     public static final String BRIGHT_WHITE = "\u001b[37;1m";
+
+    /** Pattern matching any colour code. */
+    private static final Pattern CODE = Pattern.compile("\u001b\\[[;\\d]*m");
+
+    /**
+     * Removes any colour codes from the given string.
+     * @param str The string.
+     * @return The string without colour codes.
+     */
+    public static String strip(String str)
+    {
+        return str.indexOf('\u001b') < 0 ? str : CODE.matcher(str).replaceAll("");
+    }
+
+    /**
+     * Returns the colour code with the specified constant name, such as {@code "BRIGHT_RED"}.
+     * @param name The name of the colour.
+     * @return The colour code.
+     * @throws IllegalArgumentException If there is no colour with the name.
+     */
+    public static String fromName(String name) throws IllegalArgumentException
+    {
+        String code;
+        switch (name)
+        {
+            case "RESET": code = RESET; break;
+            case "RED": code = RED; break;
+            case "GREEN": code = GREEN; break;
+            case "YELLOW": code = YELLOW; break;
+            case "BLUE": code = BLUE; break;
+            case "MAGENTA": code = MAGENTA; break;
+            case "CYAN": code = CYAN; break;
+            case "WHITE": code = WHITE; break;
+            case "BRIGHT_RED": code = BRIGHT_RED; break;
+            case "BRIGHT_GREEN": code = BRIGHT_GREEN; break;
+            case "BRIGHT_YELLOW": code = BRIGHT_YELLOW; break;
+            case "BRIGHT_BLUE": code = BRIGHT_BLUE; break;
+            case "BRIGHT_MAGENTA": code = BRIGHT_MAGENTA; break;
+            case "BRIGHT_CYAN": code = BRIGHT_CYAN; break;
+            case "BRIGHT_WHITE": code = BRIGHT_WHITE; break;
+            default: throw new IllegalArgumentException("Unknown colour: " + name);
+        }
+        return code;
+    }
 }
\ No newline at end of file
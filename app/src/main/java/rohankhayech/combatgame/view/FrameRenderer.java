@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.view;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.*;
+
+/**
+ * Renders the screens of the game into a reusable buffer, writing each screen to the console in a single call.
+ *
+ * Text is added to the current frame as it is printed, and the frame is written when it is flushed, such as before
+ * waiting for input. Clearing the screen starts a new frame with an ANSI clear screen code, discarding any text that
+ * has not been written yet, since it would be cleared straight away. The characters and the encoded bytes are kept in
+ * buffers that are reused for every frame, so rendering a frame only allocates when a frame is larger than any before.
+ *
+ * A frame can also be drawn over the previous one without clearing the screen, moving the cursor to the lines that
+ * changed with ANSI cursor addressing, so that only the changes are written. The renderer tracks the row the cursor
+ * is on, including lines that wrap at the width of the screen and lines of input echoed by the terminal, so a caller
+ * can tell when a frame may have scrolled the screen and needs to be drawn in full.
+ *
+ * @author Rohan Khayech
+ * @see View
+ */
+public class FrameRenderer
+{
+    /** ANSI code that clears the screen and moves the cursor to the top left corner. */
+    public static final String CLEAR_SCREEN = "\u001b[2J\u001b[H";
+    /** ANSI code that clears the rest of the line after the cursor. */
+    public static final String ERASE_LINE = "\u001b[K";
+    /** ANSI code that clears the rest of the screen after the cursor. */
+    public static final String ERASE_BELOW = "\u001b[J";
+    /** Default number of columns the screen is assumed to have. */
+    public static final int DEF_COLUMNS = 80;
+
+    /** The stream frames are written to. */
+    private final PrintStream out;
+    /** The encoder of the stream's character set. */
+    private final CharsetEncoder encoder;
+    /** The text of the current frame. */
+    private final StringBuilder text;
+    /** The encoded bytes of the frame being written. */
+    private ByteBuffer bytes;
+    /** The row of the screen the cursor is on after the current frame, starting from 1 at the top. */
+    private int row;
+    /** The number of characters before the cursor on its row. */
+    private int column;
+    /** The number of columns of the screen, after which lines wrap onto the next row. */
+    private int columns;
+
+    /**
+     * Constructs a renderer writing to standard output.
+     */
+    public FrameRenderer()
+    {
+        this(System.out, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructs a renderer writing to the specified stream.
+     * @param out The stream to write frames to.
+     * @param charset The character set of the stream.
+     */
+    public FrameRenderer(PrintStream out, Charset charset)
+    {
+        this.out = out;
+        this.encoder = charset.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.text = new StringBuilder(4096);
+        this.bytes = ByteBuffer.allocate(4096);
+        this.row = 1;
+        this.column = 0;
+        this.columns = DEF_COLUMNS;
+    }
+
+    /**
+     * Sets the number of columns the screen is assumed to have, after which lines wrap onto the next row.
+     * @param columns The number of columns.
+     */
+    public void setColumns(int columns)
+    {
+        this.columns = columns;
+    }
+
+    /**
+     * Starts a new frame that clears the screen, discarding any text that has not been written yet.
+     * @return This renderer.
+     */
+    public FrameRenderer clear()
+    {
+        text.setLength(0);
+        text.append(CLEAR_SCREEN);
+        row = 1;
+        column = 0;
+        return this;
+    }
+
+    /**
+     * Starts a new frame drawn over the previous one without clearing the screen, discarding any text that has not
+     * been written yet. The frame should move the cursor to each row it draws on.
+     * @return This renderer.
+     */
+    public FrameRenderer redraw()
+    {
+        text.setLength(0);
+        return this;
+    }
+
+    /**
+     * Moves the cursor to the start of a row of the screen.
+     * @param row The row, starting from 1 at the top.
+     * @return This renderer.
+     */
+    public FrameRenderer moveTo(int row)
+    {
+        text.append("\u001b[").append(row).append(";1H");
+        this.row = row;
+        this.column = 0;
+        return this;
+    }
+
+    /**
+     * Clears the rest of the line after the cursor.
+     * @return This renderer.
+     */
+    public FrameRenderer eraseLine()
+    {
+        text.append(ERASE_LINE);
+        return this;
+    }
+
+    /**
+     * Clears the rest of the screen after the cursor.
+     * @return This renderer.
+     */
+    public FrameRenderer eraseBelow()
+    {
+        text.append(ERASE_BELOW);
+        return this;
+    }
+
+    /**
+     * Adds text to the current frame.
+     * @param str The text.
+     * @return This renderer.
+     */
+    public FrameRenderer print(Object str)
+    {
+        int start = text.length();
+        text.append(str);
+        countRows(text, start);
+        return this;
+    }
+
+    /**
+     * Adds a line of text to the current frame.
+     * @param str The text.
+     * @return This renderer.
+     */
+    public FrameRenderer println(Object str)
+    {
+        print(str);
+        return println();
+    }
+
+    /**
+     * Adds a line break to the current frame.
+     * @return This renderer.
+     */
+    public FrameRenderer println()
+    {
+        text.append('\n');
+        row++;
+        column = 0;
+        return this;
+    }
+
+    /**
+     * Moves the cursor past a line of input that the terminal echoed after the written frame,
+     * such as when the user typed a line and pressed ENTER.
+     * @param line The line of input, without its line terminator.
+     */
+    public void echo(CharSequence line)
+    {
+        countRows(line, 0);
+        row++;
+        column = 0;
+    }
+
+    /** @return The row of the screen the cursor is on after the current frame, starting from 1 at the top. */
+    public int getRow()
+    {
+        return row;
+    }
+
+    /**
+     * Adds indentation to the current frame.
+     * @param width The number of spaces to indent by.
+     * @return This renderer.
+     */
+    public FrameRenderer indent(int width)
+    {
+        for (int i = 0; i < width; i++)
+        {
+            text.append(' ');
+        }
+        return this;
+    }
+
+    /**
+     * Writes the current frame to the stream in a single call, if it contains any text, and starts a new frame.
+     */
+    public void flush()
+    {
+        if (text.length() == 0)
+        {
+            return;
+        }
+
+        // Encode the frame into the reused byte buffer, growing it if the frame does not fit.
+        CharBuffer chars = CharBuffer.wrap(text);
+        bytes.clear();
+        encoder.reset();
+        CoderResult result;
+        do
+        {
+            result = encoder.encode(chars, bytes, true);
+            if (result.isUnderflow())
+            {
+                result = encoder.flush(bytes);
+            }
+            if (result.isOverflow())
+            {
+                ByteBuffer larger = ByteBuffer.allocate(bytes.capacity() * 2);
+                bytes.flip();
+                larger.put(bytes);
+                bytes = larger;
+            }
+        }
+        while (result.isOverflow());
+
+        out.write(bytes.array(), 0, bytes.position());
+        out.flush();
+        text.setLength(0);
+    }
+
+    /**
+     * Moves the cursor down a row for each line break in some text from the specified position, and for each time
+     * the text wraps at the width of the screen. ANSI escape codes take up no columns.
+     * @param str The text.
+     * @param start The position in the text to start from.
+     */
+    private void countRows(CharSequence str, int start)
+    {
+        int length = str.length();
+        for (int i = start; i < length; i++)
+        {
+            char c = str.charAt(i);
+            if (c == '\u001b' && i + 1 < length && str.charAt(i + 1) == '[')
+            {
+                // Skip to the final character of the escape code.
+                i += 2;
+                while (i < length && (str.charAt(i) < '@' || str.charAt(i) > '~'))
+                {
+                    i++;
+                }
+            }
+            else if (c == '\n')
+            {
+                row++;
+                column = 0;
+            }
+            else if (c == '\r')
+            {
+                column = 0;
+            }
+            else if (column == columns)
+            {
+                // The terminal wraps before printing a character past the last column.
+                row++;
+                column = 1;
+            }
+            else
+            {
+                column++;
+            }
+        }
+    }
+}
\ No newline at end of file
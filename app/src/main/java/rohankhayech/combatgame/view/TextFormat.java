@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022 Rohan Khayech
+ */
+
+package rohankhayech.combatgame.view;
+
+import java.util.Locale;
+
+import rohankhayech.combatgame.model.text.*;
+
+/**
+ * Formats that styled text can be rendered to for display.
+ * 
+ * @author Rohan Khayech
+ * @see StyledText#render(TextRenderer)
+ */
+public enum TextFormat implements TextRenderer
+{
+    /** Text without any styles, such as for logs or terminals without colour. */
+    PLAIN
+    {
+        @Override
+        public String render(StyledText text)
+        {
+            return text.toString();
+        }
+    },
+
+    /** Text with ANSI colour codes, for the console. */
+    ANSI
+    {
+        @Override
+        public String render(StyledText text)
+        {
+            StringBuilder sb = new StringBuilder(text.length() + 16 * text.getSpanCount());
+            for (int i = 0; i < text.getSpanCount(); i++)
+            {
+                Style style = text.getStyle(i);
+                if (style == Style.NONE)
+                {
+                    sb.append(text.getText(i));
+                }
+                else
+                {
+                    sb.append(Colour.fromName(style.name())).append(text.getText(i)).append(Colour.RESET);
+                }
+            }
+            return sb.toString();
+        }
+    },
+
+    /** HTML, with each styled span in a coloured {@code span} element. */
+    HTML
+    {
+        @Override
+        public String render(StyledText text)
+        {
+            StringBuilder sb = new StringBuilder(text.length() + 48 * text.getSpanCount());
+            for (int i = 0; i < text.getSpanCount(); i++)
+            {
+                Style style = text.getStyle(i);
+                if (style != Style.NONE)
+                {
+                    String colour = style.name().replace("BRIGHT_", "").toLowerCase(Locale.ROOT);
+                    sb.append("<span style=\"color:").append(colour).append(style.isBright() ? ";font-weight:bold\">" : "\">");
+                }
+                escape(sb, text.getText(i));
+                if (style != Style.NONE)
+                {
+                    sb.append("</span>");
+                }
+            }
+            return sb.toString();
+        }
+    };
+
+    /**
+     * Renders styled text in this format, reusing the text's cached rendering if it was last rendered in this format.
+     * @param text The styled text.
+     * @return The rendered text.
+     */
+    public String format(StyledText text)
+    {
+        return text.render(this);
+    }
+
+    /**
+     * Appends text to a builder, escaping any characters that have a special meaning in HTML.
+     * @param sb The builder.
+     * @param str The text.
+     */
+    private static void escape(StringBuilder sb, String str)
+    {
+        for (int i = 0; i < str.length(); i++)
+        {
+            char c = str.charAt(i);
+            switch (c)
+            {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '"': sb.append("&quot;"); break;
+                case '\n': sb.append("<br>"); break;
+                default: sb.append(c);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -4,11 +4,14 @@
 
 package rohankhayech.combatgame.view;
 
-import java.util.Scanner;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import rohankhayech.combatgame.controller.Battle;
 import rohankhayech.combatgame.model.character.*;
 import rohankhayech.combatgame.model.item.*;
+import rohankhayech.combatgame.model.text.*;
 
 /**
  * Display class that can display a HUD above menus and print other game information.
@@ -34,6 +37,11 @@ public class View {
         WON
     }
 
+    /** Default number of rows the screen is assumed to have. */
+    public static final int DEF_SCREEN_ROWS = 24;
+    /** Default number of columns the screen is assumed to have. */
+    public static final int DEF_SCREEN_COLUMNS = FrameRenderer.DEF_COLUMNS;
+
     /** Singleton object of the view. */
     private static View instance = null;
 
@@ -45,6 +53,32 @@ public class View {
     private Player plr;
     /** The current battle to be displayed. */
     private Battle battle;
+    /** The renderer that builds and writes each screen. */
+    private final FrameRenderer frame;
+
+    /** The format styled text is rendered to for display. */
+    private TextFormat textFormat;
+
+    /** The lines of the current HUD. */
+    private List<StyledText> hudLines;
+    /** The lines of the HUD shown on the screen, or {@code null} if nothing has been shown yet. */
+    private List<StyledText> shownLines;
+    /** The type of HUD the lines were built for. */
+    private HUD builtHUD;
+    /** Whether anything displayed in the HUD has changed since its lines were built. */
+    private boolean hudDirty;
+    /** Observer marking the HUD as changed when a displayed character changes. */
+    private final CharacterObserver hudObserver;
+    /** Subscription of the HUD to the displayed player, or {@code null} if no player is displayed. */
+    private Subscription plrSub;
+    /** Subscription of the HUD to the displayed enemy, or {@code null} if no enemy is displayed. */
+    private Subscription enSub;
+    /** Number of rows the screen is assumed to have. A screen taller than this may have scrolled. */
+    private int screenRows;
+    /** Messages reported by other threads, waiting to be printed by the game thread when the view is next cleared. */
+    private final Queue<String> reports;
+    /** Reader of the lines the user types. */
+    private final BufferedReader input;
 
     /**
      * Returns a reference to the current {@code View} object 
@@ -52,7 +86,7 @@ public class View {
      * 
      * @return The current {@code View} object.
      */
-    public static View getInstance()
+    public static synchronized View getInstance()
     {
         if (instance == null)
         {
@@ -70,6 +104,51 @@ public class View {
         this.message = "";
         this.plr = null;
         this.battle = null;
+        this.frame = new FrameRenderer();
+        this.textFormat = TextFormat.ANSI;
+        this.hudLines = new ArrayList<StyledText>();
+        this.shownLines = null;
+        this.builtHUD = null;
+        this.hudDirty = true;
+        this.hudObserver = new CharacterObserver() {
+            @Override
+            public void onDeath(GameCharacter gChar) { /*Do nothing*/ }
+
+            @Override
+            public void onAttack(GameCharacter gChar) { /*Do nothing*/ }
+
+            @Override
+            public void onChange(GameCharacter gChar) {
+                hudDirty = true;
+            }
+        };
+        this.plrSub = null;
+        this.enSub = null;
+        this.screenRows = screenSize("LINES", DEF_SCREEN_ROWS);
+        this.frame.setColumns(screenSize("COLUMNS", DEF_SCREEN_COLUMNS));
+        this.reports = new ConcurrentLinkedQueue<String>();
+        this.input = new BufferedReader(new InputStreamReader(System.in));
+    }
+
+    /**
+     * Reads a size of the screen from an environment variable, as set by some shells.
+     * @param name The name of the variable.
+     * @param def The size to use if the variable is not set or is not a positive number.
+     * @return The size.
+     */
+    private static int screenSize(String name, int def)
+    {
+        int size = def;
+        String value = System.getenv(name);
+        if (value != null)
+        {
+            try {
+                size = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                size = def;
+            }
+        }
+        return size > 0 ? size : def;
     }
 
     /**
@@ -99,10 +178,28 @@ public class View {
     }
 
     /**
-     * Prints the current HUD.
+     * Prints the current HUD in full.
      */
     public void printHUD()
     {
+        updateHUD();
+        for (StyledText line : hudLines)
+        {
+            frame.println(format(line));
+        }
+    }
+
+    /**
+     * Rebuilds the lines of the current HUD, if the HUD or anything it displays has changed since they were built.
+     */
+    private void updateHUD()
+    {
+        if (!hudDirty && builtHUD == curHUD)
+        {
+            return;
+        }
+
+        hudLines = new ArrayList<StyledText>();
         switch (curHUD)
         {
             case MAIN:
@@ -118,19 +215,53 @@ public class View {
                 printEndHUD();
             default:
         }
-        System.out.println("\n");
+        hudLine("\n");
+        hudDirty = false;
+        builtHUD = curHUD;
+    }
+
+    /**
+     * Adds text to the current HUD, as one line for each line of the text.
+     * @param str The text.
+     */
+    private void hudLine(String str)
+    {
+        for (String line : str.split("\n", -1))
+        {
+            hudLines.add(StyledText.plain(line));
+        }
+    }
+
+    /**
+     * Adds a line of styled text to the current HUD.
+     * @param line The line.
+     */
+    private void hudLine(StyledText line)
+    {
+        hudLines.add(line);
+    }
+
+    /**
+     * Adds a line showing a stat to the current HUD.
+     * @param label The label of the stat.
+     * @param value The value of the stat.
+     * @param style The style of the value.
+     */
+    private void hudStat(String label, String value, Style style)
+    {
+        hudLine(StyledText.builder().append(label).append(value, style).build());
     }
 
     /**
      * Prints the Main HUD.
      */
     private void printMainHUD() {
-        System.out.println(plr.getName());
+        hudLine(plr.getStyledName());
         //printHealthBar(plr.getHealth(), plr.getMaxHealth());
-        System.out.println("HEALTH: "+Colour.BRIGHT_RED+plr.getHealth()+"/"+plr.getMaxHealth()+"HP"+Colour.RESET);
-        System.out.println("GOLD: "+Colour.BRIGHT_YELLOW+plr.getGold()+Colour.RESET);
-        System.out.println("ATT: "+Colour.BRIGHT_RED+plr.getMinAttack()+"-"+plr.getMaxAttack()+Colour.RESET);
-        System.out.println("DEF: "+Colour.BRIGHT_CYAN+plr.getMinDefence()+"-"+plr.getMaxDefence()+Colour.RESET);
+        hudStat("HEALTH: ", plr.getHealth()+"/"+plr.getMaxHealth()+"HP", Style.BRIGHT_RED);
+        hudStat("GOLD: ", ""+plr.getGold(), Style.BRIGHT_YELLOW);
+        hudStat("ATT: ", plr.getMinAttack()+"-"+plr.getMaxAttack(), Style.BRIGHT_RED);
+        hudStat("DEF: ", plr.getMinDefence()+"-"+plr.getMaxDefence(), Style.BRIGHT_CYAN);
         printInventory();
     }
 
@@ -138,38 +269,38 @@ public class View {
      * Prints the Battle HUD.
      */
     private void printBattleHUD() {
-        System.out.println(plr.getName());
+        hudLine(plr.getStyledName());
         //printHealthBar(plr.getHealth(),plr.getMaxHealth());
-        System.out.println("HEALTH: "+Colour.BRIGHT_RED+plr.getHealth()+"/"+plr.getMaxHealth()+"HP"+Colour.RESET);
-        System.out.println("GOLD: "+Colour.BRIGHT_YELLOW+plr.getGold()+Colour.RESET);
-        System.out.println("ATT: "+Colour.BRIGHT_RED+plr.getMinAttack()+"-"+plr.getMaxAttack()+Colour.RESET);
-        System.out.println("DEF: "+Colour.BRIGHT_CYAN+plr.getMinDefence()+"-"+plr.getMaxDefence()+Colour.RESET);
-        System.out.println("");
+        hudStat("HEALTH: ", plr.getHealth()+"/"+plr.getMaxHealth()+"HP", Style.BRIGHT_RED);
+        hudStat("GOLD: ", ""+plr.getGold(), Style.BRIGHT_YELLOW);
+        hudStat("ATT: ", plr.getMinAttack()+"-"+plr.getMaxAttack(), Style.BRIGHT_RED);
+        hudStat("DEF: ", plr.getMinDefence()+"-"+plr.getMaxDefence(), Style.BRIGHT_CYAN);
+        hudLine("");
 
         Enemy en = battle.getEnemy();
-        System.out.println(en.getName());
+        hudLine(en.getStyledName());
         //printHealthBar(en.getHealth(), en.getMaxHealth());
-        System.out.println("HEALTH: "+Colour.BRIGHT_RED+en.getHealth()+"/"+en.getMaxHealth()+"HP"+Colour.RESET);
-        System.out.println("ATT: "+Colour.BRIGHT_RED+en.getMinAttack()+"-"+en.getMaxAttack()+Colour.RESET);
-        System.out.println("DEF: "+Colour.BRIGHT_CYAN+en.getMinDefence()+"-"+en.getMaxDefence()+Colour.RESET);
+        hudStat("HEALTH: ", en.getHealth()+"/"+en.getMaxHealth()+"HP", Style.BRIGHT_RED);
+        hudStat("ATT: ", en.getMinAttack()+"-"+en.getMaxAttack(), Style.BRIGHT_RED);
+        hudStat("DEF: ", en.getMinDefence()+"-"+en.getMaxDefence(), Style.BRIGHT_CYAN);
     }
 
     /**
      * Prints the Dead HUD
      */
     private void printDeadHUD() {
-        System.out.println(plr.getName());
-        System.out.println(Colour.BRIGHT_RED + "DEAD" + Colour.RESET);
-        System.out.println("FINAL GOLD SCORE: " + Colour.BRIGHT_YELLOW + plr.getGold() + Colour.RESET);
+        hudLine(plr.getStyledName());
+        hudLine(StyledText.of("DEAD", Style.BRIGHT_RED));
+        hudStat("FINAL GOLD SCORE: ", ""+plr.getGold(), Style.BRIGHT_YELLOW);
     }
 
     /**
      * Prints the End HUD
      */
     private void printEndHUD() {
-        System.out.println(plr.getName());
-        System.out.println(Colour.BRIGHT_YELLOW + "HERO, SLAYER OF DRAGONS" + Colour.RESET);
-        System.out.println("FINAL GOLD SCORE: " + Colour.BRIGHT_YELLOW + plr.getGold() + Colour.RESET);
+        hudLine(plr.getStyledName());
+        hudLine(StyledText.of("HERO, SLAYER OF DRAGONS", Style.BRIGHT_YELLOW));
+        hudStat("FINAL GOLD SCORE: ", ""+plr.getGold(), Style.BRIGHT_YELLOW);
     }
 
     /**
@@ -178,17 +309,20 @@ public class View {
     private void printInventory()
     {
         //Print out the chosen weapon and armour.
-        System.out.println("\nChosen Weapon:");
-        System.out.println(plr.getWeapon().toString());
-        System.out.println("\nChosen Armour:");
-        System.out.println(plr.getArmour().toString());
+        hudLine("\nChosen Weapon:");
+        hudLine(plr.getWeapon().describe());
+        hudLine("\nChosen Armour:");
+        hudLine(plr.getArmour().describe());
         
         //Print the remaining items.
-        System.out.println("\nInventory:");
+        hudLine("\nInventory:");
         for (Item i : plr.getInventory())
         {
-            if (i != plr.getWeapon() && i != plr.getArmour())
-                System.out.println(i.toString());
+            int count = plr.getSpareCount(i);
+            if (count > 0)
+            {
+                hudLine(count > 1 ? StyledText.builder().append(i.describe()).append(" x" + count).build() : i.describe());
+            }
         }
     }
 
@@ -200,23 +334,20 @@ public class View {
     private void printHealthBar(int health, int maxHealth)
     {
         int i;
+        StringBuilder remaining = new StringBuilder();
+        StringBuilder lost = new StringBuilder();
         //print out remaining health
-        System.out.print("|"+Colour.RED);
         for (i=0; i<health; i++)
         {
-            
-            System.out.print("-");
-            
+            remaining.append("-");
         }
-        System.out.print(Colour.RESET);
 
         //print out lost health
         for (i=health; i<maxHealth; i++)
         {
-            System.out.print("-");
+            lost.append("-");
         }
-        System.out.print("|");
-        System.out.println();
+        hudLine(StyledText.builder().append("|").append(remaining, Style.RED).append(lost).append("|").build());
     }
 
     /**
@@ -224,7 +355,15 @@ public class View {
      * @param plr The player object.
      */
     public void setPlayer(Player plr) {
+        if (plrSub != null) {
+            plrSub.close();
+            plrSub = null;
+        }
         this.plr = plr;
+        if (plr != null) {
+            plrSub = plr.subscribe(hudObserver);
+        }
+        hudDirty = true;
     }
 
     /**
@@ -233,31 +372,117 @@ public class View {
      */
     public void setBattle(Battle battle)
     {
+        if (enSub != null)
+        {
+            enSub.close();
+            enSub = null;
+        }
         this.battle = battle;
+        if (battle != null && battle.getEnemy() != null)
+        {
+            enSub = battle.getEnemy().subscribe(hudObserver);
+        }
+        hudDirty = true;
     }
 
     /**
-     * Prints out the description of the given attack.
-     * @param att The attack to print.
+     * Sets the number of rows the screen is assumed to have. Screens taller than this are cleared in full,
+     * as they may have scrolled, so only shorter screens have just their changed HUD lines rewritten.
+     * @param rows The number of rows.
      */
-    public void printAttack(Attack att)
+    public void setScreenRows(int rows)
     {
-        clear();
-        System.out.println(att.getDescription());
-        waitForUser();
+        this.screenRows = rows;
+    }
+
+    /**
+     * Sets the number of columns the screen is assumed to have, after which lines wrap onto the next row.
+     * @param columns The number of columns.
+     */
+    public void setScreenColumns(int columns)
+    {
+        frame.setColumns(columns);
     }
 
     /**
-     * Prints out the description of the given defence.
-     * @param def The defence to print.
+     * Prints out the description of each event recorded in the given battle log, then clears the log.
+     * @param log The battle log to print.
      */
-    public void printDefence(Defence def)
+    public void printEvents(BattleLog log)
     {
         clear();
-        System.out.println(def.getDescription());
+        StyledText.Builder sb = StyledText.builder();
+        for (int i = 0; i < log.size(); i++)
+        {
+            describeEvent(sb, log.getType(i), log.getActor(i), log.getSubject(i), log.getValue(i));
+            sb.append("\n");
+        }
+        log.clear();
+        frame.println(format(sb.build()));
         waitForUser();
     }
 
+    /**
+     * Appends a line describing a battle event to the given builder.
+     *
+     * @param sb      The builder to append to.
+     * @param type    The type of event.
+     * @param actor   The character that performed the event.
+     * @param subject The subject of the event.
+     * @param value   The value of the event.
+     */
+    private void describeEvent(StyledText.Builder sb, BattleEvent type, GameCharacter actor, Object subject, int value)
+    {
+        // Abilities describe themselves with the name in place, all other events start with the name.
+        if (type != BattleEvent.ABILITY)
+        {
+            sb.append(actor.getStyledName());
+        }
+
+        switch (type)
+        {
+            case ABILITY:
+                sb.append(((EnemyAbility)subject).describe(actor.getStyledName()));
+            break;
+
+            case ATTACK_START:
+                sb.append(" attacks!");
+            break;
+
+            case ATTACK:
+                sb.append(" attacked, dealing " + value + "DP.");
+            break;
+
+            case WEAPON_ATTACK:
+                sb.append(" attacked with ").append(((Item)subject).describe()).append(", dealing " + value + "DP.");
+            break;
+
+            case POTION_HEAL:
+                sb.append(" used ").append(((Item)subject).getStyledName()).append(", gaining ")
+                  .append(value + "HP", Style.BRIGHT_GREEN).append(".");
+            break;
+
+            case POTION_DAMAGE:
+                sb.append(" attacked with ").append(((Item)subject).getStyledName()).append(", dealing ")
+                  .append(value + "DP", Style.BRIGHT_RED).append(".");
+            break;
+
+            case POTION_FAILED:
+                sb.append(" used ").append(((Item)subject).getStyledName()).append(". It was not very effective.");
+            break;
+
+            case DEFEND:
+                sb.append(" deflected " + value + "DP.");
+            break;
+
+            case HEALTH_LOST:
+                sb.append(" lost ").append(value + "HP", Style.RED).append(".");
+            break;
+
+            default:
+        }
+    }
+
     /**
      * Prints a death message for the given character.
      * 
@@ -265,7 +490,8 @@ public class View {
      */
     public void printDeathMessage(GameCharacter gChar)
     {
-        System.out.println(gChar.getName() + " died, dropping " + Colour.BRIGHT_YELLOW + gChar.getGold() + "G" + Colour.RESET + ".");
+        frame.println(format(StyledText.builder().append(gChar.getStyledName()).append(" died, dropping ")
+            .append(gChar.getGold() + "G", Style.BRIGHT_YELLOW).append(".").build()));
         waitForUser();
     }
 
@@ -277,11 +503,11 @@ public class View {
         try {
             setHUD(HUD.DEAD);
         } catch (ViewException e) {
-            System.out.println(e.toString());
+            frame.println(e.toString());
         }
 
         clear();
-        System.out.println(Colour.BRIGHT_RED+"G A M E   O V E R"+Colour.RESET);
+        frame.println(format(StyledText.of("G A M E   O V E R", Style.BRIGHT_RED)));
         waitForUser("end the game");
     }
 
@@ -292,11 +518,11 @@ public class View {
         try {
             setHUD(HUD.WON);
         } catch (ViewException e) {
-            System.out.println(e.toString());
+            frame.println(e.toString());
         }
 
         clear();
-        System.out.println(Colour.BRIGHT_GREEN + "G A M E   C O M P L E T E" + Colour.RESET);
+        frame.println(format(StyledText.of("G A M E   C O M P L E T E", Style.BRIGHT_GREEN)));
         waitForUser();
     }
 
@@ -321,35 +547,151 @@ public class View {
     }
 
     /**
-     * Prints and then resets the current view message.
+     * Reports a message, such as an error, from a thread other than the game thread, which must not write to the
+     * console while a screen is shown. The message is printed below the HUD the next time the view clears.
+     * Can be called from any thread.
+     * @param str The message.
+     */
+    public void report(String str)
+    {
+        reports.add(str);
+    }
+
+    /**
+     * Prints and then resets the current view message, followed by any reported messages.
      */
     private void printMessage()
     {
-        System.out.println(message);
+        frame.println(message);
         message = "";
+
+        String report;
+        while ((report = reports.poll()) != null)
+        {
+            frame.println(report);
+        }
     }
 
     /**
      * Clears the screen and redraws the current HUD and view message.
+     * The screen is written when the frame is next flushed, such as when waiting for the user.
+     *
+     * The HUD is only rebuilt when the player or enemy it displays has changed, and if the previous screen and the
+     * input read below it fit on the terminal, the new screen is drawn over it, rewriting only the HUD lines that
+     * changed and everything below the HUD. Input must be read with {@code readLine} so that it is counted, and
+     * anything else shown while the screen is up must be reported with {@code report} rather than written to the
+     * console. If the user typed ahead, the terminal may have echoed more lines, so the screen is drawn in full.
      */
     public void clear()
     {
-        for (int i=0;i<40;i++)
+        updateHUD();
+
+        if (shownLines == null || frame.getRow() > screenRows || hasTypedAhead())
         {
-            System.out.println("");
+            // Clear the screen and print the whole HUD.
+            frame.clear();
+            printHUD();
         }
-        printHUD();
+        else
+        {
+            // Move the cursor to each changed line and rewrite it, then clear the rest of the screen below the HUD.
+            frame.redraw();
+            for (int i = 0; i < hudLines.size(); i++)
+            {
+                if (i >= shownLines.size() || !hudLines.get(i).equals(shownLines.get(i)))
+                {
+                    frame.moveTo(i + 1).print(format(hudLines.get(i))).eraseLine();
+                }
+            }
+            frame.moveTo(hudLines.size() + 1).eraseBelow();
+        }
+        shownLines = hudLines;
+
         printMessage();
     }
 
+    /**
+     * Renders styled text in the view's text format, such as to add it to a menu or message.
+     * @param text The styled text.
+     * @return The rendered text.
+     */
+    public String format(StyledText text)
+    {
+        return textFormat.format(text);
+    }
+
+    /**
+     * Sets the format styled text is rendered to, such as plain text for terminals without colour.
+     * The next screen is drawn in full.
+     * @param textFormat The text format.
+     */
+    public void setTextFormat(TextFormat textFormat)
+    {
+        this.textFormat = textFormat;
+        this.shownLines = null;
+    }
+
+    /**
+     * Returns the renderer of the current screen, so that other text such as menus can be added to it.
+     * Text added to it is written the next time the frame is flushed.
+     * @return The frame renderer.
+     */
+    public FrameRenderer getFrame()
+    {
+        return frame;
+    }
+
+    /**
+     * Writes the current screen to the console in a single call.
+     * Must be called before reading input, so that the user can see the prompt.
+     */
+    public void flush()
+    {
+        frame.flush();
+    }
+
+    /**
+     * Reads a line typed by the user, noting that the terminal echoed it below the current screen.
+     * @return The line, without its line terminator.
+     * @throws NoSuchElementException If there is no more input.
+     */
+    public String readLine() throws NoSuchElementException
+    {
+        String line;
+        try {
+            line = input.readLine();
+        } catch (IOException e) {
+            line = null;
+        }
+        if (line == null)
+        {
+            throw new NoSuchElementException("No line found");
+        }
+        frame.echo(line);
+        return line;
+    }
+
+    /**
+     * Checks whether the user has typed input that has not been read yet, which the terminal has already echoed.
+     * @return {@code true} if there may be unread input, {@code false} otherwise.
+     */
+    private boolean hasTypedAhead()
+    {
+        try {
+            return input.ready();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
     /** 
      * Causes the program to wait until the user presses the ENTER key.
      */
     public void waitForUser()
     {
-        Scanner sc = new Scanner(System.in);
-        System.out.println("Press ENTER to continue...");
-        sc.nextLine();
+        frame.println("Press ENTER to continue...");
+        frame.flush();
+        readLine();
     }
 
     /**
@@ -359,8 +701,8 @@ public class View {
      * Displayed as "Press ENTER to {@code action}..."
      */
     public void waitForUser(String action) {
-        Scanner sc = new Scanner(System.in);
-        System.out.println("Press ENTER to "+action+"...");
-        sc.nextLine();
+        frame.println("Press ENTER to "+action+"...");
+        frame.flush();
+        readLine();
     }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ package rohankhayech.combatgame.view.menu;
 
 import java.util.*;
 
+import rohankhayech.combatgame.view.FrameRenderer;
 import rohankhayech.combatgame.view.View;
 
 /**
@@ -94,24 +95,19 @@ public class Menu extends MenuItem
 
     /**
      * Prints all elements in the menu and their option number to the screen. 
+     * The menu is added to the screen below the HUD, which is then written in a single call.
      */
     private void displayMenu()
     {
         view.clear();
         
-        for(int l=0; l<level; l++)
-        {
-            System.out.print(" ") ;
-        }
-        System.out.println(title);
+        FrameRenderer frame = view.getFrame();
+        frame.indent(level).println(title);
         for(MenuItem i : items)
         {
-            for(int l=0; l<level; l++)
-            {
-               System.out.print(" ");
-            }
-            System.out.println("> "+i.getSelNum()+". "+i.getTitle());
+            frame.indent(level).print("> ").print(i.getSelNum()).print(". ").println(i.getTitle());
         }
+        view.flush();
     }
 
     /**
@@ -120,8 +116,13 @@ public class Menu extends MenuItem
     private MenuReturn getSelection()
     {
         MenuReturn ret = null;
-        Scanner sc = new Scanner(System.in);
         try {
+            // Skip blank lines, as pressing ENTER alone does not make a selection.
+            Scanner sc = new Scanner(view.readLine());
+            while (!sc.hasNext())
+            {
+                sc = new Scanner(view.readLine());
+            }
             int selection = sc.nextInt();
             if (selection <= 0 || selection > items.size()) {
                 view.println("Please select a valid option...");